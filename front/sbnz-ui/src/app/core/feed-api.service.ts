@@ -8,7 +8,8 @@ export interface PostDTO {
   hashtags: string[]; likes: number; reports: number;
   createdAtEpochMs: number;
 }
-export interface Page<T> { content: T[]; page: number; size: number; totalElements: number; }
+// nextCursor izostaje na poslednjoj strani; vraća se neizmenjen u ?cursor= za sledeću
+export interface CursorPage<T> { content: T[]; size: number; nextCursor?: string | null; }
 export interface RecDTO { post: PostDTO; score: number; reasons: string[]; }
 
 @Injectable({ providedIn: 'root' })
@@ -19,9 +20,10 @@ export class FeedApiService {
   constructor(private http: HttpClient) {}
 
   // Backend koristi token za identitet; userId/days nisu potrebni u query-ju
-  getFriendsFeed(_userId: string, _days = 1, page = 0, size = 20): Observable<Page<PostDTO>> {
-    const params = new HttpParams().set('page', page).set('size', size);
-    return this.http.get<Page<PostDTO>>(`${this.feedBase}/friends`, { params });
+  getFriendsFeed(_userId: string, _days = 1, cursor: string | null = null, size = 20): Observable<CursorPage<PostDTO>> {
+    let params = new HttpParams().set('size', size);
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<CursorPage<PostDTO>>(`${this.feedBase}/friends`, { params });
   }
 
   getRecommended(limit = 20): Observable<RecDTO[]> {
@@ -30,8 +32,9 @@ export class FeedApiService {
   }
 
 
-  getPostsByAuthor(authorId: string): Observable<PostDTO[]> {
-    const params = new HttpParams().set('authorId', authorId);
-    return this.http.get<PostDTO[]>(`${this.postsBase}/by-author`, { params });
+  getPostsByAuthor(authorId: string, cursor: string | null = null, size = 20): Observable<CursorPage<PostDTO>> {
+    let params = new HttpParams().set('authorId', authorId).set('size', size);
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<CursorPage<PostDTO>>(`${this.postsBase}/by-author`, { params });
   }
 }
@@ -1,6 +1,6 @@
 import { Component, OnInit } from '@angular/core';
 import { CommonModule, DatePipe } from '@angular/common';
-import { FeedApiService, Page, PostDTO, RecDTO } from '../../core/feed-api.service';
+import { FeedApiService, CursorPage, PostDTO, RecDTO } from '../../core/feed-api.service';
 import { PostService } from '../../core/post.service';
 import { Post } from '../../core/models/post';
 import {RecommendedAdsComponent} from '../recommended-ads/recommended-ads.component';
@@ -15,14 +15,14 @@ import {RecommendedAdsComponent} from '../recommended-ads/recommended-ads.compon
 export class FeedComponent implements OnInit {
   userId: string | null = null;
 
-  // Friends feed (Page<PostDTO>)
-  friendsPage = 0;
+  // Friends feed (CursorPage<PostDTO>)
+  friendsCursor: string | null = null;
   friendsSize = 20;
   friendsDays = 1; // backend trenutno ignoriše; DRL filtrira 24h
   friendsLoading = false;
   friendsError: string | null = null;
   friends: PostDTO[] = [];
-  friendsTotal = 0;
+  friendsHasMore = false;
 
   // Recommended feed (RecDTO[])
   recLoading = false;
@@ -68,15 +68,15 @@ export class FeedComponent implements OnInit {
   // Friends
   loadFriends(reset = false): void {
     if (!this.userId || this.friendsLoading) return;
-    if (reset) { this.friendsPage = 0; this.friends = []; this.friendsTotal = 0; }
+    if (reset) { this.friendsCursor = null; this.friends = []; this.friendsHasMore = false; }
     this.friendsLoading = true; this.friendsError = null;
 
-    this.api.getFriendsFeed(this.userId, this.friendsDays, this.friendsPage, this.friendsSize).subscribe({
-      next: (page: Page<PostDTO>) => {
+    this.api.getFriendsFeed(this.userId, this.friendsDays, this.friendsCursor, this.friendsSize).subscribe({
+      next: (page: CursorPage<PostDTO>) => {
         const content = page?.content ?? [];
-        this.friendsTotal = page?.totalElements ?? content.length;
+        this.friendsCursor = page?.nextCursor ?? null;
+        this.friendsHasMore = !!this.friendsCursor;
         this.friends = [...this.friends, ...content];
-        this.friendsPage++;
         this.friendsLoading = false;
       },
       error: (err) => {
@@ -19,8 +19,10 @@ SET row_security = off;
 
 ALTER TABLE IF EXISTS ONLY public.posts DROP CONSTRAINT IF EXISTS posts_author_id_fkey;
 DROP INDEX IF EXISTS public.uq_users_email_lower;
+DROP INDEX IF EXISTS public.idx_user_sessions_expires;
 DROP INDEX IF EXISTS public.idx_posts_hashtags_gin;
 DROP INDEX IF EXISTS public.idx_posts_created_at;
+DROP INDEX IF EXISTS public.idx_posts_author_created;
 DROP INDEX IF EXISTS public.idx_places_name;
 DROP INDEX IF EXISTS public.idx_places_hashtags_gin;
 DROP INDEX IF EXISTS public.idx_mre_ts;
@@ -34,6 +36,8 @@ DROP INDEX IF EXISTS public.idx_mbe_block;
 DROP INDEX IF EXISTS public.idx_friendships_user_lo;
 DROP INDEX IF EXISTS public.idx_friendships_user_hi;
 DROP INDEX IF EXISTS public.idx_blocks_blocker;
+ALTER TABLE IF EXISTS ONLY public.user_similarity DROP CONSTRAINT IF EXISTS pk_user_similarity;
+ALTER TABLE IF EXISTS ONLY public.user_sessions DROP CONSTRAINT IF EXISTS pk_user_sessions;
 ALTER TABLE IF EXISTS ONLY public.users DROP CONSTRAINT IF EXISTS users_pkey;
 ALTER TABLE IF EXISTS ONLY public.posts DROP CONSTRAINT IF EXISTS posts_pkey;
 ALTER TABLE IF EXISTS ONLY public.post_bans DROP CONSTRAINT IF EXISTS post_bans_pkey;
@@ -52,6 +56,8 @@ ALTER TABLE IF EXISTS public.moderation_report_events ALTER COLUMN id DROP DEFAU
 ALTER TABLE IF EXISTS public.moderation_flags_audit ALTER COLUMN id DROP DEFAULT;
 ALTER TABLE IF EXISTS public.moderation_flags ALTER COLUMN id DROP DEFAULT;
 ALTER TABLE IF EXISTS public.moderation_block_events ALTER COLUMN id DROP DEFAULT;
+DROP TABLE IF EXISTS public.user_similarity;
+DROP TABLE IF EXISTS public.user_sessions;
 DROP TABLE IF EXISTS public.users;
 DROP TABLE IF EXISTS public.posts;
 DROP TABLE IF EXISTS public.post_reports;
@@ -302,6 +308,30 @@ CREATE TABLE public.posts (
 );
 
 
+--
+-- Name: user_similarity; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE public.user_similarity (
+    user_id uuid NOT NULL,
+    other_user_id uuid NOT NULL,
+    score double precision NOT NULL,
+    computed_at timestamp without time zone NOT NULL
+);
+
+
+--
+-- Name: user_sessions; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE public.user_sessions (
+    token_hash text NOT NULL,
+    user_id uuid NOT NULL,
+    created_at timestamp without time zone NOT NULL,
+    expires_at timestamp without time zone NOT NULL
+);
+
+
 --
 -- Name: users; Type: TABLE; Schema: public; Owner: -
 --
@@ -449,6 +479,22 @@ ALTER TABLE ONLY public.posts
     ADD CONSTRAINT posts_pkey PRIMARY KEY (id);
 
 
+--
+-- Name: user_similarity pk_user_similarity; Type: CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY public.user_similarity
+    ADD CONSTRAINT pk_user_similarity PRIMARY KEY (user_id, other_user_id);
+
+
+--
+-- Name: user_sessions pk_user_sessions; Type: CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY public.user_sessions
+    ADD CONSTRAINT pk_user_sessions PRIMARY KEY (token_hash);
+
+
 --
 -- Name: users users_pkey; Type: CONSTRAINT; Schema: public; Owner: -
 --
@@ -548,6 +594,13 @@ CREATE INDEX idx_places_hashtags_gin ON public.places USING gin (hashtags);
 CREATE INDEX idx_places_name ON public.places USING btree (name);
 
 
+--
+-- Name: idx_posts_author_created; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX idx_posts_author_created ON public.posts USING btree (author_id, created_at DESC, id DESC);
+
+
 --
 -- Name: idx_posts_created_at; Type: INDEX; Schema: public; Owner: -
 --
@@ -562,6 +615,13 @@ CREATE INDEX idx_posts_created_at ON public.posts USING btree (created_at DESC);
 CREATE INDEX idx_posts_hashtags_gin ON public.posts USING gin (hashtags);
 
 
+--
+-- Name: idx_user_sessions_expires; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX idx_user_sessions_expires ON public.user_sessions USING btree (expires_at);
+
+
 --
 -- Name: uq_users_email_lower; Type: INDEX; Schema: public; Owner: -
 --
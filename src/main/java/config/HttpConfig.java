@@ -0,0 +1,123 @@
+package config;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public final class HttpConfig {
+
+    /** perSecond zahteva u sekundi, najviše burst odjednom. */
+    public static final class Rate {
+        public final double perSecond;
+        public final int burst;
+
+        Rate(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.burst = burst;
+        }
+
+        @Override public String toString() { return perSecond + "/s burst " + burst; }
+    }
+
+    public final boolean compressionEnabled;
+    public final int compressionMinBytes;
+    public final int compressionLevel;
+    public final int compressionPoolSize;
+    public final String executor;
+    public final int acceptThreads;
+    public final int acceptQueue;
+    public final int lightThreads;
+    public final int lightQueue;
+    public final int heavyThreads;
+    public final int heavyQueue;
+    public final List<String> heavyPaths;
+    public final int retryAfterSec;
+    public final int virtualLightPermits;
+    public final int virtualHeavyPermits;
+    public final String transport;
+    public final int nioBufferBytes;
+    public final int nioMaxRequestBytes;
+    public final long nioIdleTimeoutMs;
+    public final boolean rateEnabled;
+    public final Map<String, Rate> ratePerUser;
+    public final Map<String, Rate> ratePerRoute;
+    public final int rateMaxKeys;
+    public final long sessionTtlMs;
+    public final int sessionMaxPerUser;
+    public final int sessionSegments;
+    public final long sessionTickMs;
+    public final String sessionStore;
+    public final String sessionFile;
+
+    private static HttpConfig INSTANCE;
+
+    private HttpConfig(Properties p){
+        this.compressionEnabled = Boolean.parseBoolean(p.getProperty("http.compression.enabled", "true"));
+        this.compressionMinBytes = Integer.parseInt(p.getProperty("http.compression.minBytes", "1024"));
+        this.compressionLevel = Integer.parseInt(p.getProperty("http.compression.level", "-1"));
+        this.compressionPoolSize = Integer.parseInt(p.getProperty("http.compression.poolSize", "32"));
+        this.executor = p.getProperty("http.executor", "platform").trim();
+        this.acceptThreads = Integer.parseInt(p.getProperty("http.pool.acceptThreads", "2"));
+        this.acceptQueue = Integer.parseInt(p.getProperty("http.pool.acceptQueue", "256"));
+        this.lightThreads = Integer.parseInt(p.getProperty("http.pool.light.threads", "4"));
+        this.lightQueue = Integer.parseInt(p.getProperty("http.pool.light.queue", "200"));
+        this.heavyThreads = Integer.parseInt(p.getProperty("http.pool.heavy.threads", "10"));
+        this.heavyQueue = Integer.parseInt(p.getProperty("http.pool.heavy.queue", "50"));
+        List<String> paths = new ArrayList<>();
+        for (String t : p.getProperty("http.pool.heavyPaths", "/api/feed/,/api/ads/,/api/admin/mod/").split(",")) {
+            if (!t.trim().isEmpty()) paths.add(t.trim());
+        }
+        this.heavyPaths = Collections.unmodifiableList(paths);
+        this.retryAfterSec = Integer.parseInt(p.getProperty("http.pool.retryAfterSec", "1"));
+        this.virtualLightPermits = Integer.parseInt(p.getProperty("http.virtual.lightPermits", "200"));
+        this.virtualHeavyPermits = Integer.parseInt(p.getProperty("http.virtual.heavyPermits", "10"));
+        this.transport = p.getProperty("http.transport", "nio").trim();
+        this.nioBufferBytes = Integer.parseInt(p.getProperty("http.nio.bufferBytes", "16384"));
+        this.nioMaxRequestBytes = Integer.parseInt(p.getProperty("http.nio.maxRequestBytes", "1048576"));
+        this.nioIdleTimeoutMs = Long.parseLong(p.getProperty("http.nio.idleTimeoutMs", "30000"));
+        this.rateEnabled = Boolean.parseBoolean(p.getProperty("http.rate.enabled", "true"));
+        this.ratePerUser = rates(p.getProperty("http.rate.perUser", "/api/feed/recommended=1:5,/api/ads/recommended=1:5"));
+        this.ratePerRoute = rates(p.getProperty("http.rate.perRoute", "/api/feed/recommended=40:80,/api/ads/recommended=40:80"));
+        this.rateMaxKeys = Integer.parseInt(p.getProperty("http.rate.maxKeys", "100000"));
+        this.sessionTtlMs = Long.parseLong(p.getProperty("http.session.ttlMs", "43200000"));
+        this.sessionMaxPerUser = Integer.parseInt(p.getProperty("http.session.maxPerUser", "10"));
+        this.sessionSegments = Integer.parseInt(p.getProperty("http.session.segments", "16"));
+        this.sessionTickMs = Long.parseLong(p.getProperty("http.session.tickMs", "1000"));
+        this.sessionStore = p.getProperty("http.session.store", "memory").trim();
+        this.sessionFile = p.getProperty("http.session.file", "data/sessions.log").trim();
+    }
+
+    // "ruta=zahteva/s:burst,ruta=..." -> mapa
+    private static Map<String, Rate> rates(String spec){
+        Map<String, Rate> out = new LinkedHashMap<>();
+        for (String t : spec.split(",")) {
+            t = t.trim();
+            if (t.isEmpty()) continue;
+            int eq = t.lastIndexOf('='), colon = t.lastIndexOf(':');
+            if (eq <= 0 || colon < eq) throw new IllegalArgumentException("invalid rate '" + t + "', expected route=perSecond:burst");
+            out.put(t.substring(0, eq).trim(), new Rate(Double.parseDouble(t.substring(eq + 1, colon).trim()),
+                    Integer.parseInt(t.substring(colon + 1).trim())));
+        }
+        return Collections.unmodifiableMap(out);
+    }
+
+    /** Konfiguracija iz datih svojstava, ostalo podrazumevano (npr. manji pool-ovi u testu). */
+    public static HttpConfig from(Properties p){
+        return new HttpConfig(p);
+    }
+
+    public static synchronized HttpConfig get(){
+        if (INSTANCE != null) return INSTANCE;
+        Properties p = new Properties();
+        try (InputStream in = HttpConfig.class.getClassLoader().getResourceAsStream("http.properties")) {
+            if (in != null) p.load(in);
+        } catch (Exception e) {
+            // fallback: podrazumevane vrednosti
+        }
+        return (INSTANCE = new HttpConfig(p));
+    }
+}
@@ -0,0 +1,41 @@
+package config;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+public final class KieConfig {
+    public final int defaultPoolSize;
+    public final long borrowTimeoutMs;
+    public final long leakThresholdMs;
+    public final boolean leakTraces;
+
+    private final Properties props;
+
+    private static KieConfig INSTANCE;
+
+    private KieConfig(Properties p){
+        this.props = p;
+        this.defaultPoolSize = Integer.parseInt(p.getProperty("kie.pool.maxSize", "8"));
+        this.borrowTimeoutMs = Long.parseLong(p.getProperty("kie.pool.borrowTimeoutMs", "5000"));
+        this.leakThresholdMs = Long.parseLong(p.getProperty("kie.pool.leakThresholdMs", "60000"));
+        this.leakTraces = Boolean.parseBoolean(p.getProperty("kie.pool.leakTraces", "false"));
+    }
+
+    /** Veličina pool-a za dati kbase (kie.pool.&lt;kbase&gt;.maxSize, inače podrazumevana). */
+    public int poolSize(String kbaseName){
+        String v = props.getProperty("kie.pool." + kbaseName + ".maxSize");
+        try { return v == null ? defaultPoolSize : Math.max(1, Integer.parseInt(v.trim())); }
+        catch (NumberFormatException e) { return defaultPoolSize; }
+    }
+
+    public static synchronized KieConfig get(){
+        if (INSTANCE != null) return INSTANCE;
+        Properties p = new Properties();
+        try (InputStream in = KieConfig.class.getClassLoader().getResourceAsStream("kie.properties")) {
+            if (in != null) p.load(in);
+        } catch (Exception e) {
+            // fallback: podrazumevane vrednosti
+        }
+        return (INSTANCE = new KieConfig(p));
+    }
+}
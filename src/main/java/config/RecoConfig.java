@@ -0,0 +1,51 @@
+package config;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+public final class RecoConfig {
+    public final int similarTopK;
+    public final double similarMinScore;
+    public final int similarWindowDays;
+    public final long similarIntervalMs;
+    public final int similarBatchSize;
+    public final long similarFullRefreshMs;
+    public final boolean similarPersist;
+    public final long feedCacheTtlMs;
+    public final int feedCacheMaxUsers;
+    public final long feedFlightJoinWindowMs;
+    public final long popularRefreshMs;
+    public final int windowDays;
+    public final long windowEvictMs;
+    public final long windowReloadMs;
+
+    private static RecoConfig INSTANCE;
+
+    private RecoConfig(Properties p){
+        this.similarTopK = Integer.parseInt(p.getProperty("reco.similar.topK", "50"));
+        this.similarMinScore = Double.parseDouble(p.getProperty("reco.similar.minScore", "0.5"));
+        this.similarWindowDays = Integer.parseInt(p.getProperty("reco.similar.windowDays", "30"));
+        this.similarIntervalMs = Long.parseLong(p.getProperty("reco.similar.intervalMs", "2000"));
+        this.similarBatchSize = Integer.parseInt(p.getProperty("reco.similar.batchSize", "200"));
+        this.similarFullRefreshMs = Long.parseLong(p.getProperty("reco.similar.fullRefreshMs", "3600000"));
+        this.similarPersist = Boolean.parseBoolean(p.getProperty("reco.similar.persist", "false"));
+        this.feedCacheTtlMs = Long.parseLong(p.getProperty("reco.feedCache.ttlMs", "30000"));
+        this.feedCacheMaxUsers = Integer.parseInt(p.getProperty("reco.feedCache.maxUsers", "10000"));
+        this.feedFlightJoinWindowMs = Long.parseLong(p.getProperty("reco.feedFlight.joinWindowMs", "100"));
+        this.popularRefreshMs = Long.parseLong(p.getProperty("reco.popular.refreshMs", "60000"));
+        this.windowDays = Integer.parseInt(p.getProperty("reco.window.days", "7"));
+        this.windowEvictMs = Long.parseLong(p.getProperty("reco.window.evictMs", "60000"));
+        this.windowReloadMs = Long.parseLong(p.getProperty("reco.window.reloadMs", "600000"));
+    }
+
+    public static synchronized RecoConfig get(){
+        if (INSTANCE != null) return INSTANCE;
+        Properties p = new Properties();
+        try (InputStream in = RecoConfig.class.getClassLoader().getResourceAsStream("reco.properties")) {
+            if (in != null) p.load(in);
+        } catch (Exception e) {
+            // fallback: podrazumevane vrednosti
+        }
+        return (INSTANCE = new RecoConfig(p));
+    }
+}
@@ -1,14 +1,27 @@
 package db;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
+/**
+ * Ograničen pool konekcija (HikariCP) iza istog Db.get() API-ja.
+ * Repozitorijumi i dalje rade try (Connection c = Db.get()) { ... } — close() vraća
+ * konekciju u pool (Hikari pri tom vraća autoCommit/readOnly na podrazumevano).
+ *
+ * db.properties (sve opciono osim url/user/pass):
+ *   db.pool.maxSize, db.pool.minIdle, db.pool.connectionTimeoutMs, db.pool.idleTimeoutMs,
+ *   db.pool.maxLifetimeMs, db.pool.validationTimeoutMs, db.pool.leakDetectionMs
+ *   db.pg.prepareThreshold, db.pg.statementCacheQueries, db.pg.statementCacheSizeMiB
+ */
 public final class Db {
-    private static String URL;
-    private static String USER;
-    private static String PASS;
+    private static final HikariDataSource DS;
 
     static {
         try {
@@ -17,22 +30,63 @@ public final class Db {
                 if (in == null) throw new IllegalStateException("db.properties not found on classpath");
                 p.load(in);
             }
-            Class.forName("org.postgresql.Driver"); 
-            URL  = p.getProperty("db.url");
-            USER = p.getProperty("db.user");
-            PASS = p.getProperty("db.pass");
+            HikariConfig hc = new HikariConfig();
+            hc.setPoolName("db");
+            hc.setDriverClassName("org.postgresql.Driver");
+            hc.setJdbcUrl(p.getProperty("db.url"));
+            hc.setUsername(p.getProperty("db.user"));
+            hc.setPassword(p.getProperty("db.pass"));
+            hc.setMaximumPoolSize(Integer.parseInt(p.getProperty("db.pool.maxSize", "10")));
+            hc.setMinimumIdle(Integer.parseInt(p.getProperty("db.pool.minIdle", "2")));
+            // koliko dugo Db.get() čeka slobodnu konekciju pre nego što baci izuzetak
+            hc.setConnectionTimeout(Long.parseLong(p.getProperty("db.pool.connectionTimeoutMs", "5000")));
+            // višak iznad minIdle se zatvara posle ovoliko neaktivnosti
+            hc.setIdleTimeout(Long.parseLong(p.getProperty("db.pool.idleTimeoutMs", "600000")));
+            hc.setMaxLifetime(Long.parseLong(p.getProperty("db.pool.maxLifetimeMs", "1800000")));
+            // validacija pri pozajmici: Connection.isValid() sa ovim timeout-om (JDBC4, bez test upita)
+            hc.setValidationTimeout(Long.parseLong(p.getProperty("db.pool.validationTimeoutMs", "2000")));
+            // konekcija van pool-a duže od praga -> WARN sa stack trace-om mesta gde je uzeta (0 = isključeno)
+            hc.setLeakDetectionThreshold(Long.parseLong(p.getProperty("db.pool.leakDetectionMs", "30000")));
+            hc.setRegisterMbeans(false);
+            // pgjdbc keš pripremljenih upita po fizičkoj konekciji: isti SQL string na istoj konekciji
+            // se ne parsira ponovo, a posle prepareThreshold izvršavanja postaje imenovani server-side
+            // statement (bez parse/plan faze). Radi tek uz pool, jer konekcija sada živi dugo.
+            hc.addDataSourceProperty("prepareThreshold", p.getProperty("db.pg.prepareThreshold", "1"));
+            hc.addDataSourceProperty("preparedStatementCacheQueries", p.getProperty("db.pg.statementCacheQueries", "256"));
+            hc.addDataSourceProperty("preparedStatementCacheSizeMiB", p.getProperty("db.pg.statementCacheSizeMiB", "5"));
+            DS = new HikariDataSource(hc);
+            System.out.println("[DB] pool '" + hc.getPoolName() + "' max=" + hc.getMaximumPoolSize()
+                    + " minIdle=" + hc.getMinimumIdle() + " -> " + hc.getJdbcUrl());
         } catch (Exception e) {
             throw new RuntimeException("DB init failed", e);
         }
     }
 
+    /**
+     * Broj redova koji pgjdbc čita odjednom u forEach... metodama repozitorijuma. Radi samo unutar
+     * transakcije (autoCommit=false); bez toga drajver učita ceo rezultat u memoriju.
+     */
+    public static final int STREAM_FETCH_SIZE = 500;
+
     private Db() {}
 
     public static Connection get() {
         try {
-            return DriverManager.getConnection(URL, USER, PASS);
+            return DS.getConnection();
         } catch (Exception e) {
             throw new RuntimeException("DB connect failed", e);
         }
     }
+
+    /** Trenutno stanje pool-a: active, idle, total, waiting (niti koje čekaju konekciju), maxSize. */
+    public static Map<String, Object> stats() {
+        HikariPoolMXBean pool = DS.getHikariPoolMXBean();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("active", pool.getActiveConnections());
+        m.put("idle", pool.getIdleConnections());
+        m.put("total", pool.getTotalConnections());
+        m.put("waiting", pool.getThreadsAwaitingConnection());
+        m.put("maxSize", DS.getMaximumPoolSize());
+        return m;
+    }
 }
@@ -0,0 +1,8 @@
+package dto;
+
+/** Činjenica: korisnik je administrator. */
+public class AdminRole {
+    private final String userId;
+    public AdminRole(String userId){ this.userId = userId; }
+    public String getUserId(){ return userId; }
+}
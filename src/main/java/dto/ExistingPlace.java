@@ -0,0 +1,10 @@
+package dto;
+
+/** Činjenica: mesto sa ovim nazivom u ovom gradu već postoji (case-insensitive). */
+public class ExistingPlace {
+    private final String name;
+    private final String city;
+    public ExistingPlace(String name, String city){ this.name = name; this.city = city; }
+    public String getName(){ return name; }
+    public String getCity(){ return city; }
+}
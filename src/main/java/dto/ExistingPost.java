@@ -0,0 +1,10 @@
+package dto;
+
+/** Činjenica: objava postoji; nosi i autora (za "ne možete prijaviti sopstvenu objavu"). */
+public class ExistingPost {
+    private final String postId;
+    private final String authorId;
+    public ExistingPost(String postId, String authorId){ this.postId = postId; this.authorId = authorId; }
+    public String getPostId(){ return postId; }
+    public String getAuthorId(){ return authorId; }
+}
@@ -0,0 +1,8 @@
+package dto;
+
+/** Činjenica: korisnik sa ovim ID-jem postoji u bazi (ID je onaj iz zahteva). */
+public class ExistingUser {
+    private final String userId;
+    public ExistingUser(String userId){ this.userId = userId; }
+    public String getUserId(){ return userId; }
+}
@@ -0,0 +1,48 @@
+package dto;
+
+import model.Post;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Pozicija u listi objava sortiranoj po (created_at DESC, id DESC): sledeća strana počinje
+ * od prve objave "posle" (created_at, id) poslednje vraćene.
+ * Klijent je dobija kao neprozirni string (Base64url) i samo ga vraća u ?cursor=.
+ */
+public final class PostCursor {
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    public PostCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt; this.id = id;
+    }
+
+    public static PostCursor after(Post p) { return new PostCursor(p.getCreatedAt(), p.getId()); }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public String getId() { return id; }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** null/prazan string -> null (prva strana); neispravan kursor -> IllegalArgumentException. */
+    public static PostCursor decode(String s) {
+        if (s == null || s.isEmpty()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(s), StandardCharsets.UTF_8);
+            int i = raw.indexOf('|');
+            if (i < 0) throw new IllegalArgumentException("invalid cursor");
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, i));
+            String id = UUID.fromString(raw.substring(i + 1)).toString();
+            return new PostCursor(createdAt, id);
+        } catch (DateTimeParseException | IllegalArgumentException e) {   // IAE: Base64 i UUID
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dto;
+
+import model.Post;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Jedna strana objava; nextCursor je null kad posle nje nema više objava. */
+public final class PostPage {
+    private final List<Post> posts;
+    private final PostCursor nextCursor;
+
+    public PostPage(List<Post> posts, PostCursor nextCursor) {
+        this.posts = Collections.unmodifiableList(posts);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Od size+1 redova pročitanih iz baze: ako ih ima više od size, strana se skraćuje na size
+     * i sledeći kursor pokazuje na poslednju objavu strane.
+     */
+    public static PostPage of(List<Post> rows, int size) {
+        if (rows.size() <= size) return new PostPage(rows, null);
+        List<Post> page = rows.subList(0, size);
+        return new PostPage(page, PostCursor.after(page.get(size - 1)));
+    }
+
+    public List<Post> getPosts() { return posts; }
+    public PostCursor getNextCursor() { return nextCursor; }
+    public String getNextCursorToken() { return nextCursor == null ? null : nextCursor.encode(); }
+}
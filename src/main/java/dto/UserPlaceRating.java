@@ -0,0 +1,15 @@
+package dto;
+
+/** Ocena koju je korisnik dao mestu (samo ono što upiti za reklame proveravaju). */
+public class UserPlaceRating {
+    private final String userId;
+    private final String placeId;
+    private final int score;
+
+    public UserPlaceRating(String userId, String placeId, int score) {
+        this.userId = userId; this.placeId = placeId; this.score = score;
+    }
+    public String getUserId() { return userId; }
+    public String getPlaceId() { return placeId; }
+    public int getScore() { return score; }
+}
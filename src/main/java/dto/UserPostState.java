@@ -0,0 +1,17 @@
+package dto;
+
+/** Da li je korisnik već lajkovao / prijavio objavu. */
+public class UserPostState {
+    private final String userId;
+    private final String postId;
+    private final boolean liked;
+    private final boolean reported;
+
+    public UserPostState(String userId, String postId, boolean liked, boolean reported) {
+        this.userId = userId; this.postId = postId; this.liked = liked; this.reported = reported;
+    }
+    public String getUserId() { return userId; }
+    public String getPostId() { return postId; }
+    public boolean isLiked() { return liked; }
+    public boolean isReported() { return reported; }
+}
@@ -0,0 +1,17 @@
+package dto;
+
+/** Odnos ulogovanog (userId) prema ciljanom korisniku: prijatelji / userId je blokirao targetId. */
+public class UserRelation {
+    private final String userId;
+    private final String targetId;
+    private final boolean friends;
+    private final boolean blocked;
+
+    public UserRelation(String userId, String targetId, boolean friends, boolean blocked) {
+        this.userId = userId; this.targetId = targetId; this.friends = friends; this.blocked = blocked;
+    }
+    public String getUserId() { return userId; }
+    public String getTargetId() { return targetId; }
+    public boolean isFriends() { return friends; }
+    public boolean isBlocked() { return blocked; }
+}
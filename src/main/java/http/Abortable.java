@@ -0,0 +1,24 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Odgovor koji može da se prekine posle slanja zaglavlja: veza se zatvara bez ostatka tela
+ * (bez završnog chunk-a i gzip trailer-a), pa klijent vidi nepotpun odgovor, a ne ispravan 200
+ * sa odsečenim JSON-om. NioExchange i omotač iz Compression prekidaju sami; JdkTransport stavlja
+ * Abortable telo odgovora u atribut ATTRIBUTE exchange-a.
+ */
+public interface Abortable {
+
+    String ATTRIBUTE = "http.abortable";
+
+    void abort();
+
+    /** Prekini odgovor na ex; exchange koji to ne podržava se samo zatvara. */
+    static void abort(HttpExchange ex) {
+        if (ex instanceof Abortable) { ((Abortable) ex).abort(); return; }
+        Object body = ex.getAttribute(ATTRIBUTE);
+        if (body instanceof Abortable) ((Abortable) body).abort();
+        ex.close();
+    }
+}
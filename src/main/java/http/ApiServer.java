@@ -1,8 +1,8 @@
 package http;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpServer;
 import dto.CreatePostRequest;
 import dto.CreateRatingRequest;
 import model.Post;
@@ -29,21 +29,19 @@ import repo.ModerationEventsRepository.Flagged;
 import service.ModerationService;
 
 import java.io.OutputStream;
-import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
- * Minimalni JSON API server (JDK 1.8, com.sun.net.httpserver)
- * Endpoints:
+ * Minimalni JSON API server (JDK 1.8; handler-i nad com.sun.net.httpserver.HttpExchange, transport: vidi Transport)
+ * Endpoints (rute: Router, pa neispravna metoda -> 405, nepostojeća putanja -> 404):
  *  GET  /api/health
- *  GET  /api/feed/friends?userId=...&days=1&page=0&size=20
- *  GET  /api/posts/by-author?authorId=...
- *  POST /api/posts/like?postId=...&userId=...
- *  POST /api/posts/report?postId=...&userId=...&reason=...
+ *  GET  /api/feed/friends?size=20&cursor=...      (strana: { content, size, nextCursor })
+ *  GET  /api/posts/by-author?authorId=...&size=20&cursor=...
+ *  POST /api/posts/{postId}/like
+ *  POST /api/posts/{postId}/report   (body: { reason })
  *  POST /api/posts (body: { authorId, text, tags })
  */
 public class ApiServer {
@@ -65,7 +63,7 @@ public static class RecDTO {
     private final RatingRepository ratingRepo = new RatingRepository();
     
     private final RatingService ratingService = new RatingService(ratingRepo, userRepo, placeRepo);
-    private final AdsService adsService = new AdsService(userRepo, postRepo, placeRepo, ratingRepo);
+    private final AdsService adsService = new AdsService(userRepo, postRepo, placeRepo);
     private final ModerationService moderationService = new ModerationService(userRepo, modRepo);
     private final FriendService friendService = new FriendService(userRepo, friendRepo);
     private final PostService postService     = new PostService(postRepo, userRepo);
@@ -75,8 +73,10 @@ public static class RecDTO {
     
     private final FeedService feedService = new service.FeedService(userRepo, friendRepo, postRepo);
     
-    private final SessionManager sessionManager = new SessionManager();
+    private final SessionManager sessionManager = SessionManager.get();
     
+    private volatile Transport transport;
+
     private final Object modLock = new Object();
     private volatile long lastModRun = 0L;
 
@@ -86,20 +86,27 @@ public static class RecDTO {
     }
 
     public void start(int port) throws Exception {
-        HttpServer s = HttpServer.create(new InetSocketAddress(port), 0);
-        s.setExecutor(Executors.newFixedThreadPool(8));
-        
+        // izgradi i zagrej sve KieBase-ove pre prvog zahteva
+        util.KieBaseRegistry.init();
+        // pozadinsko održavanje top-K sličnih korisnika za preporučeni feed
+        service.SimilarUsers.get().start();
+        // popularni hashtag-ovi/objave (24h), zajednički za sve korisnike
+        service.PopularitySnapshot.get().start();
+        // objave iz poslednjih 7 dana u memoriji za feed-ove
+        service.PostWindow.get().start(config.RecoConfig.get().windowEvictMs);
+
+        // NIO (podrazumevano) ili com.sun.net.httpserver: -Dhttp.transport=jdk / http.transport u http.properties;
+        // platform pool-ovi ili virtuelna nit po zahtevu: -Dhttp.executor=virtual / http.executor u http.properties
+        Transport s = Transport.create(port);
+        // metoda + šablon putanje -> handler; OPTIONS, 404 i 405 rešava Router
+        Router router = new Router();
+
         // Health check
-        s.createContext("/api/health", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
+        router.get("/api/health", ex -> {
             ok(ex, map("status", "ok"));
-        }));
+        });
         
-        s.createContext("/api/auth/login", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-
+        router.post("/api/auth/login", ex -> {
             String body = readBody(ex.getRequestBody());
             dto.LoginRequest req = GSON.fromJson(body, dto.LoginRequest.class);
             if (req == null || req.email == null || req.password == null) {
@@ -127,12 +134,9 @@ public static class RecDTO {
             } catch (IllegalArgumentException iae) {
                 badRequest(ex, iae.getMessage());
             }
-        }));
+        });
         
-        s.createContext("/api/auth/register", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-
+        router.post("/api/auth/register", ex -> {
             try {
                 String body = readBody(ex.getRequestBody());
                 dto.RegisterRequest req = GSON.fromJson(body, dto.RegisterRequest.class);
@@ -165,79 +169,81 @@ public static class RecDTO {
                 try (java.io.OutputStream os = ex.getResponseBody()) { os.write(b); }
                 ex.close();
             }
-        }));
-
-        s.createContext("/api/posts/by/", Cors.wrap(ex -> {
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-            String path = ex.getRequestURI().getPath(); // npr. /api/posts/by/UUID
-            String prefix = "/api/posts/by/";
-            if (!path.startsWith(prefix) || path.length() <= prefix.length()) { badRequest(ex, "userId required"); return; }
-            String userId = path.substring(prefix.length());
+        });
+
+        router.get("/api/posts/by/{userId}", (ex, vars) -> {
+            String userId = vars.get("userId");
             List<PostDTO> list = postRepo.findByAuthor(userId).stream().map(ApiServer::toDto).collect(Collectors.toList());
             ok(ex, list);
-        }));
+        });
 
         // postovi po autoru
-        s.createContext("/api/posts/by-author", Cors.wrap(ex -> {
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
+        router.get("/api/posts/by-author", ex -> {
             Map<String,List<String>> q = Query.params(ex);
             String authorId = Query.str(q, "authorId", null);
             if (authorId == null) { badRequest(ex, "authorId is required"); return; }
-            List<PostDTO> list = postRepo.findByAuthor(authorId).stream().map(ApiServer::toDto).collect(Collectors.toList());
-            ok(ex, list);
-        }));
-
-        s.createContext("/api/posts/", Cors.wrap(ex -> {
+            int size;
+            dto.PostCursor cursor;
             try {
-                if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-
-                String path = ex.getRequestURI().getPath();
-                final String base = "/api/posts/";
-                if (!path.startsWith(base) || path.length() <= base.length()) { methodNotAllowed(ex); return; }
-                String rest = path.substring(base.length()); // "123/like" ili "123/report"
+                size = pageSize(q);
+                cursor = dto.PostCursor.decode(Query.str(q, "cursor", null));
+            } catch (IllegalArgumentException iae) {
+                badRequest(ex, iae.getMessage());
+                return;
+            }
+            // { content, size, nextCursor }, objave se upisuju u odgovor dok se čitaju iz baze
+            streamJson(ex, js -> {
+                JsonWriter w = js.writer();
+                w.beginObject().name("content").beginArray();
+                dto.PostCursor next = postRepo.forEachByAuthor(authorId, cursor, size, p -> { js.valueUnchecked(toDto(p)); return true; });
+                w.endArray();
+                w.name("size").value(size);
+                w.name("nextCursor").value(next == null ? null : next.encode());
+                w.endObject();
+            });
+        });
+
+        router.post("/api/posts/{postId}/like", (ex, vars) -> {
+            try {
+                String postId = vars.get("postId");
 
-                if (rest.endsWith("/like")) {
-                    if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-                    String postId = rest.substring(0, rest.length() - "/like".length());
+                Optional<String> uid = requireAuth(ex);
+                if (!uid.isPresent()) return;
 
+                System.out.println("[LIKE] postId="+postId+" userId="+uid.get());
+                Post p = postService.likePost(uid.get(), postId);
+                System.out.println("[LIKE] done -> likes="+p.getLikes());
+                ok(ex, toDto(p));
+            } catch (Exception e) {
+                e.printStackTrace();
+                // sigurni 500 sa CORS headerima
+                byte[] b = GSON.toJson(map("error","internal error","detail", String.valueOf(e.getMessage()))).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                ex.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+                ex.sendResponseHeaders(500, b.length);
+                try (java.io.OutputStream os = ex.getResponseBody()) { os.write(b); }
+                ex.close();
+            }
+        });
 
-                    Optional<String> uid = requireAuth(ex);
-                    if (!uid.isPresent()) return;
+        router.post("/api/posts/{postId}/report", (ex, vars) -> {
+            try {
+                String postId = vars.get("postId");
 
-                    System.out.println("[LIKE] postId="+postId+" userId="+uid.get());
-                    Post p = postService.likePost(uid.get(), postId);
-                    System.out.println("[LIKE] done -> likes="+p.getLikes());
-                    ok(ex, toDto(p));
-                    return;
-                }
+                Optional<String> uid = requireAuth(ex);
+                if (!uid.isPresent()) return;
 
-                if (rest.endsWith("/report")) {
-                    if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-                    String postId = rest.substring(0, rest.length() - "/report".length());
-
-                    Optional<String> uid = requireAuth(ex);
-                    if (!uid.isPresent()) return;
-
-                    String reason = "";
-                    try {
-                        String body = readBody(ex.getRequestBody());
-                        java.util.Map<?,?> parsed = GSON.fromJson(body, java.util.Map.class);
-                        if (parsed != null && parsed.get("reason") != null) reason = String.valueOf(parsed.get("reason"));
-                    } catch (Exception ignore) {}
-
-                    System.out.println("[REPORT] postId="+postId+" userId="+uid.get()+" reason="+reason);
-                    Post p = postService.reportPost(uid.get(), postId, reason);
-                    System.out.println("[REPORT] done -> reports="+p.getReports());
-                    maybeKickModerationAsync();
-                    ok(ex, toDto(p));
-                    return;
-                }
+                String reason = "";
+                try {
+                    String body = readBody(ex.getRequestBody());
+                    java.util.Map<?,?> parsed = GSON.fromJson(body, java.util.Map.class);
+                    if (parsed != null && parsed.get("reason") != null) reason = String.valueOf(parsed.get("reason"));
+                } catch (Exception ignore) {}
 
-                // nije pogodilo uzorak
-                byte[] body = "{\"error\":\"not found\"}".getBytes(java.nio.charset.StandardCharsets.UTF_8);
-                ex.sendResponseHeaders(404, body.length);
-                try (java.io.OutputStream os = ex.getResponseBody()) { os.write(body); }
-                ex.close();
+                System.out.println("[REPORT] postId="+postId+" userId="+uid.get()+" reason="+reason);
+                Post p = postService.reportPost(uid.get(), postId, reason);
+                System.out.println("[REPORT] done -> reports="+p.getReports());
+                maybeKickModerationAsync();
+                ok(ex, toDto(p));
             } catch (Exception e) {
                 e.printStackTrace();
                 // sigurni 500 sa CORS headerima
@@ -247,11 +253,10 @@ public static class RecDTO {
                 try (java.io.OutputStream os = ex.getResponseBody()) { os.write(b); }
                 ex.close();
             }
-        }));
+        });
         
-        s.createContext("/api/friends/search", Cors.wrap(ex -> {
+        router.get("/api/friends/search", ex -> {
             try {
-                if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
                 Optional<String> uid = requireAuth(ex);
                 if (!uid.isPresent()) return;
 
@@ -281,13 +286,11 @@ public static class RecDTO {
                 try (java.io.OutputStream os = ex.getResponseBody()) { os.write(b); }
                 ex.close();
             }
-        }));
+        });
 
         // POST /api/friends   body: { friendId }
-        s.createContext("/api/friends", Cors.wrap(ex -> {
+        router.post("/api/friends", ex -> {
             try {
-                if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-                if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
 
                 Optional<String> uid = requireAuth(ex);
                 if (!uid.isPresent()) return;
@@ -309,13 +312,11 @@ public static class RecDTO {
                 try (java.io.OutputStream os = ex.getResponseBody()) { os.write(b); }
                 ex.close();
             }
-        }));
+        });
 
         // POST /api/friends/block   body: { friendId }
-        s.createContext("/api/friends/block", Cors.wrap(ex -> {
+        router.post("/api/friends/block", ex -> {
             try {
-                if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-                if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
 
                 Optional<String> uid = requireAuth(ex);
                 if (!uid.isPresent()) return;
@@ -338,12 +339,9 @@ public static class RecDTO {
                 try (java.io.OutputStream os = ex.getResponseBody()) { os.write(b); }
                 ex.close();
             }
-        }));
-
-        s.createContext("/api/places", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
+        });
 
+        router.post("/api/places", ex -> {
             Optional<String> uid = requireAuth(ex);
             if (!uid.isPresent()) return;
 
@@ -381,12 +379,10 @@ public static class RecDTO {
                 try (java.io.OutputStream os = ex.getResponseBody()) { os.write(b); }
                 ex.close();
             }
-        }));
+        });
 
         // kreiraj post (JSON body)
-        s.createContext("/api/posts", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
+        router.post("/api/posts", ex -> {
             String body = readBody(ex.getRequestBody());
             CreatePostRequest req = GSON.fromJson(body, CreatePostRequest.class);
             if (req == null || req.authorId == null || req.text == null) {
@@ -398,11 +394,9 @@ public static class RecDTO {
             } catch (IllegalArgumentException iae) {
                 badRequest(ex, iae.getMessage());
             }
-        }));
+        });
         
-        s.createContext("/api/admin/mod/flags", Cors.wrap(ex -> {
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-
+        router.get("/api/admin/mod/flags", ex -> {
             // provera da je admin
             Optional<String> uid = requireAuth(ex);
             if (!uid.isPresent()) return;
@@ -414,67 +408,72 @@ public static class RecDTO {
 
             long since = System.currentTimeMillis() - hours * 3600_000L;
 
-            List<Flagged> list = modRepo.listRecentFlags(since, limit);
-
-            // obogatimo sa user info (ime/prezime)
-            List<Map<String,Object>> out = new ArrayList<Map<String,Object>>();
-            for (Flagged f : list) {
-                Optional<model.User> uOpt = userRepo.findById(f.userId);
-                Map<String,Object> m = new LinkedHashMap<String,Object>();
-                m.put("userId", f.userId);
-                m.put("reason", f.reason);
-                m.put("untilMs", f.until);
-                if (uOpt.isPresent()) {
-                    model.User u = uOpt.get();
-                    m.put("firstName", u.getFirstName());
-                    m.put("lastName",  u.getLastName());
-                    m.put("email",     u.getEmail());
-                }
-                out.add(m);
-            }
+            // korisnik se čita u istom upitu (LEFT JOIN), flag po flag ide pravo u odgovor
+            streamJson(ex, js -> {
+                js.writer().beginArray();
+                modRepo.forEachRecentFlag(since, limit, f -> {
+                    Map<String,Object> m = new LinkedHashMap<String,Object>();
+                    m.put("userId", f.userId);
+                    m.put("reason", f.reason);
+                    m.put("untilMs", f.until);
+                    if (f.email != null) {
+                        m.put("firstName", f.firstName);
+                        m.put("lastName",  f.lastName);
+                        m.put("email",     f.email);
+                    }
+                    js.valueUnchecked(m);
+                    return true;
+                });
+                js.writer().endArray();
+            });
+        });
+
+        // runtime metrike (pool-ovi KIE sesija, ...) — samo za admina
+        router.get("/api/admin/metrics", ex -> {
+            Optional<String> uid = requireAuth(ex);
+            if (!uid.isPresent()) return;
+            if (!userRepo.isAdmin(uid.get())) { badRequest(ex, "admin only"); return; }
+
+            Map<String,Object> out = new LinkedHashMap<String,Object>();
+            out.put("kiePools", util.KieBaseRegistry.get().poolStats());
+            out.put("kieBases", util.KieBaseRegistry.get().networkStats());
+            out.put("db", db.Db.stats());
+            out.put("similarUsers", service.SimilarUsers.get().stats());
+            out.put("feedCache", service.RecommendedFeedCache.get().stats());
+            out.put("popularity", service.PopularitySnapshot.get().stats());
+            out.put("postWindow", service.PostWindow.get().stats());
+            out.put("compression", Compression.stats());
+            out.put("httpPools", WorkPools.get().stats());
+            out.put("transport", transport.stats());
+            out.put("routes", router.stats());
+            out.put("rateLimit", RateLimiter.get().stats());
+            out.put("sessions", sessionManager.stats());
             ok(ex, out);
-        }));
-        
+        });
+
         // feed prijatelja
-        s.createContext("/api/feed/friends", Cors.wrap(ex -> {
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
+        router.get("/api/feed/friends", ex -> {
             Optional<String> uid = requireAuth(ex); if (!uid.isPresent()) return;
 
             try {
                 Map<String,List<String>> q = Query.params(ex);
-                int page = (int) Query.num(q, "page", 0);
-                int size = (int) Query.num(q, "size", 20);
+                int size = pageSize(q);
+                dto.PostCursor cursor = dto.PostCursor.decode(Query.str(q, "cursor", null));
 
                 java.time.LocalDateTime now = java.time.LocalDateTime.now();
-                java.util.List<model.Post> all = feedService.friendFeed(uid.get(), now);
-
-                int total = all.size();
-                int from  = Math.max(0, page * size);
-                int to    = Math.min(total, from + size);
-                java.util.List<model.Post> slice = from < to ? all.subList(from, to) : java.util.Collections.emptyList();
-
-                java.util.List<PostDTO> content = slice.stream().map(ApiServer::toDto).collect(java.util.stream.Collectors.toList());
-
-                java.util.Map<String,Object> out = new java.util.LinkedHashMap<>();
-                out.put("content", content);
-                out.put("page", page);
-                out.put("size", size);
-                out.put("totalElements", total);
+                dto.PostPage page = feedService.friendFeed(uid.get(), now, cursor, size);
 
-                ok(ex, out);
+                ok(ex, pageBody(page, size));
             } catch (IllegalArgumentException iae) {
                 badRequest(ex, iae.getMessage());
             } catch (Exception e) {
                 e.printStackTrace();
                 badRequest(ex, "internal error");
             }
-        }));
+        });
         
         // preporuceni feed (koristi Bearer token za identitet)
-        s.createContext("/api/feed/recommended", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-
+        router.get("/api/feed/recommended", ex -> {
             Optional<String> uid = requireAuth(ex);
             if (!uid.isPresent()) return;
 
@@ -482,8 +481,7 @@ public static class RecDTO {
             int limit = (int) Query.num(q, "limit", 20);
 
             try {
-                java.time.LocalDateTime now = java.time.LocalDateTime.now();
-                java.util.List<dto.CandidatePost> recs = feedService.recommendedFeed(uid.get(), now, limit);
+                java.util.List<dto.CandidatePost> recs = feedService.recommendedFeed(uid.get(), limit);
 
                 java.util.List<RecDTO> out = new java.util.ArrayList<>();
                 if (recs != null) {
@@ -504,12 +502,9 @@ public static class RecDTO {
                 e.printStackTrace();
                 badRequest(ex, "internal error");
             }
-        }));
+        });
         
-        s.createContext("/api/places/rate", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-
+        router.post("/api/places/rate", ex -> {
             Optional<String> uid = requireAuth(ex);
             if (!uid.isPresent()) return;
 
@@ -535,12 +530,9 @@ public static class RecDTO {
                 e.printStackTrace();
                 badRequest(ex, "internal error");
             }
-        }));
-
-        s.createContext("/api/ads/recommended", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
+        });
 
+        router.get("/api/ads/recommended", ex -> {
             Optional<String> uid = requireAuth(ex);
             if (!uid.isPresent()) return;
 
@@ -573,12 +565,9 @@ public static class RecDTO {
                 e.printStackTrace();
                 badRequest(ex, "internal error");
             }
-        }));
-
-        s.createContext("/api/places/list", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
+        });
 
+        router.get("/api/places/list", ex -> {
             // ako želiš javno dostupno, izbaci requireAuth
             Optional<String> uid = requireAuth(ex);
             if (!uid.isPresent()) return;
@@ -589,49 +578,44 @@ public static class RecDTO {
                 String city = Query.str(q, "city", "").toLowerCase();
                 int limit   = (int) Query.num(q, "limit", 50);
 
-                java.util.Collection<model.Place> all = placeRepo.findAll();
-                java.util.List<PlaceDTO> out = new java.util.ArrayList<>();
-
-                for (model.Place p : all) {
-                    if (p == null) continue;
-
-                    boolean okByTerm = term.isEmpty()
-                        || (p.getName()!=null && p.getName().toLowerCase().contains(term))
-                        || (p.getDescription()!=null && p.getDescription().toLowerCase().contains(term))
-                        || (p.getHashtags()!=null && p.getHashtags().stream().anyMatch(h -> h!=null && h.toLowerCase().contains(term)));
-
-                    boolean okByCity = city.isEmpty()
-                        || (p.getCity()!=null && p.getCity().toLowerCase().contains(city));
-
-                    if (okByTerm && okByCity) {
-                        out.add(toPlaceDto(p));
-                        if (out.size() >= Math.max(1, limit)) break;
-                    }
-                }
-
-                ok(ex, out);
+                int max = Math.max(1, limit);
+
+                // mesta se filtriraju i upisuju u odgovor dok se čitaju; čitanje staje na limitu
+                streamJson(ex, js -> {
+                    js.writer().beginArray();
+                    int[] written = {0};
+                    placeRepo.forEach(p -> {
+                        if (p == null) return true;
+
+                        boolean okByTerm = term.isEmpty()
+                            || (p.getName()!=null && p.getName().toLowerCase().contains(term))
+                            || (p.getDescription()!=null && p.getDescription().toLowerCase().contains(term))
+                            || (p.getHashtags()!=null && p.getHashtags().stream().anyMatch(h -> h!=null && h.toLowerCase().contains(term)));
+
+                        boolean okByCity = city.isEmpty()
+                            || (p.getCity()!=null && p.getCity().toLowerCase().contains(city));
+
+                        if (okByTerm && okByCity) {
+                            js.valueUnchecked(toPlaceDto(p));
+                            written[0]++;
+                        }
+                        return written[0] < max;
+                    });
+                    js.writer().endArray();
+                });
             } catch (Exception e) {
                 e.printStackTrace();
                 badRequest(ex, "internal error");
             }
-        }));
+        });
         
-        s.createContext("/api/places/", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
-            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { methodNotAllowed(ex); return; }
-
+        router.get("/api/places/{id}", (ex, vars) -> {
             // (ako želiš da detalji rade samo za ulogovane, ostavi requireAuth;
             //  ako hoćeš javno, slobodno ukloni sledeće 3 linije)
             Optional<String> uid = requireAuth(ex);
             if (!uid.isPresent()) return;
 
-            String path = ex.getRequestURI().getPath();      // npr. /api/places/503b...
-            final String base = "/api/places/";
-            if (!path.startsWith(base) || path.length() <= base.length()) { methodNotAllowed(ex); return; }
-            String id = path.substring(base.length());
-
-            // izbegni sudar sa /api/places/list i /api/places/rate
-            if ("list".equalsIgnoreCase(id) || "rate".equalsIgnoreCase(id)) { methodNotAllowed(ex); return; }
+            String id = vars.get("id");
 
             try {
                 java.util.Optional<model.Place> opt = placeRepo.findById(id);
@@ -644,21 +628,26 @@ public static class RecDTO {
                 e.printStackTrace();
                 badRequest(ex, "internal error");
             }
-        }));
+        });
         
-        s.createContext("/api/", Cors.wrap(ex -> {
-            if ("OPTIONS".equalsIgnoreCase(ex.getRequestMethod())) { Cors.handlePreflight(ex); return; }
+        router.notFound(ex -> {
             byte[] body = "{\"error\":\"not found\"}".getBytes(java.nio.charset.StandardCharsets.UTF_8);
             ex.sendResponseHeaders(404, body.length);
             try (java.io.OutputStream os = ex.getResponseBody()) { os.write(body); }
             ex.close();
-        }));
+        });
 
+        s.createContext("/api/", router.compile(this::wrap));
         s.start();
+        transport = s;
         System.out.println("[HTTP] listening on http://localhost:" + port);
     }
 
     private static String readBody(java.io.InputStream in) throws java.io.IOException {
+        // NioTransport: telo je već u baferu konekcije, dekodira se direktno iz njega
+        if (in instanceof NioExchange.RequestBody) {
+            return StandardCharsets.UTF_8.decode(((NioExchange.RequestBody) in).remaining()).toString();
+        }
         java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
         byte[] buf = new byte[4096];
         int r;
@@ -704,7 +693,6 @@ public static class RecDTO {
     }
     
     /* ==== DTOs ==== */
-    static class Page<T> { public List<T> content; public int page; public int size; public long totalElements; }
 
     static class PostDTO {
         public String id;
@@ -771,15 +759,52 @@ public static class RecDTO {
 
     private static void ok(HttpExchange ex, Object payload) throws java.io.IOException { send(ex, 200, payload); }
     private static void badRequest(HttpExchange ex, String msg) throws java.io.IOException { send(ex, 400, map("error", msg)); }
-    private static void methodNotAllowed(HttpExchange ex) throws java.io.IOException { send(ex, 405, map("error","method not allowed")); }
+
+    // svaka ruta: limit zahteva (429), light/heavy pool (pun red -> 503), CORS (uklj. preflight), pa kompresija odgovora
+    private com.sun.net.httpserver.HttpHandler wrap(String route, com.sun.net.httpserver.HttpHandler h) {
+        return RateLimiter.get().wrap(route, this::rateKey,
+                WorkPools.get().dispatch(route, Compression.wrap(route, Cors.wrap(h))));
+    }
+
+    // ključ za limit po korisniku: id iz sesije, a bez (ispravnog) tokena IP adresa klijenta
+    private String rateKey(HttpExchange ex) {
+        String authHeader = ex.getRequestHeaders().getFirst("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            Optional<String> uid = sessionManager.getUserId(authHeader.substring("Bearer ".length()).trim());
+            if (uid.isPresent()) return uid.get();
+        }
+        return "ip:" + ex.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    /** 200 odgovor koji se piše u toku (JsonStream.respond) umesto da se ceo payload prvo serijalizuje u String. */
+    private static void streamJson(HttpExchange ex, JsonStream.Content body) throws java.io.IOException {
+        JsonStream.respond(ex, 200, GSON, body);
+    }
 
     private static void send(HttpExchange ex, int status, Object payload) throws java.io.IOException {
-        // CORS headeri se već postavljaju u Cors.wrap() -> ovde samo body
+        // CORS headeri se već postavljaju u wrap() -> ovde samo body
         byte[] body = payload == null ? new byte[0] : GSON.toJson(payload).getBytes(StandardCharsets.UTF_8);
         ex.sendResponseHeaders(status, body.length);
         try (OutputStream os = ex.getResponseBody()) { os.write(body); }
         ex.close();
     }
+    static final int MAX_PAGE_SIZE = 100;
+
+    private static int pageSize(Map<String,List<String>> q) {
+        long size = Query.num(q, "size", 20);
+        if (size < 1 || size > MAX_PAGE_SIZE) throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        return (int) size;
+    }
+
+    // { content, size, nextCursor } — nextCursor je null na poslednjoj strani
+    private static Map<String,Object> pageBody(dto.PostPage page, int size) {
+        Map<String,Object> out = new LinkedHashMap<>();
+        out.put("content", page.getPosts().stream().map(ApiServer::toDto).collect(Collectors.toList()));
+        out.put("size", size);
+        out.put("nextCursor", page.getNextCursorToken());
+        return out;
+    }
+
     private static Map<String,Object> map(Object... kv){
         Map<String,Object> m = new LinkedHashMap<>();
         for (int i=0;i+1<kv.length;i+=2) m.put(String.valueOf(kv[i]), kv[i+1]);
@@ -0,0 +1,250 @@
+package http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+import config.HttpConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Transparentna kompresija odgovora (gzip, pa deflate) prema Accept-Encoding zahteva.
+ * Handler i dalje radi sendResponseHeaders(status, dužina) + getResponseBody(); exchange koji dobije
+ * je omotač koji, ako klijent to podržava i odgovor nije manji od http.compression.minBytes,
+ * doda Content-Encoding, pošalje telo chunked i sažima ga kroz Deflater iz pool-a.
+ * Odgovori bez tela (dužina -1), već kodirani i oni ispod praga prolaze nepromenjeni.
+ *
+ * Upotreba kao i Cors.wrap: Compression.wrap(ruta, Cors.wrap(handler)); ušteda se vodi po ruti.
+ */
+public final class Compression {
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private static final HttpConfig CFG = HttpConfig.get();
+    private static final DeflaterPool GZIP = new DeflaterPool(CFG.compressionLevel, true, CFG.compressionPoolSize);
+    private static final DeflaterPool DEFLATE = new DeflaterPool(CFG.compressionLevel, false, CFG.compressionPoolSize);
+
+    // ruta -> [odgovora, bajtova pre, bajtova posle]
+    private static final Map<String, LongAdder[]> STATS = new ConcurrentHashMap<>();
+
+    private Compression(){}
+
+    public static HttpHandler wrap(String route, HttpHandler next){
+        if (!CFG.compressionEnabled) return next;
+        return exchange -> {
+            // i nekompresovan odgovor zavisi od Accept-Encoding (za keševe između)
+            Cors.addVary(exchange.getResponseHeaders(), "Accept-Encoding");
+            String enc = negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            if (enc == null) { next.handle(exchange); return; }
+            CompressingExchange ce = new CompressingExchange(exchange, enc, route);
+            try {
+                next.handle(ce);
+            } finally {
+                ce.finishQuietly();
+            }
+        };
+    }
+
+    /** Ušteda po endpoint-u (za /api/admin/metrics). */
+    public static Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Map<String, Object> byPath = new TreeMap<>();
+        STATS.forEach((path, a) -> {
+            long in = a[1].sum(), outBytes = a[2].sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("responses", a[0].sum());
+            m.put("bytesIn", in);
+            m.put("bytesOut", outBytes);
+            m.put("bytesSaved", in - outBytes);
+            m.put("ratio", in == 0 ? 0.0 : (double) outBytes / (double) in);
+            byPath.put(path, m);
+        });
+        out.put("minBytes", CFG.compressionMinBytes);
+        out.put("deflatersCreated", GZIP.created() + DEFLATE.created());
+        out.put("deflatersReused", GZIP.reused() + DEFLATE.reused());
+        out.put("deflatersIdle", GZIP.idle() + DEFLATE.idle());
+        out.put("endpoints", byPath);
+        return out;
+    }
+
+    /** "gzip" ili "deflate" (tim redom), ili null ako klijent ne prihvata nijedno (q=0 znači "ne"). */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) return null;
+        boolean gzip = false, deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] t = part.trim().split(";");
+            String name = t[0].trim().toLowerCase();
+            boolean refused = false;
+            for (int i = 1; i < t.length; i++) {
+                String param = t[i].trim();
+                if (param.startsWith("q=")) {
+                    try { refused = Double.parseDouble(param.substring(2).trim()) <= 0.0; }
+                    catch (NumberFormatException e) { refused = true; }
+                }
+            }
+            if (refused) continue;
+            if (name.equals("gzip") || name.equals("x-gzip") || name.equals("*")) gzip = true;
+            else if (name.equals("deflate")) deflate = true;
+        }
+        return gzip ? "gzip" : deflate ? "deflate" : null;
+    }
+
+    private static void record(String path, long in, long out) {
+        LongAdder[] a = STATS.computeIfAbsent(path, k -> new LongAdder[]{ new LongAdder(), new LongAdder(), new LongAdder() });
+        a[0].increment();
+        a[1].add(in);
+        a[2].add(out);
+    }
+
+    /** Telo odgovora koje se sažima Deflater-om iz pool-a; close() završava stream i vraća Deflater. */
+    private static final class DeflatingBody extends OutputStream {
+        private final OutputStream out;
+        private final DeflaterPool pool;
+        private final boolean gzip;
+        private final String path;
+        private final CRC32 crc = new CRC32();
+        private final byte[] buf = new byte[8192];
+        private Deflater deflater;
+
+        DeflatingBody(OutputStream out, String encoding, String path) throws IOException {
+            this.out = out;
+            this.gzip = "gzip".equals(encoding);
+            this.pool = gzip ? GZIP : DEFLATE;
+            this.path = path;
+            this.deflater = pool.borrow();
+            if (gzip) out.write(GZIP_HEADER);
+        }
+
+        @Override public void write(int b) throws IOException {
+            write(new byte[]{ (byte) b }, 0, 1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            if (deflater == null) throw new IOException("stream closed");
+            if (len == 0) return;
+            if (gzip) crc.update(b, off, len);
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) drain();
+        }
+
+        @Override public void flush() throws IOException { out.flush(); }
+
+        @Override public void close() throws IOException {
+            if (deflater == null) return;
+            Deflater d = deflater;
+            try {
+                d.finish();
+                while (!d.finished()) drain();
+                long in = d.getBytesRead();
+                long written = d.getBytesWritten();
+                if (gzip) {
+                    writeIntLE((int) crc.getValue());
+                    writeIntLE((int) in);
+                    written += GZIP_HEADER.length + 8;
+                }
+                record(path, in, written);
+                out.close();
+            } finally {
+                deflater = null;
+                pool.release(d);
+            }
+        }
+
+        /** Bez slanja: odgovor je propao, Deflater samo ide nazad u pool. */
+        void discard() {
+            if (deflater == null) return;
+            pool.release(deflater);
+            deflater = null;
+        }
+
+        private void drain() throws IOException {
+            int n = deflater.deflate(buf, 0, buf.length, Deflater.NO_FLUSH);
+            if (n > 0) out.write(buf, 0, n);
+        }
+
+        private void writeIntLE(int v) throws IOException {
+            out.write(v & 0xff);
+            out.write((v >>> 8) & 0xff);
+            out.write((v >>> 16) & 0xff);
+            out.write((v >>> 24) & 0xff);
+        }
+    }
+
+    /** Omotač oko pravog exchange-a; sve osim slanja zaglavlja i tela prosleđuje dalje. */
+    private static final class CompressingExchange extends HttpExchange implements Abortable {
+        private final HttpExchange ex;
+        private final String encoding;
+        private final String route;
+        private DeflatingBody body;
+
+        CompressingExchange(HttpExchange ex, String encoding, String route) {
+            this.ex = ex;
+            this.encoding = encoding;
+            this.route = route;
+        }
+
+        @Override public void sendResponseHeaders(int code, long length) throws IOException {
+            Headers h = ex.getResponseHeaders();
+            boolean skip = length < 0
+                    || (length > 0 && length < CFG.compressionMinBytes)
+                    || h.containsKey("Content-Encoding");
+            if (skip) { ex.sendResponseHeaders(code, length); return; }
+            h.set("Content-Encoding", encoding);
+            ex.sendResponseHeaders(code, 0);
+            body = new DeflatingBody(ex.getResponseBody(), encoding, route);
+        }
+
+        @Override public OutputStream getResponseBody() {
+            return body != null ? body : ex.getResponseBody();
+        }
+
+        @Override public void close() {
+            try {
+                if (body != null) body.close();
+            } catch (IOException e) {
+                body.discard();
+            } finally {
+                ex.close();
+            }
+        }
+
+        // bez gzip trailer-a: nepotpun odgovor mora i da izgleda nepotpuno
+        @Override public void abort() {
+            if (body != null) body.discard();
+            Abortable.abort(ex);
+        }
+
+        // handler je završio bez close() (ili je pukao): ne sme da ostane pozajmljen Deflater
+        void finishQuietly() {
+            if (body != null) body.discard();
+        }
+
+        @Override public Headers getRequestHeaders() { return ex.getRequestHeaders(); }
+        @Override public Headers getResponseHeaders() { return ex.getResponseHeaders(); }
+        @Override public URI getRequestURI() { return ex.getRequestURI(); }
+        @Override public String getRequestMethod() { return ex.getRequestMethod(); }
+        @Override public HttpContext getHttpContext() { return ex.getHttpContext(); }
+        @Override public InputStream getRequestBody() { return ex.getRequestBody(); }
+        @Override public int getResponseCode() { return ex.getResponseCode(); }
+        @Override public InetSocketAddress getRemoteAddress() { return ex.getRemoteAddress(); }
+        @Override public InetSocketAddress getLocalAddress() { return ex.getLocalAddress(); }
+        @Override public String getProtocol() { return ex.getProtocol(); }
+        @Override public Object getAttribute(String name) { return ex.getAttribute(name); }
+        @Override public void setAttribute(String name, Object value) { ex.setAttribute(name, value); }
+        @Override public void setStreams(InputStream i, OutputStream o) { ex.setStreams(i, o); }
+        @Override public HttpPrincipal getPrincipal() { return ex.getPrincipal(); }
+    }
+}
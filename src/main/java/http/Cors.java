@@ -7,6 +7,7 @@ import config.CorsConfig;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 public final class Cors {
 
@@ -41,7 +42,7 @@ public final class Cors {
 
         if (allowOrigin != null) {
             res.set("Access-Control-Allow-Origin", allowOrigin);
-            res.set("Vary", "Origin");
+            addVary(res, "Origin");
         }
         res.set("Access-Control-Allow-Methods", cfg.allowedMethods);
         res.set("Access-Control-Allow-Headers", cfg.allowedHeaders);
@@ -54,6 +55,17 @@ public final class Cors {
         }
     }
 
+    /** Dodaj token u Vary bez brisanja postojećih (Compression dodaje Accept-Encoding); duplikat se preskače. */
+    public static void addVary(Headers res, String token){
+        List<String> values = res.get("Vary");
+        if (values != null) {
+            for (String v : values) {
+                for (String t : v.split(",")) if (t.trim().equalsIgnoreCase(token)) return;
+            }
+        }
+        res.add("Vary", token);
+    }
+
     private static String pickAllowedOrigin(String requestOrigin, CorsConfig cfg){
         if (requestOrigin == null) return null;
         // wildcard nije dozvoljen sa credentials=true, pa echo-uj samo ako je na listi
@@ -0,0 +1,54 @@
+package http;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater-i za ponovnu upotrebu: svaki drži native zlib stanje (~256 KiB), pa je pravljenje
+ * i end() po odgovoru skuplje od samog sažimanja malog JSON-a.
+ * borrow() uzima slobodan ili pravi nov; release() ga resetuje i vraća, a preko maxIdle ga gasi.
+ */
+final class DeflaterPool {
+
+    private final int level;
+    private final boolean nowrap;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<Deflater> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /** nowrap=true: sirov deflate (za gzip okvir), false: zlib format (Content-Encoding: deflate). */
+    DeflaterPool(int level, boolean nowrap, int maxIdle) {
+        this.level = level;
+        this.nowrap = nowrap;
+        this.maxIdle = maxIdle;
+    }
+
+    Deflater borrow() {
+        Deflater d = idle.poll();
+        if (d != null) {
+            idleCount.decrementAndGet();
+            reused.incrementAndGet();
+            return d;
+        }
+        created.incrementAndGet();
+        return new Deflater(level, nowrap);
+    }
+
+    void release(Deflater d) {
+        d.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(d);
+        } else {
+            idleCount.decrementAndGet();
+            d.end();
+        }
+    }
+
+    long created() { return created.get(); }
+    long reused() { return reused.get(); }
+    int idle() { return idleCount.get(); }
+}
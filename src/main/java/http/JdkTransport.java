@@ -0,0 +1,86 @@
+package http;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Transport preko com.sun.net.httpserver.HttpServer (ranije jedini). */
+final class JdkTransport implements Transport {
+
+    /**
+     * Telo odgovora HttpServer-a: posle abort() close() baca IOException, a ExchangeImpl.close() na to
+     * zatvara vezu umesto da pošalje kraj tela (završni chunk).
+     */
+    private static final class AbortableBody extends FilterOutputStream implements Abortable {
+        private volatile boolean aborted;
+
+        AbortableBody(OutputStream out) { super(out); }
+
+        @Override public void write(int b) throws IOException {
+            check();
+            out.write(b);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            check();
+            out.write(b, off, len);
+        }
+
+        @Override public void flush() throws IOException {
+            check();
+            out.flush();
+        }
+
+        @Override public void close() throws IOException {
+            check();
+            out.close();
+        }
+
+        @Override public void abort() { aborted = true; }
+
+        private void check() throws IOException {
+            if (aborted) throw new IOException("response aborted");
+        }
+    }
+
+    private final HttpServer server;
+    private int contexts;
+
+    JdkTransport(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        // platform pool-ovi ili virtuelna nit po zahtevu: -Dhttp.executor=virtual / http.executor u http.properties
+        server.setExecutor(WorkPools.get().acceptExecutor());
+    }
+
+    @Override public void createContext(String path, HttpHandler handler) {
+        server.createContext(path, ex -> {
+            AbortableBody body = new AbortableBody(ex.getResponseBody());
+            ex.setStreams(null, body);
+            ex.setAttribute(Abortable.ATTRIBUTE, body);
+            handler.handle(ex);
+        });
+        contexts++;
+    }
+
+    @Override public void start() {
+        server.start();
+        System.out.println("[HTTP] transport=jdk contexts=" + contexts);
+    }
+
+    @Override public InetSocketAddress address() { return server.getAddress(); }
+
+    @Override public void stop() { server.stop(0); }
+
+    @Override public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", "jdk");
+        m.put("contexts", contexts);
+        return m;
+    }
+}
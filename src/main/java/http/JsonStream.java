@@ -0,0 +1,149 @@
+package http;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON odgovor koji se piše direktno u telo odgovora (Gson JsonWriter), element po element,
+ * umesto GSON.toJson(ceo payload) -> String -> byte[].
+ *
+ * Prvih BUFFER bajtova se drži u baferu: ako ceo odgovor stane u njega, šalje se sa tačnom
+ * dužinom kao i do sada; inače se zaglavlja šalju sa dužinom 0 (chunked) i bafer se prazni
+ * kako se puni — memorija po zahtevu je ograničena bez obzira na broj elemenata.
+ * Zaglavlja (status) se šalju tek na prvom pražnjenju, pa greška pre prvog elementa može
+ * još da se prijavi običnim odgovorom (vidi started()).
+ */
+public final class JsonStream implements Closeable {
+
+    public static final int BUFFER = 8192;
+
+    private static final byte[] INTERNAL_ERROR = "{\"error\":\"internal error\"}".getBytes(StandardCharsets.UTF_8);
+
+    /** Sadržaj odgovora (npr. repozitorijum koji piše red po red). */
+    public interface Content { void write(JsonStream js) throws IOException; }
+
+    /**
+     * Ceo odgovor: content piše u JsonStream, pa close(). Greška pre slanja zaglavlja (npr. upit nije
+     * prošao) se vraća kao 500; posle toga se veza prekida bez kraja tela (abort()) i izuzetak ide
+     * dalje (WorkPools / HttpServer ga beleže).
+     */
+    public static void respond(HttpExchange ex, int status, Gson gson, Content content) throws IOException {
+        JsonStream js = new JsonStream(ex, status, gson);
+        try {
+            content.write(js);
+            js.close();
+        } catch (RuntimeException | IOException e) {
+            if (js.started()) {
+                js.abort();
+                throw e;
+            }
+            System.out.println("[HTTP] streaming " + ex.getRequestURI().getPath() + " failed: " + e);
+            ex.sendResponseHeaders(500, INTERNAL_ERROR.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(INTERNAL_ERROR); }
+            ex.close();
+        }
+    }
+
+    private final Body body;
+    private final JsonWriter w;
+    private final Gson gson;
+
+    public JsonStream(HttpExchange ex, int status, Gson gson) throws IOException {
+        this.body = new Body(ex, status);
+        this.gson = gson;
+        this.w = gson.newJsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+    }
+
+    public JsonWriter writer() { return w; }
+
+    /** Jedan element (objekat, DTO, mapa) na trenutnu poziciju. */
+    public JsonStream value(Object o) throws IOException {
+        if (o == null) w.nullValue(); else gson.toJson(o, o.getClass(), w);
+        return this;
+    }
+
+    /** Za RowVisitor lambde (ne smeju da bacaju IOException). */
+    public JsonStream valueUnchecked(Object o) {
+        try { return value(o); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /** true ako su zaglavlja već poslata — tada se greška više ne može prijaviti statusom. */
+    public boolean started() { return body.sent; }
+
+    /** Završava odgovor (šalje ostatak i zatvara exchange). */
+    @Override
+    public void close() throws IOException {
+        w.close();
+    }
+
+    /**
+     * Ako odgovor nije uspeo posle slanja zaglavlja: prekini vezu bez završnog chunk-a (Abortable),
+     * klijent dobija nepotpun odgovor umesto ispravnog 200 sa odsečenim JSON-om.
+     */
+    public void abort() {
+        body.n = 0;
+        Abortable.abort(body.ex);
+    }
+
+    private static final class Body extends OutputStream {
+        final HttpExchange ex;
+        final int status;
+        final byte[] buf = new byte[BUFFER];
+        int n;
+        boolean sent;
+        OutputStream out;
+
+        Body(HttpExchange ex, int status) { this.ex = ex; this.status = status; }
+
+        @Override public void write(int b) throws IOException {
+            if (n == buf.length) drain();
+            buf[n++] = (byte) b;
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (n == buf.length) drain();
+                int k = Math.min(len, buf.length - n);
+                System.arraycopy(b, off, buf, n, k);
+                n += k; off += k; len -= k;
+            }
+        }
+
+        // flush() iz Writer-a se ignoriše: prazni se samo pun bafer ili na close()
+        @Override public void flush() { }
+
+        private void drain() throws IOException {
+            if (!sent) {
+                ex.sendResponseHeaders(status, 0);
+                out = ex.getResponseBody();
+                sent = true;
+            }
+            out.write(buf, 0, n);
+            n = 0;
+        }
+
+        @Override public void close() throws IOException {
+            try {
+                if (!sent) {
+                    ex.sendResponseHeaders(status, n == 0 ? -1 : n);
+                    sent = true;
+                    if (n > 0) try (OutputStream os = ex.getResponseBody()) { os.write(buf, 0, n); }
+                } else {
+                    drain();
+                    out.close();
+                }
+            } finally {
+                ex.close();
+            }
+        }
+    }
+}
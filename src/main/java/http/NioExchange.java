@@ -0,0 +1,329 @@
+package http;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HttpExchange nad jednim zahtevom NioTransport konekcije, da postojeći handler-i rade nepromenjeni.
+ * Telo zahteva je već celo u (direktnom) baferu konekcije i čita se direktno iz njega (RequestBody);
+ * odgovor (zaglavlja + telo) se skuplja u bafer i predaje konekciji u komadima, sa istom semantikom
+ * dužine kao HttpServer: > 0 tačna dužina, 0 chunked, -1 bez tela.
+ */
+final class NioExchange extends HttpExchange implements Abortable {
+
+    private static final int OUT_BUFFER = 8192;
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+    private static volatile long dateSecond;
+    private static volatile String dateValue;
+
+    private final NioTransport.Conn conn;
+    private final Context context;
+    private final String method;
+    private final URI uri;
+    private final String protocol;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    private final boolean keepAlive;
+    private final RequestBody requestBody;
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private ResponseBody responseBody;
+    // ono što handler dobija; Filter ih može zameniti/omotati (setStreams), kao kod HttpServer-a
+    private InputStream in;
+    private OutputStream out = new PendingBody();
+    private int responseCode = -1;
+    private boolean finished;
+
+    NioExchange(NioTransport.Conn conn, Context context, String method, URI uri, String protocol,
+                Headers requestHeaders, ByteBuffer body, boolean keepAlive) {
+        this.conn = conn;
+        this.context = context;
+        this.method = method;
+        this.uri = uri;
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.requestBody = new RequestBody(body);
+        this.in = requestBody;
+        this.keepAlive = keepAlive;
+    }
+
+    @Override public Headers getRequestHeaders() { return requestHeaders; }
+    @Override public Headers getResponseHeaders() { return responseHeaders; }
+    @Override public URI getRequestURI() { return uri; }
+    @Override public String getRequestMethod() { return method; }
+    @Override public HttpContext getHttpContext() { return context; }
+    @Override public InputStream getRequestBody() { return in; }
+    @Override public int getResponseCode() { return responseCode; }
+    @Override public InetSocketAddress getRemoteAddress() { return conn.remote; }
+    @Override public InetSocketAddress getLocalAddress() { return conn.local; }
+    @Override public String getProtocol() { return protocol; }
+    @Override public Object getAttribute(String name) { return attributes.get(name); }
+    @Override public void setAttribute(String name, Object value) { attributes.put(name, value); }
+    @Override public HttpPrincipal getPrincipal() { return null; }
+
+    /** Kao ExchangeImpl: zamenjuje tok zahteva i/ili odgovora (null = ostaje postojeći). */
+    @Override public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) in = i;
+        if (o != null) out = o;
+    }
+
+    /** Može i pre sendResponseHeaders (Filter ga tada omota); pisanje pre zaglavlja baca IOException. */
+    @Override public OutputStream getResponseBody() { return out; }
+
+    @Override public void sendResponseHeaders(int code, long length) throws IOException {
+        if (responseBody != null) throw new IOException("headers already sent");
+        responseCode = code;
+        boolean noBody = code < 200 || code == 204 || code == 304 || "HEAD".equals(method);
+        boolean http10 = "HTTP/1.0".equals(protocol);
+        boolean close = !keepAlive;
+        long fixed;
+        responseHeaders.remove("Content-Length");
+        responseHeaders.remove("Transfer-Encoding");
+        if (noBody || length < 0) {
+            fixed = 0;
+            if (!noBody) responseHeaders.set("Content-Length", "0");
+        } else if (length > 0) {
+            fixed = length;
+            responseHeaders.set("Content-Length", Long.toString(length));
+        } else if (http10) {
+            // HTTP/1.0 nema chunked: telo do zatvaranja veze
+            fixed = -1;
+            close = true;
+        } else {
+            fixed = -1;
+            responseHeaders.set("Transfer-Encoding", "chunked");
+        }
+        if (close) responseHeaders.set("Connection", "close");
+        else if (http10) responseHeaders.set("Connection", "keep-alive");
+        if (!responseHeaders.containsKey("Date")) responseHeaders.set("Date", date());
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("HTTP/1.1 ").append(code).append(' ').append(reason(code)).append("\r\n");
+        for (Map.Entry<String, List<String>> e : responseHeaders.entrySet()) {
+            for (String v : e.getValue()) sb.append(e.getKey()).append(": ").append(v).append("\r\n");
+        }
+        sb.append("\r\n");
+
+        boolean chunked = fixed < 0 && !http10;
+        responseBody = new ResponseBody(noBody || length < 0 ? 0 : fixed, chunked, close);
+        responseBody.head(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (noBody || length < 0) responseBody.close();
+    }
+
+    @Override public void close() {
+        if (finished) return;
+        try {
+            if (responseBody == null) {
+                // handler nije poslao odgovor: kao HttpServer, veza se prekida
+                finish(true);
+            } else {
+                // omotač iz setStreams prvo završi svoj deo; ResponseBody.close() je idempotentan
+                out.close();
+                responseBody.close();
+            }
+        } catch (IOException e) {
+            finish(true);
+        }
+    }
+
+    /** Posle zaglavlja: ostatak tela (i završni chunk) se ne šalje, veza se zatvara kad se isprazni red. */
+    @Override public void abort() {
+        if (responseBody != null) responseBody.closed = true;
+        finish(true);
+    }
+
+    private void finish(boolean closeConnection) {
+        if (finished) return;
+        finished = true;
+        conn.responseDone(closeConnection);
+    }
+
+    private static String date() {
+        long sec = System.currentTimeMillis() / 1000;
+        String d = dateValue;
+        if (d == null || sec != dateSecond) {
+            d = HTTP_DATE.format(ZonedDateTime.now(ZoneOffset.UTC));
+            dateValue = d;
+            dateSecond = sec;
+        }
+        return d;
+    }
+
+    static String reason(int code) {
+        switch (code) {
+            case 100: return "Continue";
+            case 200: return "OK";
+            case 201: return "Created";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 408: return "Request Timeout";
+            case 411: return "Length Required";
+            case 413: return "Payload Too Large";
+            case 429: return "Too Many Requests";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            default:  return "";
+        }
+    }
+
+    /** Telo zahteva: pogled na deo bafera konekcije, bez kopiranja. */
+    static final class RequestBody extends InputStream {
+        private final ByteBuffer buf;
+
+        RequestBody(ByteBuffer buf) { this.buf = buf; }
+
+        /** Ostatak tela kao ByteBuffer (za dekodiranje bez međukopije, vidi ApiServer.readBody). */
+        ByteBuffer remaining() {
+            ByteBuffer b = buf.slice();
+            buf.position(buf.limit());
+            return b;
+        }
+
+        @Override public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xff : -1;
+        }
+
+        @Override public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buf.hasRemaining()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override public int available() { return buf.remaining(); }
+    }
+
+    /** Stalni tok odgovora koji handler dobija; prosleđuje u ResponseBody kad se pošalju zaglavlja. */
+    private final class PendingBody extends OutputStream {
+        private ResponseBody body() throws IOException {
+            if (responseBody == null) throw new IOException("sendResponseHeaders not called");
+            return responseBody;
+        }
+
+        @Override public void write(int b) throws IOException { body().write(b); }
+        @Override public void write(byte[] b, int off, int len) throws IOException { body().write(b, off, len); }
+        @Override public void flush() throws IOException { if (responseBody != null) responseBody.flush(); }
+        @Override public void close() throws IOException { if (responseBody != null) responseBody.close(); }
+    }
+
+    /** Telo odgovora; zaglavlja idu zajedno sa prvim komadom tela, pa mali odgovor ode jednim write-om. */
+    private final class ResponseBody extends OutputStream {
+        private final boolean chunked;
+        private final boolean closeConnection;
+        private long remaining;      // za tačnu dužinu; -1 = nije zadata
+        private final byte[] buf = new byte[OUT_BUFFER];
+        private int n;
+        private byte[] head;
+        private boolean closed;
+
+        ResponseBody(long fixed, boolean chunked, boolean closeConnection) {
+            this.remaining = fixed;
+            this.chunked = chunked;
+            this.closeConnection = closeConnection;
+        }
+
+        void head(byte[] head) { this.head = head; }
+
+        @Override public void write(int b) throws IOException {
+            write(new byte[]{ (byte) b }, 0, 1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) throw new IOException("stream closed");
+            if (remaining >= 0) {
+                if (len > remaining) throw new IOException("too many bytes to write to stream");
+                remaining -= len;
+            }
+            while (len > 0) {
+                if (n == buf.length) emit(false);
+                int k = Math.min(len, buf.length - n);
+                System.arraycopy(b, off, buf, n, k);
+                n += k; off += k; len -= k;
+            }
+        }
+
+        @Override public void flush() throws IOException {
+            if (!closed && (n > 0 || head != null)) emit(false);
+        }
+
+        @Override public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                emit(true);
+            } catch (IOException e) {
+                finish(true);
+                throw e;
+            }
+            finish(closeConnection || remaining > 0);
+        }
+
+        // [zaglavlja] [veličina CRLF] telo [CRLF] [0 CRLF CRLF] -> jedan (gathering) write
+        private void emit(boolean last) throws IOException {
+            ByteBuffer[] parts = new ByteBuffer[5];
+            int k = 0;
+            if (head != null) { parts[k++] = ByteBuffer.wrap(head); head = null; }
+            if (n > 0) {
+                if (chunked) parts[k++] = ByteBuffer.wrap((Integer.toHexString(n) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                parts[k++] = ByteBuffer.wrap(buf, 0, n);
+                if (chunked) parts[k++] = ByteBuffer.wrap(CRLF);
+            }
+            if (last && chunked) parts[k++] = ByteBuffer.wrap(LAST_CHUNK);
+            n = 0;
+            if (k > 0) conn.write(parts, k);
+        }
+    }
+
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] LAST_CHUNK = { '0', '\r', '\n', '\r', '\n' };
+
+    /** HttpContext koji NioTransport daje handler-u (WorkPools/Compression koriste getPath()). */
+    static final class Context extends HttpContext {
+        private final String path;
+        private HttpHandler handler;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private Authenticator authenticator;
+
+        Context(String path, HttpHandler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+
+        @Override public HttpHandler getHandler() { return handler; }
+        @Override public void setHandler(HttpHandler h) { this.handler = h; }
+        @Override public String getPath() { return path; }
+        @Override public HttpServer getServer() { return null; }
+        @Override public Map<String, Object> getAttributes() { return attributes; }
+        @Override public List<Filter> getFilters() { return Collections.emptyList(); }
+        @Override public Authenticator setAuthenticator(Authenticator a) { Authenticator old = authenticator; authenticator = a; return old; }
+        @Override public Authenticator getAuthenticator() { return authenticator; }
+    }
+}
@@ -0,0 +1,476 @@
+package http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpHandler;
+import config.HttpConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP/1.1 transport na jednom NIO selector-u (nit http-nio), umesto com.sun.net.httpserver.
+ * - keep-alive: veza ostaje otvorena posle odgovora (HTTP/1.1 podrazumevano, 1.0 uz "Connection: keep-alive")
+ *   i zatvara se posle http.nio.idleTimeoutMs bez saobraćaja
+ * - pipelining: zahtevi koji su već stigli čekaju u baferu konekcije; sledeći se obrađuje kad se završi
+ *   odgovor na prethodni, pa odgovori idu istim redom
+ * - zahtev (zaglavlja + telo po Content-Length) se čita u direktni ByteBuffer konekcije i handler ga
+ *   dobija kad stigne ceo; telo se čita direktno iz tog bafera (NioExchange.RequestBody)
+ * - ruta: RouteTable prevedena pri start()
+ * Handler se izvršava na WorkPools.sheddingAcceptExecutor(), nikad na selector niti: kad je accept red
+ * pun zahtev dobija 503 i veza se zatvara (HttpServer bi ga izvršio na svojoj dispatcher niti).
+ * Dok handler radi, konekcija se ne čita; odgovor pišu radne niti, a ono što soket ne primi odmah
+ * šalje selector (radna nit čeka ako je na čekanju više od WRITE_HIGH bajtova).
+ */
+final class NioTransport implements Transport {
+
+    private static final int WRITE_HIGH = 256 * 1024;
+    private static final int WRITE_LOW = 64 * 1024;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final InetSocketAddress address;
+    private final int bufferBytes;
+    private final int maxRequestBytes;
+    private final long idleTimeoutMs;
+    private final Map<String, NioExchange.Context> contexts = new LinkedHashMap<>();
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // samo selector nit
+    private final Set<Conn> conns = new HashSet<>();
+    private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+
+    private RouteTable<NioExchange.Context> routes;
+    private Executor executor;
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread loop;
+
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong keepAliveReuse = new AtomicLong();
+    private final AtomicLong pipelined = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong idleClosed = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    NioTransport(int port, HttpConfig cfg) {
+        this.address = new InetSocketAddress(port);
+        this.bufferBytes = cfg.nioBufferBytes;
+        this.maxRequestBytes = Math.max(cfg.nioBufferBytes, cfg.nioMaxRequestBytes);
+        this.idleTimeoutMs = cfg.nioIdleTimeoutMs;
+    }
+
+    @Override public void createContext(String path, HttpHandler handler) {
+        if (routes != null) throw new IllegalStateException("transport already started");
+        contexts.put(path, new NioExchange.Context(path, handler));
+    }
+
+    @Override public void start() throws IOException {
+        routes = RouteTable.compile(contexts);
+        executor = WorkPools.get().sheddingAcceptExecutor();
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        loop = new Thread(this::run, "http-nio");
+        loop.setDaemon(false);
+        loop.start();
+        System.out.println("[HTTP] transport=nio contexts=" + routes.size() + " buffer=" + bufferBytes
+                + " maxRequest=" + maxRequestBytes + " idleTimeoutMs=" + idleTimeoutMs);
+    }
+
+    @Override public InetSocketAddress address() {
+        try {
+            return server != null ? (InetSocketAddress) server.getLocalAddress() : address;
+        } catch (IOException e) {
+            return address;
+        }
+    }
+
+    @Override public void stop() {
+        if (loop == null) return;
+        onLoop(() -> {
+            try { server.close(); } catch (IOException ignored) { }
+            for (Conn c : conns.toArray(new Conn[0])) c.close();
+        });
+        try {
+            loop.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try { selector.close(); } catch (IOException ignored) { }
+    }
+
+    @Override public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", "nio");
+        m.put("contexts", routes == null ? contexts.size() : routes.size());
+        m.put("open", open.get());
+        m.put("accepted", accepted.get());
+        m.put("requests", requests.get());
+        m.put("keepAliveReuse", keepAliveReuse.get());
+        m.put("pipelined", pipelined.get());
+        m.put("rejected", rejected.get());
+        m.put("idleClosed", idleClosed.get());
+        m.put("bytesIn", bytesIn.get());
+        m.put("bytesOut", bytesOut.get());
+        return m;
+    }
+
+    private void run() {
+        long lastSweep = System.currentTimeMillis();
+        while (server.isOpen()) {
+            try {
+                selector.select(1000);
+                Runnable t;
+                while ((t = tasks.poll()) != null) t.run();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey k = it.next();
+                    it.remove();
+                    if (!k.isValid()) continue;
+                    if (k.isAcceptable()) { accept(); continue; }
+                    Conn c = (Conn) k.attachment();
+                    try {
+                        if (k.isWritable()) c.onWritable();
+                        if (k.isValid() && k.isReadable()) c.onReadable();
+                    } catch (IOException | RuntimeException e) {
+                        c.close();
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastSweep >= 1000) { sweep(now); lastSweep = now; }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("[HTTP] nio loop: " + e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Conn c = new Conn(ch, buffer());
+            c.key = ch.register(selector, SelectionKey.OP_READ, c);
+            conns.add(c);
+            open.incrementAndGet();
+            accepted.incrementAndGet();
+        }
+    }
+
+    // veze bez zahteva u obradi i bez saobraćaja duže od idleTimeoutMs (i nedovršeni zahtevi)
+    private void sweep(long now) {
+        for (Conn c : conns.toArray(new Conn[0])) {
+            if (c.exchange == null && c.pending == 0 && now - c.lastActive > idleTimeoutMs) {
+                idleClosed.incrementAndGet();
+                c.close();
+            }
+        }
+    }
+
+    private ByteBuffer buffer() {
+        ByteBuffer b = freeBuffers.poll();
+        return b != null ? b : ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    /** Izvrši na selector niti (odmah, ako je to tekuća nit). */
+    private void onLoop(Runnable r) {
+        if (Thread.currentThread() == loop) { r.run(); return; }
+        tasks.add(r);
+        selector.wakeup();
+    }
+
+    /** Jedna TCP veza: bafer zahteva, zahtev u obradi i red neposlatih bajtova odgovora. */
+    final class Conn {
+        final SocketChannel ch;
+        final InetSocketAddress remote;
+        final InetSocketAddress local;
+        SelectionKey key;
+        ByteBuffer in;                 // režim pisanja: position = broj primljenih bajtova
+        int consumed;                  // bajtova tekućeg zahteva (zaglavlja + telo) na početku bafera
+        NioExchange exchange;          // zahtev u obradi (samo jedan, ostali čekaju u baferu)
+        int served;
+        boolean continueSent;
+        long lastActive = System.currentTimeMillis();
+
+        // red odgovora: radne niti + selector, pod monitorom ove konekcije
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        long pending;
+        private boolean closeWhenDrained;
+        private boolean closed;
+
+        Conn(SocketChannel ch, ByteBuffer in) throws IOException {
+            this.ch = ch;
+            this.in = in;
+            this.remote = (InetSocketAddress) ch.getRemoteAddress();
+            this.local = (InetSocketAddress) ch.getLocalAddress();
+        }
+
+        void onReadable() throws IOException {
+            int n = ch.read(in);
+            if (n < 0) { close(); return; }
+            if (n == 0) return;
+            bytesIn.addAndGet(n);
+            lastActive = System.currentTimeMillis();
+            parse();
+        }
+
+        /** Pokušaj da iz bafera izdvojiš ceo zahtev i predaš ga handler-u. Samo selector nit. */
+        private void parse() throws IOException {
+            int filled = in.position();
+            int headEnd = headEnd(filled);
+            if (headEnd < 0) {
+                if (filled >= bufferBytes) { reject(431, "request headers too large"); return; }
+                interest(SelectionKey.OP_READ, true);
+                return;
+            }
+
+            String head = ascii(0, headEnd - 4);
+            int eol = head.indexOf("\r\n");
+            String[] line = (eol < 0 ? head : head.substring(0, eol)).split(" ");
+            if (line.length != 3 || !line[2].startsWith("HTTP/1.")) { reject(400, "bad request line"); return; }
+            Headers headers = new Headers();
+            int pos = eol < 0 ? head.length() : eol + 2;
+            while (pos < head.length()) {
+                int next = head.indexOf("\r\n", pos);
+                if (next < 0) next = head.length();
+                int colon = head.indexOf(':', pos);
+                if (colon <= pos || colon > next) { reject(400, "bad header"); return; }
+                headers.add(head.substring(pos, colon).trim(), head.substring(colon + 1, next).trim());
+                pos = next + 2;
+            }
+            if (headers.containsKey("Transfer-Encoding")) { reject(411, "chunked request body not supported"); return; }
+            long length;
+            try {
+                String cl = headers.getFirst("Content-Length");
+                length = cl == null ? 0 : Long.parseLong(cl.trim());
+            } catch (NumberFormatException e) {
+                reject(400, "bad Content-Length"); return;
+            }
+            if (length < 0) { reject(400, "bad Content-Length"); return; }
+            if (headEnd + length > maxRequestBytes) { reject(413, "request too large"); return; }
+            int total = (int) (headEnd + length);
+            if (filled < total) {
+                if (total > in.capacity()) grow(total);
+                if (!continueSent && "100-continue".equalsIgnoreCase(headers.getFirst("Expect"))) {
+                    continueSent = true;
+                    write(new ByteBuffer[]{ ByteBuffer.wrap(CONTINUE) }, 1);
+                }
+                interest(SelectionKey.OP_READ, true);
+                return;
+            }
+
+            URI uri;
+            try {
+                uri = new URI(line[1]);
+            } catch (URISyntaxException e) {
+                reject(400, "bad request URI"); return;
+            }
+            String protocol = line[2];
+            String connection = headers.getFirst("Connection");
+            boolean keepAlive = "HTTP/1.0".equals(protocol)
+                    ? "keep-alive".equalsIgnoreCase(connection)
+                    : !"close".equalsIgnoreCase(connection);
+
+            String path = uri.getPath() == null ? "/" : uri.getPath();
+            NioExchange.Context ctx = routes.match(path);
+            if (ctx == null) { reject(404, "not found"); return; }
+
+            ByteBuffer body = in.duplicate();
+            body.position(headEnd).limit(total);
+            consumed = total;
+            continueSent = false;
+            interest(SelectionKey.OP_READ, false);
+            NioExchange ex = new NioExchange(this, ctx, line[0], uri, protocol, headers, body.slice(), keepAlive);
+            exchange = ex;
+            requests.incrementAndGet();
+            if (served++ > 0) keepAliveReuse.incrementAndGet();
+            HttpHandler h = ctx.getHandler();
+            try {
+                executor.execute(() -> {
+                    try {
+                        h.handle(ex);
+                    } catch (Throwable t) {
+                        System.out.println("[HTTP] " + ex.getRequestMethod() + " " + path + " failed: " + t);
+                        ex.close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                exchange = null;
+                reject(503, "server busy");
+            }
+        }
+
+        // indeks posle "\r\n\r\n" ili -1
+        private int headEnd(int filled) {
+            for (int i = 3; i < filled; i++) {
+                if (in.get(i) == '\n' && in.get(i - 1) == '\r' && in.get(i - 2) == '\n' && in.get(i - 3) == '\r') return i + 1;
+            }
+            return -1;
+        }
+
+        private String ascii(int from, int to) {
+            byte[] b = new byte[Math.max(0, to - from)];
+            for (int i = 0; i < b.length; i++) b[i] = in.get(from + i);
+            return new String(b, StandardCharsets.ISO_8859_1);
+        }
+
+        private void grow(int capacity) {
+            ByteBuffer b = ByteBuffer.allocateDirect(Math.min(Math.max(capacity, in.capacity()), maxRequestBytes));
+            in.flip();
+            b.put(in);
+            in = b;
+        }
+
+        /** Greška pri čitanju zahteva: kratak odgovor pa zatvaranje veze. Samo selector nit. */
+        private void reject(int status, String msg) throws IOException {
+            rejected.incrementAndGet();
+            byte[] body = ("{\"error\":\"" + msg + "\"}").getBytes(StandardCharsets.UTF_8);
+            byte[] head = ("HTTP/1.1 " + status + " " + NioExchange.reason(status) + "\r\n"
+                    + "Content-Type: application/json; charset=UTF-8\r\n"
+                    + "Content-Length: " + body.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            interest(SelectionKey.OP_READ, false);
+            write(new ByteBuffer[]{ ByteBuffer.wrap(head), ByteBuffer.wrap(body) }, 2);
+            synchronized (this) {
+                if (out.isEmpty()) close(); else closeWhenDrained = true;
+            }
+        }
+
+        /**
+         * Bajtovi odgovora (bilo koja nit). Šta soket ne primi odmah kopira se u red koji prazni selector;
+         * radna nit čeka dok je u redu više od WRITE_HIGH bajtova.
+         */
+        void write(ByteBuffer[] parts, int count) throws IOException {
+            synchronized (this) {
+                if (closed) throw new ClosedChannelException();
+                long total = 0;
+                for (int i = 0; i < count; i++) total += parts[i].remaining();
+                if (out.isEmpty()) {
+                    long n = ch.write(parts, 0, count);
+                    bytesOut.addAndGet(n);
+                    total -= n;
+                }
+                if (total == 0) return;
+                ByteBuffer rest = ByteBuffer.allocate((int) total);
+                for (int i = 0; i < count; i++) rest.put(parts[i]);
+                rest.flip();
+                out.add(rest);
+                pending += total;
+                onLoop(() -> interest(SelectionKey.OP_WRITE, true));
+                if (Thread.currentThread() == loop) return;
+                while (pending > WRITE_HIGH && !closed) {
+                    try {
+                        wait(1000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("interrupted while writing response");
+                    }
+                }
+                if (closed) throw new ClosedChannelException();
+            }
+        }
+
+        void onWritable() throws IOException {
+            synchronized (this) {
+                while (!out.isEmpty()) {
+                    ByteBuffer b = out.peek();
+                    int n = ch.write(b);
+                    bytesOut.addAndGet(n);
+                    pending -= n;
+                    if (b.hasRemaining()) break;
+                    out.poll();
+                }
+                if (pending <= WRITE_LOW) notifyAll();
+                if (!out.isEmpty()) return;
+                interest(SelectionKey.OP_WRITE, false);
+                if (closeWhenDrained) { close(); return; }
+            }
+            lastActive = System.currentTimeMillis();
+        }
+
+        /** Odgovor na tekući zahtev je završen (poziva NioExchange, bilo koja nit). */
+        void responseDone(boolean closeConnection) {
+            onLoop(() -> {
+                exchange = null;
+                lastActive = System.currentTimeMillis();
+                synchronized (this) {
+                    if (closed) return;
+                    if (closeConnection) {
+                        if (out.isEmpty()) close(); else closeWhenDrained = true;
+                        return;
+                    }
+                }
+                // ostatak bafera (pipelined zahtevi) na početak
+                in.flip();
+                in.position(consumed);
+                in.compact();
+                consumed = 0;
+                if (in.capacity() > bufferBytes && in.position() <= bufferBytes) {
+                    ByteBuffer b = buffer();
+                    in.flip();
+                    b.put(in);
+                    in = b;
+                }
+                try {
+                    if (in.position() > 0) {
+                        pipelined.incrementAndGet();
+                        parse();
+                    } else {
+                        interest(SelectionKey.OP_READ, true);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    close();
+                }
+            });
+        }
+
+        private void interest(int op, boolean on) {
+            if (!key.isValid()) return;
+            int ops = key.interestOps();
+            key.interestOps(on ? ops | op : ops & ~op);
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                out.clear();
+                pending = 0;
+                notifyAll();
+            }
+            key.cancel();
+            try { ch.close(); } catch (IOException ignored) { }
+            conns.remove(this);
+            open.decrementAndGet();
+            // bafer ne sme nazad dok handler možda još čita telo zahteva iz njega
+            if (exchange == null && in.capacity() == bufferBytes && freeBuffers.size() < 256) {
+                in.clear();
+                freeBuffers.add(in);
+            }
+        }
+    }
+}
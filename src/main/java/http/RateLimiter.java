@@ -0,0 +1,175 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import config.HttpConfig;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Ograničenje broja zahteva po ruti (http.rate.* u http.properties), pre predaje light/heavy pool-u,
+ * pa odbijen zahtev ne zauzima nit ni mesto u redu:
+ * - po korisniku: token bucket po (ruta, korisnik iz sesije; bez tokena IP adresa)
+ * - po ruti: jedan token bucket za sve korisnike zajedno
+ * Preko limita -> 429 + Retry-After. Rute bez pravila prolaze bez ikakve provere.
+ * Pune (neaktivne) bucket-e povremeno izbacuje zahtev koji prvi primeti da je vreme za čišćenje.
+ * Po ruti je najviše http.rate.maxKeys korisničkih bucket-a; kad su svi aktivni, novi ključevi
+ * dele jedan zajednički (overflow) bucket sa istim limitom, pa mapa ne raste preko granice.
+ */
+public final class RateLimiter {
+
+    private static final long SWEEP_EVERY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // kad je mapa puna: čišćenje najviše jednom u sekundi, ne na svaki nov ključ
+    private static final long FULL_SWEEP_EVERY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static volatile RateLimiter INSTANCE;
+
+    private final HttpConfig cfg;
+    private final Map<String, Rule> rules = new ConcurrentHashMap<>();
+
+    public RateLimiter(HttpConfig cfg) {
+        this.cfg = cfg;
+    }
+
+    public static RateLimiter get() {
+        RateLimiter r = INSTANCE;
+        if (r != null) return r;
+        synchronized (RateLimiter.class) {
+            if (INSTANCE == null) {
+                HttpConfig cfg = HttpConfig.get();
+                INSTANCE = new RateLimiter(cfg);
+                if (cfg.rateEnabled) {
+                    System.out.println("[HTTP] rate limits perUser=" + cfg.ratePerUser.keySet() + " perRoute=" + cfg.ratePerRoute.keySet());
+                }
+            }
+            return INSTANCE;
+        }
+    }
+
+    /** Omotava handler rute ako za nju postoji pravilo; keyOf daje ključ korisnika (id ili "ip:..."). */
+    public HttpHandler wrap(String route, Function<HttpExchange, String> keyOf, HttpHandler next) {
+        if (!cfg.rateEnabled) return next;
+        HttpConfig.Rate perUser = cfg.ratePerUser.get(route);
+        HttpConfig.Rate perRoute = cfg.ratePerRoute.get(route);
+        if (perUser == null && perRoute == null) return next;
+        // ista ruta se omotava više puta (metode, 405) — svi lanci dele jedno pravilo
+        Rule rule = rules.computeIfAbsent(route, r -> new Rule(perUser, perRoute));
+        return exchange -> {
+            long wait = rule.acquire(perUser == null ? null : keyOf.apply(exchange), System.nanoTime());
+            if (wait == 0) next.handle(exchange);
+            else tooMany(exchange, wait);
+        };
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", cfg.rateEnabled);
+        Map<String, Object> byRoute = new TreeMap<>();
+        rules.forEach((route, r) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            if (r.perUser != null) m.put("perUser", r.perUser.toString());
+            if (r.perRoute != null) m.put("perRoute", r.perRoute.toString());
+            m.put("allowed", r.allowed.sum());
+            m.put("limitedUser", r.limitedUser.sum());
+            m.put("limitedRoute", r.limitedRoute.sum());
+            m.put("keys", r.keys.get());
+            m.put("overflow", r.overflowed.sum());
+            byRoute.put(route, m);
+        });
+        out.put("routes", byRoute);
+        return out;
+    }
+
+    private void tooMany(HttpExchange ex, long waitNanos) {
+        try {
+            Cors.apply(ex);
+            long sec = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            ex.getResponseHeaders().set("Retry-After", String.valueOf(sec));
+            byte[] body = "{\"error\":\"too many requests\"}".getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(429, body.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+        } catch (Exception e) {
+            System.out.println("[HTTP] 429 failed: " + e);
+        } finally {
+            ex.close();
+        }
+    }
+
+    private final class Rule {
+        final HttpConfig.Rate perUser;
+        final HttpConfig.Rate perRoute;
+        final TokenBucket route;
+        final ConcurrentHashMap<String, TokenBucket> users = new ConcurrentHashMap<>();
+        final AtomicInteger keys = new AtomicInteger();   // users.size(), ali tačan i pri istovremenom dodavanju
+        final TokenBucket overflow;                       // ključevi preko maxKeys
+        final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+        final AtomicLong lastFullSweep = new AtomicLong(System.nanoTime() - FULL_SWEEP_EVERY_NANOS);
+        final LongAdder allowed = new LongAdder();
+        final LongAdder limitedUser = new LongAdder();
+        final LongAdder limitedRoute = new LongAdder();
+        final LongAdder overflowed = new LongAdder();   // zahtevi novih ključeva preko maxKeys
+
+        Rule(HttpConfig.Rate perUser, HttpConfig.Rate perRoute) {
+            this.perUser = perUser;
+            this.perRoute = perRoute;
+            this.route = perRoute == null ? null : new TokenBucket(perRoute.perSecond, perRoute.burst);
+            this.overflow = perUser == null ? null : new TokenBucket(perUser.perSecond, perUser.burst);
+        }
+
+        // prvo korisnik (jedan klijent ne troši zajednički budžet), pa ruta; ako ruta odbije, korisniku se token vraća
+        long acquire(String key, long now) {
+            TokenBucket user = null;
+            if (perUser != null) {
+                user = bucket(key, now);
+                long wait = user.tryAcquire(now);
+                if (wait > 0) { limitedUser.increment(); return wait; }
+            }
+            if (route != null) {
+                long wait = route.tryAcquire(now);
+                if (wait > 0) {
+                    if (user != null) user.refund();
+                    limitedRoute.increment();
+                    return wait;
+                }
+            }
+            allowed.increment();
+            sweep(now, lastSweep, SWEEP_EVERY_NANOS);
+            return 0;
+        }
+
+        private TokenBucket bucket(String key, long now) {
+            TokenBucket b = users.get(key);
+            if (b != null) return b;
+            if (keys.get() >= cfg.rateMaxKeys) sweep(now, lastFullSweep, FULL_SWEEP_EVERY_NANOS);
+            b = users.computeIfAbsent(key, k -> {
+                if (keys.incrementAndGet() > cfg.rateMaxKeys) {
+                    keys.decrementAndGet();
+                    return null;
+                }
+                return new TokenBucket(perUser.perSecond, perUser.burst);
+            });
+            if (b != null) return b;
+            overflowed.increment();
+            return overflow;
+        }
+
+        private void sweep(long now, AtomicLong last, long everyNanos) {
+            long t = last.get();
+            if (now - t < everyNanos) return;
+            if (!last.compareAndSet(t, now)) return;
+            for (Map.Entry<String, TokenBucket> e : users.entrySet()) {
+                if (e.getValue().isFull(now) && users.remove(e.getKey(), e.getValue())) keys.decrementAndGet();
+            }
+        }
+    }
+}
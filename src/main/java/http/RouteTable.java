@@ -0,0 +1,45 @@
+package http;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Putanje konteksta prevedene jednom, pri startu: tačna putanja konteksta (npr. /api/feed/friends)
+ * se nalazi jednim HashMap pristupom; ostale (npr. /api/posts/123/like) prolaze kroz prefikse
+ * poređane od najdužeg, bez alokacije. Pravilo je isto kao u HttpServer-u: najduži prefiks stringa.
+ */
+final class RouteTable<T> {
+
+    private final Map<String, T> exact;
+    private final String[] prefixes;
+    private final List<T> values;
+
+    private RouteTable(Map<String, T> exact, String[] prefixes, List<T> values) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+        this.values = values;
+    }
+
+    static <T> RouteTable<T> compile(Map<String, T> routes) {
+        List<String> paths = new ArrayList<>(routes.keySet());
+        paths.sort(Comparator.comparingInt(String::length).reversed());
+        List<T> values = new ArrayList<>(paths.size());
+        for (String p : paths) values.add(routes.get(p));
+        return new RouteTable<>(new HashMap<>(routes), paths.toArray(new String[0]), values);
+    }
+
+    /** null ako nijedan kontekst ne odgovara. */
+    T match(String path) {
+        T t = exact.get(path);
+        if (t != null) return t;
+        for (int i = 0; i < prefixes.length; i++) {
+            if (path.startsWith(prefixes[i])) return values.get(i);
+        }
+        return null;
+    }
+
+    int size() { return prefixes.length; }
+}
@@ -0,0 +1,263 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Deklarativne rute (metoda + šablon putanje, npr. POST /api/posts/{id}/like) prevedene u trie po
+ * segmentima putanje. Statički segment ima prednost nad {promenljivom} (/api/places/list pre
+ * /api/places/{id}); ako grana ne dovede do rute, pokušava se sledeća.
+ * Segmenti se porede direktno u stringu putanje (regionMatches), bez substring-a i split-a;
+ * jedine alokacije su vrednosti promenljivih (i njihov PathVars) kad ih handler dobije.
+ *
+ * Putanja postoji, metoda ne -> 405 + Allow; OPTIONS na postojećoj putanji -> CORS preflight;
+ * nepostojeća putanja -> notFound handler. Po ruti se broje zahtevi, a za ceo router trajanje
+ * pronalaženja rute (stats()).
+ */
+public final class Router implements HttpHandler {
+
+    /** Handler rute sa promenljivim delovima putanje. */
+    public interface Handler {
+        void handle(HttpExchange ex, PathVars vars) throws IOException;
+    }
+
+    /** Vrednosti {promenljivih} iz šablona rute. */
+    public static final class PathVars {
+        static final PathVars EMPTY = new PathVars(new String[0], new String[0]);
+
+        private final String[] names;
+        private final String[] values;
+
+        PathVars(String[] names, String[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        /** null ako šablon nema tu promenljivu. */
+        public String get(String name) {
+            for (int i = 0; i < names.length; i++) if (names[i].equals(name)) return values[i];
+            return null;
+        }
+    }
+
+    private static final byte[] NOT_FOUND = "{\"error\":\"not found\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_ALLOWED = "{\"error\":\"method not allowed\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Node root = new Node();
+    private HttpHandler notFound;
+    private boolean compiled;
+
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder notFoundCount = new LongAdder();
+    private final LongAdder methodMisses = new LongAdder();
+    private final LongAdder matchNanos = new LongAdder();
+
+    public Router get(String template, HttpHandler h)  { return route("GET", template, (ex, v) -> h.handle(ex)); }
+    public Router get(String template, Handler h)      { return route("GET", template, h); }
+    public Router post(String template, HttpHandler h) { return route("POST", template, (ex, v) -> h.handle(ex)); }
+    public Router post(String template, Handler h)     { return route("POST", template, h); }
+
+    public Router route(String method, String template, Handler h) {
+        if (compiled) throw new IllegalStateException("router already compiled");
+        if (!template.startsWith("/")) throw new IllegalArgumentException("template must start with /: " + template);
+        routes.add(new Route(method, template, h));
+        return this;
+    }
+
+    /** Odgovor za putanje bez rute (prolazi kroz isti wrap kao rute). */
+    public Router notFound(HttpHandler h) {
+        this.notFound = h;
+        return this;
+    }
+
+    /**
+     * Gradi trie i lanac svake rute: wrap(šablon, handler) — npr. pool/CORS/kompresija određeni jednom
+     * po ruti, a ne po zahtevu. Posle toga se sam Router registruje na Transport.
+     */
+    public Router compile(BiFunction<String, HttpHandler, HttpHandler> wrap) {
+        if (compiled) throw new IllegalStateException("router already compiled");
+        for (Route r : routes) {
+            Node n = root;
+            for (String seg : segments(r.template)) {
+                if (seg.startsWith("{") && seg.endsWith("}")) {
+                    if (n.var == null) n.var = new Node();
+                    n = n.var;
+                } else {
+                    n = n.child(seg);
+                }
+            }
+            for (Route other : n.routes) {
+                if (other.method.equals(r.method)) {
+                    throw new IllegalStateException("duplicate route " + r.method + " " + r.template + " / " + other.template);
+                }
+            }
+            n.routes.add(r);
+            r.chain = wrap.apply(r.template, ex -> r.handler.handle(ex, r.vars(ex.getRequestURI().getPath())));
+            if (n.notAllowed == null) {
+                n.notAllowed = wrap.apply(r.template, Router::methodNotAllowed);
+            }
+        }
+        root.freeze();
+        notFound = wrap.apply("*", notFound != null ? notFound : Router::notFound);
+        compiled = true;
+        return this;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        long t0 = System.nanoTime();
+        String path = ex.getRequestURI().getPath();
+        String method = ex.getRequestMethod();
+        Node n = path != null && path.startsWith("/") ? find(root, path, 1) : null;
+        Route r = null;
+        if (n != null) {
+            for (Route c : n.routes) if (c.method.equals(method)) { r = c; break; }
+        }
+        matchNanos.add(System.nanoTime() - t0);
+
+        if (r != null) {
+            matched.increment();
+            r.requests.increment();
+            r.chain.handle(ex);
+        } else if (n == null) {
+            notFoundCount.increment();
+            notFound.handle(ex);
+        } else if ("OPTIONS".equals(method)) {
+            Cors.handlePreflight(ex);
+        } else {
+            methodMisses.increment();
+            ex.getResponseHeaders().set("Allow", n.allow);
+            n.notAllowed.handle(ex);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        long hits = matched.sum(), misses = notFoundCount.sum(), wrong = methodMisses.sum();
+        long total = hits + misses + wrong;
+        m.put("routes", routes.size());
+        m.put("matched", hits);
+        m.put("notFound", misses);
+        m.put("methodNotAllowed", wrong);
+        m.put("avgMatchNs", total == 0 ? 0 : matchNanos.sum() / total);
+        Map<String, Object> byRoute = new TreeMap<>();
+        for (Route r : routes) byRoute.put(r.method + " " + r.template, r.requests.sum());
+        m.put("requests", byRoute);
+        return m;
+    }
+
+    // pos = početak segmenta (posle '/'); statička deca pa promenljiva, sa povratkom
+    private static Node find(Node n, String path, int pos) {
+        int len = path.length();
+        if (pos >= len) return n.routes.isEmpty() ? null : n;
+        int end = path.indexOf('/', pos);
+        if (end < 0) end = len;
+        int segLen = end - pos;
+        int next = end == len ? len : end + 1;
+        for (int i = 0; i < n.keys.length; i++) {
+            String k = n.keys[i];
+            if (k.length() == segLen && path.regionMatches(pos, k, 0, segLen)) {
+                Node r = find(n.children[i], path, next);
+                if (r != null) return r;
+            }
+        }
+        if (n.var != null && segLen > 0) return find(n.var, path, next);
+        return null;
+    }
+
+    private static List<String> segments(String template) {
+        List<String> out = new ArrayList<>();
+        for (String s : template.substring(1).split("/")) if (!s.isEmpty()) out.add(s);
+        return out;
+    }
+
+    private static void notFound(HttpExchange ex) throws IOException { send(ex, 404, NOT_FOUND); }
+    private static void methodNotAllowed(HttpExchange ex) throws IOException { send(ex, 405, NOT_ALLOWED); }
+
+    private static void send(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+        ex.close();
+    }
+
+    private static final class Node {
+        private final Map<String, Node> building = new LinkedHashMap<>();
+        String[] keys = new String[0];
+        Node[] children = new Node[0];
+        Node var;
+        final List<Route> routes = new ArrayList<>(2);
+        HttpHandler notAllowed;
+        String allow;
+
+        Node child(String seg) {
+            return building.computeIfAbsent(seg, k -> new Node());
+        }
+
+        // mapa iz izgradnje -> nizovi za pretragu
+        void freeze() {
+            keys = building.keySet().toArray(new String[0]);
+            children = building.values().toArray(new Node[0]);
+            StringBuilder sb = new StringBuilder();
+            for (Route r : routes) sb.append(sb.length() == 0 ? "" : ", ").append(r.method);
+            if (!routes.isEmpty()) allow = sb.append(", OPTIONS").toString();
+            for (Node c : children) c.freeze();
+            if (var != null) var.freeze();
+        }
+    }
+
+    private static final class Route {
+        final String method;
+        final String template;
+        final Handler handler;
+        final String[] varNames;
+        final int[] varSegments;
+        final LongAdder requests = new LongAdder();
+        HttpHandler chain;
+
+        Route(String method, String template, Handler handler) {
+            this.method = method;
+            this.template = template;
+            this.handler = handler;
+            List<String> segs = segments(template);
+            List<String> names = new ArrayList<>();
+            List<Integer> idx = new ArrayList<>();
+            for (int i = 0; i < segs.size(); i++) {
+                String s = segs.get(i);
+                if (s.startsWith("{") && s.endsWith("}")) {
+                    names.add(s.substring(1, s.length() - 1));
+                    idx.add(i);
+                }
+            }
+            this.varNames = names.toArray(new String[0]);
+            this.varSegments = new int[idx.size()];
+            for (int i = 0; i < idx.size(); i++) varSegments[i] = idx.get(i);
+        }
+
+        // putanja je već prošla find(), pa su segmenti promenljivih na poznatim pozicijama
+        PathVars vars(String path) {
+            if (varSegments.length == 0) return PathVars.EMPTY;
+            String[] values = new String[varSegments.length];
+            int seg = 0, pos = 1, v = 0;
+            while (v < varSegments.length && pos <= path.length()) {
+                int end = path.indexOf('/', pos);
+                if (end < 0) end = path.length();
+                if (seg == varSegments[v]) values[v++] = path.substring(pos, end);
+                seg++;
+                pos = end + 1;
+            }
+            return new PathVars(varNames, values);
+        }
+    }
+}
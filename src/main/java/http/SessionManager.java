@@ -1,24 +1,384 @@
 package http;
 
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import config.HttpConfig;
+import model.Session;
+import repo.SessionFileStore;
+import repo.SessionPersistence;
+import repo.SessionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Sesije (bearer token -> korisnik) u memoriji, ograničene i sa isticanjem (http.session.*):
+ * - klizni TTL: svaka uspešna provera tokena pomera istek na sada + ttlMs
+ * - najviše maxPerUser sesija po korisniku; nova prijava preko toga izbacuje najstariju
+ * - istek: lenjo pri proveri tokena, a za tokene koji se više ne koriste točak (timing wheel)
+ *   od WHEEL_SLOTS slotova po tickMs koji pozadinska nit obilazi; produžena sesija se pri
+ *   obilasku samo premesti u slot svog novog isteka
+ * - tokeni su raspoređeni u segmente sa zasebnim lock-om, pa provere ne čekaju jedna drugu
+ * Čuva se SHA-256 tokena, ne sam token. Sa http.session.store=db|file sesije preživljavaju restart:
+ * učitavaju se jednom pri startu, nova/uklonjena sesija se upisuje odmah, a produženje i istek
+ * točak upisuje u grupama — provera tokena nikad ne čita bazu ni fajl.
+ */
+public final class SessionManager {
+
+    private static final int WHEEL_SLOTS = 512;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try { return MessageDigest.getInstance("SHA-256"); }
+        catch (NoSuchAlgorithmException e) { throw new IllegalStateException(e); }
+    });
+
+    private static volatile SessionManager INSTANCE;
+
+    private static final class Entry {
+        final String hash;
+        final String userId;
+        final long createdAt;
+        volatile long expiresAt;
+        volatile long persistedExpiresAt;
+        volatile boolean removed;
+
+        Entry(String hash, String userId, long createdAt, long expiresAt) {
+            this.hash = hash;
+            this.userId = userId;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlMs;
+    private final int maxPerUser;
+    private final long tickMs;
+    private final SessionPersistence persistence;
+    private final LongSupplier clock;
+
+    private final HashMap<String, Entry>[] segments;   // svaki segment pod lock-om na samoj mapi
+    private final int segmentMask;
+    private final ConcurrentHashMap<String, ArrayDeque<Entry>> byUser = new ConcurrentHashMap<>();   // od najstarije
+
+    private final ConcurrentLinkedQueue<Entry>[] wheel;
+    private long lastTick;   // samo pod lock-om na wheel
+    // uklonjene (istekle, izbačene) sesije koje još treba obrisati iz trajnog skladišta
+    private final ConcurrentLinkedQueue<String> pendingRemoved = new ConcurrentLinkedQueue<>();
+    // produženja za upis (sesija -> novi istek); ostaju ovde dok upis ne uspe. Pod lock-om na wheel
+    private final Map<Entry, Long> pendingExtended = new HashMap<>();
+    private volatile ScheduledExecutorService job;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder expiredLazy = new LongAdder();
+    private final LongAdder expiredWheel = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder persistErrors = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public SessionManager(long ttlMs, int maxPerUser, int segments, long tickMs,
+                          SessionPersistence persistence, LongSupplier clock) {
+        if (ttlMs <= 0 || maxPerUser < 1 || segments < 1 || tickMs <= 0) {
+            throw new IllegalArgumentException("ttlMs, tickMs must be > 0, maxPerUser and segments >= 1");
+        }
+        this.ttlMs = ttlMs;
+        this.maxPerUser = maxPerUser;
+        this.tickMs = tickMs;
+        this.persistence = persistence;
+        this.clock = clock;
+        int n = 1;
+        while (n < segments) n <<= 1;
+        this.segments = new HashMap[n];
+        for (int i = 0; i < n; i++) this.segments[i] = new HashMap<>();
+        this.segmentMask = n - 1;
+        this.wheel = new ConcurrentLinkedQueue[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) wheel[i] = new ConcurrentLinkedQueue<>();
+        this.lastTick = clock.getAsLong() / tickMs;
+    }
+
+    public static SessionManager get() {
+        SessionManager m = INSTANCE;
+        if (m != null) return m;
+        synchronized (SessionManager.class) {
+            if (INSTANCE == null) {
+                HttpConfig cfg = HttpConfig.get();
+                SessionPersistence p;
+                switch (cfg.sessionStore) {
+                    case "memory": p = null; break;
+                    case "db":     p = new SessionRepository(); break;
+                    case "file":   p = new SessionFileStore(Paths.get(cfg.sessionFile)); break;
+                    default: throw new IllegalArgumentException("unknown http.session.store: " + cfg.sessionStore);
+                }
+                SessionManager s = new SessionManager(cfg.sessionTtlMs, cfg.sessionMaxPerUser, cfg.sessionSegments,
+                        cfg.sessionTickMs, p, System::currentTimeMillis);
+                s.load();
+                s.start();
+                System.out.println("[SESSION] store=" + cfg.sessionStore + " ttlMs=" + cfg.sessionTtlMs
+                        + " maxPerUser=" + cfg.sessionMaxPerUser + " segments=" + s.segments.length);
+                INSTANCE = s;
+            }
+            return INSTANCE;
+        }
+    }
+
+    /** Učitava sačuvane (neistekle) sesije; greška skladišta se loguje, a rad nastavlja samo u memoriji. */
+    public int load() {
+        if (persistence == null) return 0;
+        long now = clock.getAsLong();
+        List<Session> stored;
+        try {
+            stored = persistence.loadLive(now);
+        } catch (RuntimeException e) {
+            persistErrors.increment();
+            System.out.println("[SESSION] load failed, continuing in memory only: " + e);
+            return 0;
+        }
+        for (Session s : stored) {
+            Entry e = new Entry(s.getTokenHash(), s.getUserId(), s.getCreatedAtMs(), s.getExpiresAtMs());
+            e.persistedExpiresAt = e.expiresAt;
+            add(e, now);
+        }
+        loaded.add(stored.size());
+        System.out.println("[SESSION] loaded " + stored.size() + " sessions");
+        return stored.size();
+    }
+
+    /** Pokreće točak isteka; drugi poziv je no-op. */
+    public synchronized SessionManager start() {
+        if (job != null) return this;
+        job = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        job.scheduleWithFixedDelay(() -> {
+            try { tick(); }
+            catch (RuntimeException e) { System.out.println("[SESSION] tick failed: " + e); }
+        }, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (job != null) { job.shutdownNow(); job = null; }
+    }
 
-public class SessionManager {
-    private final Map<String, String> sessions = new ConcurrentHashMap<>();
-    
     public String createSession(String userId) {
+        long now = clock.getAsLong();
         String token = UUID.randomUUID().toString();
-        sessions.put(token, userId);
+        Entry e = new Entry(hash(token), userId, now, now + ttlMs);
+        add(e, now);
+        created.increment();
+        if (persistence != null) {
+            try {
+                persistence.created(new Session(e.hash, userId, now, e.expiresAt));
+                e.persistedExpiresAt = e.expiresAt;
+            } catch (RuntimeException ex) {
+                persistFailed(ex);
+            }
+        }
         return token;
     }
 
     public Optional<String> getUserId(String token) {
-        return Optional.ofNullable(sessions.get(token));
+        if (token == null || token.isEmpty()) return Optional.empty();
+        String h = hash(token);
+        HashMap<String, Entry> seg = segment(h);
+        Entry e;
+        synchronized (seg) { e = seg.get(h); }
+        if (e == null) return Optional.empty();
+        long now = clock.getAsLong();
+        if (e.expiresAt <= now) {
+            if (remove(e)) {
+                expiredLazy.increment();
+                pendingRemoved.add(e.hash);
+            }
+            return Optional.empty();
+        }
+        e.expiresAt = now + ttlMs;
+        return Optional.of(e.userId);
     }
 
     public void invalidate(String token) {
-        sessions.remove(token);
+        if (token == null) return;
+        String h = hash(token);
+        HashMap<String, Entry> seg = segment(h);
+        Entry e;
+        synchronized (seg) { e = seg.get(h); }
+        if (e == null || !remove(e)) return;
+        invalidated.increment();
+        if (persistence != null) {
+            try { persistence.removed(Collections.singletonList(h)); }
+            catch (RuntimeException ex) { persistFailed(ex); }
+        }
+    }
+
+    /**
+     * Jedan korak točka: obiđe slotove od prethodnog poziva (najviše ceo krug), istekle sesije
+     * ukloni, produžene premesti, pa grupno upiše promene u skladište. Zove ga pozadinska nit na svakih tickMs.
+     * Ako upis ne uspe, promene ostaju na čekanju i ponovo se šalju u sledećem koraku.
+     */
+    public void tick() {
+        long now = clock.getAsLong();
+        long t = now / tickMs;
+        Map<Entry, Long> toExtend;
+        synchronized (wheel) {
+            for (long k = Math.max(lastTick + 1, t - WHEEL_SLOTS + 1); k <= t; k++) {
+                ConcurrentLinkedQueue<Entry> slot = wheel[(int) (k & (WHEEL_SLOTS - 1))];
+                // samo ono što je bilo u slotu: premeštene u isti slot (sledeći krug) čekaju sledeći obilazak
+                for (int i = slot.size(); i > 0; i--) {
+                    Entry e = slot.poll();
+                    if (e == null) break;
+                    if (e.removed) continue;
+                    long exp = e.expiresAt;
+                    if (exp <= now) {
+                        if (remove(e)) {
+                            expiredWheel.increment();
+                            pendingRemoved.add(e.hash);
+                        }
+                        continue;
+                    }
+                    // sačuvani istek bi prošao pre sledećeg obilaska ove sesije -> upiši novi
+                    if (persistence != null && exp != e.persistedExpiresAt
+                            && e.persistedExpiresAt - now <= WHEEL_SLOTS * tickMs) {
+                        pendingExtended.put(e, exp);
+                    }
+                    schedule(e, exp, t);
+                }
+            }
+            if (t > lastTick) lastTick = t;
+            toExtend = new HashMap<>(pendingExtended);
+            pendingExtended.clear();
+        }
+        if (persistence == null) {
+            pendingRemoved.clear();
+            return;
+        }
+        List<String> removed = new ArrayList<>();
+        for (String h; (h = pendingRemoved.poll()) != null; ) removed.add(h);
+        try {
+            persistence.removed(removed);
+        } catch (RuntimeException ex) {
+            pendingRemoved.addAll(removed);
+            persistFailed(ex);
+        }
+        Map<String, Long> extended = new HashMap<>();
+        for (Map.Entry<Entry, Long> x : toExtend.entrySet()) extended.put(x.getKey().hash, x.getValue());
+        try {
+            persistence.extended(extended);
+            // tek sada je novi istek zaista u skladištu
+            for (Map.Entry<Entry, Long> x : toExtend.entrySet()) x.getKey().persistedExpiresAt = x.getValue();
+        } catch (RuntimeException ex) {
+            synchronized (wheel) {
+                // noviji istek iz međuvremena ima prednost
+                for (Map.Entry<Entry, Long> x : toExtend.entrySet()) pendingExtended.putIfAbsent(x.getKey(), x.getValue());
+            }
+            persistFailed(ex);
+        }
+        try {
+            persistence.maintain(now, this::snapshot);
+        } catch (RuntimeException ex) {
+            persistFailed(ex);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int sessions = 0;
+        for (HashMap<String, Entry> seg : segments) {
+            synchronized (seg) { sessions += seg.size(); }
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("store", persistence == null ? "memory" : persistence.getClass().getSimpleName());
+        out.put("sessions", sessions);
+        out.put("users", byUser.size());
+        out.put("ttlMs", ttlMs);
+        out.put("maxPerUser", maxPerUser);
+        out.put("segments", segments.length);
+        out.put("created", created.sum());
+        out.put("loaded", loaded.sum());
+        out.put("evictedPerUser", evicted.sum());
+        out.put("expiredLazy", expiredLazy.sum());
+        out.put("expiredWheel", expiredWheel.sum());
+        out.put("invalidated", invalidated.sum());
+        out.put("persistErrors", persistErrors.sum());
+        return out;
+    }
+
+    private void persistFailed(RuntimeException ex) {
+        persistErrors.increment();
+        System.out.println("[SESSION] persist failed: " + ex);
+    }
+
+    // u segment pa u red korisnika; preko maxPerUser izbacuje najstarije
+    private void add(Entry e, long now) {
+        HashMap<String, Entry> seg = segment(e.hash);
+        synchronized (seg) { seg.put(e.hash, e); }
+        List<Entry> over = new ArrayList<>();
+        byUser.compute(e.userId, (k, q) -> {
+            if (q == null) q = new ArrayDeque<>();
+            q.removeIf(x -> x.removed || x.expiresAt <= now);
+            while (q.size() >= maxPerUser) over.add(q.pollFirst());
+            q.addLast(e);
+            return q;
+        });
+        for (Entry x : over) {
+            if (remove(x)) {
+                evicted.increment();
+                pendingRemoved.add(x.hash);
+            }
+        }
+        schedule(e, e.expiresAt, now / tickMs);
+    }
+
+    // true samo za poziv koji je sesiju zaista uklonio (lenjo, točak i odjava se mogu preklopiti)
+    private boolean remove(Entry e) {
+        HashMap<String, Entry> seg = segment(e.hash);
+        synchronized (seg) {
+            if (!seg.remove(e.hash, e)) return false;
+            e.removed = true;
+        }
+        byUser.computeIfPresent(e.userId, (k, q) -> {
+            q.remove(e);
+            return q.isEmpty() ? null : q;
+        });
+        return true;
+    }
+
+    private void schedule(Entry e, long at, long currentTick) {
+        long slotTick = Math.max(at / tickMs, currentTick + 1);
+        wheel[(int) (slotTick & (WHEEL_SLOTS - 1))].add(e);
+    }
+
+    private List<Session> snapshot() {
+        List<Session> out = new ArrayList<>();
+        for (HashMap<String, Entry> seg : segments) {
+            synchronized (seg) {
+                for (Entry e : seg.values()) out.add(new Session(e.hash, e.userId, e.createdAt, e.expiresAt));
+            }
+        }
+        return out;
+    }
+
+    private HashMap<String, Entry> segment(String hash) {
+        int h = hash.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static String hash(String token) {
+        byte[] d = SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        char[] out = new char[d.length * 2];
+        for (int i = 0; i < d.length; i++) {
+            out[2 * i] = HEX[(d[i] >> 4) & 0xf];
+            out[2 * i + 1] = HEX[d[i] & 0xf];
+        }
+        return new String(out);
     }
-}
\ No newline at end of file
+}
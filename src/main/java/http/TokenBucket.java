@@ -0,0 +1,42 @@
+package http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket bez zaključavanja: perSecond tokena u sekundi, najviše burst odjednom.
+ * Stanje je jedan long (trenutak u kome bi bucket bio ponovo pun, "theoretical arrival time")
+ * koji se menja CAS-om, pa nema niti koja dopunjava tokene niti brave po ključu.
+ */
+public final class TokenBucket {
+
+    private final long emissionNanos;   // jedan token
+    private final long capacityNanos;   // burst tokena
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double perSecond, int burst) {
+        if (perSecond <= 0 || burst < 1) throw new IllegalArgumentException("rate must be > 0 and burst >= 1");
+        this.emissionNanos = Math.max(1L, (long) (1_000_000_000L / perSecond));
+        this.capacityNanos = emissionNanos * burst;
+    }
+
+    /** 0 ako je token uzet, inače koliko nanosekundi treba čekati na sledeći. */
+    public long tryAcquire(long nowNanos) {
+        for (;;) {
+            long t = fullAt.get();
+            long next = Math.max(t, nowNanos) + emissionNanos;
+            long wait = next - capacityNanos - nowNanos;
+            if (wait > 0) return wait;
+            if (fullAt.compareAndSet(t, next)) return 0;
+        }
+    }
+
+    /** Vraća token uzet sa tryAcquire (zahtev ipak nije prošao, npr. odbio ga je drugi limit). */
+    public void refund() {
+        fullAt.addAndGet(-emissionNanos);
+    }
+
+    /** Pun bucket (nije korišćen bar burst/perSecond) — može da se izbaci iz mape. */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() <= nowNanos;
+    }
+}
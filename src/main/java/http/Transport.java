@@ -0,0 +1,39 @@
+package http;
+
+import com.sun.net.httpserver.HttpHandler;
+import config.HttpConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * HTTP transport ispod ApiServer-a: registracija handler-a po putanji konteksta i pokretanje.
+ * Handler-i su i dalje com.sun.net.httpserver.HttpHandler (lambde nad HttpExchange), pa ne zavise
+ * od toga koja implementacija ih poziva:
+ *   nio - NioTransport, jedan selector, keep-alive i pipelining (podrazumevano)
+ *   jdk - JdkTransport, com.sun.net.httpserver.HttpServer
+ * Izbor: -Dhttp.transport=..., pa http.transport u http.properties.
+ */
+public interface Transport {
+
+    /** Isto pravilo kao HttpServer.createContext: pobeđuje najduži prefiks putanje. Samo pre start(). */
+    void createContext(String path, HttpHandler handler);
+
+    void start() throws IOException;
+
+    /** Adresa na kojoj transport sluša (posle start(); za port 0 tu je dodeljeni port). */
+    InetSocketAddress address();
+
+    /** Zatvara server soket i sve otvorene veze. */
+    void stop();
+
+    Map<String, Object> stats();
+
+    static Transport create(int port) throws IOException {
+        HttpConfig cfg = HttpConfig.get();
+        String type = System.getProperty("http.transport", cfg.transport);
+        if ("jdk".equalsIgnoreCase(type)) return new JdkTransport(port);
+        return new NioTransport(port, cfg);
+    }
+}
@@ -0,0 +1,286 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import config.HttpConfig;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ograničeno izvršavanje HTTP zahteva umesto jednog fiksnog pool-a sa neograničenim redom.
+ * Zahtev ide u heavy ako putanja rute počinje nekim od http.pool.heavyPaths (feed, ads,
+ * moderacija: Drools sesije i više JDBC upita), inače u light; heavy tako ne može da zauzme
+ * kapacitet koji služi health/login. Kad je light/heavy pun, zahtev se odmah odbija sa 503 + Retry-After.
+ *
+ * http.executor=platform (podrazumevano):
+ * - accept: executor samog HttpServer-a; njegove niti samo pročitaju zahtev i predaju ga dalje.
+ *   Kad mu se red napuni, zadatak izvršava dispatcher nit (ne prima nove konekcije dok ne završi).
+ *   NioTransport koristi sheddingAcceptExecutor(): pun red -> RejectedExecutionException i 503,
+ *   jer bi pozivalac bio selector nit.
+ * - light / heavy: fiksan broj niti i ograničen red.
+ * http.executor=virtual (JDK 21+, inače povratak na platform):
+ * - svaki exchange dobija svoju virtuelnu nit, bez predaje između pool-ova
+ * - light / heavy su samo semafori (http.virtual.*Permits) ispred handler-a; heavy štiti DB pool,
+ *   a najviše light/heavy.queue zahteva sme da čeka na dozvolu
+ * Virtuelne niti se prave refleksijom, pa se kod i dalje prevodi za Java 8.
+ */
+public final class WorkPools {
+
+    /** light ili heavy: prima zahtev ili vraća false (pun je). */
+    interface Lane {
+        boolean offer(HttpHandler next, HttpExchange ex);
+        Map<String, Object> stats();
+    }
+
+    /** Platform niti: fiksan pool sa ograničenim redom. */
+    static final class PoolLane implements Lane {
+        final ThreadPoolExecutor exec;
+        final AtomicLong rejected = new AtomicLong();
+
+        PoolLane(String name, int threads, int queue) {
+            this.exec = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queue)), named("http-" + name), new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        @Override public boolean offer(HttpHandler next, HttpExchange ex) {
+            try {
+                exec.execute(() -> run(next, ex));
+                return true;
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+
+        @Override public Map<String, Object> stats() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("threads", exec.getMaximumPoolSize());
+            m.put("active", exec.getActiveCount());
+            m.put("queued", exec.getQueue().size());
+            m.put("queueCapacity", exec.getQueue().size() + exec.getQueue().remainingCapacity());
+            m.put("completed", exec.getCompletedTaskCount());
+            m.put("rejected", rejected.get());
+            return m;
+        }
+    }
+
+    /** Virtuelne niti: handler radi na niti exchange-a, najviše permits istovremeno. */
+    static final class PermitLane implements Lane {
+        final int permits;
+        final int maxWaiting;
+        final Semaphore sem;
+        final AtomicInteger waiting = new AtomicInteger();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        PermitLane(int permits, int maxWaiting) {
+            this.permits = permits;
+            this.maxWaiting = maxWaiting;
+            this.sem = new Semaphore(permits, true);
+        }
+
+        @Override public boolean offer(HttpHandler next, HttpExchange ex) {
+            if (!sem.tryAcquire()) {
+                if (waiting.incrementAndGet() > maxWaiting) {
+                    waiting.decrementAndGet();
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                try {
+                    sem.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected.incrementAndGet();
+                    return false;
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+            try {
+                run(next, ex);
+            } finally {
+                sem.release();
+                completed.incrementAndGet();
+            }
+            return true;
+        }
+
+        @Override public Map<String, Object> stats() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("permits", permits);
+            m.put("active", permits - sem.availablePermits());
+            m.put("queued", waiting.get());
+            m.put("queueCapacity", maxWaiting);
+            m.put("completed", completed.get());
+            m.put("rejected", rejected.get());
+            return m;
+        }
+    }
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    private static volatile WorkPools INSTANCE;
+
+    private final String mode;
+    private final List<String> heavyPaths;
+    private final int retryAfterSec;
+    private final Executor accept;
+    private final AtomicLong acceptOverflow = new AtomicLong();
+    private final Lane light;
+    private final Lane heavy;
+
+    public WorkPools(HttpConfig cfg, String requestedMode) {
+        this.heavyPaths = cfg.heavyPaths;
+        this.retryAfterSec = cfg.retryAfterSec;
+        ExecutorService virtual = VIRTUAL.equalsIgnoreCase(requestedMode) ? newVirtualThreadPerTaskExecutor() : null;
+        if (virtual != null) {
+            this.mode = VIRTUAL;
+            this.accept = virtual;
+            this.light = new PermitLane(cfg.virtualLightPermits, cfg.lightQueue);
+            this.heavy = new PermitLane(cfg.virtualHeavyPermits, cfg.heavyQueue);
+        } else {
+            this.mode = PLATFORM;
+            this.accept = new ThreadPoolExecutor(cfg.acceptThreads, cfg.acceptThreads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, cfg.acceptQueue)), named("http-accept"),
+                    (r, e) -> {
+                        acceptOverflow.incrementAndGet();
+                        if (r instanceof Shed) throw new RejectedExecutionException("accept queue full");
+                        if (!e.isShutdown()) r.run();
+                    });
+            this.light = new PoolLane("light", cfg.lightThreads, cfg.lightQueue);
+            this.heavy = new PoolLane("heavy", cfg.heavyThreads, cfg.heavyQueue);
+        }
+    }
+
+    /** Režim iz -Dhttp.executor, pa iz http.properties (http.executor). */
+    public static WorkPools get() {
+        WorkPools w = INSTANCE;
+        if (w != null) return w;
+        synchronized (WorkPools.class) {
+            if (INSTANCE == null) {
+                HttpConfig cfg = HttpConfig.get();
+                INSTANCE = new WorkPools(cfg, System.getProperty("http.executor", cfg.executor));
+                if (VIRTUAL.equals(INSTANCE.mode)) {
+                    System.out.println("[HTTP] virtual threads, permits light=" + cfg.virtualLightPermits + "/" + cfg.lightQueue
+                            + " heavy=" + cfg.virtualHeavyPermits + "/" + cfg.heavyQueue + " heavyPaths=" + cfg.heavyPaths);
+                } else {
+                    System.out.println("[HTTP] pools accept=" + cfg.acceptThreads + " light=" + cfg.lightThreads + "/" + cfg.lightQueue
+                            + " heavy=" + cfg.heavyThreads + "/" + cfg.heavyQueue + " heavyPaths=" + cfg.heavyPaths);
+                }
+            }
+            return INSTANCE;
+        }
+    }
+
+    public String mode() { return mode; }
+
+    /** Executor za HttpServer.setExecutor(...). */
+    public Executor acceptExecutor() { return accept; }
+
+    /**
+     * Isti accept pool, ali kad je red pun execute() baca RejectedExecutionException umesto da
+     * zadatak izvrši pozivalac (NioTransport: pozivalac je selector nit, koja ne sme da blokira).
+     */
+    public Executor sheddingAcceptExecutor() {
+        if (!(accept instanceof ThreadPoolExecutor)) return accept;
+        return r -> accept.execute(new Shed(r));
+    }
+
+    /** Predaje handler light ili heavy delu (određeno jednom, prema putanji rute); pun -> 503. */
+    public HttpHandler dispatch(String route, HttpHandler next) {
+        Lane lane = isHeavy(route) ? heavy : light;
+        return exchange -> {
+            if (!lane.offer(next, exchange)) busy(exchange);
+        };
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("mode", mode);
+        if (accept instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor a = (ThreadPoolExecutor) accept;
+            Map<String, Object> am = new LinkedHashMap<>();
+            am.put("threads", a.getMaximumPoolSize());
+            am.put("queued", a.getQueue().size());
+            am.put("overflow", acceptOverflow.get());
+            m.put("accept", am);
+        }
+        m.put("light", light.stats());
+        m.put("heavy", heavy.stats());
+        return m;
+    }
+
+    boolean isHeavy(String route) {
+        for (String p : heavyPaths) if (route.startsWith(p)) return true;
+        return false;
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() ako ga JDK ima (21+), inače null. */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("[HTTP] virtual threads not available on Java " + System.getProperty("java.version")
+                    + ", using platform pools");
+            return null;
+        }
+    }
+
+    // van HttpServer-ove niti niko drugi ne hvata izuzetak handler-a ni ne zatvara exchange
+    private static void run(HttpHandler next, HttpExchange ex) {
+        try {
+            next.handle(ex);
+        } catch (Throwable t) {
+            System.out.println("[HTTP] " + ex.getRequestMethod() + " " + ex.getRequestURI().getPath() + " failed: " + t);
+            ex.close();
+        }
+    }
+
+    private void busy(HttpExchange ex) {
+        try {
+            Cors.apply(ex);
+            ex.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSec));
+            byte[] body = "{\"error\":\"server busy\"}".getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(503, body.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+        } catch (Exception e) {
+            System.out.println("[HTTP] 503 failed: " + e);
+        } finally {
+            ex.close();
+        }
+    }
+
+    // oznaka za accept rejection handler: ovaj zadatak se odbija, ne izvršava ga pozivalac
+    private static final class Shed implements Runnable {
+        final Runnable task;
+
+        Shed(Runnable task) { this.task = task; }
+
+        @Override public void run() { task.run(); }
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
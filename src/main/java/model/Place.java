@@ -21,6 +21,16 @@ public class Place {
         if (hashtags != null) this.hashtags.addAll(hashtags);
     }
 
+    /** Postojeće mesto (red iz baze), sa zadatim id-jem. */
+    public Place(String id, String name, String country, String city, String description, Set<String> hashtags) {
+        this.id = id;
+        this.name = name;
+        this.country = country;
+        this.city = city;
+        this.description = description;
+        if (hashtags != null) this.hashtags.addAll(hashtags);
+    }
+
     public String getId() { return id; }
     public String getName() { return name; }
     public String getCountry() { return country; }
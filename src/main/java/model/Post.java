@@ -22,6 +22,17 @@ public class Post {
         this.createdAt = LocalDateTime.now();
     }
 
+    /** Postojeća objava (red iz baze ili kopija), sa zadatim id-jem i vremenom nastanka. */
+    public Post(String id, String authorId, String text, Set<String> hashtags, int likes, int reports, LocalDateTime createdAt) {
+        this.id = id;
+        this.authorId = authorId;
+        this.text = text;
+        if (hashtags != null) this.hashtags = new HashSet<>(hashtags);
+        this.likes = likes;
+        this.reports = reports;
+        this.createdAt = createdAt;
+    }
+
     public String getId() { return id; }
     public String getAuthorId() { return authorId; }
     public String getText() { return text; }
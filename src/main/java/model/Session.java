@@ -0,0 +1,21 @@
+package model;
+
+/** Sačuvana sesija (red u user_sessions / zapis u fajlu): umesto tokena se čuva njegov SHA-256. */
+public class Session {
+    private final String tokenHash;
+    private final String userId;
+    private final long createdAtMs;
+    private final long expiresAtMs;
+
+    public Session(String tokenHash, String userId, long createdAtMs, long expiresAtMs) {
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.createdAtMs = createdAtMs;
+        this.expiresAtMs = expiresAtMs;
+    }
+
+    public String getTokenHash() { return tokenHash; }
+    public String getUserId() { return userId; }
+    public long getCreatedAtMs() { return createdAtMs; }
+    public long getExpiresAtMs() { return expiresAtMs; }
+}
@@ -23,6 +23,17 @@ public class User {
         this.createdAt = LocalDateTime.now();
     }
 
+    /** Postojeći korisnik (red iz baze), sa zadatim id-jem i vremenom registracije. */
+    public User(String id, String firstName, String lastName, String email, String passwordHash, String city, LocalDateTime createdAt) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName  = lastName;
+        this.email     = email.toLowerCase().trim();
+        this.passwordHash = passwordHash;
+        this.city = city;
+        this.createdAt = createdAt;
+    }
+
     // getteri / setteri
     public String getId() { return id; }
     public String getFirstName() { return firstName; }
@@ -42,6 +42,7 @@ public class App {
     }
 
     private void run(String[] args) throws Exception {
+        util.KieBaseRegistry.init();
         ensureAdminSeed();
 
         // default: server; "cli" -> CLI meni
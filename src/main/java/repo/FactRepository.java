@@ -0,0 +1,173 @@
+package repo;
+
+import db.Db;
+import dto.AdminRole;
+import dto.ExistingPlace;
+import dto.ExistingPost;
+import dto.ExistingUser;
+import dto.UserLikedPosts;
+import dto.UserPlaceRating;
+import dto.UserPostState;
+import dto.UserRelation;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Činjenice za validaciona pravila, učitane unapred jednim upitom po zahtevu.
+ * Pravila više ne zovu repozitorijume iz eval()-a (Drools ih može izvršiti više puta,
+ * svaki put sa novom konekcijom) nego matchuju na ove činjenice.
+ *
+ * ID-jevi u činjenicama su tačno oni iz zahteva, pa je u DRL-u dovoljno poređenje stringova.
+ * Prazan ili neispravan UUID se tretira kao nepostojeći.
+ */
+public class FactRepository {
+
+    /** ExistingUser za svaki ID koji postoji u users. */
+    public List<Object> forUsers(String... userIds) {
+        Map<UUID, String> wanted = new LinkedHashMap<>();
+        for (String id : userIds) {
+            UUID u = uuid(id);
+            if (u != null) wanted.put(u, id);
+        }
+        List<Object> out = new ArrayList<>();
+        if (wanted.isEmpty()) return out;
+
+        String sql = "SELECT id FROM users WHERE id = ANY(?)";
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("uuid", wanted.keySet().toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(new ExistingUser(wanted.get(rs.getObject(1, UUID.class))));
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    /** Lajk / prijava objave: ExistingUser, ExistingPost i (ako oba postoje) UserPostState. */
+    public List<Object> forPostAction(String userId, String postId) {
+        List<Object> out = new ArrayList<>();
+        UUID u = uuid(userId), p = uuid(postId);
+        if (u == null && p == null) return out;
+
+        String sql = "SELECT EXISTS(SELECT 1 FROM users WHERE id=?), " +
+                     "(SELECT author_id FROM posts WHERE id=?), " +
+                     "EXISTS(SELECT 1 FROM post_likes WHERE post_id=? AND user_id=?), " +
+                     "EXISTS(SELECT 1 FROM post_reports WHERE post_id=? AND user_id=?)";
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            setUuid(ps, 1, u);
+            setUuid(ps, 2, p);
+            setUuid(ps, 3, p); setUuid(ps, 4, u);
+            setUuid(ps, 5, p); setUuid(ps, 6, u);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                boolean userExists = rs.getBoolean(1);
+                UUID author = rs.getObject(2, UUID.class);
+                if (userExists) out.add(new ExistingUser(userId));
+                if (author != null) out.add(new ExistingPost(postId, author.toString()));
+                if (userExists && author != null) {
+                    out.add(new UserPostState(userId, postId, rs.getBoolean(3), rs.getBoolean(4)));
+                }
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    /** Dodavanje / blokiranje: ExistingUser za oba i (ako oba postoje) UserRelation. */
+    public List<Object> forUserPair(String userId, String targetId) {
+        List<Object> out = new ArrayList<>();
+        UUID u = uuid(userId), t = uuid(targetId);
+        if (u == null && t == null) return out;
+
+        // friendships čuva par kao (manji, veći) po string poređenju, isto kao FriendRepository
+        UUID lo = null, hi = null;
+        if (u != null && t != null) {
+            boolean uFirst = userId.compareTo(targetId) <= 0;
+            lo = uFirst ? u : t;
+            hi = uFirst ? t : u;
+        }
+        String sql = "SELECT EXISTS(SELECT 1 FROM users WHERE id=?), " +
+                     "EXISTS(SELECT 1 FROM users WHERE id=?), " +
+                     "EXISTS(SELECT 1 FROM friendships WHERE user_lo=? AND user_hi=?), " +
+                     "EXISTS(SELECT 1 FROM blocks WHERE blocker_id=? AND target_id=?)";
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            setUuid(ps, 1, u);
+            setUuid(ps, 2, t);
+            setUuid(ps, 3, lo); setUuid(ps, 4, hi);
+            setUuid(ps, 5, u); setUuid(ps, 6, t);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                boolean userExists = rs.getBoolean(1), targetExists = rs.getBoolean(2);
+                if (userExists) out.add(new ExistingUser(userId));
+                if (targetExists && !targetId.equals(userId)) out.add(new ExistingUser(targetId));
+                if (userExists && targetExists) {
+                    out.add(new UserRelation(userId, targetId, rs.getBoolean(3), rs.getBoolean(4)));
+                }
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    /** Dodavanje mesta: AdminRole ako je adminId admin, ExistingPlace ako naziv+grad već postoje. */
+    public List<Object> forPlaceAdd(String adminId, String name, String city) {
+        List<Object> out = new ArrayList<>();
+        String sql = "SELECT EXISTS(SELECT 1 FROM admins WHERE user_id=?), " +
+                     "EXISTS(SELECT 1 FROM places WHERE LOWER(name)=LOWER(?) AND LOWER(city)=LOWER(?))";
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            setUuid(ps, 1, uuid(adminId));
+            ps.setString(2, name);
+            ps.setString(3, city);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                if (rs.getBoolean(1)) out.add(new AdminRole(adminId));
+                if (rs.getBoolean(2)) out.add(new ExistingPlace(name, city));
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    /**
+     * Reklame: UserLikedPosts (lajkovane objave od since, isti prozor kao Post činjenice)
+     * i UserPlaceRating za svaku ocenu korisnika. Dva upita na istoj konekciji.
+     */
+    public List<Object> forAds(String userId, LocalDateTime since) {
+        List<Object> out = new ArrayList<>();
+        UUID u = uuid(userId);
+        if (u == null) return out;
+
+        String likedSql = "SELECT l.post_id FROM post_likes l JOIN posts p ON p.id = l.post_id " +
+                          "WHERE l.user_id=? AND p.created_at >= ?";
+        String ratedSql = "SELECT place_id, score FROM place_ratings WHERE user_id=?";
+        try (Connection c = Db.get();
+             PreparedStatement liked = c.prepareStatement(likedSql);
+             PreparedStatement rated = c.prepareStatement(ratedSql)) {
+            Set<String> postIds = new HashSet<>();
+            liked.setObject(1, u);
+            liked.setTimestamp(2, Timestamp.valueOf(since));
+            try (ResultSet rs = liked.executeQuery()) {
+                while (rs.next()) postIds.add(rs.getObject(1, UUID.class).toString());
+            }
+            out.add(new UserLikedPosts(userId, postIds));
+
+            rated.setObject(1, u);
+            try (ResultSet rs = rated.executeQuery()) {
+                while (rs.next()) out.add(new UserPlaceRating(userId, rs.getObject(1, UUID.class).toString(), rs.getInt(2)));
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    private static UUID uuid(String id) {
+        if (id == null || id.trim().isEmpty()) return null;
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void setUuid(PreparedStatement ps, int i, UUID u) throws SQLException {
+        if (u == null) ps.setNull(i, Types.OTHER);
+        else ps.setObject(i, u);
+    }
+}
@@ -0,0 +1,10 @@
+package repo;
+
+/**
+ * Obaveštenje o promeni prijateljstva kroz FriendRepository (addFriends/removeFriends, block/unblock),
+ * posle upisa; za addFriends/removeFriends/unblock samo ako je red zaista dodat/obrisan. Registruje se sa FriendRepository.addListener(...).
+ */
+public interface FriendListener {
+
+    void onFriendshipChanged(String a, String b);
+}
@@ -4,9 +4,23 @@ import db.Db;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class FriendRepository {
 
+    private static final List<FriendListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    public static void addListener(FriendListener l) { LISTENERS.add(l); }
+
+    public static void removeListener(FriendListener l) { LISTENERS.remove(l); }
+
+    private static void fireChanged(String a, String b) {
+        for (FriendListener l : LISTENERS) {
+            try { l.onFriendshipChanged(a, b); }
+            catch (RuntimeException e) { System.out.println("[FRIEND] listener failed: " + e); }
+        }
+    }
+
     private static String lo(String a, String b){ return a.compareTo(b) <= 0 ? a : b; }
     private static String hi(String a, String b){ return a.compareTo(b) <= 0 ? b : a; }
 
@@ -26,8 +40,9 @@ public class FriendRepository {
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setObject(1, java.util.UUID.fromString(lo(a,b)));
             ps.setObject(2, java.util.UUID.fromString(hi(a,b)));
-            ps.executeUpdate();
+            if (ps.executeUpdate() == 0) return;
         } catch (SQLException e) { throw new RuntimeException(e); }
+        fireChanged(a, b);
     }
 
     public void removeFriends(String a, String b) {
@@ -36,8 +51,9 @@ public class FriendRepository {
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setObject(1, java.util.UUID.fromString(lo(a,b)));
             ps.setObject(2, java.util.UUID.fromString(hi(a,b)));
-            ps.executeUpdate();
+            if (ps.executeUpdate() == 0) return;
         } catch (SQLException e) { throw new RuntimeException(e); }
+        fireChanged(a, b);
     }
 
     public Set<String> getFriendsOf(String userId) {
@@ -95,7 +111,9 @@ public class FriendRepository {
             throw new RuntimeException(e);
         } finally {
             try { if (c != null) c.setAutoCommit(true); } catch (SQLException ignore) {}
+            try { if (c != null) c.close(); } catch (SQLException ignore) {}
         }
+        fireChanged(blockerId, targetId);
     }
 
     public void unblock(String blockerId, String targetId) {
@@ -103,8 +121,9 @@ public class FriendRepository {
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setObject(1, java.util.UUID.fromString(blockerId));
             ps.setObject(2, java.util.UUID.fromString(targetId));
-            ps.executeUpdate();
+            if (ps.executeUpdate() == 0) return;
         } catch (SQLException e) { throw new RuntimeException(e); }
+        fireChanged(blockerId, targetId);
     }
 
     public Set<String> getBlockedBy(String userId) {
@@ -34,6 +34,17 @@ public class ModerationEventsRepository {
         }
     }
 
+    /** Flag sa podacima korisnika (null ako korisnik više ne postoji). */
+    public static class FlaggedUser extends Flagged {
+        public final String firstName;
+        public final String lastName;
+        public final String email;
+        public FlaggedUser(String userId, String reason, long until, String firstName, String lastName, String email) {
+            super(userId, reason, until);
+            this.firstName = firstName; this.lastName = lastName; this.email = email;
+        }
+    }
+
     private static final ModerationEventsRepository INSTANCE = new ModerationEventsRepository();
     public static ModerationEventsRepository getInstance() { return INSTANCE; }
 
@@ -107,6 +118,32 @@ public class ModerationEventsRepository {
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
     
+    /**
+     * Kao listRecentFlags, ali red po red i odmah sa imenom/email-om korisnika (LEFT JOIN users),
+     * pa pozivalac ne mora da za svaki flag posebno čita korisnika.
+     */
+    public void forEachRecentFlag(long sinceEpochMs, int limit, RowVisitor<FlaggedUser> visitor) {
+        String sql = "SELECT f.user_id, f.reason, f.until_ms, u.first_name, u.last_name, u.email " +
+                     "FROM moderation_flags_audit f LEFT JOIN users u ON u.id = f.user_id " +
+                     "WHERE f.created_ms >= ? ORDER BY f.id DESC LIMIT ?";
+        try (Connection c = Db.get()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(Db.STREAM_FETCH_SIZE);
+                ps.setLong(1, sinceEpochMs);
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String uid = rs.getObject("user_id", java.util.UUID.class).toString();
+                        FlaggedUser f = new FlaggedUser(uid, rs.getString("reason"), rs.getLong("until_ms"),
+                                rs.getString("first_name"), rs.getString("last_name"), rs.getString("email"));
+                        if (!visitor.visit(f)) break;
+                    }
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
     /** Vrati sve flagove i obriši ih (isti semantički efekat kao in-memory getAndClear) */
     public List<Flagged> getFlagsAndClear() {
         String sel = "SELECT id, user_id, reason, until_ms FROM moderation_flags ORDER BY id";
@@ -68,6 +68,20 @@ public class PlaceRepository {
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
+    /** Kao findAll, ali mesto po mesto dok visitor ne vrati false (rezultat se čita po Db.STREAM_FETCH_SIZE redova). */
+    public void forEach(RowVisitor<Place> visitor) {
+        String sql = "SELECT id, name, country, city, description, hashtags FROM places";
+        try (Connection c = Db.get()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(Db.STREAM_FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) if (!visitor.visit(map(rs))) break;
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
     private Place map(ResultSet rs) throws SQLException {
         String id  = rs.getObject("id", java.util.UUID.class).toString();
         String n   = rs.getString("name");
@@ -77,8 +91,6 @@ public class PlaceRepository {
         java.sql.Array a = rs.getArray("hashtags");
         Set<String> tags = new HashSet<>();
         if (a != null) tags.addAll(Arrays.asList((String[]) a.getArray()));
-        Place p = new Place(n, co, ci, d, tags);
-        util.Hydrator.set(p, "id", id); 
-        return p;
+        return new Place(id, n, co, ci, d, tags);
     }
 }
@@ -0,0 +1,20 @@
+package repo;
+
+import model.Post;
+
+/**
+ * Obaveštenja o upisima kroz PostRepository; zovu se posle commit-a, na niti koja je upisivala.
+ * Registruje se sa PostRepository.addListener(...). Listener treba da bude brz (produžava upis),
+ * a izuzetak iz njega se samo loguje i ne obara upis.
+ */
+public interface PostListener {
+
+    /** Nova ili izmenjena objava (save). */
+    default void onSaved(Post post) { }
+
+    /** Novi lajk (ne zove se ako je korisnik objavu već lajkovao); post je stanje posle lajka. */
+    default void onLiked(Post post, String userId) { }
+
+    /** Nova prijava (ne zove se ako je korisnik objavu već prijavio); post je stanje posle prijave. */
+    default void onReported(Post post, String userId) { }
+}
@@ -2,13 +2,23 @@ package repo;
 
 import model.Post;
 import db.Db;
+import dto.PostCursor;
+import dto.PostPage;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class PostRepository {
 
+    // zajednički za sve instance: servisi i testovi prave svoje PostRepository objekte
+    private static final List<PostListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    public static void addListener(PostListener l) { LISTENERS.add(l); }
+
+    public static void removeListener(PostListener l) { LISTENERS.remove(l); }
+
     public Post save(Post p) {
         String sql = "INSERT INTO posts(id, author_id, text_body, hashtags, likes, reports, created_at) " +
                      "VALUES (?,?,?,?,?,?,?) " +
@@ -23,8 +33,12 @@ public class PostRepository {
             ps.setInt(6, p.getReports());
             ps.setTimestamp(7, Timestamp.valueOf(p.getCreatedAt()));
             ps.executeUpdate();
-            return p;
         } catch (SQLException e) { throw new RuntimeException(e); }
+        for (PostListener l : LISTENERS) {
+            try { l.onSaved(p); }
+            catch (RuntimeException e) { System.out.println("[POST] listener onSaved failed: " + e); }
+        }
+        return p;
     }
 
     public List<Post> findByAuthor(String authorId) {
@@ -40,6 +54,44 @@ public class PostRepository {
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
+    /**
+     * Strana objava autora, od najnovije; čita se samo size+1 redova posle kursora
+     * (keyset po (created_at, id), indeks idx_posts_author_created).
+     */
+    public PostPage findByAuthor(String authorId, PostCursor after, int size) {
+        List<Post> out = new ArrayList<>();
+        PostCursor next = forEachByAuthor(authorId, after, size, p -> out.add(p));
+        return new PostPage(out, next);
+    }
+
+    /**
+     * Ista strana kao findByAuthor(authorId, after, size), ali objavu po objavu dok se čita iz baze;
+     * vraća kursor sledeće strane (null ako je ovo poslednja).
+     */
+    public PostCursor forEachByAuthor(String authorId, PostCursor after, int size, RowVisitor<Post> visitor) {
+        String sql = "SELECT id, author_id, text_body, hashtags, likes, reports, created_at " +
+                     "FROM posts WHERE author_id=? " + (after == null ? "" : "AND (created_at, id) < (?, ?) ") +
+                     "ORDER BY created_at DESC, id DESC LIMIT ?";
+        try (Connection c = Db.get()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(Db.STREAM_FETCH_SIZE);
+                ps.setObject(1, java.util.UUID.fromString(authorId));
+                int i = bindCursor(ps, 2, after);
+                ps.setInt(i, size + 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    Post last = null;
+                    for (int n = 0; rs.next(); n++) {
+                        if (n == size) return PostCursor.after(last);     // red size+1 samo kaže da ima još
+                        last = map(rs);
+                        if (!visitor.visit(last)) return null;
+                    }
+                    return null;
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
     public Optional<Post> findById(String id) {
         if (id == null) return Optional.empty();
         String sql = "SELECT id, author_id, text_body, hashtags, likes, reports, created_at FROM posts WHERE id=?";
@@ -75,9 +127,9 @@ public class PostRepository {
         if (userId == null || userId.trim().isEmpty()) throw new IllegalArgumentException("Niste ulogovani.");
 
         Connection c = null;
+        int ins;
         try {
             c = Db.get(); c.setAutoCommit(false);
-            int ins;
             try (PreparedStatement ps = c.prepareStatement(
                 "INSERT INTO post_likes(post_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING")) {
                 ps.setObject(1, java.util.UUID.fromString(postId));
@@ -96,8 +148,16 @@ public class PostRepository {
             throw new RuntimeException(e);
         } finally {
             try { if (c != null) c.setAutoCommit(true); } catch (SQLException ignore) {}
+            try { if (c != null) c.close(); } catch (SQLException ignore) {}
         }
-        return findById(postId).orElseThrow(() -> new IllegalStateException("Post nestao posle lajka?"));
+        Post post = findById(postId).orElseThrow(() -> new IllegalStateException("Post nestao posle lajka?"));
+        if (ins == 1) {
+            for (PostListener l : LISTENERS) {
+                try { l.onLiked(post, userId); }
+                catch (RuntimeException e) { System.out.println("[POST] listener onLiked failed: " + e); }
+            }
+        }
+        return post;
     }
 
     public boolean hasUserReported(String postId, String userId) {
@@ -114,9 +174,9 @@ public class PostRepository {
         if (userId == null || userId.trim().isEmpty()) throw new IllegalArgumentException("Niste ulogovani.");
 
         Connection c = null;
+        int ins;
         try {
             c = Db.get(); c.setAutoCommit(false);
-            int ins;
             try (PreparedStatement ps = c.prepareStatement(
                 "INSERT INTO post_reports(post_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING")) {
                 ps.setObject(1, java.util.UUID.fromString(postId));
@@ -135,8 +195,16 @@ public class PostRepository {
             throw new RuntimeException(e);
         } finally {
             try { if (c != null) c.setAutoCommit(true); } catch (SQLException ignore) {}
+            try { if (c != null) c.close(); } catch (SQLException ignore) {}
+        }
+        Post post = findById(postId).orElseThrow(() -> new IllegalStateException("Post nestao posle prijave?"));
+        if (ins == 1) {
+            for (PostListener l : LISTENERS) {
+                try { l.onReported(post, userId); }
+                catch (RuntimeException e) { System.out.println("[POST] listener onReported failed: " + e); }
+            }
         }
-        return findById(postId).orElseThrow(() -> new IllegalStateException("Post nestao posle prijave?"));
+        return post;
     }
 
     /** SVI postovi od zadatog vremena (filtriranja radi DRL). */
@@ -152,22 +220,40 @@ public class PostRepository {
     }
 
     /** Po autorima (možeš da ostaviš — friends seed). */
+    /** Objave zadatih autora od since, najnovije prve (indeks idx_posts_author_created). */
     public List<Post> findByAuthorsSince(Set<String> authorIds, LocalDateTime since) {
         if (authorIds == null || authorIds.isEmpty()) return Collections.emptyList();
-        String placeholders = String.join(",", Collections.nCopies(authorIds.size(), "?"));
+        // = ANY(?) umesto IN (?,?,...): isti SQL za svaki broj autora, pa ga keš pripremljenih upita deli
         String sql = "SELECT id, author_id, text_body, hashtags, likes, reports, created_at " +
-                     "FROM posts WHERE created_at >= ? AND author_id IN (" + placeholders + ") " +
+                     "FROM posts WHERE author_id = ANY(?) AND created_at >= ? " +
                      "ORDER BY created_at DESC";
         List<Post> out = new ArrayList<>();
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
-            int i = 1;
-            ps.setTimestamp(i++, Timestamp.valueOf(since));
-            for (String id : authorIds) ps.setObject(i++, java.util.UUID.fromString(id));
+            ps.setArray(1, c.createArrayOf("uuid", uuids(authorIds)));
+            ps.setTimestamp(2, Timestamp.valueOf(since));
             try (ResultSet rs = ps.executeQuery()) { while (rs.next()) out.add(map(rs)); }
             return out;
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
+    /** Kao findByAuthorsSince, ali samo jedna strana: size+1 redova posle kursora. */
+    public PostPage findByAuthorsSince(Set<String> authorIds, LocalDateTime since, PostCursor after, int size) {
+        if (authorIds == null || authorIds.isEmpty()) return new PostPage(Collections.<Post>emptyList(), null);
+        String sql = "SELECT id, author_id, text_body, hashtags, likes, reports, created_at " +
+                     "FROM posts WHERE author_id = ANY(?) AND created_at >= ? " +
+                     (after == null ? "" : "AND (created_at, id) < (?, ?) ") +
+                     "ORDER BY created_at DESC, id DESC LIMIT ?";
+        List<Post> out = new ArrayList<>();
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("uuid", uuids(authorIds)));
+            ps.setTimestamp(2, Timestamp.valueOf(since));
+            int i = bindCursor(ps, 3, after);
+            ps.setInt(i, size + 1);
+            try (ResultSet rs = ps.executeQuery()) { while (rs.next()) out.add(map(rs)); }
+            return PostPage.of(out, size);
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
     // hashtagovi iz lajkovanih postova u intervalu
     public Set<String> findUserLikedHashtags(String userId, LocalDateTime since) {
         String sql = "SELECT DISTINCT tag " +
@@ -194,6 +280,18 @@ public class PostRepository {
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
+    /** ID-jevi objava nastalih posle since sa više od minLikes lajkova. */
+    public Set<String> findPopularPostIdsSince(LocalDateTime since, int minLikes) {
+        String sql = "SELECT id FROM posts WHERE created_at > ? AND likes > ?";
+        Set<String> out = new HashSet<>();
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            ps.setInt(2, minLikes);
+            try (ResultSet rs = ps.executeQuery()) { while (rs.next()) out.add(rs.getObject(1, java.util.UUID.class).toString()); }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
     public Set<String> findUserAuthoredHashtags(String userId, LocalDateTime since) {
         String sql = "SELECT DISTINCT tag FROM posts p, UNNEST(p.hashtags) AS tag " +
                      "WHERE p.author_id = ? AND p.created_at >= ?";
@@ -207,17 +305,6 @@ public class PostRepository {
     }
 
     // --- NEW: helpers for similarity / preferences ---
-    /** Users who liked a given post */
-    public Set<String> findUsersWhoLikedPost(String postId) {
-        String sql = "SELECT user_id FROM post_likes WHERE post_id=?";
-        Set<String> out = new HashSet<>();
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setObject(1, java.util.UUID.fromString(postId));
-            try (ResultSet rs = ps.executeQuery()) { while (rs.next()) out.add(rs.getObject(1, java.util.UUID.class).toString()); }
-            return out;
-        } catch (SQLException e) { throw new RuntimeException(e); }
-    }
-
     /** Posts liked by given user since a timestamp */
     public Set<String> findPostsLikedByUserSince(String userId, LocalDateTime since) {
         String sql = "SELECT post_id FROM post_likes l JOIN posts p ON p.id=l.post_id WHERE l.user_id=? AND p.created_at>=?";
@@ -230,21 +317,75 @@ public class PostRepository {
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
-    /** Hashtags for a post */
-    public Set<String> getHashtagsForPost(String postId) {
-        String sql = "SELECT hashtags FROM posts WHERE id=?";
+    // --- bulk varijante (jedan upit za ceo skup ID-jeva, = ANY(?)) ---
+
+    /** postId -> korisnici koji su ga lajkovali (postovi bez lajkova nisu u mapi). */
+    public Map<String, Set<String>> findLikersByPosts(Collection<String> postIds) {
+        Map<String, Set<String>> out = new HashMap<>();
+        if (postIds == null || postIds.isEmpty()) return out;
+        String sql = "SELECT post_id, user_id FROM post_likes WHERE post_id = ANY(?)";
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setObject(1, java.util.UUID.fromString(postId));
+            ps.setArray(1, c.createArrayOf("uuid", uuids(postIds)));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.computeIfAbsent(rs.getObject(1, java.util.UUID.class).toString(), k -> new HashSet<>())
+                       .add(rs.getObject(2, java.util.UUID.class).toString());
+                }
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    /** userId -> lajkovani postovi kreirani od 'since', za SVE korisnike (isti filter kao findPostsLikedByUserSince). */
+    public Map<String, Set<String>> findLikedPostsByUsersSince(LocalDateTime since) {
+        String sql = "SELECT l.user_id, l.post_id FROM post_likes l JOIN posts p ON p.id=l.post_id WHERE p.created_at>=?";
+        Map<String, Set<String>> out = new HashMap<>();
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(since));
             try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return java.util.Collections.emptySet();
-                java.sql.Array a = rs.getArray(1);
-                java.util.Set<String> tags = new java.util.HashSet<>();
-                if (a != null) tags.addAll(java.util.Arrays.asList((String[]) a.getArray()));
-                return tags;
+                while (rs.next()) {
+                    out.computeIfAbsent(rs.getObject(1, java.util.UUID.class).toString(), k -> new HashSet<>())
+                       .add(rs.getObject(2, java.util.UUID.class).toString());
+                }
             }
+            return out;
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
+    /** postId -> hashtagovi (postovi kojih nema nisu u mapi). */
+    public Map<String, Set<String>> findHashtagsByPosts(Collection<String> postIds) {
+        Map<String, Set<String>> out = new HashMap<>();
+        if (postIds == null || postIds.isEmpty()) return out;
+        String sql = "SELECT id, hashtags FROM posts WHERE id = ANY(?)";
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("uuid", uuids(postIds)));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    java.sql.Array a = rs.getArray(2);
+                    Set<String> tags = new HashSet<>();
+                    if (a != null) tags.addAll(Arrays.asList((String[]) a.getArray()));
+                    out.put(rs.getObject(1, java.util.UUID.class).toString(), tags);
+                }
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    // (created_at, id) kursora od pozicije i; vraća sledeću slobodnu poziciju
+    private static int bindCursor(PreparedStatement ps, int i, PostCursor after) throws SQLException {
+        if (after == null) return i;
+        ps.setTimestamp(i, Timestamp.valueOf(after.getCreatedAt()));
+        ps.setObject(i + 1, java.util.UUID.fromString(after.getId()));
+        return i + 2;
+    }
+
+    private static Object[] uuids(Collection<String> ids) {
+        Object[] out = new Object[ids.size()];
+        int i = 0;
+        for (String id : ids) out[i++] = java.util.UUID.fromString(id);
+        return out;
+    }
+
     public int countByAuthor(String authorId) {
         String sql = "SELECT COUNT(*) FROM posts WHERE author_id=?";
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
@@ -265,11 +406,6 @@ public class PostRepository {
         int reports = rs.getInt("reports");
         java.time.LocalDateTime created = rs.getTimestamp("created_at").toLocalDateTime();
 
-        Post p = new Post(auth, text, tags);
-        util.Hydrator.set(p, "id", id);
-        util.Hydrator.set(p, "createdAt", created);
-        p.setLikes(likes);
-        p.setReports(reports);
-        return p;
+        return new Post(id, auth, text, tags, likes, reports, created);
     }
 }
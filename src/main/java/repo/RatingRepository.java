@@ -48,28 +48,4 @@ public class RatingRepository {
             return out;
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
-
-    public boolean existsByUserAndPlace(String userId, String placeId) {
-        String sql = "SELECT 1 FROM place_ratings WHERE user_id=? AND place_id=? LIMIT 1";
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setObject(1, java.util.UUID.fromString(userId));
-            ps.setObject(2, java.util.UUID.fromString(placeId));
-            try (ResultSet rs = ps.executeQuery()) { return rs.next(); }
-        } catch (SQLException e) { throw new RuntimeException(e); }
-    }
-
-    public boolean userHasPositiveRatingForType(String userId, String typeTag) {
-        // pozitivan (>=4) za neko mesto koje sadrži dati "tip" hešteg (npr. #bioskop)
-        String sql =
-            "SELECT 1 " +
-            "FROM place_ratings r " +
-            "JOIN places p ON p.id = r.place_id " +
-            "WHERE r.user_id=? AND r.score >= 4 AND ? = ANY(p.hashtags) " +
-            "LIMIT 1";
-        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setObject(1, java.util.UUID.fromString(userId));
-            ps.setString(2, typeTag);
-            try (ResultSet rs = ps.executeQuery()) { return rs.next(); }
-        } catch (SQLException e) { throw new RuntimeException(e); }
-    }
 }
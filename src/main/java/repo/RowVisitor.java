@@ -0,0 +1,11 @@
+package repo;
+
+/**
+ * Prima redove jedan po jedan dok se čitaju iz ResultSet-a (forEach... metode repozitorijuma),
+ * pa pozivalac ne mora da drži celu listu u memoriji. Vrati false da prekineš čitanje.
+ * Zove se dok je konekcija zauzeta: ne otvaraj iz njega nove upite.
+ */
+public interface RowVisitor<T> {
+
+    boolean visit(T row);
+}
@@ -0,0 +1,142 @@
+package repo;
+
+import model.Session;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Sesije u log fajlu (http.session.store=file), jedan zapis po liniji, polja odvojena tabom:
+ *   + hash userId createdAtMs expiresAtMs    - nova sesija
+ *   ~ hash expiresAtMs                       - produžena
+ *   - hash                                   - uklonjena
+ * Pri učitavanju se log ponovi i prepiše samo sa živim sesijama; kad naraste na više od
+ * dvostruko zapisa od broja živih sesija, maintain() ga ponovo sabije. Nedovršena poslednja
+ * linija (pad usred upisa) se preskače.
+ */
+public class SessionFileStore implements SessionPersistence {
+
+    private static final int MIN_COMPACT_LINES = 1024;
+
+    private final Path file;
+    private BufferedWriter out;
+    private long lines;
+    private long lastLive;
+
+    public SessionFileStore(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized List<Session> loadLive(long nowMs) {
+        Map<String, Session> byHash = new LinkedHashMap<>();
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) replay(byHash, line);
+            } catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+        List<Session> live = new ArrayList<>();
+        for (Session s : byHash.values()) if (s.getExpiresAtMs() > nowMs) live.add(s);
+        rewrite(live);
+        return live;
+    }
+
+    @Override
+    public synchronized void created(Session s) {
+        append("+\t" + s.getTokenHash() + "\t" + s.getUserId() + "\t" + s.getCreatedAtMs() + "\t" + s.getExpiresAtMs());
+        flush();
+    }
+
+    @Override
+    public synchronized void extended(Map<String, Long> expiresByHash) {
+        if (expiresByHash.isEmpty()) return;
+        for (Map.Entry<String, Long> e : expiresByHash.entrySet()) append("~\t" + e.getKey() + "\t" + e.getValue());
+        flush();
+    }
+
+    @Override
+    public synchronized void removed(Collection<String> tokenHashes) {
+        if (tokenHashes.isEmpty()) return;
+        for (String h : tokenHashes) append("-\t" + h);
+        flush();
+    }
+
+    @Override
+    public synchronized void maintain(long nowMs, Supplier<Collection<Session>> live) {
+        if (lines < MIN_COMPACT_LINES || lines < 2 * lastLive) return;
+        // snapshot i prepisivanje pod istim lock-om: +/- linija upisana između njih bi se izgubila
+        // (odjava bi posle restarta vratila token). SessionManager skladište ne zove držeći lock segmenta.
+        Collection<Session> snapshot = live.get();
+        if (lines < 2L * snapshot.size()) { lastLive = snapshot.size(); return; }
+        rewrite(snapshot);
+        System.out.println("[SESSION] compacted " + file + " to " + snapshot.size() + " sessions");
+    }
+
+    public synchronized void close() {
+        try { if (out != null) out.close(); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+        finally { out = null; }
+    }
+
+    private static void replay(Map<String, Session> byHash, String line) {
+        String[] f = line.split("\t");
+        try {
+            if (f.length == 5 && "+".equals(f[0])) {
+                byHash.put(f[1], new Session(f[1], f[2], Long.parseLong(f[3]), Long.parseLong(f[4])));
+            } else if (f.length == 3 && "~".equals(f[0])) {
+                Session s = byHash.get(f[1]);
+                if (s != null) byHash.put(f[1], new Session(f[1], s.getUserId(), s.getCreatedAtMs(), Long.parseLong(f[2])));
+            } else if (f.length == 2 && "-".equals(f[0])) {
+                byHash.remove(f[1]);
+            }
+        } catch (NumberFormatException ignore) {
+            // nedovršena linija
+        }
+    }
+
+    // sadržaj fajla = samo date sesije; upis u privremeni fajl pa zamena, da pad ne ostavi pola loga
+    private void rewrite(Collection<Session> live) {
+        close();
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Session s : live) {
+                    w.write("+\t" + s.getTokenHash() + "\t" + s.getUserId() + "\t" + s.getCreatedAtMs() + "\t" + s.getExpiresAtMs());
+                    w.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            lines = live.size();
+            lastLive = live.size();
+        } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    private void append(String line) {
+        try {
+            if (out == null) {
+                out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            out.write(line);
+            out.newLine();
+            lines++;
+        } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    private void flush() {
+        try { out.flush(); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+}
@@ -0,0 +1,32 @@
+package repo;
+
+import model.Session;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Trajno čuvanje sesija (http.SessionManager): čita se samo pri startu, posle se samo upisuje,
+ * pa provera tokena na zahtevu ne ide u bazu/fajl. Implementacije: SessionRepository (tabela
+ * user_sessions) i SessionFileStore (log fajl).
+ */
+public interface SessionPersistence {
+
+    /** Sesije koje ističu posle nowMs; istekle se usput brišu. */
+    List<Session> loadLive(long nowMs);
+
+    void created(Session s);
+
+    /** Novo vreme isteka (klizni TTL) za više sesija odjednom: hash tokena -> expiresAtMs. */
+    void extended(Map<String, Long> expiresByHash);
+
+    void removed(Collection<String> tokenHashes);
+
+    /**
+     * Zove se sa pozadinske niti posle svakog koraka; live daje trenutno žive sesije (npr. za sabijanje loga).
+     * Sme da se pozove pod lock-om skladišta: SessionManager ne drži svoje lock-ove dok upisuje.
+     */
+    default void maintain(long nowMs, Supplier<Collection<Session>> live) { }
+}
@@ -0,0 +1,69 @@
+package repo;
+
+import db.Db;
+import model.Session;
+
+import java.sql.*;
+import java.util.*;
+
+/** Tabela user_sessions: sesije koje preživljavaju restart (http.session.store=db). */
+public class SessionRepository implements SessionPersistence {
+
+    @Override
+    public List<Session> loadLive(long nowMs) {
+        List<Session> out = new ArrayList<>();
+        try (Connection c = Db.get()) {
+            Timestamp now = new Timestamp(nowMs);
+            try (PreparedStatement ps = c.prepareStatement("DELETE FROM user_sessions WHERE expires_at <= ?")) {
+                ps.setTimestamp(1, now);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT token_hash, user_id, created_at, expires_at FROM user_sessions ORDER BY created_at")) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(new Session(rs.getString("token_hash"), rs.getObject("user_id", UUID.class).toString(),
+                                rs.getTimestamp("created_at").getTime(), rs.getTimestamp("expires_at").getTime()));
+                    }
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        return out;
+    }
+
+    @Override
+    public void created(Session s) {
+        String sql = "INSERT INTO user_sessions(token_hash, user_id, created_at, expires_at) VALUES (?,?,?,?)";
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, s.getTokenHash());
+            ps.setObject(2, UUID.fromString(s.getUserId()));
+            ps.setTimestamp(3, new Timestamp(s.getCreatedAtMs()));
+            ps.setTimestamp(4, new Timestamp(s.getExpiresAtMs()));
+            ps.executeUpdate();
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public void extended(Map<String, Long> expiresByHash) {
+        if (expiresByHash.isEmpty()) return;
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement("UPDATE user_sessions SET expires_at=? WHERE token_hash=?")) {
+            for (Map.Entry<String, Long> e : expiresByHash.entrySet()) {
+                ps.setTimestamp(1, new Timestamp(e.getValue()));
+                ps.setString(2, e.getKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public void removed(Collection<String> tokenHashes) {
+        if (tokenHashes.isEmpty()) return;
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement("DELETE FROM user_sessions WHERE token_hash = ANY(?)")) {
+            ps.setArray(1, c.createArrayOf("text", tokenHashes.toArray()));
+            ps.executeUpdate();
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+}
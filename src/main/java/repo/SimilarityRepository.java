@@ -0,0 +1,61 @@
+package repo;
+
+import db.Db;
+import dto.SimilarUser;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/** Tabela user_similarity: predizračunati top-K slični korisnici (upisuje service.SimilarUsers). */
+public class SimilarityRepository {
+
+    /** Zameni sve susede korisnika novom listom (u jednoj transakciji). */
+    public void replace(String userId, List<SimilarUser> neighbors) {
+        Connection c = null;
+        try {
+            c = Db.get(); c.setAutoCommit(false);
+            UUID uid = UUID.fromString(userId);
+            try (PreparedStatement ps = c.prepareStatement("DELETE FROM user_similarity WHERE user_id=?")) {
+                ps.setObject(1, uid);
+                ps.executeUpdate();
+            }
+            if (!neighbors.isEmpty()) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                try (PreparedStatement ps = c.prepareStatement(
+                        "INSERT INTO user_similarity(user_id, other_user_id, score, computed_at) VALUES (?,?,?,?)")) {
+                    for (SimilarUser su : neighbors) {
+                        ps.setObject(1, uid);
+                        ps.setObject(2, UUID.fromString(su.getOtherUserId()));
+                        ps.setDouble(3, su.getScore());
+                        ps.setTimestamp(4, now);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            c.commit();
+        } catch (SQLException e) {
+            try { if (c != null) c.rollback(); } catch (SQLException ignore) {}
+            throw new RuntimeException(e);
+        } finally {
+            try { if (c != null) c.setAutoCommit(true); } catch (SQLException ignore) {}
+            try { if (c != null) c.close(); } catch (SQLException ignore) {}
+        }
+    }
+
+    /** Sačuvani susedi, od najsličnijeg. */
+    public List<SimilarUser> findByUser(String userId) {
+        String sql = "SELECT other_user_id, score FROM user_similarity WHERE user_id=? ORDER BY score DESC";
+        List<SimilarUser> out = new ArrayList<>();
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, UUID.fromString(userId));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new SimilarUser(userId, rs.getObject("other_user_id", UUID.class).toString(), rs.getDouble("score")));
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        return out;
+    }
+}
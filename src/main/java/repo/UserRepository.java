@@ -2,7 +2,6 @@ package repo;
 
 import model.User;
 import db.Db;
-import util.Hydrator;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -163,9 +162,6 @@ public class UserRepository {
         String city = rs.getString("city");
         LocalDateTime created = rs.getTimestamp("created_at").toLocalDateTime();
 
-        User u = new User(fn, ln, em, ph, city); // generiše nov UUID → hidriraćemo DB id/createdAt
-        util.Hydrator.set(u, "id", id);
-        util.Hydrator.set(u, "createdAt", created);
-        return u;
+        return new User(id, fn, ln, em, ph, city, created);
     }
 }
@@ -3,18 +3,16 @@ package service;
 import dto.AdSuggestion;
 import dto.AdsRecommendRequest;
 import model.Place;
-import model.Rating;
 import model.User;
 import model.ValidationResult;
-import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.rule.QueryResults;
 import org.kie.api.runtime.rule.QueryResultsRow;
 import repo.PlaceRepository;
+import repo.FactRepository;
 import repo.PostRepository;
-import repo.RatingRepository;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;
+import util.KieBaseRegistry;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -24,14 +22,12 @@ public class AdsService {
     private final UserRepository userRepo;
     private final PostRepository postRepo;
     private final PlaceRepository placeRepo;
-    private final RatingRepository ratingRepo;
+    private final FactRepository factRepo = new FactRepository();
 
-    public AdsService(UserRepository userRepo, PostRepository postRepo,
-                      PlaceRepository placeRepo, RatingRepository ratingRepo) {
+    public AdsService(UserRepository userRepo, PostRepository postRepo, PlaceRepository placeRepo) {
         this.userRepo = userRepo;
         this.postRepo = postRepo;
         this.placeRepo = placeRepo;
-        this.ratingRepo = ratingRepo;
     }
 
     // Jednostavan “par” za JDK 8 umesto record-a
@@ -60,29 +56,24 @@ public class AdsService {
             }
         } catch (Exception ignore) {}
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ksession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "ads-session");
+        KieSession ksession = KieBaseRegistry.get().borrow(KieBaseRegistry.Base.ADS);
 
         try {
-            // Globals
-            ksession.setGlobal("userRepo", userRepo);
-            ksession.setGlobal("postRepo", postRepo);
-            ksession.setGlobal("placeRepo", placeRepo);
-            ksession.setGlobal("ratingRepo", ratingRepo);
             ksession.setGlobal("NOW", LocalDateTime.now());
 
-            // Činjenice u WM: sva mesta, sve ocene korisnika, relevantni postovi
+            // Činjenice u WM: sva mesta, relevantni postovi i (iz FactRepository) lajkovi i ocene korisnika,
+            // pa upiti ne idu u bazu iz eval()-a za svaku objavu / mesto
             for (Place p : placeRepo.findAll()) {
                 ksession.insert(p);
             }
-            for (Rating r : ratingRepo.findByUser(req.userId)) {
-                ksession.insert(r);
-            }
             // Učitaj postove iz poslednjih 30 dana (po potrebi promeni period)
             LocalDateTime since = LocalDateTime.now().minusDays(30);
             for (model.Post p : postRepo.findSince(since)) {
                 ksession.insert(p);
             }
+            for (Object f : factRepo.forAds(req.userId, since)) {
+                ksession.insert(f);
+            }
 
             // Podesivi set “paketa” (tip + tematski hashtag)
             List<Pack> packs = Arrays.asList(
@@ -105,9 +96,9 @@ public class AdsService {
                         p.typeKw,
                         p.topicTag
                 );
+                String why = whyText(p.typeKw, p.topicTag, userCity == null ? "" : userCity);
                 for (QueryResultsRow row : qr) {
                     Place place = (Place) row.get("$p");
-                    String why  = (String) row.get("$why");
                     if (place != null && seenPlaceIds.add(place.getId())) {
                         out.add(new AdSuggestion(place, why));
                     }
@@ -119,7 +110,14 @@ public class AdsService {
             int limit = req.limit <= 0 ? 10 : req.limit;
             return out.stream().limit(limit).collect(Collectors.toList());
         } finally {
-            ksession.dispose();
+            KieBaseRegistry.get().release(ksession);
         }
     }
+
+    // objašnjenje uz preporuku (isti tekst koji je ranije vraćao upit kao $why)
+    private static String whyText(String typeKw, String topicTag, String city) {
+        return "preporuka: voli " + typeKw +
+               ", " + topicTag + " > 3 lajka, koristio " + topicTag +
+               ", pozitivan utisak o " + typeKw + ", grad: " + city;
+    }
 }
@@ -4,11 +4,13 @@ import dto.LoginRequest;
 import model.User;
 import model.ValidationResult;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;
+import util.KieBaseRegistry;
+import util.ValidationFlow;
 import util.PasswordHasher;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -23,31 +25,25 @@ public class AuthService {
     public User login(LoginRequest req) {
         ValidationResult vr = new ValidationResult();
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ksession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session"); // ili "test-session"
+        StatelessKieSession ksession = KieBaseRegistry.get().validationSession(ValidationFlow.LOGIN);
+        // globali koje pravila koriste
+        ksession.setGlobal("EMAIL_RX",
+            Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
 
-        try {
-            // globali koje pravila koriste
-            ksession.setGlobal("userRepo", repo);
-            ksession.setGlobal("EMAIL_RX",
-                Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+        // korisnika čitamo jednom: ide u pravila kao činjenica, a posle ga i vraćamo
+        Optional<User> ou = (req.email == null || req.email.trim().isEmpty())
+                ? Optional.<User>empty() : repo.findByEmail(req.email);
+        List<Object> facts = new ArrayList<>();
+        ou.ifPresent(facts::add);
 
-            ksession.insert(req);
-            ksession.insert(vr);
-
-            // fokusiraj login agendu i pucaj pravila
-            ksession.getAgenda().getAgendaGroup("login").setFocus();
-            ksession.fireAllRules();
-        } finally {
-            ksession.dispose();
-        }
+        // ubaci zahtev, fokusiraj login agendu i pucaj pravila
+        ValidationFlow.LOGIN.execute(ksession, facts, req, vr);
 
         if (!vr.isOk()) {
             throw new IllegalArgumentException(String.join("; ", vr.getErrors()));
         }
 
         // Ako pravila nisu prijavila grešku -> korisnik postoji i lozinka je tačna
-        Optional<User> ou = repo.findByEmail(req.email);
         if (!ou.isPresent()) {
             // teorijski ne bi smelo da se desi jer pravila love "ne postoji korisnik"
             throw new IllegalArgumentException("Korisnik ne postoji");
@@ -60,8 +56,8 @@ public class AuthService {
             throw new IllegalArgumentException("Pogrešna lozinka");
         }
 
-        if (repo.isLoginSuspended(u.getId())) {
-            long until = repo.loginSuspendedUntil(u.getId());
+        long until = repo.loginSuspendedUntil(u.getId());
+        if (until > System.currentTimeMillis()) {
             throw new IllegalArgumentException("Nalog suspendovan do " + new java.util.Date(until));
         }
         
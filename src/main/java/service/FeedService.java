@@ -3,12 +3,12 @@ package service;
 import dto.*;
 import model.Post;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.FriendRepository;
 import repo.PostRepository;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;
+import util.KieBaseRegistry;
 
-import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 
 // DEBUG listeners
@@ -17,6 +17,7 @@ import org.kie.api.runtime.rule.FactHandle;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class FeedService {
@@ -27,6 +28,7 @@ public class FeedService {
     private final UserRepository userRepo;
     private final FriendRepository friendRepo;
     private final PostRepository postRepo;
+    private final FactRepository factRepo = new FactRepository();
 
     public FeedService(UserRepository userRepo, FriendRepository friendRepo, PostRepository postRepo) {
         this.userRepo = userRepo;
@@ -121,17 +123,32 @@ public class FeedService {
 
     // FRIENDS feed
     public List<Post> friendFeed(String userId, LocalDateTime now) {
+        return friendFeed(userId, now, authors -> postRepo.findByAuthorsSince(authors, now.minusHours(24)));
+    }
+
+    /**
+     * Jedna strana feed-a prijatelja posle kursora (null = prva strana). Iz baze se čita samo size+1 objava;
+     * pravila filtriraju tu stranu, a sledeći kursor pokazuje na poslednju pročitanu objavu.
+     */
+    public PostPage friendFeed(String userId, LocalDateTime now, PostCursor after, int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be > 0");
+        PostPage[] page = { new PostPage(Collections.<Post>emptyList(), null) };
+        List<Post> posts = friendFeed(userId, now, authors ->
+                (page[0] = postRepo.findByAuthorsSince(authors, now.minusHours(24), after, size)).getPosts());
+        return new PostPage(posts, page[0].getNextCursor());
+    }
+
+    private List<Post> friendFeed(String userId, LocalDateTime now, Function<Set<String>, List<Post>> loadPool) {
         ValidationResult vr = new ValidationResult();
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ks = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
+        KieSession ks = KieBaseRegistry.get().borrow(KieBaseRegistry.Base.FEED);
         attachDebugListeners(ks, "[FRIENDS]");
 
         try {
-            ks.setGlobal("userRepo", userRepo);
             ks.setGlobal("NOW", now);
 
             ks.insert(new FriendFeedRequest(userId));
             ks.insert(vr);
+            factRepo.forUsers(userId).forEach(ks::insert);
             ks.getAgenda().getAgendaGroup("feed-friends-validate").setFocus();
             ks.getAgenda().getAgendaGroup("feed-friends-select").setFocus();
 
@@ -141,8 +158,12 @@ public class FeedService {
             ks.insert(new FriendIds(friends));
             ks.insert(new BlockedIds(blocked));
 
-            List<Post> pool = postRepo.findSince(now.minusHours(48));
-            log("friendsFeed: pool posts (48h) = " + pool.size());
+            // samo objave prijatelja (bez blokiranih) iz poslednja 24h, preko (author_id, created_at) indeksa;
+            // "Friends: select" ostaje kao politika nad ovim, znatno manjim skupom
+            Set<String> authors = new HashSet<>(friends);
+            authors.removeAll(blocked);
+            List<Post> pool = loadPool.apply(authors);
+            log("friendsFeed: pool posts (friends, 24h) = " + pool.size());
             pool.stream().filter(Objects::nonNull).forEach(ks::insert);
 
             List<Post> out = new ArrayList<>();
@@ -161,22 +182,25 @@ public class FeedService {
 
             log("friendsFeed: result size = " + result.size());
             return result;
-        } finally { ks.dispose(); }
+        } finally { KieBaseRegistry.get().release(ks); }
+    }
+
+    // RECOMMENDED feed (kroz keš; za isti korisnik+limit ponavlja rezultat dok ga ne poništi događaj ili TTL)
+    public List<CandidatePost> recommendedFeed(String userId, int limit) {
+        return RecommendedFeedCache.get().get(userId, limit, () -> recommendedFeed(userId, LocalDateTime.now(), limit));
     }
 
-    // RECOMMENDED feed
     public List<CandidatePost> recommendedFeed(String userId, LocalDateTime now, int limit) {
         ValidationResult vr = new ValidationResult();
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ks = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
+        KieSession ks = KieBaseRegistry.get().borrow(KieBaseRegistry.Base.FEED);
         attachDebugListeners(ks, "[RECO]");
 
         try {
-            ks.setGlobal("userRepo", userRepo);
             ks.setGlobal("NOW", now);
 
             ks.insert(new RecommendedFeedRequest(userId));
             ks.insert(vr);
+            factRepo.forUsers(userId).forEach(ks::insert);
 
             ks.getAgenda().getAgendaGroup("feed-recommend-score").setFocus();
             ks.getAgenda().getAgendaGroup("feed-recommend-router").setFocus();
@@ -197,66 +221,48 @@ public class FeedService {
             ks.insert(new UserFeedContext(userId, now, likedTags, authoredTags));
 
             // ===== NEW-user data provisioning =====
+            // Sve ide kroz bulk upite (= ANY(?)): broj upita ne zavisi od broja korisnika ni objava.
             // 1) UserLikedPosts: sve postove koje je korisnik lajkovao u proteklih 30 dana
             Set<String> likedPostsByUser = postRepo.findPostsLikedByUserSince(userId, now.minusDays(30));
             ks.insert(new dto.UserLikedPosts(userId, likedPostsByUser));
 
-            // 2) UserPreferredTag: broj ponavljanja tagova iz tih lajkovanih postova u poslednja 3 dana
+            // pool 7d iz zajedničkog prozora u memoriji + likeri za lajkovane objave i za objave iz pool-a, jednim upitom
+            List<Post> pool = PostWindow.get().snapshot().since(now.minusDays(7));
+            Set<String> likerPostIds = new HashSet<>(likedPostsByUser);
+            for (Post p : pool) if (p != null) likerPostIds.add(p.getId());
+            Map<String, Set<String>> likersByPost = postRepo.findLikersByPosts(likerPostIds);
+
+            // 2) UserPreferredTag: broj ponavljanja tagova iz tih lajkovanih postova
+            Map<String, Set<String>> tagsByPost = postRepo.findHashtagsByPosts(likedPostsByUser);
             Map<String,Integer> likeCntByTag = new HashMap<>();
             for (String pid : likedPostsByUser) {
-                // uzmi tagove sa posta i broji
-                for (String tag : postRepo.getHashtagsForPost(pid)) {
+                for (String tag : tagsByPost.getOrDefault(pid, Collections.<String>emptySet())) {
                     likeCntByTag.merge(tag, 1, Integer::sum);
                 }
-                // ubaci i likere za svaki user-om lajkovan post (za N2 sličnost postova)
-                try {
-                    java.util.Set<String> likers = postRepo.findUsersWhoLikedPost(pid);
-                    ks.insert(new dto.PostLikers(pid, likers));
-                } catch (Exception ignore) { }
+                // likeri za svaki user-om lajkovan post (za N2 sličnost postova)
+                ks.insert(new dto.PostLikers(pid, likersOf(likersByPost, pid)));
             }
             likeCntByTag.forEach((tag,cnt) -> ks.insert(new UserPreferredTag(userId, tag, cnt)));
 
-            // 3) SimilarUser: uprostena sličnost (Jaccard) na osnovu lajkovanih postova u 30 dana
-            try {
-                java.util.Collection<model.User> allUsers = userRepo.findAll();
-                for (model.User other : allUsers) {
-                    if (other == null) continue;
-                    if (userId.equals(other.getId())) continue;
-                    java.util.Set<String> otherLiked = postRepo.findPostsLikedByUserSince(other.getId(), now.minusDays(30));
-                    java.util.Set<String> union = new java.util.HashSet<>(likedPostsByUser);
-                    union.addAll(otherLiked);
-                    if (union.isEmpty()) continue;
-                    java.util.Set<String> inter = new java.util.HashSet<>(likedPostsByUser);
-                    inter.retainAll(otherLiked);
-                    double score = (double) inter.size() / (double) union.size();
-                    if (score >= 0.5) {
-                        ks.insert(new dto.SimilarUser(userId, other.getId(), score));
-                    }
-                }
-            } catch (Exception ignore) { }
+            // 3) SimilarUser: predizračunati top-K (Jaccard nad lajkovima u 30 dana), O(K) čitanje
+            for (SimilarUser su : SimilarUsers.get().neighbors(userId)) {
+                ks.insert(su);
+            }
 
             // popular (24h)
-            LocalDateTime last24h = now.minusHours(24);
-            Map<String,Integer> ht24 = postRepo.countHashtagUsageSince(last24h);
-            long popTagCount = ht24.entrySet().stream().filter(e -> e.getValue() > 5).count();
-            ht24.entrySet().stream().filter(e -> e.getValue() > 5).forEach(e -> ks.insert(new PopularHashtag(e.getKey())));
-            log("reco: popular hashtags (24h) = " + popTagCount);
-
-            // pool 7d
-            List<Post> pool = postRepo.findSince(now.minusDays(7));
+            // popularni tagovi i objave su isti za sve korisnike -> iz zajedničkog snapshot-a, bez upita
+            PopularitySnapshot.Snapshot popular = PopularitySnapshot.get().current();
+            popular.hashtags().forEach(tag -> ks.insert(new PopularHashtag(tag)));
+            popular.postIds().forEach(id -> ks.insert(new PopularPost(id)));
+            log("reco: popular hashtags (24h) = " + popular.hashtags().size() + ", popular posts = " + popular.postIds().size());
+
             log("reco: pool posts (7d) = " + pool.size());
             for (Post p : pool) {
                 if (p == null) continue;
                 ks.insert(p);
-                if (p.getCreatedAt() != null && p.getCreatedAt().isAfter(last24h) && p.getLikes() > 10) {
-                    ks.insert(new PopularPost(p.getId()));
-                }
                 ks.insert(new CandidatePost(p));
                 // likers za post (za pravila N1/N2)
-                try {
-                    java.util.Set<String> likers = postRepo.findUsersWhoLikedPost(p.getId());
-                    ks.insert(new dto.PostLikers(p.getId(), likers));
-                } catch (Exception ignore) { }
+                ks.insert(new dto.PostLikers(p.getId(), likersOf(likersByPost, p.getId())));
             }
 
             int fired = ks.fireAllRules();
@@ -283,6 +289,11 @@ public class FeedService {
             }
 
             return recs;
-        } finally { ks.dispose(); }
+        } finally { KieBaseRegistry.get().release(ks); }
+    }
+
+    private static Set<String> likersOf(Map<String, Set<String>> likersByPost, String postId) {
+        Set<String> likers = likersByPost.get(postId);
+        return likers == null ? new HashSet<>() : likers;
     }
 }
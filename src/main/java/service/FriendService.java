@@ -4,17 +4,19 @@ import dto.AddFriendRequest;
 import dto.BlockUserRequest;
 import model.User;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.FriendRepository;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import util.KieBaseRegistry;
+import util.ValidationFlow;
+import org.kie.api.runtime.StatelessKieSession;
 
 import java.util.*;
 
 public class FriendService {
     private final UserRepository userRepo;
     private final FriendRepository friendRepo;
+    private final FactRepository factRepo = new FactRepository();
 
     public FriendService(UserRepository userRepo, FriendRepository friendRepo) {
         this.userRepo = userRepo;
@@ -45,20 +47,9 @@ public class FriendService {
     public void addFriend(String userId, String targetId) {
         ValidationResult vr = new ValidationResult();
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ks = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            ks.setGlobal("userRepo", userRepo);
-            ks.setGlobal("friendRepo", friendRepo);
-
-            ks.insert(new AddFriendRequest(userId, targetId));
-            ks.insert(vr);
-
-            ks.getAgenda().getAgendaGroup("friend-add").setFocus();
-            ks.fireAllRules();
-        } finally {
-            ks.dispose();
-        }
+        StatelessKieSession ks = KieBaseRegistry.get().validationSession(ValidationFlow.FRIEND_ADD);
+        ValidationFlow.FRIEND_ADD.execute(ks, factRepo.forUserPair(userId, targetId),
+                new AddFriendRequest(userId, targetId), vr);
 
         if (!vr.isOk()) throw new IllegalArgumentException(String.join("; ", vr.getErrors()));
 
@@ -69,20 +60,9 @@ public class FriendService {
     public void blockUser(String userId, String targetId) {
         ValidationResult vr = new ValidationResult();
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ks = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            ks.setGlobal("userRepo", userRepo);
-            ks.setGlobal("friendRepo", friendRepo);
-
-            ks.insert(new BlockUserRequest(userId, targetId));
-            ks.insert(vr);
-
-            ks.getAgenda().getAgendaGroup("friend-block").setFocus();
-            ks.fireAllRules();
-        } finally {
-            ks.dispose();
-        }
+        StatelessKieSession ks = KieBaseRegistry.get().validationSession(ValidationFlow.FRIEND_BLOCK);
+        ValidationFlow.FRIEND_BLOCK.execute(ks, factRepo.forUserPair(userId, targetId),
+                new BlockUserRequest(userId, targetId), vr);
 
         if (!vr.isOk()) {
             // idempotentno: jedina greška = već blokiran -> tolerisi (no-op)
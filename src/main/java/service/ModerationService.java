@@ -1,11 +1,10 @@
 package service;
 
 import model.User;
-import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import repo.ModerationEventsRepository;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;
+import util.KieBaseRegistry;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -22,8 +21,7 @@ public class ModerationService {
 
     /** Pokreće pravila nad svim korisnicima i vraća listu označenih/suspendovanih. */
     public List<ModerationEventsRepository.Flagged> detectAndSuspend() {
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ks = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
+        KieSession ks = KieBaseRegistry.get().borrow(KieBaseRegistry.Base.MODERATION);
         try {
             ks.setGlobal("userRepo", userRepo);
             ks.setGlobal("modRepo", modRepo);
@@ -42,7 +40,7 @@ public class ModerationService {
             ks.getAgenda().getAgendaGroup("user-detect").setFocus();
             ks.fireAllRules();
         } finally {
-            ks.dispose();
+            KieBaseRegistry.get().release(ks);
         }
         return new ArrayList<>(modRepo.getFlagsAndClear());
     }
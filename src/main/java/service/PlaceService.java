@@ -3,11 +3,12 @@ package service;
 import dto.CreatePlaceRequest;
 import model.Place;
 import model.ValidationResult;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+import repo.FactRepository;
 import repo.PlaceRepository;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;
+import util.KieBaseRegistry;
+import util.ValidationFlow;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -15,6 +16,7 @@ import java.util.Set;
 public class PlaceService {
     private final PlaceRepository placeRepo;
     private final UserRepository userRepo;
+    private final FactRepository factRepo = new FactRepository();
 
     public PlaceService(PlaceRepository placeRepo, UserRepository userRepo) {
         this.placeRepo = placeRepo;
@@ -24,20 +26,8 @@ public class PlaceService {
     public Place createPlace(CreatePlaceRequest req) {
         ValidationResult vr = new ValidationResult();
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ks = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            ks.setGlobal("userRepo", userRepo);
-            ks.setGlobal("placeRepo", placeRepo);
-
-            ks.insert(req);
-            ks.insert(vr);
-
-            ks.getAgenda().getAgendaGroup("place-add").setFocus();
-            ks.fireAllRules();
-        } finally {
-            ks.dispose();
-        }
+        StatelessKieSession ks = KieBaseRegistry.get().validationSession(ValidationFlow.PLACE_ADD);
+        ValidationFlow.PLACE_ADD.execute(ks, factRepo.forPlaceAdd(req.adminId, req.name, req.city), req, vr);
 
         if (!vr.isOk()) {
             throw new IllegalArgumentException(java.lang.String.join("; ", vr.getErrors()));
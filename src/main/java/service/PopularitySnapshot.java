@@ -0,0 +1,152 @@
+package service;
+
+import config.RecoConfig;
+import model.Post;
+import repo.PostListener;
+import repo.PostRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Popularni hashtag-ovi i objave iz poslednja 24h — isti su za sve korisnike, pa se računaju
+ * jednom i objavljuju kao nepromenljiv Snapshot kroz AtomicReference (čitanje bez lock-a).
+ *
+ * - pun preračun iz baze: pozadinski posao (start()) na svakih refreshMs, ili na prvom čitanju
+ *   posle refreshMs ako posao ne radi; tada i objave koje su izašle iz prozora ispadaju
+ * - između preračuna se dopunjuje iz upisa (PostListener): nova objava povećava brojače svojih
+ *   tagova, lajk koji objavu iz prozora gurne preko POST_MIN_LIKES je dodaje u popularne
+ * Promena skupa popularnih tagova se javlja RecommendedFeedCache-u (briše keširane feed-ove).
+ */
+public final class PopularitySnapshot implements PostListener {
+
+    /** Hashtag je popularan ako ga ima više od ovoliko objava u prozoru. */
+    public static final int HASHTAG_MIN_POSTS = 5;
+    /** Objava je popularna ako ima više od ovoliko lajkova i nastala je u prozoru. */
+    public static final int POST_MIN_LIKES = 10;
+    public static final int WINDOW_HOURS = 24;
+
+    /** Nepromenljivo stanje u jednom trenutku. */
+    public static final class Snapshot {
+        private final Map<String, Integer> tagCounts;
+        private final Set<String> hashtags;
+        private final Set<String> postIds;
+        private final long computedAtMs;
+
+        Snapshot(Map<String, Integer> tagCounts, Set<String> postIds, long computedAtMs) {
+            this.tagCounts = Collections.unmodifiableMap(tagCounts);
+            Set<String> tags = new HashSet<>();
+            tagCounts.forEach((tag, n) -> { if (n > HASHTAG_MIN_POSTS) tags.add(tag); });
+            this.hashtags = Collections.unmodifiableSet(tags);
+            this.postIds = Collections.unmodifiableSet(postIds);
+            this.computedAtMs = computedAtMs;
+        }
+
+        public Set<String> hashtags() { return hashtags; }
+        public Set<String> postIds() { return postIds; }
+        public long computedAtMs() { return computedAtMs; }
+    }
+
+    private static volatile PopularitySnapshot INSTANCE;
+
+    private final long refreshMs;
+    private final PostRepository postRepo;
+    private final AtomicReference<Snapshot> ref = new AtomicReference<>();
+    private volatile ScheduledExecutorService job;
+
+    public PopularitySnapshot(long refreshMs, PostRepository postRepo) {
+        this.refreshMs = refreshMs;
+        this.postRepo = postRepo;
+    }
+
+    public static PopularitySnapshot get() {
+        PopularitySnapshot p = INSTANCE;
+        if (p != null) return p;
+        synchronized (PopularitySnapshot.class) {
+            if (INSTANCE == null) {
+                INSTANCE = new PopularitySnapshot(RecoConfig.get().popularRefreshMs, new PostRepository());
+                PostRepository.addListener(INSTANCE);
+            }
+            return INSTANCE;
+        }
+    }
+
+    /** Pokreće periodični pun preračun (drugi poziv je no-op). */
+    public synchronized PopularitySnapshot start() {
+        if (job != null) return this;
+        job = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "popularity-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        job.scheduleWithFixedDelay(() -> {
+            try { refresh(); }
+            catch (RuntimeException e) { System.out.println("[POPULAR] refresh failed: " + e); }
+        }, 0, refreshMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (job != null) { job.shutdownNow(); job = null; }
+    }
+
+    /** Poslednji objavljeni snapshot (bez posla u pozadini: osveži ako je stariji od refreshMs). */
+    public Snapshot current() {
+        Snapshot s = ref.get();
+        if (s == null || (job == null && System.currentTimeMillis() - s.computedAtMs >= refreshMs)) {
+            return refresh();
+        }
+        return s;
+    }
+
+    /** Pun preračun iz baze (dva upita nad prozorom). */
+    public synchronized Snapshot refresh() {
+        LocalDateTime since = LocalDateTime.now().minusHours(WINDOW_HOURS);
+        Map<String, Integer> counts = postRepo.countHashtagUsageSince(since);
+        Set<String> posts = postRepo.findPopularPostIdsSince(since, POST_MIN_LIKES);
+        return publish(new Snapshot(counts, posts, System.currentTimeMillis()));
+    }
+
+    // save se koristi za nove objave; ponovni save istog ID-a bi tagove brojao dvaput do sledećeg punog preračuna
+    @Override
+    public synchronized void onSaved(Post post) {
+        Snapshot s = ref.get();
+        if (s == null || post.getHashtags().isEmpty() || !inWindow(post)) return;
+        Map<String, Integer> counts = new HashMap<>(s.tagCounts);
+        for (String tag : post.getHashtags()) counts.merge(tag, 1, Integer::sum);
+        publish(new Snapshot(counts, s.postIds, s.computedAtMs));
+    }
+
+    @Override
+    public synchronized void onLiked(Post post, String userId) {
+        Snapshot s = ref.get();
+        if (s == null || post.getLikes() <= POST_MIN_LIKES || !inWindow(post) || s.postIds.contains(post.getId())) return;
+        Set<String> posts = new HashSet<>(s.postIds);
+        posts.add(post.getId());
+        publish(new Snapshot(s.tagCounts, posts, s.computedAtMs));
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot s = ref.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("hashtags", s == null ? 0 : s.hashtags.size());
+        m.put("posts", s == null ? 0 : s.postIds.size());
+        m.put("ageMs", s == null ? -1 : System.currentTimeMillis() - s.computedAtMs);
+        m.put("running", job != null);
+        return m;
+    }
+
+    private Snapshot publish(Snapshot s) {
+        ref.set(s);
+        RecommendedFeedCache.get().observePopularTags(s.hashtags);
+        return s;
+    }
+
+    private static boolean inWindow(Post p) {
+        return p.getCreatedAt() != null && p.getCreatedAt().isAfter(LocalDateTime.now().minusHours(WINDOW_HOURS));
+    }
+}
@@ -6,11 +6,12 @@ import dto.MyPostsRequest;
 import dto.ReportPostRequest;
 import model.Post;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.PostRepository;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import util.KieBaseRegistry;
+import util.ValidationFlow;
+import org.kie.api.runtime.StatelessKieSession;
 
 import java.util.HashSet;
 import java.util.List;
@@ -19,6 +20,7 @@ import java.util.Set;
 public class PostService {
     private final PostRepository postRepo;
     private final UserRepository userRepo;
+    private final FactRepository factRepo = new FactRepository();
 
     public PostService(PostRepository postRepo, UserRepository userRepo) {
         this.postRepo = postRepo;
@@ -28,19 +30,8 @@ public class PostService {
     public List<Post> listMyPosts(String userId) {
         // 1) validacije kroz Drools (agenda-group "my-posts")
         ValidationResult vr = new ValidationResult();
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ksession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-
-        try {
-            ksession.setGlobal("userRepo", userRepo);
-            ksession.insert(new MyPostsRequest(userId));
-            ksession.insert(vr);
-
-            ksession.getAgenda().getAgendaGroup("my-posts").setFocus();
-            ksession.fireAllRules();
-        } finally {
-            ksession.dispose();
-        }
+        StatelessKieSession ksession = KieBaseRegistry.get().validationSession(ValidationFlow.MY_POSTS);
+        ValidationFlow.MY_POSTS.execute(ksession, factRepo.forUsers(userId), new MyPostsRequest(userId), vr);
 
         if (!vr.isOk()) {
             throw new IllegalArgumentException(String.join("; ", vr.getErrors()));
@@ -59,17 +50,8 @@ public class PostService {
         
         ValidationResult vr = new ValidationResult();
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ksession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            ksession.setGlobal("userRepo", userRepo);
-            ksession.insert(req);
-            ksession.insert(vr);
-            ksession.getAgenda().getAgendaGroup("post-create").setFocus();
-            ksession.fireAllRules();
-        } finally {
-            ksession.dispose();
-        }
+        StatelessKieSession ksession = KieBaseRegistry.get().validationSession(ValidationFlow.POST_CREATE);
+        ValidationFlow.POST_CREATE.execute(ksession, factRepo.forUsers(req.authorId), req, vr);
         
         if (!vr.isOk()) throw new IllegalArgumentException(String.join("; ", vr.getErrors()));
 
@@ -93,20 +75,10 @@ public class PostService {
     public Post likePost(String userId, String postId) {
         ValidationResult vr = new ValidationResult();
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ksession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            ksession.setGlobal("userRepo", userRepo);
-            ksession.setGlobal("postRepo", postRepo);
-
-            ksession.insert(new LikePostRequest(userId, postId));
-            ksession.insert(vr);
-
-            ksession.getAgenda().getAgendaGroup("post-like").setFocus();
-            ksession.fireAllRules();
-        } finally {
-            ksession.dispose();
-        }
+        StatelessKieSession ksession = KieBaseRegistry.get().validationSession(ValidationFlow.POST_LIKE);
+        // korisnik, objava i "već lajkovano" -> jedan upit, pravila rade samo nad činjenicama
+        ValidationFlow.POST_LIKE.execute(ksession, factRepo.forPostAction(userId, postId),
+                new LikePostRequest(userId, postId), vr);
 
         if (!vr.isOk()) {
             if (vr.getErrors().size() == 1
@@ -125,20 +97,9 @@ public class PostService {
     public Post reportPost(String userId, String postId, String reason) {
         ValidationResult vr = new ValidationResult();
 
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-        KieSession ks = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            ks.setGlobal("userRepo", userRepo);
-            ks.setGlobal("postRepo", postRepo);
-
-            ks.insert(new ReportPostRequest(userId, postId, reason));
-            ks.insert(vr);
-
-            ks.getAgenda().getAgendaGroup("post-report").setFocus();
-            ks.fireAllRules();
-        } finally {
-            ks.dispose();
-        }
+        StatelessKieSession ks = KieBaseRegistry.get().validationSession(ValidationFlow.POST_REPORT);
+        ValidationFlow.POST_REPORT.execute(ks, factRepo.forPostAction(userId, postId),
+                new ReportPostRequest(userId, postId, reason), vr);
 
         if (!vr.isOk()) {
             // idempotentno: ako je jedina greška "Već ste prijavili..." ne bacaj, samo vrati post
@@ -0,0 +1,209 @@
+package service;
+
+import config.RecoConfig;
+import model.Post;
+import repo.PostListener;
+import repo.PostRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Objave iz poslednjih reco.window.days dana u memoriji, zajedničke za sve feed zahteve.
+ *
+ * - prvi put se učita iz baze (findSince), posle se održava write-through-om iz
+ *   PostRepository.save/like/report (PostListener) — u prozoru se uvek drži kopija reda iz baze
+ * - objave sortirane od najnovije (createdAt, pa id) u TreeMap-i; stare ispadaju u pozadini
+ *   (start()) ili pri čitanju, a na svakih reloadMs se prozor ponovo učita iz baze
+ * - snapshot() vraća nepromenljiv niz: dok nema upisa to je isti objekat (O(1), bez lock-a),
+ *   a posle upisa ga prvi čitalac jednom napravi kopiranjem već sortirane mape (bez sortiranja)
+ * Objave iz prozora se dele između sesija i niti i ne smeju se menjati.
+ */
+public final class PostWindow implements PostListener {
+
+    /** Nepromenljiv presek prozora, od najnovije objave. */
+    public static final class Snapshot {
+        private final Post[] posts;
+        private final long version;
+
+        Snapshot(Post[] posts, long version) { this.posts = posts; this.version = version; }
+
+        public int size() { return posts.length; }
+
+        /** Objave sa createdAt >= since (prefiks niza, binarna pretraga). */
+        public List<Post> since(LocalDateTime since) {
+            int lo = 0, hi = posts.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (posts[mid].getCreatedAt().isBefore(since)) hi = mid; else lo = mid + 1;
+            }
+            return Collections.unmodifiableList(Arrays.asList(posts).subList(0, lo));
+        }
+    }
+
+    private static final Comparator<Key> ORDER =
+            Comparator.comparing((Key k) -> k.createdAt).reversed().thenComparing(k -> k.id);
+
+    private static final class Key {
+        final LocalDateTime createdAt;
+        final String id;
+        Key(Post p) { this.createdAt = p.getCreatedAt(); this.id = p.getId(); }
+    }
+
+    private static volatile PostWindow INSTANCE;
+
+    private final int days;
+    private final long reloadMs;
+    private final PostRepository postRepo;
+
+    // sve ispod menja se samo pod lock-om (this); version je volatile zbog brzog puta u snapshot()
+    private final TreeMap<Key, Post> posts = new TreeMap<>(ORDER);
+    private final Map<String, Key> keys = new HashMap<>();
+    private boolean loaded;
+    private long loadedAt;
+    private volatile long version;
+    private volatile Snapshot snapshot = new Snapshot(new Post[0], -1);
+    private volatile ScheduledExecutorService job;
+
+    public PostWindow(int days, long reloadMs, PostRepository postRepo) {
+        this.days = days;
+        this.reloadMs = reloadMs;
+        this.postRepo = postRepo;
+    }
+
+    public static PostWindow get() {
+        PostWindow w = INSTANCE;
+        if (w != null) return w;
+        synchronized (PostWindow.class) {
+            if (INSTANCE == null) {
+                RecoConfig cfg = RecoConfig.get();
+                INSTANCE = new PostWindow(cfg.windowDays, cfg.windowReloadMs, new PostRepository());
+                PostRepository.addListener(INSTANCE);
+            }
+            return INSTANCE;
+        }
+    }
+
+    /** Pokreće izbacivanje starih objava (i periodično ponovno učitavanje); drugi poziv je no-op. */
+    public synchronized PostWindow start(long evictMs) {
+        if (job != null) return this;
+        job = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "post-window");
+            t.setDaemon(true);
+            return t;
+        });
+        job.scheduleWithFixedDelay(() -> {
+            try { maintain(); }
+            catch (RuntimeException e) { System.out.println("[WINDOW] maintenance failed: " + e); }
+        }, 0, evictMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (job != null) { job.shutdownNow(); job = null; }
+    }
+
+    /** Trenutni presek prozora; O(1) ako od prethodnog poziva nije bilo upisa. */
+    public Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (job != null && s.version == version) return s;
+        synchronized (this) {
+            // bez pozadinskog posla održavanje radi čitalac
+            if (!loaded || (job == null && System.currentTimeMillis() - loadedAt >= reloadMs)) reload();
+            else if (job == null) evict();
+            if (snapshot.version != version) {
+                snapshot = new Snapshot(posts.values().toArray(new Post[0]), version);
+            }
+            return snapshot;
+        }
+    }
+
+    /** Ponovo učitaj prozor iz baze. */
+    public synchronized void reload() {
+        long t0 = System.currentTimeMillis();
+        List<Post> fresh = postRepo.findSince(windowStart());
+        posts.clear();
+        keys.clear();
+        for (Post p : fresh) put(p);
+        loaded = true;
+        loadedAt = System.currentTimeMillis();
+        version++;
+        System.out.println("[WINDOW] loaded " + fresh.size() + " posts (" + days + "d) in "
+                + (System.currentTimeMillis() - t0) + " ms");
+    }
+
+    /** Zaboravi sadržaj; sledeći snapshot() ponovo čita bazu (npr. posle TRUNCATE u testovima). */
+    public synchronized void reset() {
+        posts.clear();
+        keys.clear();
+        loaded = false;
+        version++;
+    }
+
+    @Override
+    public synchronized void onSaved(Post post) {
+        if (!loaded) return;                         // učitavanje će ionako pročitati red iz baze
+        put(copy(post));
+        version++;
+    }
+
+    @Override
+    public synchronized void onLiked(Post post, String userId) {
+        if (!loaded) return;
+        put(post);                                   // post je upravo pročitan iz baze, niko ga drugi ne drži
+        version++;
+    }
+
+    @Override
+    public synchronized void onReported(Post post, String userId) {
+        if (!loaded) return;
+        put(post);
+        version++;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("posts", snapshot.size());
+        m.put("days", days);
+        m.put("running", job != null);
+        return m;
+    }
+
+    private synchronized void maintain() {
+        if (!loaded || System.currentTimeMillis() - loadedAt >= reloadMs) reload(); else evict();
+    }
+
+    // pod lock-om
+    private void put(Post p) {
+        if (p.getCreatedAt() == null || p.getCreatedAt().isBefore(windowStart())) return;
+        Key old = keys.remove(p.getId());
+        if (old != null) posts.remove(old);
+        Key k = new Key(p);
+        keys.put(p.getId(), k);
+        posts.put(k, p);
+    }
+
+    // pod lock-om: skida rep mape (najstarije objave)
+    private void evict() {
+        LocalDateTime start = windowStart();
+        int removed = 0;
+        Map.Entry<Key, Post> last;
+        while ((last = posts.lastEntry()) != null && last.getKey().createdAt.isBefore(start)) {
+            posts.remove(last.getKey());
+            keys.remove(last.getKey().id);
+            removed++;
+        }
+        if (removed > 0) version++;
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.now().minusDays(days);
+    }
+
+    private static Post copy(Post p) {
+        return new Post(p.getId(), p.getAuthorId(), p.getText(), p.getHashtags(), p.getLikes(), p.getReports(), p.getCreatedAt());
+    }
+}
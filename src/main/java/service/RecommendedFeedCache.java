@@ -0,0 +1,186 @@
+package service;
+
+import config.RecoConfig;
+import dto.CandidatePost;
+import model.Post;
+import repo.FriendListener;
+import repo.FriendRepository;
+import repo.PostListener;
+import repo.PostRepository;
+import util.SingleFlight;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Keš rezultata preporučenog feed-a: korisnik -> (limit -> lista kandidata), sa kratkim TTL-om
+ * i LRU izbacivanjem po korisniku kad se pređe maxUsers.
+ *
+ * Unos korisnika se briše kad mu se promeni neki ulaz u pravila:
+ *   - lajkuje objavu (PostRepository.like)  - objavi/izmeni objavu (PostRepository.save)
+ *   - doda/ukloni prijatelja (FriendRepository.addFriends/removeFriends, oba korisnika)
+ * a ceo keš kad se promeni skup popularnih hashtag-ova (javlja PopularitySnapshot). Ostalo (tuđe nove objave,
+ * tuđi lajkovi) keš vidi najkasnije posle TTL-a.
+ *
+ * Promašaji za isti (korisnik, limit) koji stignu istovremeno (dupli zahtev klijenta, više tabova)
+ * dele jedno izračunavanje (util.SingleFlight, reco.feedFlight.joinWindowMs); važi i kad je keš isključen.
+ */
+public final class RecommendedFeedCache implements PostListener, FriendListener {
+
+    private static volatile RecommendedFeedCache INSTANCE;
+
+    private static final class Entry {
+        final List<CandidatePost> value;
+        final long expiresAt;
+        Entry(List<CandidatePost> value, long expiresAt) { this.value = value; this.expiresAt = expiresAt; }
+    }
+
+    private final long ttlMs;
+    private final int maxUsers;
+    private final SingleFlight<String, List<CandidatePost>> flight;
+
+    // accessOrder=true -> iteracija od najdavnije korišćenog; sve pod lock-om na samoj mapi
+    private final LinkedHashMap<String, Map<Integer, Entry>> byUser;
+
+    // generacija po korisniku (heš u GENERATION_STRIPES polja) i za ceo keš: brisanje poveća generaciju,
+    // pa se rezultat izračunat pre brisanja ne upisuje (mogao bi biti zastareo). Brisanje jednog korisnika
+    // ne sprečava upis drugima; dva korisnika u istom polju samo retko preskoče upis.
+    private static final int GENERATION_STRIPES = 1024;
+    private final AtomicLongArray userGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong allGeneration = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile Set<String> popularTags;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RecommendedFeedCache(long ttlMs, int maxUsers) {
+        this(ttlMs, maxUsers, 0);
+    }
+
+    public RecommendedFeedCache(long ttlMs, int maxUsers, long joinWindowMs) {
+        this.ttlMs = ttlMs;
+        this.maxUsers = maxUsers;
+        this.flight = new SingleFlight<>(joinWindowMs);
+        this.byUser = new LinkedHashMap<String, Map<Integer, Entry>>(256, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, Map<Integer, Entry>> eldest) {
+                if (size() <= RecommendedFeedCache.this.maxUsers) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    public static RecommendedFeedCache get() {
+        RecommendedFeedCache c = INSTANCE;
+        if (c != null) return c;
+        synchronized (RecommendedFeedCache.class) {
+            if (INSTANCE == null) {
+                RecoConfig cfg = RecoConfig.get();
+                INSTANCE = new RecommendedFeedCache(cfg.feedCacheTtlMs, cfg.feedCacheMaxUsers, cfg.feedFlightJoinWindowMs);
+                PostRepository.addListener(INSTANCE);
+                FriendRepository.addListener(INSTANCE);
+            }
+            return INSTANCE;
+        }
+    }
+
+    /** Keširan rezultat za (userId, limit) ili compute() koji se zatim upisuje. */
+    public List<CandidatePost> get(String userId, int limit, Supplier<List<CandidatePost>> compute) {
+        if (ttlMs <= 0) return computeShared(userId, limit, compute);
+        long now = System.currentTimeMillis();
+        synchronized (byUser) {
+            Map<Integer, Entry> perLimit = byUser.get(userId);
+            Entry e = perLimit == null ? null : perLimit.get(limit);
+            if (e != null && e.expiresAt > now) {
+                hits.incrementAndGet();
+                return e.value;
+            }
+        }
+        misses.incrementAndGet();
+        int stripe = stripe(userId);
+        long all = allGeneration.get();
+        long gen = userGenerations.get(stripe);
+        List<CandidatePost> value = computeShared(userId, limit, compute);
+        synchronized (byUser) {
+            if (allGeneration.get() == all && userGenerations.get(stripe) == gen) {
+                byUser.computeIfAbsent(userId, k -> new HashMap<>())
+                      .put(limit, new Entry(value, System.currentTimeMillis() + ttlMs));
+            }
+        }
+        return value;
+    }
+
+    // ključ nosi sve parametre izračunavanja; rezultat je nepromenljiv jer ga dele niti
+    private List<CandidatePost> computeShared(String userId, int limit, Supplier<List<CandidatePost>> compute) {
+        return flight.execute(userId + "|" + limit,
+                () -> Collections.unmodifiableList(new ArrayList<>(compute.get())));
+    }
+
+    public void invalidate(String userId) {
+        if (userId == null) return;
+        invalidations.incrementAndGet();
+        userGenerations.incrementAndGet(stripe(userId));
+        synchronized (byUser) { byUser.remove(userId); }
+        String prefix = userId + "|";
+        flight.forget(k -> k.startsWith(prefix));
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        allGeneration.incrementAndGet();
+        synchronized (byUser) { byUser.clear(); }
+        flight.forgetAll();
+    }
+
+    /**
+     * Skup popularnih hashtag-ova koji je upravo objavljen (PopularitySnapshot ga javlja pri svakoj promeni);
+     * ako se razlikuje od poslednjeg viđenog, svi keširani rezultati su zastareli.
+     */
+    public void observePopularTags(Set<String> tags) {
+        Set<String> prev = popularTags;
+        popularTags = new HashSet<>(tags);
+        if (prev != null && !prev.equals(tags)) {
+            System.out.println("[FEEDCACHE] popular hashtags changed " + prev + " -> " + tags + ", clearing");
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void onLiked(Post post, String userId) {
+        invalidate(userId);
+    }
+
+    @Override
+    public void onSaved(Post post) {
+        invalidate(post.getAuthorId());
+    }
+
+    @Override
+    public void onFriendshipChanged(String a, String b) {
+        invalidate(a);
+        invalidate(b);
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get(), m = misses.get();
+        Map<String, Object> out = new LinkedHashMap<>();
+        synchronized (byUser) { out.put("users", byUser.size()); }
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (double) (h + m));
+        out.put("evictions", evictions.get());
+        out.put("invalidations", invalidations.get());
+        out.put("ttlMs", ttlMs);
+        out.put("singleFlight", flight.stats());
+        return out;
+    }
+
+    private static int stripe(String userId) {
+        int h = userId.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+}
@@ -4,10 +4,13 @@ import dto.RegisterRequest;
 import model.User;
 import model.ValidationResult;
 import repo.UserRepository;
-import util.KnowledgeSessionHelper;   // <— koristi tvoj helper
+import util.KieBaseRegistry;
+import util.ValidationFlow;
 import util.PasswordHasher;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class RegistrationService {
     private final UserRepository repo;
@@ -20,36 +23,27 @@ public class RegistrationService {
         // 1) pripremi ValidationResult
         ValidationResult vr = new ValidationResult();
 
-        // 2) napravi KieContainer iz helpera
-        KieContainer kc = KnowledgeSessionHelper.createRuleBase();
-
-        // 3) uzmi **stateful** sesiju po imenu iz kmodule.xml (npr. "ksession-rules")
-        KieSession ksession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-
-        try {
-            // 4) postavi globale koje pravila koriste
-            ksession.setGlobal("userRepo", repo);
-            ksession.setGlobal("EMAIL_RX",
-                    java.util.regex.Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+        // 2) uzmi **stateless** sesiju nad malim registration kbase-om
+        StatelessKieSession ksession = KieBaseRegistry.get().validationSession(ValidationFlow.REGISTRATION);
 
-            // 5) ubaci činjenice
-            ksession.insert(req);
-            ksession.insert(vr);
+        // 3) postavi globale koje pravila koriste
+        ksession.setGlobal("EMAIL_RX",
+                java.util.regex.Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
 
-            // 6) fokusiraj našu agendu i aktiviraj pravila
-            ksession.getAgenda().getAgendaGroup("registration").setFocus();
-            ksession.fireAllRules();
-        } finally {
-            // 7) obavezno zatvori sesiju
-            ksession.dispose();
+        // 4) ubaci činjenice (i korisnika sa tim mejlom, ako postoji), fokusiraj našu agendu
+        //    i aktiviraj pravila (jedna batch komanda)
+        List<Object> facts = new ArrayList<>();
+        if (req.email != null && !req.email.trim().isEmpty()) {
+            repo.findByEmail(req.email).ifPresent(facts::add);
         }
+        ValidationFlow.REGISTRATION.execute(ksession, facts, req, vr);
 
-        // 8) proveri rezultat validacije
+        // 5) proveri rezultat validacije
         if (!vr.isOk()) {
             throw new IllegalArgumentException(String.join("; ", vr.getErrors()));
         }
 
-        // 9) kreiraj korisnika
+        // 6) kreiraj korisnika
         String hash = PasswordHasher.sha256(req.password);
         User u = new User(req.firstName, req.lastName, req.email, hash, req.city);
         return repo.save(u);
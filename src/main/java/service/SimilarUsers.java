@@ -0,0 +1,191 @@
+package service;
+
+import config.RecoConfig;
+import dto.SimilarUser;
+import model.Post;
+import repo.PostListener;
+import repo.PostRepository;
+import repo.SimilarityRepository;
+import util.LikeIndex;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Predizračunata tabela top-K sličnih korisnika (Jaccard nad lajkovima u prozoru, skor >= minScore),
+ * koju čita pravilo "NEW N1" preko dto.SimilarUser činjenica.
+ *
+ * - Lajkovi iz prozora se jednom učitaju iz baze u LikeIndex, a posle se dopunjuju iz
+ *   PostRepository.like() (PostListener) — novi lajk označi kao "prljave" korisnika koji je lajkovao
+ *   i sve likere objava koje je on lajkovao: njemu se menja broj lajkova, pa i skor sa svakim
+ *   co-likerom, a ne samo sa likerima nove objave.
+ * - Pozadinski posao (start()) na svakih intervalMs preračuna najviše batchSize prljavih korisnika,
+ *   a na svakih fullRefreshMs ponovo učita prozor iz baze (objave ispadaju iz prozora).
+ * - neighbors() je O(K) za čist korisnik; prljav ili još neizračunat se preračuna odmah, pa
+ *   feed nikad ne vidi sličnost stariju od poslednjeg lajka (i bez pokrenutog posla, npr. u testovima).
+ */
+public final class SimilarUsers implements PostListener {
+
+    private static volatile SimilarUsers INSTANCE;
+
+    private final RecoConfig cfg;
+    private final PostRepository postRepo;
+    private final SimilarityRepository simRepo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LikeIndex index;                  // pod lock-om; null dok se prvi put ne učita
+    private long loadedAt;
+
+    private final Map<String, List<SimilarUser>> topK = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private volatile ScheduledExecutorService job;
+    private final AtomicLong recomputed = new AtomicLong();
+    private final AtomicLong onDemand = new AtomicLong();
+
+    SimilarUsers(RecoConfig cfg, PostRepository postRepo, SimilarityRepository simRepo) {
+        this.cfg = cfg;
+        this.postRepo = postRepo;
+        this.simRepo = simRepo;
+    }
+
+    public static SimilarUsers get() {
+        SimilarUsers s = INSTANCE;
+        if (s != null) return s;
+        synchronized (SimilarUsers.class) {
+            if (INSTANCE == null) {
+                INSTANCE = new SimilarUsers(RecoConfig.get(), new PostRepository(), new SimilarityRepository());
+                PostRepository.addListener(INSTANCE);
+            }
+            return INSTANCE;
+        }
+    }
+
+    /** Pokreće pozadinski posao (drugi poziv je no-op). */
+    public synchronized SimilarUsers start() {
+        if (job != null) return this;
+        job = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "similar-users");
+            t.setDaemon(true);
+            return t;
+        });
+        job.scheduleWithFixedDelay(() -> {
+            try { runBatch(); }
+            catch (RuntimeException e) { System.out.println("[SIM] batch failed: " + e); }
+        }, 0, cfg.similarIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("[SIM] job started, topK=" + cfg.similarTopK + " minScore=" + cfg.similarMinScore
+                + " batch=" + cfg.similarBatchSize + " every " + cfg.similarIntervalMs + " ms");
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (job != null) { job.shutdownNow(); job = null; }
+    }
+
+    /** Top-K suseda korisnika (od najsličnijeg). */
+    public List<SimilarUser> neighbors(String userId) {
+        ensureLoaded();
+        if (!dirty.contains(userId)) {
+            List<SimilarUser> cached = topK.get(userId);
+            if (cached != null) return cached;
+        }
+        onDemand.incrementAndGet();
+        return recompute(userId, false);
+    }
+
+    @Override
+    public void onLiked(Post post, String userId) {
+        lock.writeLock().lock();
+        try {
+            if (index == null) return;      // prvo učitavanje će ionako pročitati lajk iz baze
+            if (post.getCreatedAt() == null || post.getCreatedAt().isBefore(windowStart())) return;
+            if (!index.addLike(userId, post.getId())) return;
+            // likedPosts uključuje i novu objavu, a likeri uključuju i samog userId
+            for (String postId : index.likedPosts(userId)) dirty.addAll(index.likersOf(postId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Jedan prolaz posla: po potrebi ponovo učitaj prozor, pa preračunaj do batchSize prljavih. */
+    void runBatch() {
+        boolean reload;
+        lock.readLock().lock();
+        try { reload = index == null || System.currentTimeMillis() - loadedAt >= cfg.similarFullRefreshMs; }
+        finally { lock.readLock().unlock(); }
+        if (reload) reload();
+
+        int n = 0;
+        Iterator<String> it = dirty.iterator();
+        while (n < cfg.similarBatchSize && it.hasNext()) {
+            recompute(it.next(), cfg.similarPersist);
+            n++;
+        }
+        if (n > 0) System.out.println("[SIM] recomputed " + n + " users, dirty left=" + dirty.size());
+    }
+
+    /** Učitaj lajkove iz prozora iz baze i označi sve korisnike za preračun. */
+    public void reload() {
+        long t0 = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            // pod write lock-om, da lajk koji stigne tokom upita ne bude izgubljen između starog i novog indeksa
+            index = new LikeIndex(postRepo.findLikedPostsByUsersSince(windowStart()));
+            loadedAt = System.currentTimeMillis();
+            dirty.addAll(index.users());
+            dirty.addAll(topK.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("[SIM] loaded " + index.userCount() + " users / " + index.postCount()
+                + " posts in " + (System.currentTimeMillis() - t0) + " ms");
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("users", topK.size());
+        m.put("dirty", dirty.size());
+        m.put("recomputed", recomputed.get());
+        m.put("onDemand", onDemand.get());
+        m.put("running", job != null);
+        return m;
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try { if (index != null) return; }
+        finally { lock.readLock().unlock(); }
+        synchronized (this) {
+            lock.readLock().lock();
+            try { if (index != null) return; }
+            finally { lock.readLock().unlock(); }
+            reload();
+        }
+    }
+
+    private List<SimilarUser> recompute(String userId, boolean persist) {
+        // skini oznaku pre računanja: lajk koji stigne u međuvremenu je ponovo postavlja
+        dirty.remove(userId);
+        List<SimilarUser> all;
+        lock.readLock().lock();
+        try {
+            all = index.similarTo(userId, index.likedPosts(userId), cfg.similarMinScore);
+        } finally {
+            lock.readLock().unlock();
+        }
+        all.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        List<SimilarUser> top = Collections.unmodifiableList(
+                new ArrayList<>(all.subList(0, Math.min(cfg.similarTopK, all.size()))));
+        topK.put(userId, top);
+        recomputed.incrementAndGet();
+        if (persist) simRepo.replace(userId, top);
+        return top;
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.now().minusDays(cfg.similarWindowDays);
+    }
+}
@@ -9,10 +9,12 @@ public final class Hydrator {
     public static void set(Object target, String fieldName, Object value) {
         try {
             Field f = findField(target.getClass(), fieldName);
+            // final polje instance se posle setAccessible(true) može postaviti i bez skidanja FINAL
+            // (Field.modifiers od JDK 12 nije dostupno refleksijom); static final nije podržano
+            if (Modifier.isStatic(f.getModifiers()) && Modifier.isFinal(f.getModifiers())) {
+                throw new IllegalArgumentException("static final field: " + fieldName);
+            }
             f.setAccessible(true);
-            Field modifiers = Field.class.getDeclaredField("modifiers");
-            modifiers.setAccessible(true);
-            modifiers.setInt(f, f.getModifiers() & ~Modifier.FINAL);
             f.set(target, value);
         } catch (Exception e) {
             throw new RuntimeException("Hydration failed for field: " + fieldName, e);
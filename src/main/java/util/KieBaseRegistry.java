@@ -0,0 +1,252 @@
+package util;
+
+import config.KieConfig;
+import dto.*;
+import model.Place;
+import model.Post;
+import model.User;
+import model.ValidationResult;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.kie.api.KieBase;
+import org.kie.api.definition.KiePackage;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+import repo.ModerationEventsRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Jedno mesto za sve KieBase-ove iz kmodule.xml.
+ * Baze se grade jednom (pri podizanju servera), zagreju se sintetičkim činjenicama
+ * i posle toga servisi samo otvaraju sesije nad već izgrađenom mrežom.
+ */
+public final class KieBaseRegistry {
+
+    /** Baze znanja iz kmodule.xml (kbase + ksession koji joj pripada). */
+    public enum Base {
+        FEED("feed-kbase", "feed-session"),
+        MODERATION("moderation-kbase", "moderation-session"),
+        ADS("ads-kbase", "ads-session");
+
+        public final String kbaseName;
+        public final String ksessionName;
+
+        Base(String kbaseName, String ksessionName) {
+            this.kbaseName = kbaseName;
+            this.ksessionName = ksessionName;
+        }
+    }
+
+    // koliko puta vrtimo sintetički set (JIT za constraint-e kreće posle ~20 evaluacija)
+    private static final int WARMUP_ROUNDS = 50;
+
+    private static volatile KieBaseRegistry INSTANCE;
+
+    private final KieContainer container;
+    private final Map<Base, KieBase> bases = new EnumMap<>(Base.class);
+    private final Map<Base, KieSessionPool> pools = new EnumMap<>(Base.class);
+    private final Map<KieBase, KieSessionPool> poolsByBase = new IdentityHashMap<>();
+    private final Map<ValidationFlow, KieBase> validationBases = new EnumMap<>(ValidationFlow.class);
+    private volatile boolean warmed;
+
+    private KieBaseRegistry(KieContainer container) {
+        this.container = container;
+        KieConfig cfg = KieConfig.get();
+        for (Base b : Base.values()) {
+            KieBase kb = container.getKieBase(b.kbaseName);
+            bases.put(b, kb);
+            KieSessionPool pool = new KieSessionPool(b.kbaseName, kb, cfg.poolSize(b.kbaseName),
+                    cfg.borrowTimeoutMs, cfg.leakThresholdMs, cfg.leakTraces);
+            pools.put(b, pool);
+            poolsByBase.put(kb, pool);
+        }
+        for (ValidationFlow f : ValidationFlow.values()) {
+            validationBases.put(f, container.getKieBase(f.kbaseName));
+        }
+    }
+
+    public static KieBaseRegistry get() {
+        KieBaseRegistry r = INSTANCE;
+        if (r != null) return r;
+        synchronized (KieBaseRegistry.class) {
+            if (INSTANCE == null) INSTANCE = new KieBaseRegistry(KnowledgeSessionHelper.createRuleBase());
+            return INSTANCE;
+        }
+    }
+
+    /** Poziva se pri podizanju aplikacije: izgradi sve baze i zagrej ih (drugi poziv je no-op). */
+    public static synchronized KieBaseRegistry init() {
+        long t0 = System.currentTimeMillis();
+        KieBaseRegistry r = get();
+        if (r.warmed) return r;
+        long t1 = System.currentTimeMillis();
+        r.warmUp();
+        r.warmed = true;
+        long t2 = System.currentTimeMillis();
+        System.out.println("[KIE] kbases built in " + (t1 - t0) + " ms, warm-up " + (t2 - t1) + " ms");
+        for (Map.Entry<String, Object> e : r.networkStats().entrySet()) {
+            System.out.println("[KIE] " + e.getKey() + " " + e.getValue());
+        }
+        return r;
+    }
+
+    public KieContainer container() { return container; }
+
+    public KieBase kieBase(Base b) { return bases.get(b); }
+
+    public KieSession newSession(Base b) { return bases.get(b).newKieSession(); }
+
+    public StatelessKieSession newStatelessSession(Base b) { return bases.get(b).newStatelessKieSession(); }
+
+    public KieBase kieBase(ValidationFlow f) { return validationBases.get(f); }
+
+    /** Nova stateless sesija nad malim kbase-om validacionog toka (jeftina, ne vraća se nigde). */
+    public StatelessKieSession validationSession(ValidationFlow f) {
+        return KnowledgeSessionHelper.getStatlessKnowledgeSession(container, f.ksessionName);
+    }
+
+    public KieSessionPool pool(Base b) { return pools.get(b); }
+
+    /** Pozajmi resetovanu sesiju iz pool-a; obavezno vratiti sa release() u finally bloku. */
+    public KieSession borrow(Base b) { return pools.get(b).borrow(); }
+
+    /** Vrati sesiju u pool iz kog je pozajmljena (sesija van pool-a se samo ugasi). */
+    public void release(KieSession ks) {
+        if (ks == null) return;
+        KieSessionPool pool = poolsByBase.get(ks.getKieBase());
+        if (pool != null) pool.release(ks);
+        else ks.dispose();
+    }
+
+    /** Veličina Rete mreže po kbase-u (pravila, čvorovi, ObjectTypeNode-ovi, event mode). */
+    public Map<String, Object> networkStats() {
+        Map<String, KieBase> all = new LinkedHashMap<>();
+        for (Base b : Base.values()) all.put(b.kbaseName, bases.get(b));
+        for (ValidationFlow f : ValidationFlow.values()) all.put(f.kbaseName, validationBases.get(f));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<String, KieBase> e : all.entrySet()) {
+            InternalKnowledgeBase kb = (InternalKnowledgeBase) e.getValue();
+            int rules = 0;
+            for (KiePackage pkg : kb.getKiePackages()) rules += pkg.getRules().size();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("mode", container.getKieBaseModel(e.getKey()).getEventProcessingMode().getMode());
+            m.put("rules", rules);
+            m.put("nodes", kb.getNodeCount());
+            m.put("objectTypeNodes", kb.getRete().getObjectTypeNodes().size());
+            out.put(e.getKey(), m);
+        }
+        return out;
+    }
+
+    /** Metrike svih pool-ova, po imenu kbase-a. */
+    public Map<String, Object> poolStats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (KieSessionPool p : pools.values()) m.put(p.name(), p.stats());
+        return m;
+    }
+
+    // ===== warm-up =====
+    // Sintetičke činjenice su namerno "prazne" (bez userId/email-a) da nijedan eval ne ode u bazu,
+    // a ipak prođu kroz alfa/beta čvorove svih agenda grupa.
+
+    public void warmUp() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            warmValidations();
+            warmFeed();
+            warmModeration();
+            warmAds();
+        }
+    }
+
+    private void warmValidations() {
+        Pattern emailRx = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+        Map<ValidationFlow, Object> samples = new EnumMap<>(ValidationFlow.class);
+        samples.put(ValidationFlow.LOGIN, new LoginRequest("", ""));
+        samples.put(ValidationFlow.REGISTRATION, new RegisterRequest(null, null, null, null, null));
+        samples.put(ValidationFlow.POST_CREATE, new CreatePostRequest(null, null, null));
+        samples.put(ValidationFlow.MY_POSTS, new MyPostsRequest(null));
+        samples.put(ValidationFlow.POST_LIKE, new LikePostRequest(null, null));
+        samples.put(ValidationFlow.POST_REPORT, new ReportPostRequest(null, null, null));
+        samples.put(ValidationFlow.FRIEND_ADD, new AddFriendRequest(null, null));
+        samples.put(ValidationFlow.FRIEND_BLOCK, new BlockUserRequest(null, null));
+        samples.put(ValidationFlow.PLACE_ADD, new CreatePlaceRequest(null, null, null, null, null, null));
+        for (Map.Entry<ValidationFlow, Object> e : samples.entrySet()) {
+            StatelessKieSession ks = validationSession(e.getKey());
+            if (e.getKey() == ValidationFlow.LOGIN || e.getKey() == ValidationFlow.REGISTRATION) {
+                ks.setGlobal("EMAIL_RX", emailRx);
+            }
+            e.getKey().execute(ks, e.getValue(), new ValidationResult());
+        }
+    }
+
+    // warm-up ide kroz pool: posle init-a svaki pool već ima jednu zagrejanu sesiju
+    private void warmFeed() {
+        KieSession ks = borrow(Base.FEED);
+        try {
+            ks.setGlobal("NOW", LocalDateTime.now());
+            ks.setGlobal("friendsOut", new ArrayList<>());
+
+            ks.insert(new ValidationResult());
+            ks.insert(new FriendFeedRequest(""));
+            ks.insert(new RecommendedFeedRequest(""));
+            ks.insert(new FriendIds(Collections.<String>emptySet()));
+            ks.insert(new BlockedIds(Collections.<String>emptySet()));
+            ks.insert(new UserAuthoredCount("", 0));
+            Set<String> tags = new HashSet<>(Collections.singletonList("#warmup"));
+            ks.insert(new UserFeedContext("", LocalDateTime.now(), tags, tags));
+            Post p = new Post("warmup", "warmup", tags);
+            ks.insert(p);
+            ks.insert(new CandidatePost(p));
+            ks.insert(new PopularHashtag("#warmup"));
+            ks.insert(new PopularPost(p.getId()));
+            ks.insert(new UserLikedPosts("", Collections.singleton(p.getId())));
+            ks.insert(new PostLikers(p.getId(), Collections.singleton("warmup")));
+            ks.insert(new UserPreferredTag("", "#warmup", 3));
+            ks.insert(new SimilarUser("", "warmup", 1.0));
+
+            for (String g : new String[] {
+                    "feed-recommend-score", "feed-recommend-router", "feed-recommend-validate",
+                    "feed-friends-select", "feed-friends-validate" }) {
+                ks.getAgenda().getAgendaGroup(g).setFocus();
+            }
+            ks.fireAllRules();
+        } finally {
+            release(ks);
+        }
+    }
+
+    private void warmModeration() {
+        KieSession ks = borrow(Base.MODERATION);
+        try {
+            // po jedan događaj -> ni jedan prag nije dostignut, pa se RHS (upis u bazu) ne izvršava
+            User u = new User("Warm", "Up", "warmup@localhost", "", "");
+            ks.insert(u);
+            ks.insert(new ModerationEventsRepository.ReportEvent(u.getId(), "warmup", "warmup", System.currentTimeMillis()));
+            ks.insert(new ModerationEventsRepository.BlockEvent("warmup", u.getId(), System.currentTimeMillis()));
+            ks.getAgenda().getAgendaGroup("user-detect").setFocus();
+            ks.fireAllRules();
+        } finally {
+            release(ks);
+        }
+    }
+
+    private void warmAds() {
+        KieSession ks = borrow(Base.ADS);
+        try {
+            ks.setGlobal("NOW", LocalDateTime.now());
+            ks.insert(new Place("warmup", "", "warmup", "bioskop", Collections.singleton("#film")));
+            Post p = new Post("warmup", "warmup", Collections.<String>emptySet());
+            ks.insert(p);
+            ks.insert(new UserLikedPosts("", Collections.singleton(p.getId())));
+            ks.insert(new UserPlaceRating("", "warmup", 5));
+            // mesto odgovara upitu, a ugnježdeni upiti rade samo nad činjenicama (bez baze), pa se zagreju i oni
+            ks.getQueryResults("Ads:ForTypeAndTag", "", "warmup", "bioskop", "#film");
+        } finally {
+            release(ks);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package util;
+
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.kie.api.KieBase;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ograničen pool stateful sesija nad jednim KieBase-om.
+ * Sesija se pozajmi sa borrow(), a po završetku vrati sa release() — tada joj se
+ * skinu dodati listener-i i pozove reset(), pa je sledeći zahtev dobija praznu
+ * (bez činjenica, sa istom Rete mrežom i već alociranim memorijama čvorova).
+ * Pozajmice koje se ne vrate duže od leakThresholdMs se loguju kao curenje.
+ */
+public final class KieSessionPool {
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "kie-pool-leak-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String name;
+    private final KieBase kieBase;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long leakThresholdMs;
+    private final boolean leakTraces;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<KieSession> idle = new ConcurrentLinkedDeque<>();
+    private final Map<KieSession, Borrow> borrowed = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong waitNanosTotal = new AtomicLong();
+    private final AtomicLong waitNanosMax = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    /** Podaci o jednoj pozajmici (vreme, nit i opciono stack trace mesta poziva). */
+    private static final class Borrow {
+        final long at = System.currentTimeMillis();
+        final String thread = Thread.currentThread().getName();
+        final Throwable trace;
+        final Set<AgendaEventListener> agendaListeners;
+        final Set<RuleRuntimeEventListener> runtimeListeners;
+        volatile boolean reported;
+
+        Borrow(KieSession ks, boolean withTrace) {
+            this.trace = withTrace ? new Throwable("borrowed here") : null;
+            this.agendaListeners = identitySet(ks.getAgendaEventListeners());
+            this.runtimeListeners = identitySet(ks.getRuleRuntimeEventListeners());
+        }
+    }
+
+    public KieSessionPool(String name, KieBase kieBase, int maxSize, long borrowTimeoutMs,
+                          long leakThresholdMs, boolean leakTraces) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.name = name;
+        this.kieBase = kieBase;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.leakTraces = leakTraces;
+        this.permits = new Semaphore(maxSize, true);
+        if (leakThresholdMs > 0) {
+            long period = Math.max(1000L, leakThresholdMs / 2);
+            SWEEPER.scheduleWithFixedDelay(this::sweepLeaks, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public String name() { return name; }
+
+    public KieBase kieBase() { return kieBase; }
+
+    /** Pozajmi sesiju; čeka najviše borrowTimeoutMs pa baca IllegalStateException. */
+    public KieSession borrow() {
+        long t0 = System.nanoTime();
+        boolean ok;
+        try {
+            ok = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for KIE session (" + name + ")", e);
+        }
+        long waited = System.nanoTime() - t0;
+        if (!ok) {
+            timeouts.incrementAndGet();
+            throw new IllegalStateException("KIE session pool '" + name + "' exhausted (" + maxSize
+                    + " in use, waited " + borrowTimeoutMs + " ms)");
+        }
+        borrows.incrementAndGet();
+        waitNanosTotal.addAndGet(waited);
+        waitNanosMax.accumulateAndGet(waited, Math::max);
+
+        KieSession ks = idle.pollFirst();
+        try {
+            if (ks == null) {
+                ks = kieBase.newKieSession();
+                created.incrementAndGet();
+            }
+            borrowed.put(ks, new Borrow(ks, leakTraces));
+            return ks;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Vrati sesiju u pool (reset + skidanje listener-a). Sesija koja ne može da se resetuje se odbacuje. */
+    public void release(KieSession ks) {
+        if (ks == null) return;
+        Borrow b = borrowed.remove(ks);
+        if (b == null) {
+            // nije iz ovog pool-a (ili je već vraćena) — samo je ugasi
+            ks.dispose();
+            return;
+        }
+        try {
+            for (AgendaEventListener l : ks.getAgendaEventListeners()) {
+                if (!b.agendaListeners.contains(l)) ks.removeEventListener(l);
+            }
+            for (RuleRuntimeEventListener l : ks.getRuleRuntimeEventListeners()) {
+                if (!b.runtimeListeners.contains(l)) ks.removeEventListener(l);
+            }
+            ((StatefulKnowledgeSessionImpl) ks).reset();
+            idle.offerFirst(ks);
+        } catch (RuntimeException e) {
+            discarded.incrementAndGet();
+            System.out.println("[KIE-POOL] " + name + ": discarding session after failed reset: " + e);
+            try { ks.dispose(); } catch (RuntimeException ignore) { }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public boolean owns(KieSession ks) {
+        return borrowed.containsKey(ks);
+    }
+
+    /** Prijavi (jednom) svaku pozajmicu stariju od praga. */
+    void sweepLeaks() {
+        long now = System.currentTimeMillis();
+        List<Borrow> snapshot;
+        synchronized (borrowed) {
+            snapshot = new ArrayList<>(borrowed.values());
+        }
+        for (Borrow b : snapshot) {
+            if (b.reported || now - b.at < leakThresholdMs) continue;
+            b.reported = true;
+            leaks.incrementAndGet();
+            System.out.println("[KIE-POOL] " + name + ": session borrowed by '" + b.thread + "' not returned after "
+                    + (now - b.at) + " ms (possible leak)");
+            if (b.trace != null) b.trace.printStackTrace(System.out);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long n = borrows.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("maxSize", maxSize);
+        m.put("inUse", borrowed.size());
+        m.put("idle", idle.size());
+        m.put("created", created.get());
+        m.put("borrows", n);
+        m.put("waitAvgMs", n == 0 ? 0.0 : waitNanosTotal.get() / 1e6 / n);
+        m.put("waitMaxMs", waitNanosMax.get() / 1e6);
+        m.put("timeouts", timeouts.get());
+        m.put("leaksReported", leaks.get());
+        m.put("discarded", discarded.get());
+        return m;
+    }
+
+    private static <T> Set<T> identitySet(Collection<T> items) {
+        Set<T> s = Collections.newSetFromMap(new IdentityHashMap<>());
+        s.addAll(items);
+        return s;
+    }
+}
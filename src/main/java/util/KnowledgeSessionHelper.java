@@ -1,23 +1,44 @@
 package util;
 
+import org.drools.compiler.kie.builder.impl.KieContainerImpl;
 import org.kie.api.KieServices;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.StatelessKieSession;
 
 public class KnowledgeSessionHelper {
-	
+
+	/**
+	 * Classpath kontejner. Ako je build rađen sa -Pexecutable-model, u jar-u je
+	 * META-INF/kie/.../drools-model + generisane Rules* klase, a drools-model-compiler
+	 * je na classpath-u -> Drools sam bira CanonicalKieModule i ne parsira DRL.
+	 */
 	public static KieContainer createRuleBase() {
+		long t0 = System.currentTimeMillis();
 		KieServices ks = KieServices.Factory.get();
 		KieContainer kieContainer = ks.getKieClasspathContainer();
+		System.out.println("[KIE] classpath container (" + (isExecutableModel(kieContainer) ? "executable model" : "drl")
+				+ ") in " + (System.currentTimeMillis() - t0) + " ms");
 		return kieContainer;
 	}
-	
+
+	/** Da li su kbase-ovi ovog kontejnera učitani iz pre-kompajliranog modela (bez DRL parsiranja). */
+	public static boolean isExecutableModel(KieContainer kieContainer) {
+		if (!(kieContainer instanceof KieContainerImpl)) return false;
+		KieContainerImpl impl = (KieContainerImpl) kieContainer;
+		for (String kbase : impl.getKieBaseNames()) {
+			Object module = impl.getKieModuleForKBase(kbase);
+			// CanonicalKieModule je u drools-model-compiler, koji je opcioni (samo u profilu)
+			return module != null && module.getClass().getName().endsWith(".CanonicalKieModule");
+		}
+		return false;
+	}
+
 	public static StatelessKieSession getStatlessKnowledgeSession(KieContainer kieContainer, String sessionName) {
 		StatelessKieSession kSession = kieContainer.newStatelessKieSession(sessionName);
 		return kSession;
 	}
-	
+
 	public static KieSession getStatefulKnowledgeSession(KieContainer kieContainer, String sessionName) {
 		KieSession kSession = kieContainer.newKieSession(sessionName);
 		return kSession;
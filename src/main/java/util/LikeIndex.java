@@ -0,0 +1,163 @@
+package util;
+
+import dto.SimilarUser;
+
+import java.util.*;
+
+/**
+ * Invertovani indeks lajkova za Jaccard sličnost korisnika.
+ * Gradi se iz mape korisnik -> lajkovane objave (npr. PostRepository.findLikedPostsByUsersSince):
+ * korisnici se numerišu (int), a za svaku objavu se čuva niz indeksa korisnika koji su je lajkovali.
+ *
+ * similarTo() obilazi samo likere objava koje je korisnik lajkovao i broji preseke u primitivnoj
+ * int->int mapi, pa cena zavisi od broja co-likera, a ne od ukupnog broja korisnika.
+ * |A ∪ B| = |A| + |B| - |A ∩ B|, pa skupovi unije/preseka više ne moraju da se prave.
+ *
+ * addLike() dopunjuje indeks novim lajkom. Klasa nije thread-safe: ko deli indeks između niti
+ * mora sam da sinhronizuje upis i čitanje (vidi service.SimilarUsers).
+ */
+public final class LikeIndex {
+
+    private final Map<String, Integer> userIdx = new HashMap<>();
+    private final List<String> users = new ArrayList<>();
+    private final List<Set<String>> likedPosts = new ArrayList<>();
+    private final Map<String, int[]> likersByPost = new HashMap<>();
+
+    public LikeIndex() { }
+
+    public LikeIndex(Map<String, Set<String>> likedByUser) {
+        Map<String, List<Integer>> tmp = new HashMap<>();
+        for (Map.Entry<String, Set<String>> e : likedByUser.entrySet()) {
+            int u = index(e.getKey());
+            likedPosts.get(u).addAll(e.getValue());
+            for (String postId : e.getValue()) {
+                tmp.computeIfAbsent(postId, k -> new ArrayList<>()).add(u);
+            }
+        }
+        tmp.forEach((postId, idx) -> {
+            int[] a = new int[idx.size()];
+            for (int j = 0; j < a.length; j++) a[j] = idx.get(j);
+            likersByPost.put(postId, a);
+        });
+    }
+
+    public int userCount() { return users.size(); }
+
+    public int postCount() { return likersByPost.size(); }
+
+    /** Svi korisnici koji imaju bar jedan lajk u indeksu. */
+    public Collection<String> users() { return Collections.unmodifiableList(users); }
+
+    /** Objave koje je korisnik lajkovao (prazan skup ako ga nema u indeksu). */
+    public Set<String> likedPosts(String userId) {
+        Integer u = userIdx.get(userId);
+        return u == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(likedPosts.get(u));
+    }
+
+    /** Korisnici koji su lajkovali objavu. */
+    public List<String> likersOf(String postId) {
+        int[] likers = likersByPost.get(postId);
+        if (likers == null) return Collections.emptyList();
+        List<String> out = new ArrayList<>(likers.length);
+        for (int u : likers) out.add(users.get(u));
+        return out;
+    }
+
+    /** Dodaje lajk; vraća false ako je već bio u indeksu. */
+    public boolean addLike(String userId, String postId) {
+        int u = index(userId);
+        if (!likedPosts.get(u).add(postId)) return false;
+        int[] old = likersByPost.get(postId);
+        int[] a = old == null ? new int[1] : Arrays.copyOf(old, old.length + 1);
+        a[a.length - 1] = u;
+        likersByPost.put(postId, a);
+        return true;
+    }
+
+    /**
+     * Korisnici sa Jaccard(lajkovi(userId), lajkovi(other)) >= minScore.
+     * Korisnik koji nema nijedan zajednički lajk ima skor 0 i nikad nije u rezultatu (minScore > 0).
+     */
+    public List<SimilarUser> similarTo(String userId, Collection<String> likedPosts, double minScore) {
+        if (likedPosts.isEmpty()) return Collections.emptyList();
+        Integer self = userIdx.get(userId);
+        int selfIdx = self == null ? -1 : self;
+        int mine = likedPosts.size();
+
+        IntCounter inter = new IntCounter(16);
+        for (String postId : likedPosts) {
+            int[] likers = likersByPost.get(postId);
+            if (likers == null) continue;
+            for (int u : likers) {
+                if (u != selfIdx) inter.increment(u);
+            }
+        }
+
+        List<SimilarUser> out = new ArrayList<>();
+        for (int slot = 0; slot < inter.keys.length; slot++) {
+            int u = inter.keys[slot];
+            if (u == IntCounter.EMPTY) continue;
+            int common = inter.counts[slot];
+            double score = (double) common / (double) (mine + this.likedPosts.get(u).size() - common);
+            if (score >= minScore) out.add(new SimilarUser(userId, users.get(u), score));
+        }
+        return out;
+    }
+
+    private int index(String userId) {
+        Integer u = userIdx.get(userId);
+        if (u != null) return u;
+        int i = users.size();
+        users.add(userId);
+        likedPosts.add(new HashSet<>());
+        userIdx.put(userId, i);
+        return i;
+    }
+
+    /** Otvoreno adresiranje (linear probing), ključevi su indeksi korisnika >= 0. */
+    static final class IntCounter {
+        static final int EMPTY = -1;
+        int[] keys;
+        int[] counts;
+        private int size;
+
+        IntCounter(int expected) {
+            int cap = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+            keys = new int[cap];
+            counts = new int[cap];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void increment(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) { counts[slot]++; return; }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = 1;
+            if (++size * 2 > keys.length) rehash();
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys, oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        private static int mix(int k) {
+            int h = k * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
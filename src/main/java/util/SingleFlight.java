@@ -0,0 +1,140 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Spajanje istovetnih istovremenih izračunavanja ("single-flight"): prvi poziv za ključ računa,
+ * svi koji za isti ključ stignu dok račun traje čekaju i dobijaju isti rezultat (ili isti izuzetak).
+ * Ključ treba da sadrži sve od čega rezultat zavisi (korisnik, parametri zahteva).
+ *
+ * joinWindowMs > 0: završen rezultat se deli još toliko dugo (npr. dupli klik ili više tabova
+ * koji se osveže skoro istovremeno). Greška se nikad ne deli posle završetka.
+ * forget() izbacuje ključeve čiji je ulaz promenjen, pa novi pozivi ne dobiju zastareo rezultat.
+ */
+public final class SingleFlight<K, V> {
+
+    private static final long SWEEP_EVERY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final class Call<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        volatile long doneAt;   // 0 dok račun traje
+    }
+
+    private final long joinWindowNanos;
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder joinedInFlight = new LongAdder();
+    private final LongAdder joinedWindow = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SingleFlight(long joinWindowMs) {
+        if (joinWindowMs < 0) throw new IllegalArgumentException("joinWindowMs must be >= 0");
+        this.joinWindowNanos = TimeUnit.MILLISECONDS.toNanos(joinWindowMs);
+    }
+
+    /** Rezultat računa za ključ: deljen sa istovremenim (i, u prozoru, skorašnjim) pozivima. */
+    public V execute(K key, Supplier<V> compute) {
+        long now = System.nanoTime();
+        sweep(now);
+        for (;;) {
+            Call<V> c = calls.get(key);
+            if (c != null) {
+                long doneAt = c.doneAt;
+                if (doneAt == 0) {
+                    joinedInFlight.increment();
+                    return await(c);
+                }
+                if (now - doneAt < joinWindowNanos) {
+                    joinedWindow.increment();
+                    return await(c);
+                }
+                calls.remove(key, c);
+                continue;
+            }
+            Call<V> mine = new Call<>();
+            if (calls.putIfAbsent(key, mine) != null) continue;
+            return lead(key, mine, compute);
+        }
+    }
+
+    /** Izbacuje ključeve (i one u toku): pozivi koji već čekaju dobiju rezultat, novi računaju ponovo. */
+    public void forget(Predicate<K> which) {
+        calls.keySet().removeIf(which);
+    }
+
+    public void forgetAll() {
+        calls.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long ex = executions.sum(), inFlight = joinedInFlight.sum(), window = joinedWindow.sum();
+        long coalesced = inFlight + window;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("keys", calls.size());
+        out.put("executions", ex);
+        out.put("coalesced", coalesced);
+        out.put("joinedInFlight", inFlight);
+        out.put("joinedWindow", window);
+        out.put("coalescedRatio", ex + coalesced == 0 ? 0.0 : (double) coalesced / (double) (ex + coalesced));
+        out.put("failures", failures.sum());
+        out.put("joinWindowMs", TimeUnit.NANOSECONDS.toMillis(joinWindowNanos));
+        return out;
+    }
+
+    private V lead(K key, Call<V> mine, Supplier<V> compute) {
+        executions.increment();
+        try {
+            V v = compute.get();
+            mine.doneAt = Math.max(1L, System.nanoTime());
+            mine.result.complete(v);
+            if (joinWindowNanos == 0) calls.remove(key, mine);
+            return v;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            calls.remove(key, mine);
+            mine.doneAt = Math.max(1L, System.nanoTime());
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private V await(Call<V> c) {
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    return c.result.get();
+                } catch (InterruptedException ie) {
+                    // račun vodi druga nit; prekid se vraća pozivaocu kad rezultat stigne
+                    interrupted = true;
+                } catch (ExecutionException ee) {
+                    Throwable cause = ee.getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    // završeni rezultati kojima je istekao prozor (ključ koji se više ne traži)
+    private void sweep(long now) {
+        if (joinWindowNanos == 0) return;
+        long last = lastSweep.get();
+        if (now - last < SWEEP_EVERY_NANOS || !lastSweep.compareAndSet(last, now)) return;
+        calls.values().removeIf(c -> c.doneAt != 0 && now - c.doneAt >= joinWindowNanos);
+    }
+}
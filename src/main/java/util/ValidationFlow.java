@@ -0,0 +1,69 @@
+package util;
+
+import model.ValidationResult;
+import org.kie.api.KieServices;
+import org.kie.api.command.Command;
+import org.kie.api.command.KieCommands;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Validacioni tokovi (DTO + ValidationResult -> fire) koji imaju sopstveni mali kbase
+ * i stateless ksession u kmodule.xml, pa login ne prolazi kroz feed/moderation mrežu.
+ */
+public enum ValidationFlow {
+    LOGIN("login"),
+    REGISTRATION("registration"),
+    POST_CREATE("post-create"),
+    MY_POSTS("my-posts"),
+    POST_LIKE("post-like"),
+    POST_REPORT("post-report"),
+    FRIEND_ADD("friend-add"),
+    FRIEND_BLOCK("friend-block"),
+    PLACE_ADD("place-add");
+
+    /** Ključ pod kojim je u rezultatu broj okinutih pravila. */
+    public static final String FIRED = "fired";
+    /** Ključ pod kojim su u rezultatu ValidationResult objekti iz radne memorije. */
+    public static final String RESULTS = "results";
+
+    public final String agendaGroup;
+    public final String kbaseName;
+    public final String ksessionName;
+
+    ValidationFlow(String agendaGroup) {
+        this.agendaGroup = agendaGroup;
+        this.kbaseName = agendaGroup + "-kbase";
+        this.ksessionName = agendaGroup + "-session";
+    }
+
+    /** insert(činjenice) -> fokus na agendu toka -> fireAllRules, kao jedna batch komanda. */
+    public ExecutionResults execute(StatelessKieSession ks, Object... facts) {
+        KieCommands cmd = KieServices.Factory.get().getCommands();
+        List<Command> batch = new ArrayList<>(facts.length + 3);
+        for (Object f : facts) batch.add(cmd.newInsert(f));
+        batch.add(cmd.newAgendaGroupSetFocus(agendaGroup));
+        batch.add(cmd.newFireAllRules(FIRED));
+        batch.add(cmd.newGetObjects(new ClassObjectFilter(ValidationResult.class), RESULTS));
+        return ks.execute(cmd.newBatchExecution(batch));
+    }
+
+    /** Isto, ali prvo ubaci činjenice koje je pripremio FactRepository (ista batch komanda). */
+    public ExecutionResults execute(StatelessKieSession ks, Collection<?> provisioned, Object... facts) {
+        Object[] all = new Object[provisioned.size() + facts.length];
+        int i = 0;
+        for (Object f : provisioned) all[i++] = f;
+        for (Object f : facts) all[i++] = f;
+        return execute(ks, all);
+    }
+
+    public static int fired(ExecutionResults r) {
+        Object v = r.getValue(FIRED);
+        return v == null ? 0 : ((Number) v).intValue();
+    }
+}
@@ -0,0 +1,211 @@
+package bench;
+
+import db.Db;
+import dto.CreatePostRequest;
+import dto.RegisterRequest;
+import http.ApiServer;
+import http.WorkPools;
+import model.Post;
+import model.User;
+import repo.FriendRepository;
+import repo.PostRepository;
+import repo.UserRepository;
+import service.PostService;
+import service.RegistrationService;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opterećenje ApiServer-a preko HTTP-a: /api/feed/friends (heavy) i POST /api/posts/{id}/like (light),
+ * naizmenično iz `clients` klijentskih niti, u jednom od dva režima izvršavanja (http.WorkPools):
+ *   platform - light/heavy pool-ovi niti (http.pool.*)
+ *   virtual  - virtuelna nit po zahtevu + semafori (http.virtual.*), treba JDK 21 i profil jdk21
+ * Pre merenja se napravi `readers` čitalaca koji su prijatelji 10 autora sa po 20 objava,
+ * a na kraju se ti podaci brišu. 503 (pun red) se broji posebno.
+ *
+ * Pokretanje (svaki režim u svom JVM-u, jer je WorkPools jedan po procesu):
+ *   mvn -q test-compile exec:java -Dexec.mainClass=bench.HttpLoadBench -Dexec.classpathScope=test
+ *       -Dexec.args="platform 200 15"
+ *   JAVA_HOME=<jdk21> mvn -q -Pjdk21 test-compile exec:java -Dexec.mainClass=bench.HttpLoadBench
+ *       -Dexec.classpathScope=test -Dexec.args="virtual 200 15"
+ * Argumenti: režim, broj klijentskih niti, trajanje merenja u sekundama (+3 s zagrevanja).
+ */
+public class HttpLoadBench {
+
+    private static final int PORT = 18080;
+    private static final int AUTHORS = 10;
+    private static final int POSTS_PER_AUTHOR = 20;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "platform";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        int readers = Math.max(1, clients);
+
+        System.setProperty("http.executor", mode);
+        // HttpURLConnection inače drži samo 5 keep-alive konekcija po serveru
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+
+        UserRepository userRepo = new UserRepository();
+        PostRepository postRepo = new PostRepository();
+        FriendRepository friendRepo = new FriendRepository();
+        RegistrationService reg = new RegistrationService(userRepo);
+        PostService posts = new PostService(postRepo, userRepo);
+
+        String run = Long.toHexString(System.nanoTime());
+        List<String> userIds = new ArrayList<>();
+        List<String> postIds = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        try {
+            List<User> authors = new ArrayList<>();
+            for (int a = 0; a < AUTHORS; a++) {
+                User u = reg.register(new RegisterRequest("A" + a, "Bench", "a" + a + "-" + run + "@bench.ex", "lozinka", "NS"));
+                authors.add(u);
+                userIds.add(u.getId());
+                for (int i = 0; i < POSTS_PER_AUTHOR; i++) {
+                    Post p = posts.createPost(new CreatePostRequest(u.getId(), "bench " + i + " #bench #t" + (i % 5), "#bench #t" + (i % 5)));
+                    postIds.add(p.getId());
+                }
+            }
+            for (int r = 0; r < readers; r++) {
+                String email = "r" + r + "-" + run + "@bench.ex";
+                User u = reg.register(new RegisterRequest("R" + r, "Bench", email, "lozinka", "NS"));
+                userIds.add(u.getId());
+                emails.add(email);
+                for (User a : authors) friendRepo.addFriends(u.getId(), a.getId());
+            }
+
+            new ApiServer().start(PORT);
+            String mode0 = WorkPools.get().mode();
+
+            List<String> tokens = new ArrayList<>();
+            for (String email : emails) tokens.add(login(email));
+
+            System.out.println("[BENCH] mode=" + mode0 + " clients=" + clients + " readers=" + readers
+                    + " posts=" + postIds.size() + " java=" + System.getProperty("java.version"));
+
+            measure(mode0, clients, 3, tokens, postIds, false);
+            measure(mode0, clients, seconds, tokens, postIds, true);
+            System.out.println("[BENCH] " + mode0 + " pools " + WorkPools.get().stats());
+        } finally {
+            cleanup(userIds, postIds);
+            System.exit(0);
+        }
+    }
+
+    private static void measure(String mode, int clients, int seconds, List<String> tokens, List<String> postIds,
+                                boolean report) throws Exception {
+        ConcurrentLinkedQueue<long[]> feed = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<long[]> like = new ConcurrentLinkedQueue<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService exec = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            String token = tokens.get(c % tokens.size());
+            List<String> mine = new ArrayList<>(postIds);
+            Collections.shuffle(mine, new Random(c));
+            exec.execute(() -> {
+                int i = 0;
+                while (!stop.get()) {
+                    try {
+                        long t0 = System.nanoTime();
+                        int code = request("GET", "/api/feed/friends?size=20", token);
+                        feed.add(new long[]{ System.nanoTime() - t0, code });
+                        // svaki čitalac lajkuje svoje objave redom (posle kruga lajk je već postojao -> 400)
+                        t0 = System.nanoTime();
+                        code = request("POST", "/api/posts/" + mine.get(i++ % mine.size()) + "/like", token);
+                        like.add(new long[]{ System.nanoTime() - t0, code });
+                    } catch (Exception e) {
+                        feed.add(new long[]{ 0, -1 });
+                    }
+                }
+            });
+        }
+        long t0 = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        exec.shutdown();
+        exec.awaitTermination(30, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - t0) / 1e9;
+        if (!report) return;
+        report(mode, "feed/friends", feed, elapsed);
+        report(mode, "posts/like", like, elapsed);
+    }
+
+    private static int request(String method, String path, String token) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL("http://localhost:" + PORT + path).openConnection();
+        c.setRequestMethod(method);
+        c.setRequestProperty("Authorization", "Bearer " + token);
+        c.setRequestProperty("Accept-Encoding", "identity");
+        if ("POST".equals(method)) {
+            c.setDoOutput(true);
+            try (OutputStream os = c.getOutputStream()) { os.write(new byte[0]); }
+        }
+        int code = c.getResponseCode();
+        drain(code < 400 ? c.getInputStream() : c.getErrorStream());
+        return code;
+    }
+
+    private static String login(String email) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL("http://localhost:" + PORT + "/api/auth/login").openConnection();
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        c.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream os = c.getOutputStream()) {
+            os.write(("{\"email\":\"" + email + "\",\"password\":\"lozinka\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        if (c.getResponseCode() != 200) throw new IllegalStateException("login failed: " + c.getResponseCode());
+        try (Scanner s = new Scanner(c.getInputStream(), "UTF-8")) {
+            String body = s.useDelimiter("\\A").next();
+            int i = body.indexOf("\"token\":\"") + 9;
+            return body.substring(i, body.indexOf('"', i));
+        }
+    }
+
+    private static void drain(InputStream in) throws Exception {
+        if (in == null) return;
+        byte[] buf = new byte[8192];
+        try (InputStream i = in) { while (i.read(buf) != -1) { } }
+    }
+
+    private static void report(String mode, String endpoint, Collection<long[]> samples, double seconds) {
+        long[] ok = samples.stream().filter(s -> s[1] > 0 && s[1] != 503).mapToLong(s -> s[0]).sorted().toArray();
+        long busy = samples.stream().filter(s -> s[1] == 503).count();
+        long failed = samples.stream().filter(s -> s[1] < 0).count();
+        int n = ok.length;
+        System.out.printf("[BENCH] %-8s %-13s n=%d rps=%.0f p50=%.1f ms p99=%.1f ms 503=%d errors=%d%n",
+                mode, endpoint, n, n / seconds,
+                n == 0 ? 0 : ok[n / 2] / 1e6, n == 0 ? 0 : ok[Math.min(n - 1, (int) (n * 0.99))] / 1e6, busy, failed);
+    }
+
+    private static void cleanup(List<String> userIds, List<String> postIds) {
+        String[] sql = {
+            "DELETE FROM post_likes WHERE post_id = ANY(?) OR user_id = ANY(?)",
+            "DELETE FROM friendships WHERE user_lo = ANY(?) OR user_hi = ANY(?)",
+            "DELETE FROM posts WHERE author_id = ANY(?) OR id = ANY(?)",
+            "DELETE FROM users WHERE id = ANY(?) OR id = ANY(?)",
+        };
+        try (Connection c = Db.get()) {
+            Object[] posts = postIds.stream().map(UUID::fromString).toArray();
+            Object[] users = userIds.stream().map(UUID::fromString).toArray();
+            for (String s : sql) {
+                try (PreparedStatement ps = c.prepareStatement(s)) {
+                    boolean postsFirst = s.startsWith("DELETE FROM post_likes");
+                    ps.setArray(1, c.createArrayOf("uuid", postsFirst ? posts : users));
+                    ps.setArray(2, c.createArrayOf("uuid", postsFirst ? users : posts));
+                    ps.executeUpdate();
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("[BENCH] cleanup failed: " + e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package bench;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Vrući upiti iz repozitorijuma (existsById, hasUserLiked, getFriendsOf) nad lokalnim PostgreSQL-om:
+ *   1) nova konekcija po pozivu (stari Db.get() preko DriverManager-a)
+ *   2) ista konekcija, prepareThreshold=0 -> svaki put parse + plan (unnamed statement)
+ *   3) ista konekcija, prepareThreshold=1 + keš -> imenovani server-side statement, samo bind/execute
+ * SQL je prepisan iz repozitorijuma; ID-jevi su nasumični (upit se izvršava, redova nema).
+ *
+ * Pokretanje: mvn -q test-compile exec:java -Dexec.mainClass=bench.RepoQueryBench
+ *             -Dexec.classpathScope=test [-Dexec.args="iteracije zagrevanje"]
+ */
+public class RepoQueryBench {
+
+    private static final String EXISTS_BY_ID = "SELECT 1 FROM users WHERE id=? LIMIT 1";
+    private static final String HAS_USER_LIKED = "SELECT 1 FROM post_likes WHERE post_id=? AND user_id=? LIMIT 1";
+    private static final String FRIENDS_OF =
+            "SELECT CASE WHEN user_lo = ?::uuid THEN user_hi ELSE user_lo END AS friend_id " +
+            "FROM friendships WHERE user_lo = ?::uuid OR user_hi = ?::uuid";
+
+    interface Conn { Connection get() throws Exception; void done(Connection c) throws Exception; }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        Properties db = new Properties();
+        try (InputStream in = RepoQueryBench.class.getClassLoader().getResourceAsStream("db.properties")) {
+            db.load(in);
+        }
+        String url = db.getProperty("db.url");
+
+        Properties noPrepare = credentials(db);
+        noPrepare.setProperty("prepareThreshold", "0");
+        Properties cached = credentials(db);
+        cached.setProperty("prepareThreshold", "1");
+        cached.setProperty("preparedStatementCacheQueries", "256");
+
+        // 1) konekcija po pozivu - iteracije su skuplje, pa ih je manje
+        Conn perCall = new Conn() {
+            public Connection get() throws Exception { return DriverManager.getConnection(url, noPrepare); }
+            public void done(Connection c) throws Exception { c.close(); }
+        };
+        runAll("new connection per call", perCall, Math.max(1, iterations / 10), Math.max(1, warmup / 10));
+
+        try (Connection c = DriverManager.getConnection(url, noPrepare)) {
+            runAll("reused connection, prepareThreshold=0", reuse(c), iterations, warmup);
+        }
+        try (Connection c = DriverManager.getConnection(url, cached)) {
+            runAll("reused connection, prepareThreshold=1", reuse(c), iterations, warmup);
+        }
+    }
+
+    private static Properties credentials(Properties db) {
+        Properties p = new Properties();
+        p.setProperty("user", db.getProperty("db.user"));
+        p.setProperty("password", db.getProperty("db.pass"));
+        return p;
+    }
+
+    private static Conn reuse(Connection c) {
+        return new Conn() {
+            public Connection get() { return c; }
+            public void done(Connection ignore) { }
+        };
+    }
+
+    private static void runAll(String mode, Conn conn, int n, int warmup) throws Exception {
+        UUID a = UUID.randomUUID(), b = UUID.randomUUID();
+        for (String sql : new String[] { EXISTS_BY_ID, HAS_USER_LIKED, FRIENDS_OF }) {
+            for (int i = 0; i < warmup; i++) query(conn, sql, a, b);
+            long[] samples = new long[n];
+            for (int i = 0; i < n; i++) {
+                long t0 = System.nanoTime();
+                query(conn, sql, a, b);
+                samples[i] = System.nanoTime() - t0;
+            }
+            report(mode, label(sql), samples);
+        }
+    }
+
+    // isto kao u repozitorijumu: prepareStatement na svakom pozivu, keš je u drajveru
+    private static void query(Conn conn, String sql, UUID a, UUID b) throws Exception {
+        Connection c = conn.get();
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            int params = sql.length() - sql.replace("?", "").length();
+            // hasUserLiked(post, user); ostali upiti vezuju isti ID na sva mesta
+            for (int i = 1; i <= params; i++) ps.setObject(i, sql == HAS_USER_LIKED && i == 2 ? b : a);
+            try (ResultSet rs = ps.executeQuery()) { while (rs.next()) { } }
+        } finally {
+            conn.done(c);
+        }
+    }
+
+    private static String label(String sql) {
+        if (sql == EXISTS_BY_ID) return "existsById";
+        if (sql == HAS_USER_LIKED) return "hasUserLiked";
+        return "getFriendsOf";
+    }
+
+    private static void report(String mode, String query, long[] samples) {
+        int n = samples.length;
+        long sum = 0;
+        for (long s : samples) sum += s;
+        Arrays.sort(samples);
+        System.out.printf("[BENCH] %-40s %-13s n=%d p50=%.1f us p99=%.1f us avg=%.1f us%n",
+                mode, query, n, samples[n / 2] / 1e3, samples[Math.min(n - 1, (int) (n * 0.99))] / 1e3,
+                sum / (double) n / 1e3);
+    }
+}
@@ -0,0 +1,46 @@
+package bench;
+
+import java.util.regex.Pattern;
+
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.StatelessKieSession;
+
+import dto.LoginRequest;
+import model.ValidationResult;
+import util.KieBaseRegistry;
+import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
+
+/**
+ * Hladan start pravila: classpath kontejner -> svi kbase-ovi (KieBaseRegistry) -> prva login
+ * validacija. Meri se u svežem JVM-u, jednom po modu, pa se oba builda porede:
+ *
+ *   mvn -q clean test-compile exec:java -Dexec.mainClass=bench.StartupBench -Dexec.classpathScope=test
+ *   mvn -q -Pexecutable-model clean test-compile exec:java -Dexec.mainClass=bench.StartupBench -Dexec.classpathScope=test
+ *
+ * Bez profila kontejner parsira i kompajlira DRL; sa profilom učitava generisane Rules* klase.
+ */
+public class StartupBench {
+
+    private static final Pattern EMAIL_RX =
+            Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    public static void main(String[] args) {
+        long t0 = System.nanoTime();
+        KieContainer container = KnowledgeSessionHelper.createRuleBase();
+        long t1 = System.nanoTime();
+        KieBaseRegistry registry = KieBaseRegistry.get();
+        long t2 = System.nanoTime();
+
+        StatelessKieSession ks = registry.validationSession(ValidationFlow.LOGIN);
+        ks.setGlobal("EMAIL_RX", EMAIL_RX);
+        ValidationResult vr = new ValidationResult();
+        ValidationFlow.LOGIN.execute(ks, new LoginRequest("", ""), vr);
+        if (vr.getErrors().size() != 2) throw new IllegalStateException("unexpected result: " + vr.getErrors());
+        long t3 = System.nanoTime();
+
+        String mode = KnowledgeSessionHelper.isExecutableModel(container) ? "executable-model" : "drl";
+        System.out.printf("[BENCH] mode=%s container=%d ms kbases=%d ms first-login=%d ms total=%d ms%n",
+                mode, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, (t3 - t2) / 1_000_000, (t3 - t0) / 1_000_000);
+    }
+}
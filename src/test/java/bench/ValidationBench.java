@@ -0,0 +1,105 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.kie.api.KieBase;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.utils.KieHelper;
+
+import dto.LoginRequest;
+import model.ValidationResult;
+import util.KieBaseRegistry;
+import util.ValidationFlow;
+
+/**
+ * Latencija jedne login validacije: stari put (stateful sesija nad monolitnim "rules" kbase-om
+ * u stream modu, sa svim DRL-ovima) naspram stateless sesije nad malim login-kbase-om.
+ * Prazan zahtev, tako da nijedno pravilo ne ide u bazu.
+ *
+ * Pokretanje: mvn -q test-compile exec:java -Dexec.mainClass=bench.ValidationBench
+ *             -Dexec.classpathScope=test [-Dexec.args="iteracije zagrevanje"]
+ */
+public class ValidationBench {
+
+    private static final String[] MONOLITH_DRLS = {
+        "rules/feed/feed_friends.drl", "rules/feed/feed_recommend.drl", "rules/validation/place_add/place_add.drl",
+        "rules/moderation/user_detect.drl",
+        "rules/validation/login/login.drl", "rules/validation/registration/registration.drl",
+        "rules/validation/post_create/post_create.drl", "rules/validation/my_posts/my_posts.drl",
+        "rules/validation/post_like/post_like.drl", "rules/validation/post_report/post_report.drl",
+        "rules/validation/friend_add/friend_add.drl", "rules/validation/friend_block/friend_block.drl"
+    };
+
+    private static final Pattern EMAIL_RX =
+            Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        KieHelper helper = new KieHelper();
+        for (String drl : MONOLITH_DRLS) {
+            helper.addResource(ResourceFactory.newClassPathResource(drl), ResourceType.DRL);
+        }
+        KieBase monolith = helper.build(EventProcessingOption.STREAM);
+        KieBaseRegistry registry = KieBaseRegistry.get();
+
+        run("warmup/monolith", warmup, () -> monolithLogin(monolith));
+        run("warmup/stateless", warmup, () -> statelessLogin(registry));
+
+        long[] before = run("stateful @ monolithic rules (stream)", iterations, () -> monolithLogin(monolith));
+        long[] after = run("stateless @ login-kbase (cloud)", iterations, () -> statelessLogin(registry));
+
+        System.out.printf("[BENCH] speedup p50 %.2fx, avg %.2fx%n",
+                (double) before[0] / after[0], (double) before[2] / after[2]);
+    }
+
+    private static void monolithLogin(KieBase kb) {
+        KieSession ks = kb.newKieSession();
+        try {
+            ks.setGlobal("EMAIL_RX", EMAIL_RX);
+            ValidationResult vr = new ValidationResult();
+            ks.insert(new LoginRequest("", ""));
+            ks.insert(vr);
+            ks.getAgenda().getAgendaGroup("login").setFocus();
+            ks.fireAllRules();
+            check(vr);
+        } finally {
+            ks.dispose();
+        }
+    }
+
+    private static void statelessLogin(KieBaseRegistry registry) {
+        StatelessKieSession ks = registry.validationSession(ValidationFlow.LOGIN);
+        ks.setGlobal("EMAIL_RX", EMAIL_RX);
+        ValidationResult vr = new ValidationResult();
+        ValidationFlow.LOGIN.execute(ks, new LoginRequest("", ""), vr);
+        check(vr);
+    }
+
+    private static void check(ValidationResult vr) {
+        if (vr.getErrors().size() != 2) throw new IllegalStateException("unexpected result: " + vr.getErrors());
+    }
+
+    /** Vraća [p50, p99, avg] u nanosekundama. */
+    private static long[] run(String label, int n, Runnable body) {
+        long[] samples = new long[n];
+        for (int i = 0; i < n; i++) {
+            long t0 = System.nanoTime();
+            body.run();
+            samples[i] = System.nanoTime() - t0;
+        }
+        long sum = 0;
+        for (long s : samples) sum += s;
+        Arrays.sort(samples);
+        long p50 = samples[n / 2], p99 = samples[Math.min(n - 1, (int) (n * 0.99))], avg = sum / n;
+        System.out.printf("[BENCH] %-40s n=%d p50=%.1f us p99=%.1f us avg=%.1f us%n",
+                label, n, p50 / 1e3, p99 / 1e3, avg / 1e3);
+        return new long[] { p50, p99, avg };
+    }
+}
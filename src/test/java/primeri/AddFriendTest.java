@@ -12,19 +12,23 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
 import dto.AddFriendRequest;
 import model.User;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.FriendRepository;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 
 public class AddFriendTest {
 
     static KieContainer kc;
+    static final FactRepository facts = new FactRepository();
 
     @BeforeClass
     public static void beforeClass() {
@@ -41,133 +45,96 @@ public class AddFriendTest {
     
     @Test
     public void userId_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            // Napravi VALIDNOG target korisnika da "ciljani ne postoji" NE bi pucao
-            UserRepository ur = new UserRepository();
-            User target = new User("Target","User","t@ex.com","h","BG");
-            ur.save(target);
-
-            FriendRepository fr = new FriendRepository();
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", fr);
-
-            ValidationResult vr = new ValidationResult();
-            // userId prazan, ali targetId VALIDAN -> očekujemo da pukne SAMO 1 pravilo
-            s.insert(new AddFriendRequest("", target.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
-    }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-add-session");
+        // Napravi VALIDNOG target korisnika da "ciljani ne postoji" NE bi pucao
+        UserRepository ur = new UserRepository();
+        User target = new User("Target","User","t@ex.com","h","BG");
+        ur.save(target);
+
+        FriendRepository fr = new FriendRepository();
 
+        ValidationResult vr = new ValidationResult();
+        // userId prazan, ali targetId VALIDAN -> očekujemo da pukne SAMO 1 pravilo
+
+        AddFriendRequest req = new AddFriendRequest("", target.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_ADD.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
+    }
 
     @Test
     public void targetId_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u = new User("A","B","a@b.com","h","C"); ur.save(u);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new AddFriendRequest(u.getId(), ""));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-add-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("A","B","a@b.com","h","C"); ur.save(u);
+
+        ValidationResult vr = new ValidationResult();
+
+        AddFriendRequest req = new AddFriendRequest(u.getId(), "");
+        ExecutionResults res = ValidationFlow.FRIEND_ADD.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void ne_mozes_sebe_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u = new User("Pera","Peric","p@e.com","h","BG"); ur.save(u);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new AddFriendRequest(u.getId(), u.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-add-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("Pera","Peric","p@e.com","h","BG"); ur.save(u);
+
+        ValidationResult vr = new ValidationResult();
+
+        AddFriendRequest req = new AddFriendRequest(u.getId(), u.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_ADD.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void target_ne_postoji_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u = new User("Ana","Anic","a@e.com","h","NS"); ur.save(u);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new AddFriendRequest(u.getId(), UUID.randomUUID().toString()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-add-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("Ana","Anic","a@e.com","h","NS"); ur.save(u);
+
+        ValidationResult vr = new ValidationResult();
+
+        AddFriendRequest req = new AddFriendRequest(u.getId(), UUID.randomUUID().toString());
+        ExecutionResults res = ValidationFlow.FRIEND_ADD.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void vec_prijatelji_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u1 = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(u1);
-            User u2 = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(u2);
-
-            FriendRepository fr = new FriendRepository();
-            fr.addFriends(u1.getId(), u2.getId());
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", fr);
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new AddFriendRequest(u1.getId(), u2.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1)); // "Već ste prijatelji."
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-add-session");
+        UserRepository ur = new UserRepository();
+        User u1 = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(u1);
+        User u2 = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(u2);
+
+        FriendRepository fr = new FriendRepository();
+        fr.addFriends(u1.getId(), u2.getId());
+
+        ValidationResult vr = new ValidationResult();
+
+        AddFriendRequest req = new AddFriendRequest(u1.getId(), u2.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_ADD.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1)); // "Već ste prijatelji."
     }
 
     @Test
     public void validno_ne_okida_nista() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u1 = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(u1);
-            User u2 = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(u2);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new AddFriendRequest(u1.getId(), u2.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(0));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-add-session");
+        UserRepository ur = new UserRepository();
+        User u1 = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(u1);
+        User u2 = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(u2);
+
+        ValidationResult vr = new ValidationResult();
+
+        AddFriendRequest req = new AddFriendRequest(u1.getId(), u2.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_ADD.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(0));
     }
     
     @After
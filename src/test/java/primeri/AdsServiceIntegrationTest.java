@@ -116,7 +116,7 @@ public class AdsServiceIntegrationTest {
     }
 
     private List<AdSuggestion> runAds(String userId, int limit) {
-        AdsService ads = new AdsService(userRepo, postRepo, placeRepo, ratingRepo);
+        AdsService ads = new AdsService(userRepo, postRepo, placeRepo);
         AdsRecommendRequest req = new AdsRecommendRequest();
         req.userId = userId;
         req.limit = limit;
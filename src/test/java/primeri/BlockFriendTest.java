@@ -12,20 +12,24 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
 import dto.AddFriendRequest;
 import dto.BlockUserRequest;
 import model.User;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.FriendRepository;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 
 public class BlockFriendTest {
 
     static KieContainer kc;
+    static final FactRepository facts = new FactRepository();
 
     @BeforeClass
     public static void beforeClass() {
@@ -42,128 +46,92 @@ public class BlockFriendTest {
 
     @Test
     public void userId_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            // kreiraj validnog targeta da ne pukne "target ne postoji"
-            UserRepository ur = new UserRepository();
-            User t = new User("T","U","t@ex.com","h","BG"); ur.save(t);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new BlockUserRequest("", t.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-block").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-block-session");
+        // kreiraj validnog targeta da ne pukne "target ne postoji"
+        UserRepository ur = new UserRepository();
+        User t = new User("T","U","t@ex.com","h","BG"); ur.save(t);
+
+        ValidationResult vr = new ValidationResult();
+
+        BlockUserRequest req = new BlockUserRequest("", t.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_BLOCK.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void targetId_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User me = new User("A","B","a@b.com","h","C"); ur.save(me);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new BlockUserRequest(me.getId(), ""));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-block").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-block-session");
+        UserRepository ur = new UserRepository();
+        User me = new User("A","B","a@b.com","h","C"); ur.save(me);
+
+        ValidationResult vr = new ValidationResult();
+
+        BlockUserRequest req = new BlockUserRequest(me.getId(), "");
+        ExecutionResults res = ValidationFlow.FRIEND_BLOCK.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void ne_mozes_blokirati_sebe_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User me = new User("Pera","Peric","p@e.com","h","BG"); ur.save(me);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new BlockUserRequest(me.getId(), me.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-block").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-block-session");
+        UserRepository ur = new UserRepository();
+        User me = new User("Pera","Peric","p@e.com","h","BG"); ur.save(me);
+
+        ValidationResult vr = new ValidationResult();
+
+        BlockUserRequest req = new BlockUserRequest(me.getId(), me.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_BLOCK.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void target_ne_postoji_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User me = new User("Ana","Anic","ana@e.com","h","NS"); ur.save(me);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new BlockUserRequest(me.getId(), UUID.randomUUID().toString()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-block").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-block-session");
+        UserRepository ur = new UserRepository();
+        User me = new User("Ana","Anic","ana@e.com","h","NS"); ur.save(me);
+
+        ValidationResult vr = new ValidationResult();
+
+        BlockUserRequest req = new BlockUserRequest(me.getId(), UUID.randomUUID().toString());
+        ExecutionResults res = ValidationFlow.FRIEND_BLOCK.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void vec_blokiran_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User a = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(a);
-            User b = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(b);
-
-            FriendRepository fr = new FriendRepository();
-            fr.block(a.getId(), b.getId());
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", fr);
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new BlockUserRequest(a.getId(), b.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-block").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1)); // "Već ste blokirali..."
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-block-session");
+        UserRepository ur = new UserRepository();
+        User a = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(a);
+        User b = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(b);
+
+        FriendRepository fr = new FriendRepository();
+        fr.block(a.getId(), b.getId());
+
+        ValidationResult vr = new ValidationResult();
+
+        BlockUserRequest req = new BlockUserRequest(a.getId(), b.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_BLOCK.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1)); // "Već ste blokirali..."
     }
 
     @Test
     public void validno_ne_okida_nista() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User a = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(a);
-            User b = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(b);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("friendRepo", new FriendRepository());
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new BlockUserRequest(a.getId(), b.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("friend-block").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(0));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "friend-block-session");
+        UserRepository ur = new UserRepository();
+        User a = new User("Ana","Anic","ana@ex.com","h","BG"); ur.save(a);
+        User b = new User("Mika","Mikic","mika@ex.com","h","BG"); ur.save(b);
+
+        ValidationResult vr = new ValidationResult();
+
+        BlockUserRequest req = new BlockUserRequest(a.getId(), b.getId());
+        ExecutionResults res = ValidationFlow.FRIEND_BLOCK.execute(s, facts.forUserPair(req.userId, req.targetId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(0));
     }
     
     @After
@@ -0,0 +1,159 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import http.Compression;
+import http.Cors;
+
+public class CompressionTest {
+
+    // ~40 KB ponovljivog JSON-a, više od jednog 8 KB bafera Deflater-a
+    private static final byte[] JSON = json(600);
+
+    private static HttpHandler fixed(byte[] payload) {
+        return ex -> {
+            ex.sendResponseHeaders(200, payload.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(payload); }
+            ex.close();
+        };
+    }
+
+    @Test
+    public void gzip_dekodujeSeGzipInputStreamom() throws IOException {
+        StubExchange ex = new StubExchange("GET", "/api/posts").header("Accept-Encoding", "gzip, deflate");
+        Compression.wrap("/test/gzip", fixed(JSON)).handle(ex);
+
+        assertThat(ex.getResponseHeaders().getFirst("Content-Encoding"), is("gzip"));
+        assertThat(ex.getResponseHeaders().getFirst("Vary"), is("Accept-Encoding"));
+        assertThat(ex.length, is(0L));   // dužina posle sažimanja nije poznata unapred -> chunked
+        assertThat(ex.isClosed(), is(true));
+        assertThat(ex.body.size() < JSON.length / 4, is(true));
+        assertThat(decode(new GZIPInputStream(new ByteArrayInputStream(ex.body.toByteArray()))), is(JSON));
+    }
+
+    @Test
+    public void deflate_kadJeGzipOdbijen() throws IOException {
+        StubExchange ex = new StubExchange("GET", "/api/posts").header("Accept-Encoding", "gzip;q=0, deflate");
+        Compression.wrap("/test/deflate", fixed(JSON)).handle(ex);
+
+        assertThat(ex.getResponseHeaders().getFirst("Content-Encoding"), is("deflate"));
+        assertThat(decode(new InflaterInputStream(new ByteArrayInputStream(ex.body.toByteArray()))), is(JSON));
+    }
+
+    @Test
+    public void dozvoljenOrigin_varyImaIOriginIAcceptEncoding() throws IOException {
+        StubExchange ex = new StubExchange("GET", "/api/posts")
+                .header("Accept-Encoding", "gzip")
+                .header("Origin", "http://localhost:4200");
+        Compression.wrap("/test/cors", Cors.wrap(fixed(JSON))).handle(ex);
+
+        assertThat(ex.getResponseHeaders().getFirst("Content-Encoding"), is("gzip"));
+        assertThat(ex.getResponseHeaders().getFirst("Access-Control-Allow-Origin"), is("http://localhost:4200"));
+        List<String> vary = ex.getResponseHeaders().get("Vary");
+        assertThat(vary.contains("Accept-Encoding"), is(true));
+        assertThat(vary.contains("Origin"), is(true));
+        assertThat(vary.size(), is(2));
+    }
+
+    @Test
+    public void negotiate_postujeQ() {
+        assertThat(Compression.negotiate("gzip;q=0, deflate"), is("deflate"));
+        assertThat(Compression.negotiate("deflate, gzip"), is("gzip"));
+        assertThat(Compression.negotiate("*"), is("gzip"));
+        assertThat(Compression.negotiate("gzip;q=0, deflate;q=0"), is(nullValue()));
+        assertThat(Compression.negotiate("br"), is(nullValue()));
+        assertThat(Compression.negotiate(null), is(nullValue()));
+    }
+
+    @Test
+    public void ispodPraga_prolaziNekompresovano() throws IOException {
+        byte[] small = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+        StubExchange ex = new StubExchange("GET", "/api/health").header("Accept-Encoding", "gzip");
+        Compression.wrap("/test/small", fixed(small)).handle(ex);
+
+        assertThat(ex.getResponseHeaders().getFirst("Content-Encoding"), is(nullValue()));
+        assertThat(ex.length, is((long) small.length));
+        assertThat(ex.body.toByteArray(), is(small));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void statistika_usteda_poEndpointu() throws IOException {
+        String route = "/test/stats";
+        StubExchange last = null;
+        for (int i = 0; i < 3; i++) {
+            last = new StubExchange("GET", route).header("Accept-Encoding", "gzip");
+            Compression.wrap(route, fixed(JSON)).handle(last);
+        }
+
+        Map<String, Object> endpoints = (Map<String, Object>) Compression.stats().get("endpoints");
+        Map<String, Object> m = (Map<String, Object>) endpoints.get(route);
+        assertThat(m.get("responses"), is((Object) 3L));
+        assertThat(m.get("bytesIn"), is((Object) (3L * JSON.length)));
+        assertThat(m.get("bytesOut"), is((Object) (3L * last.body.size())));
+        assertThat(m.get("bytesSaved"), is((Object) (3L * (JSON.length - last.body.size()))));
+    }
+
+    @Test
+    public void handlerPukne_deflaterSeVracaUPool() throws IOException {
+        Map<String, Object> before = Compression.stats();
+        HttpHandler failing = ex -> {
+            ex.sendResponseHeaders(200, JSON.length);
+            ex.getResponseBody().write(JSON, 0, 4096);
+            throw new IllegalStateException("boom");
+        };
+        StubExchange ex = new StubExchange("GET", "/api/posts").header("Accept-Encoding", "gzip");
+        try {
+            Compression.wrap("/test/failing", failing).handle(ex);
+            fail("handler exception expected");
+        } catch (IllegalStateException expected) {
+            // ide dalje, do WorkPools/transporta
+        }
+        Map<String, Object> after = Compression.stats();
+        long created = (Long) after.get("deflatersCreated") - (Long) before.get("deflatersCreated");
+        long reused = (Long) after.get("deflatersReused") - (Long) before.get("deflatersReused");
+        int idle = (Integer) after.get("deflatersIdle") - (Integer) before.get("deflatersIdle");
+        assertThat(created + reused, is(1L));
+        // nov Deflater završi među slobodnima, ponovo upotrebljen se samo vrati
+        assertThat((long) idle, is(created));
+
+        Map<?, ?> endpoints = (Map<?, ?>) after.get("endpoints");
+        assertThat(endpoints.containsKey("/test/failing"), is(false));
+    }
+
+    private static byte[] decode(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    private static byte[] json(int items) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"author\":\"user").append(i % 17)
+              .append("\",\"text\":\"Lorem ipsum dolor sit amet\",\"likes\":").append(i % 5).append('}');
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+import db.Db;
+import model.Post;
+import model.User;
+import repo.FriendRepository;
+import repo.PostRepository;
+import repo.UserRepository;
+
+public class DbPoolTest {
+
+    @After
+    public void cleanup() throws Exception {
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("TRUNCATE users CASCADE");
+            st.executeUpdate("TRUNCATE posts CASCADE");
+        }
+    }
+
+    private static int active() {
+        return ((Number) Db.stats().get("active")).intValue();
+    }
+
+    @Test
+    public void zatvorenaKonekcija_seVracaUPool() throws Exception {
+        int before = active();
+        try (Connection c = Db.get()) {
+            assertThat(active(), is(before + 1));
+            assertThat(c.isValid(1), is(true));
+        }
+        assertThat(active(), is(before));
+    }
+
+    // like/report/block rade ručnu transakciju - konekcija mora da se vrati i posle commit-a
+    @Test
+    public void transakcioniUpisi_neDrzeKonekciju() {
+        UserRepository ur = new UserRepository();
+        User a = new User("A","A","a@pool.com","h","BG"); ur.save(a);
+        User b = new User("B","B","b@pool.com","h","BG"); ur.save(b);
+        PostRepository pr = new PostRepository();
+        Post p = new Post(a.getId(), "txt", new HashSet<String>()); pr.save(p);
+
+        int before = active();
+        pr.like(p.getId(), b.getId());
+        pr.report(p.getId(), b.getId());
+        new FriendRepository().block(a.getId(), b.getId());
+        assertThat(active(), is(before));
+    }
+}
@@ -4,6 +4,8 @@ import db.Db;
 import dto.CandidatePost;
 import dto.CreatePostRequest;
 import dto.FriendFeedRequest;
+import dto.PostCursor;
+import dto.PostPage;
 import dto.RecommendedFeedRequest;
 import dto.RegisterRequest;
 import model.Post;
@@ -16,6 +18,7 @@ import repo.FriendRepository;
 import repo.PostRepository;
 import repo.UserRepository;
 import service.FeedService;
+import service.PostWindow;
 import service.PostService;
 import service.RegistrationService;
 
@@ -47,6 +50,8 @@ public class FeedRecommendTest {
             try { st.executeUpdate("TRUNCATE blocks CASCADE"); } catch (Exception ignore) {}
             try { st.executeUpdate("TRUNCATE users CASCADE"); } catch (Exception ignore) {}
         }
+        // prozor objava u memoriji ne vidi TRUNCATE
+        PostWindow.get().reset();
     }
 
     private void wiring(){
@@ -201,4 +206,64 @@ public class FeedRecommendTest {
         List<Post> feed = feedService.friendFeed(a.getId(), now);
         assertThat(feed.stream().map(Post::getId).collect(Collectors.toSet()).contains(recent.getId()), is(true));
     }
+
+    @Test
+    public void friends_feed_samo_prijatelji_bez_blokiranih() throws Exception {
+        wiring();
+        LocalDateTime now = LocalDateTime.now();
+
+        User a = newUser("A","A","a3@ex.com","NS");
+        User f = newUser("F","F","f3@ex.com","NS");
+        User b = newUser("B","B","b3@ex.com","NS");   // prijatelj, ali blokiran
+        User x = newUser("X","X","x3@ex.com","NS");   // nije prijatelj
+        friendRepo.addFriends(a.getId(), f.getId());
+        friendRepo.addFriends(a.getId(), b.getId());
+        friendRepo.block(a.getId(), b.getId());
+
+        Post fromFriend = newPost(f.getId(), "prijatelj #x", "#x");
+        Post oldFromFriend = newPost(f.getId(), "stara #x", "#x");
+        newPost(b.getId(), "blokiran #x", "#x");
+        newPost(x.getId(), "stranac #x", "#x");
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE posts SET created_at = now() - interval '30 hours' WHERE id = '" + oldFromFriend.getId() + "'");
+        }
+
+        List<Post> feed = feedService.friendFeed(a.getId(), now);
+        assertThat(feed.stream().map(Post::getId).collect(Collectors.toList()),
+                is(Collections.singletonList(fromFriend.getId())));
+    }
+
+    @Test
+    public void friends_feed_strane_po_kursoru_bez_duplikata() throws Exception {
+        wiring();
+        LocalDateTime now = LocalDateTime.now();
+
+        User a = newUser("A","A","a4@ex.com","NS");
+        User f = newUser("F","F","f4@ex.com","NS");
+        friendRepo.addFriends(a.getId(), f.getId());
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) expected.add(newPost(f.getId(), "objava " + i + " #x", "#x").getId());
+        // dve objave sa istim created_at: redosled mora da drži id
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE posts SET created_at = date_trunc('second', now()) - interval '1 hour' WHERE id IN ('"
+                    + expected.get(0) + "','" + expected.get(1) + "')");
+        }
+        Set<String> all = new HashSet<>(feedService.friendFeed(a.getId(), now).stream().map(Post::getId).collect(Collectors.toList()));
+
+        List<String> seen = new ArrayList<>();
+        PostCursor cursor = null;
+        int pages = 0;
+        do {
+            // kursor ide kroz klijenta kao string
+            PostPage page = feedService.friendFeed(a.getId(), now, cursor, 2);
+            assertThat(page.getPosts().size() <= 2, is(true));
+            page.getPosts().forEach(p -> seen.add(p.getId()));
+            cursor = PostCursor.decode(page.getNextCursorToken());
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages, is(3));
+        assertThat(seen.size(), is(5));
+        assertThat(new HashSet<>(seen), is(all));
+    }
 }
@@ -0,0 +1,164 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import http.Abortable;
+import http.JsonStream;
+import http.Transport;
+
+public class JsonStreamTest {
+
+    private static final Gson GSON = new Gson();
+
+    // niz objekata, pa greška posle n-tog (posle prvog pražnjenja bafera -> zaglavlja su otišla)
+    private static JsonStream.Content items(int n, boolean failAtEnd) {
+        return js -> {
+            js.writer().beginArray();
+            for (int i = 0; i < n; i++) js.value(new Item(i));
+            if (failAtEnd) throw new IllegalStateException("db connection lost");
+            js.writer().endArray();
+        };
+    }
+
+    static final class Item {
+        final int id;
+        final String text = "Lorem ipsum dolor sit amet, consectetur adipiscing elit";
+
+        Item(int id) { this.id = id; }
+    }
+
+    private static String text(StubExchange ex) {
+        return new String(ex.body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // JSON string tačno zadate dužine u bajtovima (sa navodnicima)
+    private static JsonStream.Content stringOf(int bytes) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < bytes - 2) sb.append('x');
+        return js -> js.value(sb.toString());
+    }
+
+    @Test
+    public void maliOdgovor_tacnaDuzina() throws IOException {
+        StubExchange ex = new StubExchange("GET", "/api/posts");
+        JsonStream.respond(ex, 200, GSON, items(10, false));
+
+        assertThat(ex.status, is(200));
+        assertThat(ex.length, is((long) ex.body.size()));
+        assertThat(GSON.fromJson(text(ex), Item[].class).length, is(10));
+        assertThat(ex.isClosed(), is(true));
+    }
+
+    @Test
+    public void prekoBafera_chunked() throws IOException {
+        StubExchange ex = new StubExchange("GET", "/api/posts");
+        JsonStream.respond(ex, 200, GSON, items(500, false));
+
+        assertThat(ex.length, is(0L));
+        assertThat(ex.body.size() > JsonStream.BUFFER, is(true));
+        assertThat(GSON.fromJson(text(ex), Item[].class).length, is(500));
+        assertThat(ex.isClosed(), is(true));
+    }
+
+    @Test
+    public void granicaBafera_8KiB() throws IOException {
+        StubExchange full = new StubExchange("GET", "/api/posts");
+        JsonStream.respond(full, 200, GSON, stringOf(JsonStream.BUFFER));
+        assertThat(full.length, is((long) JsonStream.BUFFER));
+
+        StubExchange over = new StubExchange("GET", "/api/posts");
+        JsonStream.respond(over, 200, GSON, stringOf(JsonStream.BUFFER + 1));
+        assertThat(over.length, is(0L));
+        assertThat(over.body.size(), is(JsonStream.BUFFER + 1));
+    }
+
+    @Test
+    public void greskaPreZaglavlja_500() throws IOException {
+        StubExchange ex = new StubExchange("GET", "/api/posts");
+        JsonStream.respond(ex, 200, GSON, items(3, true));
+
+        assertThat(ex.status, is(500));
+        assertThat(text(ex), is("{\"error\":\"internal error\"}"));
+        assertThat(ex.length, is((long) ex.body.size()));
+        assertThat(ex.isClosed(), is(true));
+    }
+
+    @Test
+    public void greskaPosleZaglavlja_prekidIIzuzetakIdeDalje() throws IOException {
+        AtomicBoolean aborted = new AtomicBoolean();
+        StubExchange ex = new StubExchange("GET", "/api/posts");
+        ex.setAttribute(Abortable.ATTRIBUTE, (Abortable) () -> aborted.set(true));
+        try {
+            JsonStream.respond(ex, 200, GSON, items(2000, true));
+            fail("exception expected");
+        } catch (IllegalStateException expected) {
+            // WorkPools / HttpServer beleže grešku
+        }
+        assertThat(ex.status, is(200));
+        assertThat(ex.length, is(0L));
+        assertThat(aborted.get(), is(true));
+        assertThat(text(ex).endsWith("]"), is(false));
+    }
+
+    @Test
+    public void prekidPosleZaglavlja_nioVezaBezZavrsnogChunka() throws Exception {
+        assertAbortedOnSocket("nio");
+    }
+
+    @Test
+    public void prekidPosleZaglavlja_jdkVezaBezZavrsnogChunka() throws Exception {
+        assertAbortedOnSocket("jdk");
+    }
+
+    private static void assertAbortedOnSocket(String type) throws Exception {
+        String previous = System.getProperty("http.transport");
+        System.setProperty("http.transport", type);
+        Transport t;
+        try {
+            t = Transport.create(0);
+        } finally {
+            if (previous == null) System.clearProperty("http.transport");
+            else System.setProperty("http.transport", previous);
+        }
+        t.createContext("/stream", ex -> JsonStream.respond(ex, 200, GSON, items(2000, true)));
+        t.start();
+        try (Socket s = new Socket("127.0.0.1", t.address().getPort())) {
+            s.setSoTimeout(5000);
+            s.getOutputStream().write("GET /stream HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            String raw = new String(readToEof(s.getInputStream()), StandardCharsets.ISO_8859_1);
+
+            assertThat(raw.startsWith("HTTP/1.1 200"), is(true));
+            assertThat(raw.toLowerCase().contains("transfer-encoding: chunked"), is(true));
+            // klijent mora da vidi prekid: nema "0\r\n\r\n" ni zatvorenog niza
+            assertThat(raw.endsWith("\r\n0\r\n\r\n"), is(false));
+            assertThat(raw.contains("]"), is(false));
+        } finally {
+            t.stop();
+        }
+    }
+
+    private static byte[] readToEof(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        try {
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+        } catch (java.net.SocketException reset) {
+            // RST umesto FIN je isto prekid
+        }
+        return out.toByteArray();
+    }
+}
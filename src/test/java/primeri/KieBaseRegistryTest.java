@@ -0,0 +1,83 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+
+import dto.LoginRequest;
+import model.ValidationResult;
+import util.KieBaseRegistry;
+import util.KieBaseRegistry.Base;
+import util.ValidationFlow;
+
+public class KieBaseRegistryTest {
+
+    @Test
+    public void init_gradiBazeJednom_iVracaIsteInstance() {
+        KieBaseRegistry r = KieBaseRegistry.init();
+        assertThat(KieBaseRegistry.init(), sameInstance(r));
+        for (Base b : Base.values()) {
+            assertThat(r.kieBase(b), notNullValue());
+            assertThat(KieBaseRegistry.get().kieBase(b), sameInstance(r.kieBase(b)));
+        }
+        for (ValidationFlow f : ValidationFlow.values()) {
+            assertThat(r.kieBase(f), notNullValue());
+        }
+    }
+
+    @Test
+    public void validacije_nisuUDeljenomRulesKbase() {
+        KieBaseRegistry r = KieBaseRegistry.get();
+        assertThat(r.kieBase(ValidationFlow.LOGIN), not(sameInstance(r.kieBase(Base.FEED))));
+        assertThat(r.kieBase(Base.FEED).getKiePackage("rules.validation.login"), nullValue());
+        assertThat(r.kieBase(ValidationFlow.LOGIN).getKiePackage("rules.validation.login"), notNullValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void networkStats_validacioniKbaseJeManjiOdFeed() {
+        Map<String, Object> stats = KieBaseRegistry.get().networkStats();
+        assertThat(stats.size(), is(Base.values().length + ValidationFlow.values().length));
+
+        Map<String, Object> login = (Map<String, Object>) stats.get(ValidationFlow.LOGIN.kbaseName);
+        Map<String, Object> feed = (Map<String, Object>) stats.get(Base.FEED.kbaseName);
+        Map<String, Object> moderation = (Map<String, Object>) stats.get(Base.MODERATION.kbaseName);
+        assertThat((Integer) login.get("nodes") < (Integer) feed.get("nodes"), is(true));
+        assertThat(login.get("mode"), is((Object) "cloud"));
+        assertThat(moderation.get("mode"), is((Object) "stream"));
+    }
+
+    @Test
+    public void sesijeDeleIstuBazu() {
+        KieBaseRegistry r = KieBaseRegistry.get();
+        KieSession a = r.newSession(Base.FEED);
+        KieSession b = r.newSession(Base.FEED);
+        try {
+            assertThat(a.getKieBase(), sameInstance(b.getKieBase()));
+            assertThat(a.getKieBase(), sameInstance(r.kieBase(Base.FEED)));
+        } finally {
+            a.dispose();
+            b.dispose();
+        }
+    }
+
+    @Test
+    public void sesijaIzRegistra_okidaLoginPravila() {
+        StatelessKieSession ks = KieBaseRegistry.get().validationSession(ValidationFlow.LOGIN);
+        ks.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+        ValidationResult vr = new ValidationResult();
+
+        assertThat(ValidationFlow.fired(ValidationFlow.LOGIN.execute(ks, new LoginRequest("", ""), vr)), is(2));
+        assertThat(vr.getErrors().size(), is(2));
+    }
+}
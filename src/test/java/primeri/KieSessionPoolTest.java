@@ -0,0 +1,82 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.runtime.KieSession;
+
+import dto.FriendFeedRequest;
+import model.ValidationResult;
+import util.KieBaseRegistry;
+import util.KieBaseRegistry.Base;
+import util.KieSessionPool;
+
+public class KieSessionPoolTest {
+
+    private static KieSessionPool newPool(int size) {
+        return new KieSessionPool("test", KieBaseRegistry.get().kieBase(Base.FEED), size, 100, 0, false);
+    }
+
+    // prazan userId -> samo "FeedFriends: userId prazan", bez odlaska u bazu
+    private static int fireFeedValidate(KieSession ks, ValidationResult vr) {
+        ks.insert(new FriendFeedRequest(""));
+        ks.insert(vr);
+        ks.getAgenda().getAgendaGroup("feed-friends-validate").setFocus();
+        return ks.fireAllRules();
+    }
+
+    @Test
+    public void vracenaSesija_seResetuje_iPonovoKoristi() {
+        KieSessionPool pool = newPool(1);
+
+        KieSession a = pool.borrow();
+        assertThat(fireFeedValidate(a, new ValidationResult()), is(1));
+        pool.release(a);
+
+        KieSession b = pool.borrow();
+        try {
+            assertThat(b, sameInstance(a));
+            assertThat(b.getFactCount(), is(0L));
+            ValidationResult vr = new ValidationResult();
+            assertThat(fireFeedValidate(b, vr), is(1));
+            assertThat(vr.getErrors().size(), is(1));
+        } finally {
+            pool.release(b);
+        }
+        assertThat(pool.stats().get("created"), is((Object) 1L));
+    }
+
+    @Test
+    public void dodatiListeneri_seSkidajuPriVracanju() {
+        KieSessionPool pool = newPool(1);
+        KieSession ks = pool.borrow();
+        int before = ks.getAgendaEventListeners().size();
+        ks.addEventListener(new DefaultAgendaEventListener());
+        pool.release(ks);
+
+        KieSession again = pool.borrow();
+        try {
+            assertThat(again.getAgendaEventListeners().size(), is(before));
+        } finally {
+            pool.release(again);
+        }
+    }
+
+    @Test
+    public void prazanPool_istekneTimeout() {
+        KieSessionPool pool = newPool(1);
+        KieSession ks = pool.borrow();
+        try {
+            pool.borrow();
+            fail("expected timeout");
+        } catch (IllegalStateException expected) {
+            assertThat(pool.stats().get("timeouts"), is((Object) 1L));
+        } finally {
+            pool.release(ks);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import dto.SimilarUser;
+import util.LikeIndex;
+
+import java.util.*;
+
+public class LikeIndexTest {
+
+    private static Set<String> set(String... ids) { return new HashSet<>(Arrays.asList(ids)); }
+
+    private static Map<String, Double> scores(List<SimilarUser> list) {
+        Map<String, Double> m = new HashMap<>();
+        for (SimilarUser su : list) m.put(su.getOtherUserId(), su.getScore());
+        return m;
+    }
+
+    @Test
+    public void samoKorisniciSaZajednickimLajkom() {
+        Map<String, Set<String>> liked = new HashMap<>();
+        liked.put("me", set("p1", "p2"));
+        liked.put("a", set("p1", "p2"));        // 2/2 = 1.0
+        liked.put("b", set("p1", "p3"));        // 1/3
+        liked.put("c", set("p4"));              // nema preseka
+
+        Map<String, Double> s = scores(new LikeIndex(liked).similarTo("me", liked.get("me"), 0.0));
+        assertThat(s.size(), is(2));
+        assertThat(s.get("a"), is(1.0));
+        assertThat(s.get("b"), is(1.0 / 3.0));
+    }
+
+    @Test
+    public void pragIBezLajkova() {
+        Map<String, Set<String>> liked = new HashMap<>();
+        liked.put("me", set("p1", "p2"));
+        liked.put("a", set("p1", "p2", "p3"));  // 2/3
+        liked.put("b", set("p1", "p3", "p4"));  // 1/4
+
+        LikeIndex idx = new LikeIndex(liked);
+        assertThat(scores(idx.similarTo("me", liked.get("me"), 0.5)).keySet(), is(set("a")));
+        assertThat(idx.similarTo("nobody", Collections.<String>emptySet(), 0.5).isEmpty(), is(true));
+    }
+
+    @Test
+    public void istoKaoPunJaccardSken() {
+        Random rnd = new Random(42);
+        Map<String, Set<String>> liked = new HashMap<>();
+        for (int u = 0; u < 300; u++) {
+            Set<String> posts = new HashSet<>();
+            int n = rnd.nextInt(8);
+            for (int i = 0; i < n; i++) posts.add("p" + rnd.nextInt(60));
+            liked.put("u" + u, posts);
+        }
+        LikeIndex idx = new LikeIndex(liked);
+        for (String me : liked.keySet()) {
+            Set<String> mine = liked.get(me);
+            Map<String, Double> expected = new HashMap<>();
+            for (Map.Entry<String, Set<String>> e : liked.entrySet()) {
+                if (e.getKey().equals(me)) continue;
+                Set<String> union = new HashSet<>(mine); union.addAll(e.getValue());
+                if (union.isEmpty()) continue;
+                Set<String> inter = new HashSet<>(mine); inter.retainAll(e.getValue());
+                double score = (double) inter.size() / union.size();
+                if (score >= 0.5) expected.put(e.getKey(), score);
+            }
+            assertThat(scores(idx.similarTo(me, mine, 0.5)), is(expected));
+        }
+    }
+
+    @Test
+    public void addLike_dopunjujeIndeks() {
+        Map<String, Set<String>> liked = new HashMap<>();
+        liked.put("me", set("p1", "p2"));
+        liked.put("a", set("p1"));              // 1/2
+
+        LikeIndex idx = new LikeIndex(liked);
+        assertThat(idx.addLike("a", "p2"), is(true));
+        assertThat(idx.addLike("a", "p2"), is(false));
+        assertThat(idx.addLike("b", "p2"), is(true));   // novi korisnik, 1/2
+
+        assertThat(new HashSet<>(idx.likersOf("p2")), is(set("me", "a", "b")));
+        Map<String, Double> s = scores(idx.similarTo("me", idx.likedPosts("me"), 0.5));
+        assertThat(s.get("a"), is(1.0));
+        assertThat(s.get("b"), is(0.5));
+    }
+}
@@ -5,16 +5,18 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
-import org.kie.api.runtime.ClassObjectFilter;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
 import dto.LoginRequest;
@@ -22,6 +24,7 @@ import model.User;
 import model.ValidationResult;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 import util.PasswordHasher;
 
 public class LoginTest {
@@ -50,123 +53,96 @@ public class LoginTest {
     @Test
     @SuppressWarnings("unchecked")
     public void login_praznaPolja_okida3Pravila() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository repo = new UserRepository();
-            kSession.setGlobal("userRepo", repo);
-            kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
-
-            LoginRequest req = new LoginRequest("", "");
-            ValidationResult vr = new ValidationResult();
-
-            kSession.insert(req);
-            kSession.insert(vr);
-
-            kSession.getAgenda().getAgendaGroup("login").setFocus();
-            int fired = kSession.fireAllRules();
-
-            // očekujemo: email prazan, lozinka prazna, (email format se ne puca jer je email prazan)
-            assertThat(fired, is(2));
-
-            Collection<ValidationResult> vrs =
-                (Collection<ValidationResult>) kSession.getObjects(new ClassObjectFilter(ValidationResult.class));
-            ValidationResult vrFromSession = vrs.iterator().next();
-            String msg = String.join("|", vrFromSession.getErrors());
-            assertThat(msg.contains("Unesite mejl"), is(true));
-            assertThat(msg.contains("Unesite lozinku"), is(true));
-        } finally {
-            kSession.dispose();
-        }
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "login-session");
+        UserRepository repo = new UserRepository();
+        kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+
+        LoginRequest req = new LoginRequest("", "");
+        ValidationResult vr = new ValidationResult();
+
+        ExecutionResults res = ValidationFlow.LOGIN.execute(kSession, userFacts(repo, req.email), req, vr);
+        int fired = ValidationFlow.fired(res);
+
+        // očekujemo: email prazan, lozinka prazna, (email format se ne puca jer je email prazan)
+        assertThat(fired, is(2));
+
+        Collection<ValidationResult> vrs =
+            (Collection<ValidationResult>) res.getValue(ValidationFlow.RESULTS);
+        ValidationResult vrFromSession = vrs.iterator().next();
+        String msg = String.join("|", vrFromSession.getErrors());
+        assertThat(msg.contains("Unesite mejl"), is(true));
+        assertThat(msg.contains("Unesite lozinku"), is(true));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     public void login_nepostojeciKorisnik_okida1Pravilo() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository repo = new UserRepository();
-            kSession.setGlobal("userRepo", repo);
-            kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
-
-            LoginRequest req = new LoginRequest("nema@primer.com", "tajna123");
-            ValidationResult vr = new ValidationResult();
-
-            kSession.insert(req);
-            kSession.insert(vr);
-
-            kSession.getAgenda().getAgendaGroup("login").setFocus();
-            int fired = kSession.fireAllRules();
-
-            assertThat(fired, is(1)); // "Korisnik ne postoji"
-
-            Collection<ValidationResult> vrs =
-                (Collection<ValidationResult>) kSession.getObjects(new ClassObjectFilter(ValidationResult.class));
-            ValidationResult vrFromSession = vrs.iterator().next();
-            String msg = String.join("|", vrFromSession.getErrors());
-            assertThat(msg.contains("Korisnik ne postoji"), is(true));
-        } finally {
-            kSession.dispose();
-        }
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "login-session");
+        UserRepository repo = new UserRepository();
+        kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+
+        LoginRequest req = new LoginRequest("nema@primer.com", "tajna123");
+        ValidationResult vr = new ValidationResult();
+
+        ExecutionResults res = ValidationFlow.LOGIN.execute(kSession, userFacts(repo, req.email), req, vr);
+        int fired = ValidationFlow.fired(res);
+
+        assertThat(fired, is(1)); // "Korisnik ne postoji"
+
+        Collection<ValidationResult> vrs =
+            (Collection<ValidationResult>) res.getValue(ValidationFlow.RESULTS);
+        ValidationResult vrFromSession = vrs.iterator().next();
+        String msg = String.join("|", vrFromSession.getErrors());
+        assertThat(msg.contains("Korisnik ne postoji"), is(true));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     public void login_pogresnaLozinka_okida1Pravilo() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository repo = new UserRepository();
-            // u repo upiši korisnika
-            User u = new User("Pera", "Peric", "pera@example.com", PasswordHasher.sha256("ispravna"), "Beograd");
-            repo.save(u);
-
-            kSession.setGlobal("userRepo", repo);
-            kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
-
-            LoginRequest req = new LoginRequest("pera@example.com", "pogresna");
-            ValidationResult vr = new ValidationResult();
-
-            kSession.insert(req);
-            kSession.insert(vr);
-
-            kSession.getAgenda().getAgendaGroup("login").setFocus();
-            int fired = kSession.fireAllRules();
-
-            assertThat(fired, is(1)); // "Pogrešna lozinka"
-
-            Collection<ValidationResult> vrs =
-                (Collection<ValidationResult>) kSession.getObjects(new ClassObjectFilter(ValidationResult.class));
-            ValidationResult vrFromSession = vrs.iterator().next();
-            String msg = String.join("|", vrFromSession.getErrors());
-            assertThat(msg.contains("Pogrešna lozinka"), is(true));
-        } finally {
-            kSession.dispose();
-        }
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "login-session");
+        UserRepository repo = new UserRepository();
+        // u repo upiši korisnika
+        User u = new User("Pera", "Peric", "pera@example.com", PasswordHasher.sha256("ispravna"), "Beograd");
+        repo.save(u);
+        kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+
+        LoginRequest req = new LoginRequest("pera@example.com", "pogresna");
+        ValidationResult vr = new ValidationResult();
+
+        ExecutionResults res = ValidationFlow.LOGIN.execute(kSession, userFacts(repo, req.email), req, vr);
+        int fired = ValidationFlow.fired(res);
+
+        assertThat(fired, is(1)); // "Pogrešna lozinka"
+
+        Collection<ValidationResult> vrs =
+            (Collection<ValidationResult>) res.getValue(ValidationFlow.RESULTS);
+        ValidationResult vrFromSession = vrs.iterator().next();
+        String msg = String.join("|", vrFromSession.getErrors());
+        assertThat(msg.contains("Pogrešna lozinka"), is(true));
     }
 
     @Test
     public void login_uspeh_neOkidaNista() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository repo = new UserRepository();
-            User u = new User("Ana", "Anić", "ana@example.com", PasswordHasher.sha256("tajna123"), "Kragujevac");
-            repo.save(u);
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "login-session");
+        UserRepository repo = new UserRepository();
+        User u = new User("Ana", "Anić", "ana@example.com", PasswordHasher.sha256("tajna123"), "Kragujevac");
+        repo.save(u);
+        kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
 
-            kSession.setGlobal("userRepo", repo);
-            kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+        LoginRequest req = new LoginRequest("ana@example.com", "tajna123");
+        ValidationResult vr = new ValidationResult();
 
-            LoginRequest req = new LoginRequest("ana@example.com", "tajna123");
-            ValidationResult vr = new ValidationResult();
+        ExecutionResults res = ValidationFlow.LOGIN.execute(kSession, userFacts(repo, req.email), req, vr);
+        int fired = ValidationFlow.fired(res);
 
-            kSession.insert(req);
-            kSession.insert(vr);
-
-            kSession.getAgenda().getAgendaGroup("login").setFocus();
-            int fired = kSession.fireAllRules();
+        assertThat(fired, is(0));
+        assertThat(vr.isOk(), is(true));
+    }
 
-            assertThat(fired, is(0));
-            assertThat(vr.isOk(), is(true));
-        } finally {
-            kSession.dispose();
-        }
+    // kao AuthService: korisnik sa tim mejlom (ako postoji) ide u sesiju kao činjenica
+    private static List<Object> userFacts(UserRepository repo, String email) {
+        List<Object> out = new ArrayList<>();
+        repo.findByEmail(email).ifPresent(out::add);
+        return out;
     }
 }
@@ -108,7 +108,7 @@ public class ModerationDetectTest {
         // 9 prijava 30–40h unazad => unutar 48h, ali VAN 24h
         for (int i = 0; i < 9; i++) {
             long ts = now - (30L * 3_600_000L) - i * 1_000L;
-            mr.recordReportAt(a.getId(), r.getId(), UUID.randomUUID().toString()+i, ts);
+            mr.recordReportAt(a.getId(), r.getId(), UUID.randomUUID().toString(), ts);
         }
 
         List<ModerationEventsRepository.Flagged> flags = svc.detectAndSuspend();
@@ -217,7 +217,7 @@ public class ModerationDetectTest {
         for (int i = 0; i < 11; i++) {
             long daysAgo = 2 + (i % 5);
             long ts = now - daysAgo * 24L * 3_600_000L - i * 1_000L;
-            mr.recordReportAt(a.getId(), r.getId(), UUID.randomUUID().toString()+i, ts);
+            mr.recordReportAt(a.getId(), r.getId(), UUID.randomUUID().toString(), ts);
         }
 
         List<ModerationEventsRepository.Flagged> flags = svc.detectAndSuspend();
@@ -246,7 +246,7 @@ public class ModerationDetectTest {
 
         for (int i = 0; i < 4; i++) {
             long ts = now - (30L * H) - i * 1_000L;
-            mr.recordReportAt(a.getId(), r.getId(), UUID.randomUUID().toString()+i, ts);
+            mr.recordReportAt(a.getId(), r.getId(), UUID.randomUUID().toString(), ts);
         }
 
         mr.recordBlockAt(b1.getId(), a.getId(), now - 13L * H);
@@ -12,18 +12,22 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
 import dto.MyPostsRequest;
 import model.User;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 
 public class MyPostsTest {
 
     static KieContainer kieContainer;
+    static final FactRepository facts = new FactRepository();
 
     @BeforeClass
     public static void beforeClass() {
@@ -46,65 +50,46 @@ public class MyPostsTest {
     
     @Test
     public void userId_prazan_okida1Pravilo() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository userRepo = new UserRepository();
-            kSession.setGlobal("userRepo", userRepo);
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "my-posts-session");
+        UserRepository userRepo = new UserRepository();
 
-            ValidationResult vr = new ValidationResult();
-            kSession.insert(new MyPostsRequest(""));
-            kSession.insert(vr);
+        ValidationResult vr = new ValidationResult();
 
-            kSession.getAgenda().getAgendaGroup("my-posts").setFocus();
-            int fired = kSession.fireAllRules();
+        MyPostsRequest req = new MyPostsRequest("");
+        ExecutionResults res = ValidationFlow.MY_POSTS.execute(kSession, facts.forUsers(req.userId), req, vr);
+        int fired = ValidationFlow.fired(res);
 
-            assertThat(fired, is(1)); // "Niste ulogovani (userId nedostaje)."
-        } finally {
-            kSession.dispose();
-        }
+        assertThat(fired, is(1)); // "Niste ulogovani (userId nedostaje)."
     }
 
     @Test
     public void user_ne_postoji_okida1Pravilo() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository userRepo = new UserRepository(); // prazan
-            kSession.setGlobal("userRepo", userRepo);
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "my-posts-session");
+        UserRepository userRepo = new UserRepository(); // prazan
 
-            ValidationResult vr = new ValidationResult();
-            kSession.insert(new MyPostsRequest(UUID.randomUUID().toString()));
-            kSession.insert(vr);
+        ValidationResult vr = new ValidationResult();
 
-            kSession.getAgenda().getAgendaGroup("my-posts").setFocus();
-            int fired = kSession.fireAllRules();
+        MyPostsRequest req = new MyPostsRequest(UUID.randomUUID().toString());
+        ExecutionResults res = ValidationFlow.MY_POSTS.execute(kSession, facts.forUsers(req.userId), req, vr);
+        int fired = ValidationFlow.fired(res);
 
-            assertThat(fired, is(1)); // "Korisnik ne postoji."
-        } finally {
-            kSession.dispose();
-        }
+        assertThat(fired, is(1)); // "Korisnik ne postoji."
     }
 
     @Test
     public void validan_user_ne_okida_pravila() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository userRepo = new UserRepository();
-            User u = new User("Pera","Peric","pera@example.com","hash","Beograd");
-            userRepo.save(u);
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "my-posts-session");
+        UserRepository userRepo = new UserRepository();
+        User u = new User("Pera","Peric","pera@example.com","hash","Beograd");
+        userRepo.save(u);
 
-            kSession.setGlobal("userRepo", userRepo);
+        ValidationResult vr = new ValidationResult();
 
-            ValidationResult vr = new ValidationResult();
-            kSession.insert(new MyPostsRequest(u.getId()));
-            kSession.insert(vr);
+        MyPostsRequest req = new MyPostsRequest(u.getId());
+        ExecutionResults res = ValidationFlow.MY_POSTS.execute(kSession, facts.forUsers(req.userId), req, vr);
+        int fired = ValidationFlow.fired(res);
 
-            kSession.getAgenda().getAgendaGroup("my-posts").setFocus();
-            int fired = kSession.fireAllRules();
-
-            assertThat(fired, is(0));
-            assertThat(vr.isOk(), is(true));
-        } finally {
-            kSession.dispose();
-        }
+        assertThat(fired, is(0));
+        assertThat(vr.isOk(), is(true));
     }
 }
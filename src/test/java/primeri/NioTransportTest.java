@@ -0,0 +1,343 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import http.Transport;
+
+public class NioTransportTest {
+
+    private static final int BIG = 16 * 1024 * 1024;
+
+    private Transport transport;
+    private final CountDownLatch bigDone = new CountDownLatch(1);
+
+    @Before
+    public void start() throws IOException {
+        transport = Transport.create(0);
+        transport.createContext("/hello", ex -> {
+            ex.sendResponseHeaders(200, 5);
+            if (!"HEAD".equals(ex.getRequestMethod())) ex.getResponseBody().write(ascii("hello"));
+            ex.close();
+        });
+        transport.createContext("/chunked", ex -> {
+            ex.sendResponseHeaders(200, 0);
+            OutputStream os = ex.getResponseBody();
+            os.write(ascii("part1-"));
+            os.flush();
+            os.write(ascii("part2"));
+            ex.close();
+        });
+        transport.createContext("/echo", ex -> {
+            byte[] body = readAll(ex.getRequestBody());
+            ex.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) ex.getResponseBody().write(body);
+            ex.close();
+        });
+        // kao Filter: tokove omota pre handler-a (odgovor pre sendResponseHeaders)
+        transport.createContext("/filtered", ex -> {
+            InputStream original = ex.getRequestBody();
+            OutputStream raw = ex.getResponseBody();
+            ex.setStreams(new SequenceInputStream(new ByteArrayInputStream(ascii("in:")), original),
+                    new FilterOutputStream(raw) {
+                        @Override public void write(int b) throws IOException { out.write(Character.toUpperCase(b)); }
+                    });
+            byte[] body = readAll(ex.getRequestBody());
+            ex.sendResponseHeaders(200, body.length);
+            ex.getResponseBody().write(body);
+            ex.close();
+        });
+        transport.createContext("/empty", ex -> {
+            ex.sendResponseHeaders(204, -1);
+            ex.close();
+        });
+        transport.createContext("/big", ex -> {
+            ex.sendResponseHeaders(200, BIG);
+            byte[] chunk = new byte[64 * 1024];
+            try (OutputStream os = ex.getResponseBody()) {
+                for (int sent = 0; sent < BIG; sent += chunk.length) os.write(chunk);
+            }
+            bigDone.countDown();
+        });
+        transport.start();
+        assertThat(transport.stats().get("type"), is((Object) "nio"));
+    }
+
+    @After
+    public void stop() {
+        transport.stop();
+    }
+
+    @Test
+    public void keepAlive_istaVezaZaViseZahteva() throws IOException {
+        try (Socket s = connect()) {
+            send(s, "GET /hello HTTP/1.1\r\nHost: x\r\n\r\n");
+            Response first = read(s, false);
+            send(s, "GET /hello HTTP/1.1\r\nHost: x\r\n\r\n");
+            Response second = read(s, false);
+
+            assertThat(first.status, is(200));
+            assertThat(first.text(), is("hello"));
+            assertThat(first.header("content-length"), is("5"));
+            assertThat(second.text(), is("hello"));
+        }
+        assertThat(transport.stats().get("accepted"), is((Object) 1L));
+        assertThat(transport.stats().get("keepAliveReuse"), is((Object) 1L));
+    }
+
+    @Test
+    public void pipelining_odgovoriIstimRedom() throws IOException {
+        try (Socket s = connect()) {
+            send(s, "POST /echo HTTP/1.1\r\nHost: x\r\nContent-Length: 1\r\n\r\na"
+                    + "POST /echo HTTP/1.1\r\nHost: x\r\nContent-Length: 2\r\n\r\nbb"
+                    + "GET /hello HTTP/1.1\r\nHost: x\r\n\r\n");
+            assertThat(read(s, false).text(), is("a"));
+            assertThat(read(s, false).text(), is("bb"));
+            assertThat(read(s, false).text(), is("hello"));
+        }
+        assertThat(transport.stats().get("keepAliveReuse"), is((Object) 2L));
+        assertThat((Long) transport.stats().get("pipelined") >= 1, is(true));
+    }
+
+    @Test
+    public void expect100_continuePaTelo() throws IOException {
+        try (Socket s = connect()) {
+            send(s, "POST /echo HTTP/1.1\r\nHost: x\r\nContent-Length: 5\r\nExpect: 100-continue\r\n\r\n");
+            Response cont = read(s, false);
+            assertThat(cont.status, is(100));
+
+            send(s, "12345");
+            Response ok = read(s, false);
+            assertThat(ok.status, is(200));
+            assertThat(ok.text(), is("12345"));
+        }
+    }
+
+    @Test
+    public void neispravniZahtevi_odbijajuSeIZatvarajuVezu() throws IOException {
+        StringBuilder huge = new StringBuilder("GET /hello HTTP/1.1\r\nX-Fill: ");
+        while (huge.length() < 16384) huge.append('a');
+        assertRejected(huge.toString(), 431);
+        assertRejected("POST /echo HTTP/1.1\r\nHost: x\r\nContent-Length: 2000000\r\n\r\n", 413);
+        assertRejected("POST /echo HTTP/1.1\r\nHost: x\r\nTransfer-Encoding: chunked\r\n\r\n", 411);
+        assertRejected("GET /nope HTTP/1.1\r\nHost: x\r\n\r\n", 404);
+        assertThat(transport.stats().get("rejected"), is((Object) 4L));
+    }
+
+    @Test
+    public void chunkedIliFiksnaDuzina_premaDuziniOdgovora() throws IOException {
+        try (Socket s = connect()) {
+            send(s, "GET /chunked HTTP/1.1\r\nHost: x\r\n\r\n");
+            Response chunked = read(s, false);
+            assertThat(chunked.header("transfer-encoding"), is("chunked"));
+            assertThat(chunked.header("content-length"), is(nullValue()));
+            assertThat(chunked.text(), is("part1-part2"));
+
+            send(s, "GET /hello HTTP/1.1\r\nHost: x\r\n\r\n");
+            Response fixed = read(s, false);
+            assertThat(fixed.header("transfer-encoding"), is(nullValue()));
+            assertThat(fixed.header("content-length"), is("5"));
+            assertThat(fixed.text(), is("hello"));
+        }
+    }
+
+    @Test
+    public void http10_bezKeepAliveZatvaraVezu() throws IOException {
+        try (Socket s = connect()) {
+            send(s, "GET /chunked HTTP/1.0\r\n\r\n");
+            Response r = read(s, false);
+            assertThat(r.header("transfer-encoding"), is(nullValue()));
+            assertThat(r.header("connection"), is("close"));
+            assertThat(r.text(), is("part1-part2"));   // telo do zatvaranja veze
+        }
+        try (Socket s = connect()) {
+            send(s, "GET /hello HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+            Response r = read(s, false);
+            assertThat(r.header("connection"), is("keep-alive"));
+            assertThat(r.text(), is("hello"));
+
+            send(s, "GET /hello HTTP/1.0\r\n\r\n");
+            Response last = read(s, false);
+            assertThat(last.header("connection"), is("close"));
+            assertThat(last.text(), is("hello"));
+            assertThat(s.getInputStream().read(), is(-1));
+        }
+    }
+
+    @Test
+    public void setStreams_filterOmotavaTokove() throws IOException {
+        try (Socket s = connect()) {
+            send(s, "POST /filtered HTTP/1.1\r\nHost: x\r\nContent-Length: 3\r\n\r\nabc");
+            Response r = read(s, false);
+            assertThat(r.status, is(200));
+            assertThat(r.text(), is("IN:ABC"));
+
+            // close() je prošao kroz omotač i završio odgovor: veza je i dalje upotrebljiva
+            send(s, "GET /hello HTTP/1.1\r\nHost: x\r\n\r\n");
+            assertThat(read(s, false).text(), is("hello"));
+        }
+    }
+
+    @Test
+    public void headI204_bezTela() throws IOException {
+        try (Socket s = connect()) {
+            send(s, "HEAD /hello HTTP/1.1\r\nHost: x\r\n\r\n");
+            Response head = read(s, true);
+            assertThat(head.status, is(200));
+            assertThat(head.header("transfer-encoding"), is(nullValue()));
+
+            send(s, "GET /empty HTTP/1.1\r\nHost: x\r\n\r\n");
+            Response empty = read(s, false);
+            assertThat(empty.status, is(204));
+            assertThat(empty.header("content-length"), is(nullValue()));
+            assertThat(empty.header("transfer-encoding"), is(nullValue()));
+
+            // da je posle HEAD/204 stiglo i telo, ovde bi se čitao on umesto novog odgovora
+            send(s, "GET /hello HTTP/1.1\r\nHost: x\r\n\r\n");
+            assertThat(read(s, false).text(), is("hello"));
+        }
+    }
+
+    @Test
+    public void sporKlijent_handlerCekaNaWriteHigh() throws Exception {
+        try (Socket s = new Socket()) {
+            s.setReceiveBufferSize(4096);
+            s.connect(new InetSocketAddress("127.0.0.1", transport.address().getPort()), 5000);
+            s.setSoTimeout(10000);
+            send(s, "GET /big HTTP/1.1\r\nHost: x\r\n\r\n");
+
+            // klijent ne čita: soket i red konekcije prime najviše nekoliko MB, handler mora da stane
+            assertThat(bigDone.await(500, TimeUnit.MILLISECONDS), is(false));
+
+            InputStream in = s.getInputStream();
+            Map<String, String> headers = new HashMap<>();
+            assertThat(statusAndHeaders(in, headers), is(200));
+            long total = 0;
+            byte[] buf = new byte[64 * 1024];
+            while (total < BIG) {
+                int n = in.read(buf);
+                if (n < 0) break;
+                total += n;
+            }
+            assertThat(total, is((long) BIG));
+            assertThat(bigDone.await(5, TimeUnit.SECONDS), is(true));
+        }
+    }
+
+    private void assertRejected(String request, int status) throws IOException {
+        try (Socket s = connect()) {
+            send(s, request);
+            Response r = read(s, false);
+            assertThat(r.status, is(status));
+            assertThat(r.header("connection"), is("close"));
+            assertThat(s.getInputStream().read(), is(-1));
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket s = new Socket("127.0.0.1", transport.address().getPort());
+        s.setSoTimeout(5000);
+        return s;
+    }
+
+    private static void send(Socket s, String raw) throws IOException {
+        s.getOutputStream().write(raw.getBytes(StandardCharsets.ISO_8859_1));
+        s.getOutputStream().flush();
+    }
+
+    private static final class Response {
+        int status;
+        final Map<String, String> headers = new HashMap<>();
+        byte[] body = new byte[0];
+
+        String header(String name) { return headers.get(name); }
+
+        String text() { return new String(body, StandardCharsets.UTF_8); }
+    }
+
+    /** Jedan odgovor sa veze; telo po Content-Length, chunked ili do zatvaranja veze. */
+    private static Response read(Socket s, boolean head) throws IOException {
+        InputStream in = s.getInputStream();
+        Response r = new Response();
+        r.status = statusAndHeaders(in, r.headers);
+        if (head || r.status < 200 || r.status == 204 || r.status == 304) return r;
+        if ("chunked".equals(r.header("transfer-encoding"))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int size;
+            while ((size = Integer.parseInt(line(in).trim(), 16)) > 0) {
+                out.write(readExactly(in, size));
+                line(in);
+            }
+            line(in);
+            r.body = out.toByteArray();
+        } else if (r.header("content-length") != null) {
+            r.body = readExactly(in, Integer.parseInt(r.header("content-length")));
+        } else {
+            r.body = readAll(in);
+        }
+        return r;
+    }
+
+    private static int statusAndHeaders(InputStream in, Map<String, String> headers) throws IOException {
+        String status = line(in);
+        String h;
+        while (!(h = line(in)).isEmpty()) {
+            int colon = h.indexOf(':');
+            headers.put(h.substring(0, colon).trim().toLowerCase(), h.substring(colon + 1).trim());
+        }
+        return Integer.parseInt(status.split(" ")[1]);
+    }
+
+    // bajt po bajt, da ne pročita ništa od sledećeg odgovora
+    private static String line(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) throw new IOException("connection closed in: " + sb);
+            if (b != '\r') sb.append((char) b);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readExactly(InputStream in, int n) throws IOException {
+        byte[] b = new byte[n];
+        for (int off = 0; off < n; ) {
+            int r = in.read(b, off, n - off);
+            if (r < 0) throw new IOException("connection closed after " + off + " of " + n + " bytes");
+            off += r;
+        }
+        return b;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -16,16 +16,20 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
+import repo.FactRepository;
 import repo.PlaceRepository;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 
 public class PlaceAddTest {
 
     static KieContainer kc;
+    static final FactRepository facts = new FactRepository();
 
     @BeforeClass
     public static void beforeClass() {
@@ -43,89 +47,63 @@ public class PlaceAddTest {
     
     @Test
     public void adminId_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            s.setGlobal("userRepo", new UserRepository());
-            s.setGlobal("placeRepo", new PlaceRepository());
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePlaceRequest("", "Bioskop Arena", "Srbija", "Beograd", "opis", "#film"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("place-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "place-add-session");
+        ValidationResult vr = new ValidationResult();
+        CreatePlaceRequest req = new CreatePlaceRequest("", "Bioskop Arena", "Srbija", "Beograd", "opis", "#film");
+        ExecutionResults res = ValidationFlow.PLACE_ADD.execute(s, facts.forPlaceAdd(req.adminId, req.name, req.city), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void nije_admin_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u = new User("Pera","Peric","p@e.com","h","BG"); ur.save(u);
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("placeRepo", new PlaceRepository());
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePlaceRequest(u.getId(), "Bioskop", "Srbija", "Beograd", "", "#film"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("place-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "place-add-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("Pera","Peric","p@e.com","h","BG"); ur.save(u);
+        ValidationResult vr = new ValidationResult();
+        CreatePlaceRequest req = new CreatePlaceRequest(u.getId(), "Bioskop", "Srbija", "Beograd", "", "#film");
+        ExecutionResults res = ValidationFlow.PLACE_ADD.execute(s, facts.forPlaceAdd(req.adminId, req.name, req.city), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void naziv_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User admin = new User("A","D","a@d.com","h","BG"); ur.save(admin); ur.markAsAdmin(admin.getId());
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("placeRepo", new PlaceRepository());
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePlaceRequest(admin.getId(), "   ", "Srbija", "Beograd", "", "#film"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("place-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "place-add-session");
+        UserRepository ur = new UserRepository();
+        User admin = new User("A","D","a@d.com","h","BG"); ur.save(admin); ur.markAsAdmin(admin.getId());
+        ValidationResult vr = new ValidationResult();
+        CreatePlaceRequest req = new CreatePlaceRequest(admin.getId(), "   ", "Srbija", "Beograd", "", "#film");
+        ExecutionResults res = ValidationFlow.PLACE_ADD.execute(s, facts.forPlaceAdd(req.adminId, req.name, req.city), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void duplikat_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User admin = new User("A","D","a@d.com","h","BG"); ur.save(admin); ur.markAsAdmin(admin.getId());
-
-            PlaceRepository pr = new PlaceRepository();
-            pr.save(new Place("Bioskop Arena", "Srbija", "Beograd", "", new java.util.HashSet<String>()));
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("placeRepo", pr);
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePlaceRequest(admin.getId(), "Bioskop Arena", "Srbija", "Beograd", "opis", "#film"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("place-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "place-add-session");
+        UserRepository ur = new UserRepository();
+        User admin = new User("A","D","a@d.com","h","BG"); ur.save(admin); ur.markAsAdmin(admin.getId());
+
+        PlaceRepository pr = new PlaceRepository();
+        pr.save(new Place("Bioskop Arena", "Srbija", "Beograd", "", new java.util.HashSet<String>()));
+
+        ValidationResult vr = new ValidationResult();
+        CreatePlaceRequest req = new CreatePlaceRequest(admin.getId(), "Bioskop Arena", "Srbija", "Beograd", "opis", "#film");
+        ExecutionResults res = ValidationFlow.PLACE_ADD.execute(s, facts.forPlaceAdd(req.adminId, req.name, req.city), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void validno_ne_okida_nista() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kc, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User admin = new User("A","D","a@d.com","h","BG"); ur.save(admin); ur.markAsAdmin(admin.getId());
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("placeRepo", new PlaceRepository());
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePlaceRequest(admin.getId(), "Planina Tara", "Srbija", "Bajina Bašta", "opis", "#planina #priroda"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("place-add").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(0));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kc, "place-add-session");
+        UserRepository ur = new UserRepository();
+        User admin = new User("A","D","a@d.com","h","BG"); ur.save(admin); ur.markAsAdmin(admin.getId());
+        ValidationResult vr = new ValidationResult();
+        CreatePlaceRequest req = new CreatePlaceRequest(admin.getId(), "Planina Tara", "Srbija", "Bajina Bašta", "opis", "#planina #priroda");
+        ExecutionResults res = ValidationFlow.PLACE_ADD.execute(s, facts.forPlaceAdd(req.adminId, req.name, req.city), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(0));
     }
 }
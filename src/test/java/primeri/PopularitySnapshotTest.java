@@ -0,0 +1,78 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import db.Db;
+import dto.CreatePostRequest;
+import dto.RegisterRequest;
+import model.Post;
+import model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import repo.PostRepository;
+import repo.UserRepository;
+import service.PopularitySnapshot;
+import service.PostService;
+import service.RegistrationService;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+public class PopularitySnapshotTest {
+
+    private final UserRepository userRepo = new UserRepository();
+    private final RegistrationService reg = new RegistrationService(userRepo);
+    private final PostService posts = new PostService(new PostRepository(), userRepo);
+
+    @Before @After
+    public void cleanupDb() throws Exception {
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("TRUNCATE post_likes CASCADE");
+            st.executeUpdate("TRUNCATE posts CASCADE");
+            st.executeUpdate("TRUNCATE users CASCADE");
+        }
+    }
+
+    private User newUser(String email) {
+        return reg.register(new RegisterRequest("I", "P", email, "lozinka", "NS"));
+    }
+
+    @Test
+    public void upisiDopunjujuSnapshot() {
+        PopularitySnapshot pop = PopularitySnapshot.get();
+        pop.refresh();
+        User a = newUser("pop-a@ex.com");
+
+        // 6 objava sa #vruce -> preko praga (>5)
+        for (int i = 0; i < PopularitySnapshot.HASHTAG_MIN_POSTS; i++) {
+            posts.createPost(new CreatePostRequest(a.getId(), "objava " + i + " #vruce", "#vruce"));
+        }
+        assertThat(pop.current().hashtags().contains("#vruce"), is(false));
+        posts.createPost(new CreatePostRequest(a.getId(), "jos jedna #vruce", "#vruce"));
+        assertThat(pop.current().hashtags().contains("#vruce"), is(true));
+
+        // 11 lajkova -> popularna objava
+        Post p = posts.createPost(new CreatePostRequest(a.getId(), "lajkuj me", ""));
+        for (int i = 0; i <= PopularitySnapshot.POST_MIN_LIKES; i++) {
+            assertThat(pop.current().postIds().contains(p.getId()), is(false));
+            posts.likePost(newUser("pop-l" + i + "@ex.com").getId(), p.getId());
+        }
+        assertThat(pop.current().postIds().contains(p.getId()), is(true));
+    }
+
+    @Test
+    public void punPreracun_istoKaoBaza() {
+        User a = newUser("pop-b@ex.com");
+        for (int i = 0; i <= PopularitySnapshot.HASHTAG_MIN_POSTS; i++) {
+            posts.createPost(new CreatePostRequest(a.getId(), "objava " + i + " #baza", "#baza"));
+        }
+        // zaseban snapshot, nije registrovan kao listener -> vidi samo ono što pročita iz baze
+        PopularitySnapshot fresh = new PopularitySnapshot(60000, new PostRepository());
+        PopularitySnapshot.Snapshot s = fresh.current();
+        assertThat(s.hashtags().contains("#baza"), is(true));
+        assertThat(s.postIds().isEmpty(), is(true));
+        assertThat(fresh.current() == s, is(true));   // mlađi od refreshMs -> isti objekat
+    }
+}
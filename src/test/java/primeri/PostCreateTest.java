@@ -12,18 +12,22 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
 import dto.CreatePostRequest;
 import model.User;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 
 public class PostCreateTest {
 
     static KieContainer kieContainer;
+    static final FactRepository facts = new FactRepository();
 
     @BeforeClass
     public static void beforeClass() {
@@ -40,66 +44,50 @@ public class PostCreateTest {
     
     @Test
     public void nije_ulogovan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            s.setGlobal("userRepo", new UserRepository());
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePostRequest("", "tekst", "#sbz"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("post-create").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1)); // Niste ulogovani.
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-create-session");
+        ValidationResult vr = new ValidationResult();
+        CreatePostRequest req = new CreatePostRequest("", "tekst", "#sbz");
+        ExecutionResults res = ValidationFlow.POST_CREATE.execute(s, facts.forUsers(req.authorId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1)); // Niste ulogovani.
     }
 
     @Test
     public void korisnik_ne_postoji_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            s.setGlobal("userRepo", new UserRepository());
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePostRequest(UUID.randomUUID().toString(), "tekst", "#sbz"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("post-create").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1)); // Korisnik ne postoji.
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-create-session");
+        ValidationResult vr = new ValidationResult();
+        CreatePostRequest req = new CreatePostRequest(UUID.randomUUID().toString(), "tekst", "#sbz");
+        ExecutionResults res = ValidationFlow.POST_CREATE.execute(s, facts.forUsers(req.authorId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1)); // Korisnik ne postoji.
     }
 
     @Test
     public void prazan_tekst_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository repo = new UserRepository();
-            User u = new User("Pera","Peric","pera@example.com","hash","Beograd");
-            repo.save(u);
-            s.setGlobal("userRepo", repo);
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-create-session");
+        UserRepository repo = new UserRepository();
+        User u = new User("Pera","Peric","pera@example.com","hash","Beograd");
+        repo.save(u);
 
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePostRequest(u.getId(), "   ", "#sbz"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("post-create").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1)); // Tekst objave je obavezan.
-        } finally { s.dispose(); }
+        ValidationResult vr = new ValidationResult();
+        CreatePostRequest req = new CreatePostRequest(u.getId(), "   ", "#sbz");
+        ExecutionResults res = ValidationFlow.POST_CREATE.execute(s, facts.forUsers(req.authorId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1)); // Tekst objave je obavezan.
     }
 
     @Test
     public void validno_ne_okida_nista() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository repo = new UserRepository();
-            User u = new User("Ana","Anić","ana@example.com","hash","Kragujevac");
-            repo.save(u);
-            s.setGlobal("userRepo", repo);
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-create-session");
+        UserRepository repo = new UserRepository();
+        User u = new User("Ana","Anić","ana@example.com","hash","Kragujevac");
+        repo.save(u);
 
-            ValidationResult vr = new ValidationResult();
-            s.insert(new CreatePostRequest(u.getId(), "Zdravo SBZ!", "#sbz #java"));
-            s.insert(vr);
-            s.getAgenda().getAgendaGroup("post-create").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(0));
-            assertThat(vr.isOk(), is(true));
-        } finally { s.dispose(); }
+        ValidationResult vr = new ValidationResult();
+        CreatePostRequest req = new CreatePostRequest(u.getId(), "Zdravo SBZ!", "#sbz #java");
+        ExecutionResults res = ValidationFlow.POST_CREATE.execute(s, facts.forUsers(req.authorId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(0));
+        assertThat(vr.isOk(), is(true));
     }
 }
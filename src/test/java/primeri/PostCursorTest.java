@@ -0,0 +1,104 @@
+package primeri;
+
+import db.Db;
+import dto.CreatePostRequest;
+import dto.PostCursor;
+import dto.PostPage;
+import dto.RegisterRequest;
+import model.Post;
+import model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import repo.PostRepository;
+import repo.UserRepository;
+import service.PostService;
+import service.PostWindow;
+import service.RegistrationService;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PostCursorTest {
+
+    private UserRepository userRepo;
+    private PostRepository postRepo;
+
+    private RegistrationService regService;
+    private PostService postService;
+
+    @Before @After
+    public void cleanupDb() throws Exception {
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            try { st.executeUpdate("TRUNCATE post_likes CASCADE"); } catch (Exception ignore) {}
+            try { st.executeUpdate("TRUNCATE posts CASCADE"); } catch (Exception ignore) {}
+            try { st.executeUpdate("TRUNCATE users CASCADE"); } catch (Exception ignore) {}
+        }
+        // prozor objava u memoriji ne vidi TRUNCATE
+        PostWindow.get().reset();
+    }
+
+    private void wiring(){
+        userRepo = new UserRepository();
+        postRepo = new PostRepository();
+        regService = new RegistrationService(userRepo);
+        postService = new PostService(postRepo, userRepo);
+    }
+
+    private User newUser(String fn, String ln, String email, String city){
+        return regService.register(new RegisterRequest(fn, ln, email, "lozinka", city));
+    }
+
+    private Post newPost(String authorId, String text, String tags){
+        return postService.createPost(new CreatePostRequest(authorId, text, tags));
+    }
+
+    @Test
+    public void posts_by_author_strane_po_kursoru() {
+        wiring();
+        User f = newUser("F","F","f5@ex.com","NS");
+        for (int i = 0; i < 3; i++) newPost(f.getId(), "objava " + i + " #x", "#x");
+
+        PostPage first = postRepo.findByAuthor(f.getId(), null, 2);
+        assertThat(first.getPosts().size(), is(2));
+        assertThat(first.getNextCursor(), notNullValue());
+
+        PostPage second = postRepo.findByAuthor(f.getId(), PostCursor.decode(first.getNextCursorToken()), 2);
+        assertThat(second.getPosts().size(), is(1));
+        assertThat(second.getNextCursor(), nullValue());
+
+        List<String> ids = new ArrayList<>();
+        first.getPosts().forEach(p -> ids.add(p.getId()));
+        second.getPosts().forEach(p -> ids.add(p.getId()));
+        assertThat(ids, is(postRepo.findByAuthor(f.getId()).stream().map(Post::getId).collect(Collectors.toList())));
+    }
+
+    @Test
+    public void posts_by_author_citanje_red_po_red() {
+        wiring();
+        User f = newUser("F","F","f6@ex.com","NS");
+        for (int i = 0; i < 3; i++) newPost(f.getId(), "objava " + i + " #x", "#x");
+
+        List<String> streamed = new ArrayList<>();
+        PostCursor next = postRepo.forEachByAuthor(f.getId(), null, 2, p -> streamed.add(p.getId()));
+        PostPage page = postRepo.findByAuthor(f.getId(), null, 2);
+        assertThat(streamed, is(page.getPosts().stream().map(Post::getId).collect(Collectors.toList())));
+        assertThat(next.encode(), is(page.getNextCursorToken()));
+
+        // visitor koji vrati false prekida čitanje
+        List<String> one = new ArrayList<>();
+        postRepo.forEachByAuthor(f.getId(), null, 3, p -> { one.add(p.getId()); return false; });
+        assertThat(one.size(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void neispravan_kursor_odbijen() {
+        PostCursor.decode("nije-kursor");
+    }
+}
@@ -8,16 +8,19 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
 import dto.LikePostRequest;
 import model.Post;
 import model.User;
 import model.ValidationResult;
+import repo.FactRepository;
 import repo.PostRepository;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 
 import java.sql.Connection;
 import java.sql.Statement;
@@ -28,6 +31,7 @@ import java.util.UUID;
 public class PostLikeTest {
 
     static KieContainer kieContainer;
+    static final FactRepository facts = new FactRepository();
 
     @BeforeClass
     public static void beforeClass() {
@@ -45,140 +49,119 @@ public class PostLikeTest {
 
     @Test
     public void userId_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            // Napravi POST da ne bi "objava ne postoji" takođe pucala
-            UserRepository ur = new UserRepository();
-            User u = new User("A","B","a@b.com","hash","City"); ur.save(u);
-            PostRepository pr = new PostRepository();
-            Post p = new Post(u.getId(), "txt", new HashSet<String>()); pr.save(p);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("postRepo", pr);
-
-            ValidationResult vr = new ValidationResult();
-            // userId prazan, postId VALIDAN -> očekujemo SAMO 1 pravilo
-            s.insert(new LikePostRequest("", p.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("post-like").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-like-session");
+        // Napravi POST da ne bi "objava ne postoji" takođe pucala
+        UserRepository ur = new UserRepository();
+        User u = new User("A","B","a@b.com","hash","City"); ur.save(u);
+        PostRepository pr = new PostRepository();
+        Post p = new Post(u.getId(), "txt", new HashSet<String>()); pr.save(p);
+
+        ValidationResult vr = new ValidationResult();
+        // userId prazan, postId VALIDAN -> očekujemo SAMO 1 pravilo
+
+        LikePostRequest req = new LikePostRequest("", p.getId());
+        ExecutionResults res = ValidationFlow.POST_LIKE.execute(s, facts.forPostAction(req.userId, req.postId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void postId_prazan_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            // Napravi USER da ne bi "korisnik ne postoji" dodatno pucao
-            UserRepository ur = new UserRepository();
-            User u = new User("A","B","a@b.com","hash","City"); ur.save(u);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("postRepo", new PostRepository());
-
-            ValidationResult vr = new ValidationResult();
-            // userId VALIDAN, postId prazan -> očekujemo SAMO 1 pravilo
-            s.insert(new LikePostRequest(u.getId(), ""));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("post-like").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-like-session");
+        // Napravi USER da ne bi "korisnik ne postoji" dodatno pucao
+        UserRepository ur = new UserRepository();
+        User u = new User("A","B","a@b.com","hash","City"); ur.save(u);
+
+        ValidationResult vr = new ValidationResult();
+        // userId VALIDAN, postId prazan -> očekujemo SAMO 1 pravilo
+
+        LikePostRequest req = new LikePostRequest(u.getId(), "");
+        ExecutionResults res = ValidationFlow.POST_LIKE.execute(s, facts.forPostAction(req.userId, req.postId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void korisnik_ne_postoji_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            // Napravi POST da ne bi "objava ne postoji" pucao
-            UserRepository ur = new UserRepository();
-            User owner = new User("X","Y","x@y.com","h","C"); ur.save(owner);
-            PostRepository pr = new PostRepository();
-            Post p = new Post(owner.getId(), "txt", new HashSet<String>()); pr.save(p);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("postRepo", pr);
-
-            ValidationResult vr = new ValidationResult();
-            // nepostojeći, ali ne-prazan userId + postojeći postId
-            s.insert(new LikePostRequest(UUID.randomUUID().toString(), p.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("post-like").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-like-session");
+        // Napravi POST da ne bi "objava ne postoji" pucao
+        UserRepository ur = new UserRepository();
+        User owner = new User("X","Y","x@y.com","h","C"); ur.save(owner);
+        PostRepository pr = new PostRepository();
+        Post p = new Post(owner.getId(), "txt", new HashSet<String>()); pr.save(p);
+
+        ValidationResult vr = new ValidationResult();
+        // nepostojeći, ali ne-prazan userId + postojeći postId
+
+        LikePostRequest req = new LikePostRequest(UUID.randomUUID().toString(), p.getId());
+        ExecutionResults res = ValidationFlow.POST_LIKE.execute(s, facts.forPostAction(req.userId, req.postId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
     }
 
     @Test
     public void post_ne_postoji_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u = new User("A","B","a@b.com","hash","City"); ur.save(u);
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("postRepo", new PostRepository());
-
-            ValidationResult vr = new ValidationResult();
-            // postojeći user + nepostojeći post -> 1 pravilo
-            s.insert(new LikePostRequest(u.getId(), UUID.randomUUID().toString()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("post-like").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1));
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-like-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("A","B","a@b.com","hash","City"); ur.save(u);
+
+        ValidationResult vr = new ValidationResult();
+        // postojeći user + nepostojeći post -> 1 pravilo
+
+        LikePostRequest req = new LikePostRequest(u.getId(), UUID.randomUUID().toString());
+        ExecutionResults res = ValidationFlow.POST_LIKE.execute(s, facts.forPostAction(req.userId, req.postId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1));
+    }
+
+    @Test
+    public void neispravanId_kaoNepostojecaObjava() {
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-like-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("A","B","a@b.com","hash","City"); ur.save(u);
+
+        ValidationResult vr = new ValidationResult();
+        // postId nije UUID -> nema ExistingPost činjenice, bez izuzetka iz baze
+
+        LikePostRequest req = new LikePostRequest(u.getId(), "nije-uuid");
+        ExecutionResults res = ValidationFlow.POST_LIKE.execute(s, facts.forPostAction(req.userId, req.postId), req, vr);
+        assertThat(ValidationFlow.fired(res), is(1));
+        assertThat(vr.getErrors().get(0), is("Objava ne postoji."));
     }
 
     @Test
     public void vec_lajkovano_okida1() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u = new User("Ana","Anic","ana@ex.com","hash","BG"); ur.save(u);
-
-            PostRepository pr = new PostRepository();
-            Post p = new Post(u.getId(), "Txt", new HashSet<String>()); pr.save(p);
-            // simuliraj već lajkovano
-            pr.like(p.getId(), u.getId());
-
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("postRepo", pr);
-
-            ValidationResult vr = new ValidationResult();
-            s.insert(new LikePostRequest(u.getId(), p.getId()));
-            s.insert(vr);
-
-            s.getAgenda().getAgendaGroup("post-like").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(1)); // "Već ste lajkovali ovu objavu."
-        } finally { s.dispose(); }
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-like-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("Ana","Anic","ana@ex.com","hash","BG"); ur.save(u);
+
+        PostRepository pr = new PostRepository();
+        Post p = new Post(u.getId(), "Txt", new HashSet<String>()); pr.save(p);
+        // simuliraj već lajkovano
+        pr.like(p.getId(), u.getId());
+
+        ValidationResult vr = new ValidationResult();
+
+        LikePostRequest req = new LikePostRequest(u.getId(), p.getId());
+        ExecutionResults res = ValidationFlow.POST_LIKE.execute(s, facts.forPostAction(req.userId, req.postId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(1)); // "Već ste lajkovali ovu objavu."
     }
 
     @Test
     public void validno_ne_okida_pravila() {
-        KieSession s = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-        try {
-            UserRepository ur = new UserRepository();
-            User u = new User("Ana","Anic","ana@ex.com","hash","BG"); ur.save(u);
-
-            PostRepository pr = new PostRepository();
-            Post p = new Post(u.getId(), "Pozdrav", Collections.<String>emptySet()); pr.save(p);
+        StatelessKieSession s = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "post-like-session");
+        UserRepository ur = new UserRepository();
+        User u = new User("Ana","Anic","ana@ex.com","hash","BG"); ur.save(u);
 
-            s.setGlobal("userRepo", ur);
-            s.setGlobal("postRepo", pr);
+        PostRepository pr = new PostRepository();
+        Post p = new Post(u.getId(), "Pozdrav", Collections.<String>emptySet()); pr.save(p);
 
-            ValidationResult vr = new ValidationResult();
-            s.insert(new LikePostRequest(u.getId(), p.getId()));
-            s.insert(vr);
+        ValidationResult vr = new ValidationResult();
 
-            s.getAgenda().getAgendaGroup("post-like").setFocus();
-            int fired = s.fireAllRules();
-            assertThat(fired, is(0));
-        } finally { s.dispose(); }
+        LikePostRequest req = new LikePostRequest(u.getId(), p.getId());
+        ExecutionResults res = ValidationFlow.POST_LIKE.execute(s, facts.forPostAction(req.userId, req.postId), req, vr);
+        int fired = ValidationFlow.fired(res);
+        assertThat(fired, is(0));
     }
 }
@@ -0,0 +1,86 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import db.Db;
+import dto.CreatePostRequest;
+import dto.RegisterRequest;
+import model.Post;
+import model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import repo.PostRepository;
+import repo.UserRepository;
+import service.PostService;
+import service.PostWindow;
+import service.RegistrationService;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+public class PostWindowTest {
+
+    private final UserRepository userRepo = new UserRepository();
+    private final RegistrationService reg = new RegistrationService(userRepo);
+    private final PostService posts = new PostService(new PostRepository(), userRepo);
+
+    @Before @After
+    public void cleanupDb() throws Exception {
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("TRUNCATE post_likes CASCADE");
+            st.executeUpdate("TRUNCATE posts CASCADE");
+            st.executeUpdate("TRUNCATE users CASCADE");
+        }
+        PostWindow.get().reset();
+    }
+
+    private static Post post(String id, LocalDateTime createdAt) {
+        return new Post(id, "a", "t", Collections.<String>emptySet(), 0, 0, createdAt);
+    }
+
+    @Test
+    public void upisiProlazeKrozProzor() {
+        User a = reg.register(new RegisterRequest("A", "A", "win-a@ex.com", "lozinka", "NS"));
+        User b = reg.register(new RegisterRequest("B", "B", "win-b@ex.com", "lozinka", "NS"));
+        Post p = posts.createPost(new CreatePostRequest(a.getId(), "prva", ""));
+
+        PostWindow.Snapshot s1 = PostWindow.get().snapshot();   // učitano iz baze
+        assertThat(s1.size(), is(1));
+        assertThat(PostWindow.get().snapshot(), is(sameInstance(s1)));   // bez upisa -> isti presek
+
+        Post q = posts.createPost(new CreatePostRequest(a.getId(), "druga", ""));
+        posts.likePost(b.getId(), p.getId());
+        posts.reportPost(b.getId(), p.getId(), "spam");
+
+        List<Post> all = PostWindow.get().snapshot().since(LocalDateTime.now().minusDays(7));
+        assertThat(all.size(), is(2));
+        assertThat(all.get(0).getId(), is(q.getId()));          // najnovija prva
+        assertThat(all.get(1).getLikes(), is(1));
+        assertThat(all.get(1).getReports(), is(1));
+        assertThat(s1.since(LocalDateTime.now().minusDays(7)).get(0).getLikes(), is(0));   // stari presek se ne menja
+    }
+
+    @Test
+    public void since_poVremenuNastanka() {
+        PostWindow w = new PostWindow(7, 600000, new PostRepository());
+        w.snapshot();   // prazna baza
+        LocalDateTime now = LocalDateTime.now();
+        w.onSaved(post("p1", now.minusHours(1)));
+        w.onSaved(post("p2", now.minusHours(30)));
+        w.onSaved(post("p3", now.minusDays(5)));
+        w.onSaved(post("p4", now.minusDays(8)));   // van prozora, ne ulazi
+
+        PostWindow.Snapshot s = w.snapshot();
+        assertThat(s.size(), is(3));
+        assertThat(s.since(now.minusHours(48)).size(), is(2));
+        assertThat(s.since(now.minusHours(2)).get(0).getId(), is("p1"));
+        assertThat(s.since(now).isEmpty(), is(true));
+
+    }
+}
@@ -0,0 +1,126 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import config.HttpConfig;
+import http.RateLimiter;
+
+public class RateLimiterTest {
+
+    private static final String ROUTE = "/api/feed/recommended";
+
+    // jedan token na 1000 s: tokom testa se ništa ne dopunjava
+    private static RateLimiter limiter(String perUser, String perRoute, int maxKeys) {
+        Properties p = new Properties();
+        p.setProperty("http.rate.enabled", "true");
+        p.setProperty("http.rate.perUser", perUser == null ? "" : ROUTE + "=" + perUser);
+        p.setProperty("http.rate.perRoute", perRoute == null ? "" : ROUTE + "=" + perRoute);
+        p.setProperty("http.rate.maxKeys", String.valueOf(maxKeys));
+        return new RateLimiter(HttpConfig.from(p));
+    }
+
+    private static HttpHandler wrap(RateLimiter rl) {
+        return rl.wrap(ROUTE, ex -> ex.getRequestHeaders().getFirst("X-User"), RateLimiterTest::ok);
+    }
+
+    private static void ok(HttpExchange ex) throws IOException {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+        ex.close();
+    }
+
+    private static StubExchange call(HttpHandler h, String user) throws IOException {
+        StubExchange ex = new StubExchange("GET", ROUTE).header("X-User", user);
+        h.handle(ex);
+        assertThat(ex.isClosed(), is(true));
+        return ex;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> routeStats(RateLimiter rl) {
+        return (Map<String, Object>) ((Map<String, Object>) rl.stats().get("routes")).get(ROUTE);
+    }
+
+    @Test
+    public void poKorisniku_429SaRetryAfter_drugiKorisnikProlazi() throws IOException {
+        RateLimiter rl = limiter("0.001:2", null, 100);
+        HttpHandler h = wrap(rl);
+
+        assertThat(call(h, "ana").status, is(200));
+        assertThat(call(h, "ana").status, is(200));
+        StubExchange limited = call(h, "ana");
+        assertThat(limited.status, is(429));
+        assertThat(limited.getResponseHeaders().getFirst("Retry-After"), is("1000"));
+        assertThat(new String(limited.body.toByteArray(), StandardCharsets.UTF_8), is("{\"error\":\"too many requests\"}"));
+
+        assertThat(call(h, "marko").status, is(200));
+
+        Map<String, Object> m = routeStats(rl);
+        assertThat(m.get("allowed"), is((Object) 3L));
+        assertThat(m.get("limitedUser"), is((Object) 1L));
+        assertThat(m.get("limitedRoute"), is((Object) 0L));
+        assertThat(m.get("keys"), is((Object) 2));
+    }
+
+    @Test
+    public void poRuti_odbijaSveKorisnike() throws IOException {
+        RateLimiter rl = limiter(null, "0.001:3", 100);
+        HttpHandler h = wrap(rl);
+
+        for (String user : new String[] {"ana", "marko", "jovan"}) assertThat(call(h, user).status, is(200));
+        StubExchange limited = call(h, "nikola");
+        assertThat(limited.status, is(429));
+        assertThat(limited.getResponseHeaders().getFirst("Retry-After"), is("1000"));
+
+        Map<String, Object> m = routeStats(rl);
+        assertThat(m.get("limitedRoute"), is((Object) 1L));
+        assertThat(m.get("keys"), is((Object) 0));
+    }
+
+    @Test
+    public void rutaOdbije_korisnikuSeTokenVraca() throws IOException {
+        RateLimiter rl = limiter("0.001:2", "0.001:1", 100);
+        HttpHandler h = wrap(rl);
+
+        assertThat(call(h, "ana").status, is(200));   // troši jedini token rute
+        // marko ima 2 tokena; svaki put ga odbije ruta, pa mu token ne sme da propadne
+        for (int i = 0; i < 3; i++) assertThat(call(h, "marko").status, is(429));
+
+        Map<String, Object> m = routeStats(rl);
+        assertThat(m.get("limitedRoute"), is((Object) 3L));
+        assertThat(m.get("limitedUser"), is((Object) 0L));
+    }
+
+    @Test
+    public void maxKeys_mapaNeRaste_noviKljuceviDeleBucket() throws IOException {
+        RateLimiter rl = limiter("0.001:2", null, 2);
+        HttpHandler h = wrap(rl);
+
+        assertThat(call(h, "ana").status, is(200));
+        assertThat(call(h, "marko").status, is(200));
+        // oba bucket-a su aktivna (nisu puni), pa čišćenje ništa ne izbacuje
+        assertThat(call(h, "jovan").status, is(200));
+        assertThat(call(h, "nikola").status, is(200));
+        assertThat(call(h, "petar").status, is(429));
+        // postojeći ključevi i dalje imaju svoje bucket-e
+        assertThat(call(h, "ana").status, is(200));
+
+        Map<String, Object> m = routeStats(rl);
+        assertThat(m.get("keys"), is((Object) 2));
+        assertThat(m.get("overflow"), is((Object) 3L));
+        assertThat(m.get("limitedUser"), is((Object) 1L));
+    }
+}
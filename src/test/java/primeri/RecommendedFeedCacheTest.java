@@ -0,0 +1,172 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import db.Db;
+import dto.CandidatePost;
+import dto.CreatePostRequest;
+import dto.RegisterRequest;
+import model.Post;
+import model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import repo.FriendRepository;
+import repo.PostRepository;
+import repo.UserRepository;
+import service.FeedService;
+import service.PostWindow;
+import service.PostService;
+import service.RecommendedFeedCache;
+import service.RegistrationService;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class RecommendedFeedCacheTest {
+
+    private final AtomicInteger computed = new AtomicInteger();
+
+    private Supplier<List<CandidatePost>> compute() {
+        return () -> { computed.incrementAndGet(); return new ArrayList<>(); };
+    }
+
+    @Before @After
+    public void cleanupDb() throws Exception {
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("TRUNCATE post_likes CASCADE");
+            st.executeUpdate("TRUNCATE posts CASCADE");
+            st.executeUpdate("TRUNCATE friendships CASCADE");
+            st.executeUpdate("TRUNCATE users CASCADE");
+        }
+        // prozor objava u memoriji ne vidi TRUNCATE
+        PostWindow.get().reset();
+    }
+
+    @Test
+    public void drugiPoziv_izKesa_poKorisnikuILimitu() {
+        RecommendedFeedCache cache = new RecommendedFeedCache(60000, 100);
+        List<CandidatePost> first = cache.get("u", 20, compute());
+        assertThat(cache.get("u", 20, compute()), is(sameInstance(first)));
+        cache.get("u", 10, compute());   // drugi limit -> poseban unos
+        assertThat(computed.get(), is(2));
+        assertThat(cache.stats().get("hitRatio"), is((Object) (1.0 / 3.0)));
+    }
+
+    @Test
+    public void lru_izbacujeNajdavnijeKoriscenog() {
+        RecommendedFeedCache cache = new RecommendedFeedCache(60000, 2);
+        cache.get("a", 20, compute());
+        cache.get("b", 20, compute());
+        cache.get("a", 20, compute());   // a je sada najsvežiji
+        cache.get("c", 20, compute());   // izbacuje b
+        assertThat(computed.get(), is(3));
+        cache.get("a", 20, compute());
+        assertThat(computed.get(), is(3));
+        cache.get("b", 20, compute());
+        assertThat(computed.get(), is(4));
+        assertThat(cache.stats().get("evictions"), is((Object) 2L));
+    }
+
+    @Test
+    public void ttl_istekne() throws Exception {
+        RecommendedFeedCache cache = new RecommendedFeedCache(30, 100);
+        cache.get("u", 20, compute());
+        Thread.sleep(60);
+        cache.get("u", 20, compute());
+        assertThat(computed.get(), is(2));
+    }
+
+    @Test
+    public void brisanjeTokomRacuna_sprecavaUpisSamoTomKorisniku() {
+        RecommendedFeedCache cache = new RecommendedFeedCache(60000, 100);
+        // dok se računa za u, menja se v -> rezultat za u se ipak kešira
+        cache.get("u", 20, () -> { computed.incrementAndGet(); cache.invalidate("v"); return new ArrayList<>(); });
+        cache.get("u", 20, compute());
+        assertThat(computed.get(), is(1));
+
+        // dok se računa za w, menja se sam w -> rezultat se ne kešira
+        cache.get("w", 20, () -> { computed.incrementAndGet(); cache.invalidate("w"); return new ArrayList<>(); });
+        cache.get("w", 20, compute());
+        assertThat(computed.get(), is(3));
+    }
+
+    @Test
+    public void promenaPopularnihTagova_briseSve() {
+        RecommendedFeedCache cache = new RecommendedFeedCache(60000, 100);
+        cache.observePopularTags(Collections.singleton("#a"));
+        cache.get("u", 20, compute());
+        cache.get("v", 20, compute());
+        cache.observePopularTags(Collections.singleton("#a"));   // isti skup -> ništa
+        cache.get("u", 20, compute());
+        assertThat(computed.get(), is(2));
+        cache.observePopularTags(new HashSet<>(Arrays.asList("#a", "#b")));
+        cache.get("u", 20, compute());
+        cache.get("v", 20, compute());
+        assertThat(computed.get(), is(4));
+    }
+
+    @Test
+    public void lajkIPrijateljstvo_ponistavajuKorisnika() {
+        UserRepository userRepo = new UserRepository();
+        PostRepository postRepo = new PostRepository();
+        FriendRepository friendRepo = new FriendRepository();
+        RegistrationService reg = new RegistrationService(userRepo);
+        PostService posts = new PostService(postRepo, userRepo);
+        FeedService feed = new FeedService(userRepo, friendRepo, postRepo);
+
+        User u = reg.register(new RegisterRequest("U", "U", "cache-u@ex.com", "lozinka", "NS"));
+        User x = reg.register(new RegisterRequest("X", "X", "cache-x@ex.com", "lozinka", "NS"));
+        Post p = posts.createPost(new CreatePostRequest(x.getId(), "objava #t", "#t"));
+
+        List<CandidatePost> first = feed.recommendedFeed(u.getId(), 20);
+        assertThat(feed.recommendedFeed(u.getId(), 20), is(sameInstance(first)));
+
+        posts.likePost(u.getId(), p.getId());
+        List<CandidatePost> afterLike = feed.recommendedFeed(u.getId(), 20);
+        assertThat(afterLike, is(not(sameInstance(first))));
+
+        friendRepo.addFriends(u.getId(), x.getId());
+        List<CandidatePost> afterFriend = feed.recommendedFeed(u.getId(), 20);
+        assertThat(afterFriend, is(not(sameInstance(afterLike))));
+        // objave prijatelja se ne preporučuju
+        assertThat(afterFriend.stream().anyMatch(c -> c.getPost().getId().equals(p.getId())), is(false));
+
+        posts.createPost(new CreatePostRequest(u.getId(), "moja objava", ""));
+        assertThat(feed.recommendedFeed(u.getId(), 20), is(not(sameInstance(afterFriend))));
+    }
+
+    @Test
+    public void blokiranje_ponistavaObaKorisnika() {
+        UserRepository userRepo = new UserRepository();
+        PostRepository postRepo = new PostRepository();
+        FriendRepository friendRepo = new FriendRepository();
+        RegistrationService reg = new RegistrationService(userRepo);
+        FeedService feed = new FeedService(userRepo, friendRepo, postRepo);
+
+        User u = reg.register(new RegisterRequest("U", "U", "block-u@ex.com", "lozinka", "NS"));
+        User x = reg.register(new RegisterRequest("X", "X", "block-x@ex.com", "lozinka", "NS"));
+        friendRepo.addFriends(u.getId(), x.getId());
+
+        List<CandidatePost> forU = feed.recommendedFeed(u.getId(), 20);
+        List<CandidatePost> forX = feed.recommendedFeed(x.getId(), 20);
+        assertThat(feed.recommendedFeed(u.getId(), 20), is(sameInstance(forU)));
+        assertThat(feed.recommendedFeed(x.getId(), 20), is(sameInstance(forX)));
+
+        friendRepo.block(u.getId(), x.getId());
+        List<CandidatePost> blockedU = feed.recommendedFeed(u.getId(), 20);
+        List<CandidatePost> blockedX = feed.recommendedFeed(x.getId(), 20);
+        assertThat(blockedU, is(not(sameInstance(forU))));
+        assertThat(blockedX, is(not(sameInstance(forX))));
+
+        friendRepo.unblock(u.getId(), x.getId());
+        assertThat(feed.recommendedFeed(u.getId(), 20), is(not(sameInstance(blockedU))));
+        assertThat(feed.recommendedFeed(x.getId(), 20), is(not(sameInstance(blockedX))));
+    }
+}
@@ -5,16 +5,18 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
-import org.kie.api.runtime.ClassObjectFilter;
 import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
 
 import db.Db;
 import dto.RegisterRequest;
@@ -22,6 +24,7 @@ import model.User;
 import model.ValidationResult;
 import repo.UserRepository;
 import util.KnowledgeSessionHelper;
+import util.ValidationFlow;
 import util.PasswordHasher;
 
 public class RegistrationServiceTest {
@@ -44,119 +47,98 @@ public class RegistrationServiceTest {
     @Test
     @SuppressWarnings("unchecked")
     public void invalidnaPolja_okida5Pravila() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-
-        try {
-            // globali
-            UserRepository repo = new UserRepository();
-            kSession.setGlobal("userRepo", repo);
-            kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
-
-            // fakti: sve loše (prazno ime, prezime, mesto; email prazan; lozinka kratka)
-            RegisterRequest req = new RegisterRequest("", "", "", "123", "");
-            ValidationResult vr = new ValidationResult();
-
-            kSession.insert(req);
-            kSession.insert(vr);
-
-            // fokusiraj “registration”
-            kSession.getAgenda().getAgendaGroup("registration").setFocus();
-            int fired = kSession.fireAllRules();
-
-            // 5 očekivanih pravila:
-            // Ime obavezno, Prezime obavezno, Mesto obavezno, Email prazan, Lozinka min duzina
-            assertThat(fired, is(5));
-
-            // ValidationResult bi trebalo da je ostao u sesiji – pokupimo ga filterom (kao u primeru)
-            Collection<ValidationResult> vrs =
-                (Collection<ValidationResult>) kSession.getObjects(new ClassObjectFilter(ValidationResult.class));
-            assertThat(vrs.size(), is(1));
-
-            ValidationResult vrFromSession = vrs.iterator().next();
-            String joined = String.join(" | ", vrFromSession.getErrors());
-            assertThat(joined.contains("Ime je obavezno"), is(true));
-            assertThat(joined.contains("Prezime je obavezno"), is(true));
-            assertThat(joined.contains("Mesto stanovanja je obavezno"), is(true));
-            assertThat(joined.contains("Neispravan mejl"), is(true));
-            assertThat(joined.contains("Lozinka mora imati najmanje 6 karaktera"), is(true));
-        } finally {
-            kSession.dispose();
-        }
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "registration-session");
+        // globali
+        UserRepository repo = new UserRepository();
+        kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+
+        // fakti: sve loše (prazno ime, prezime, mesto; email prazan; lozinka kratka)
+        RegisterRequest req = new RegisterRequest("", "", "", "123", "");
+        ValidationResult vr = new ValidationResult();
+
+        // fokusiraj “registration”
+        ExecutionResults res = ValidationFlow.REGISTRATION.execute(kSession, userFacts(repo, req.email), req, vr);
+        int fired = ValidationFlow.fired(res);
+
+        // 5 očekivanih pravila:
+        // Ime obavezno, Prezime obavezno, Mesto obavezno, Email prazan, Lozinka min duzina
+        assertThat(fired, is(5));
+
+        // ValidationResult bi trebalo da je ostao u sesiji – pokupimo ga filterom (kao u primeru)
+        Collection<ValidationResult> vrs =
+            (Collection<ValidationResult>) res.getValue(ValidationFlow.RESULTS);
+        assertThat(vrs.size(), is(1));
+
+        ValidationResult vrFromSession = vrs.iterator().next();
+        String joined = String.join(" | ", vrFromSession.getErrors());
+        assertThat(joined.contains("Ime je obavezno"), is(true));
+        assertThat(joined.contains("Prezime je obavezno"), is(true));
+        assertThat(joined.contains("Mesto stanovanja je obavezno"), is(true));
+        assertThat(joined.contains("Neispravan mejl"), is(true));
+        assertThat(joined.contains("Lozinka mora imati najmanje 6 karaktera"), is(true));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     public void duplikatEmaila_okidaSamo1Pravilo() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-
-        try {
-            // repo sa već postojećim korisnikom
-            UserRepository repo = new UserRepository();
-            String email = "pera@example.com";
-            User vecPostoji = new User("Pera", "Peric", email, PasswordHasher.sha256("tajna123"), "Beograd");
-            repo.save(vecPostoji);
-
-            kSession.setGlobal("userRepo", repo);
-            kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
-
-            // validan zahtev, ali sa istim mejlom -> treba da se okine SAMO "Email zauzet"
-            RegisterRequest req = new RegisterRequest("Mika", "Mikic", email, "druga123", "Novi Sad");
-            ValidationResult vr = new ValidationResult();
-
-            kSession.insert(req);
-            kSession.insert(vr);
-
-            kSession.getAgenda().getAgendaGroup("registration").setFocus();
-            int fired = kSession.fireAllRules();
-
-            assertThat(fired, is(1)); // samo jedno pravilo
-
-            // izvuci ValidationResult iz sesije
-            Collection<ValidationResult> vrs =
-                (Collection<ValidationResult>) kSession.getObjects(new ClassObjectFilter(ValidationResult.class));
-            assertThat(vrs.size(), is(1));
-            ValidationResult vrFromSession = vrs.iterator().next();
-
-            String joined = String.join(" | ", vrFromSession.getErrors());
-            assertThat(joined.contains("Mejl je već zauzet"), is(true));
-
-            // nema drugih grešaka (ostala polja su bila ok)
-            assertThat(joined.contains("Ime je obavezno"), is(false));
-            assertThat(joined.contains("Prezime je obavezno"), is(false));
-            assertThat(joined.contains("Mesto stanovanja je obavezno"), is(false));
-            assertThat(joined.contains("Neispravan mejl"), is(false));
-            assertThat(joined.contains("Lozinka mora imati najmanje 6 karaktera"), is(false));
-        } finally {
-            kSession.dispose();
-        }
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "registration-session");
+        // repo sa već postojećim korisnikom
+        UserRepository repo = new UserRepository();
+        String email = "pera@example.com";
+        User vecPostoji = new User("Pera", "Peric", email, PasswordHasher.sha256("tajna123"), "Beograd");
+        repo.save(vecPostoji);
+        kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+
+        // validan zahtev, ali sa istim mejlom -> treba da se okine SAMO "Email zauzet"
+        RegisterRequest req = new RegisterRequest("Mika", "Mikic", email, "druga123", "Novi Sad");
+        ValidationResult vr = new ValidationResult();
+
+        ExecutionResults res = ValidationFlow.REGISTRATION.execute(kSession, userFacts(repo, req.email), req, vr);
+        int fired = ValidationFlow.fired(res);
+
+        assertThat(fired, is(1)); // samo jedno pravilo
+
+        // izvuci ValidationResult iz sesije
+        Collection<ValidationResult> vrs =
+            (Collection<ValidationResult>) res.getValue(ValidationFlow.RESULTS);
+        assertThat(vrs.size(), is(1));
+        ValidationResult vrFromSession = vrs.iterator().next();
+
+        String joined = String.join(" | ", vrFromSession.getErrors());
+        assertThat(joined.contains("Mejl je već zauzet"), is(true));
+
+        // nema drugih grešaka (ostala polja su bila ok)
+        assertThat(joined.contains("Ime je obavezno"), is(false));
+        assertThat(joined.contains("Prezime je obavezno"), is(false));
+        assertThat(joined.contains("Mesto stanovanja je obavezno"), is(false));
+        assertThat(joined.contains("Neispravan mejl"), is(false));
+        assertThat(joined.contains("Lozinka mora imati najmanje 6 karaktera"), is(false));
     }
 
     @Test
     public void validnaRegistracija_neOkidaNista() {
-        KieSession kSession = KnowledgeSessionHelper.getStatefulKnowledgeSession(kieContainer, "test-session");
-
-        try {
-            UserRepository repo = new UserRepository();
-            kSession.setGlobal("userRepo", repo);
-            kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
+        StatelessKieSession kSession = KnowledgeSessionHelper.getStatlessKnowledgeSession(kieContainer, "registration-session");
+        UserRepository repo = new UserRepository();
+        kSession.setGlobal("EMAIL_RX", Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"));
 
-            RegisterRequest req = new RegisterRequest("Ana", "Anić", "ana@example.com", "tajna123", "Kragujevac");
-            ValidationResult vr = new ValidationResult();
+        RegisterRequest req = new RegisterRequest("Ana", "Anić", "ana@example.com", "tajna123", "Kragujevac");
+        ValidationResult vr = new ValidationResult();
 
-            kSession.insert(req);
-            kSession.insert(vr);
+        ExecutionResults res = ValidationFlow.REGISTRATION.execute(kSession, userFacts(repo, req.email), req, vr);
+        int fired = ValidationFlow.fired(res);
 
-            kSession.getAgenda().getAgendaGroup("registration").setFocus();
-            int fired = kSession.fireAllRules();
+        // bez grešaka -> ni jedno pravilo ne “puca”
+        assertThat(fired, is(0));
 
-            // bez grešaka -> ni jedno pravilo ne “puca”
-            assertThat(fired, is(0));
+        // i ValidationResult mora biti “ok”
+        assertThat(vr.isOk(), is(true));
+        assertThat(vr.getErrors().isEmpty(), is(true));
+    }
 
-            // i ValidationResult mora biti “ok”
-            assertThat(vr.isOk(), is(true));
-            assertThat(vr.getErrors().isEmpty(), is(true));
-        } finally {
-            kSession.dispose();
-        }
+    // kao RegistrationService: korisnik sa tim mejlom (ako postoji) ide u sesiju kao činjenica
+    private static List<Object> userFacts(UserRepository repo, String email) {
+        List<Object> out = new ArrayList<>();
+        repo.findByEmail(email).ifPresent(out::add);
+        return out;
     }
 }
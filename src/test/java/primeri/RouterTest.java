@@ -0,0 +1,151 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import http.Router;
+
+public class RouterTest {
+
+    private final List<String> wrapped = new ArrayList<>();
+    private Router router;
+
+    // odgovor = ime rute i vrednosti promenljivih, da test vidi koja je ruta pogođena
+    private static Router.Handler answer(String name, String... vars) {
+        return (ex, v) -> {
+            StringBuilder sb = new StringBuilder(name);
+            for (String var : vars) sb.append(' ').append(var).append('=').append(v.get(var));
+            byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+            ex.close();
+        };
+    }
+
+    @Before
+    public void build() {
+        router = new Router()
+                .route("GET", "/api/posts/by-author", answer("byAuthor"))
+                .route("GET", "/api/posts/{postId}", answer("post", "postId"))
+                .route("POST", "/api/posts/{postId}/like", answer("like", "postId"))
+                .route("GET", "/api/users/{userId}/posts/{postId}", answer("userPost", "userId", "postId"))
+                .route("GET", "/api/places/list", answer("placesList"))
+                .route("GET", "/api/places/{id}", answer("place", "id"))
+                .route("GET", "/api/places", answer("placesGet"))
+                .route("POST", "/api/places", answer("placesPost"))
+                .compile((template, h) -> { wrapped.add(template); return h; });
+    }
+
+    private StubExchange call(String method, String path) throws IOException {
+        StubExchange ex = new StubExchange(method, path);
+        router.handle(ex);
+        return ex;
+    }
+
+    private static String text(StubExchange ex) {
+        return new String(ex.body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void statickiSegment_imaPrednostNadPromenljivom() throws IOException {
+        assertThat(text(call("GET", "/api/posts/by-author")), is("byAuthor"));
+        assertThat(text(call("GET", "/api/posts/42")), is("post postId=42"));
+        assertThat(text(call("GET", "/api/places/list")), is("placesList"));
+        assertThat(text(call("GET", "/api/places/7")), is("place id=7"));
+    }
+
+    @Test
+    public void statickaGranaBezRute_povratakNaPromenljivu() throws IOException {
+        // by-author nema dete "like": pretraga se vraća i pokušava {postId}
+        StubExchange ex = call("POST", "/api/posts/by-author/like");
+        assertThat(ex.status, is(200));
+        assertThat(text(ex), is("like postId=by-author"));
+    }
+
+    @Test
+    public void promenljive_izViseSegmenata() throws IOException {
+        assertThat(text(call("GET", "/api/users/u1/posts/p9")), is("userPost userId=u1 postId=p9"));
+        assertThat(text(call("POST", "/api/posts/abc-123/like")), is("like postId=abc-123"));
+    }
+
+    @Test
+    public void kosaCrtaNaKraju_istaRuta() throws IOException {
+        assertThat(text(call("GET", "/api/posts/by-author/")), is("byAuthor"));
+        assertThat(text(call("GET", "/api/places/")), is("placesGet"));
+        assertThat(text(call("GET", "/api/posts/42/")), is("post postId=42"));
+    }
+
+    @Test
+    public void nepostojecaPutanja_404() throws IOException {
+        assertThat(call("GET", "/api/nope").status, is(404));
+        assertThat(call("GET", "/api/posts").status, is(404));          // čvor bez rute
+        assertThat(call("GET", "/api/posts//like").status, is(404));    // prazan segment nije {postId}
+        assertThat(call("GET", "/api/posts/1/like/x").status, is(404));
+    }
+
+    @Test
+    public void pogresnaMetoda_405SaAllow() throws IOException {
+        StubExchange one = call("POST", "/api/posts/by-author");
+        assertThat(one.status, is(405));
+        assertThat(one.getResponseHeaders().getFirst("Allow"), is("GET, OPTIONS"));
+
+        StubExchange two = call("DELETE", "/api/places");
+        assertThat(two.status, is(405));
+        assertThat(two.getResponseHeaders().getFirst("Allow"), is("GET, POST, OPTIONS"));
+
+        StubExchange var = call("GET", "/api/posts/5/like");
+        assertThat(var.status, is(405));
+        assertThat(var.getResponseHeaders().getFirst("Allow"), is("POST, OPTIONS"));
+
+        assertThat(call("OPTIONS", "/api/places").status, is(204));
+        assertThat(call("OPTIONS", "/api/nope").status, is(404));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void statistika_poRutiIUkupno() throws IOException {
+        call("GET", "/api/posts/1");
+        call("GET", "/api/posts/2");
+        call("GET", "/api/posts/by-author");
+        call("POST", "/api/posts/by-author");
+        call("GET", "/api/nope");
+        call("OPTIONS", "/api/places");
+
+        Map<String, Object> s = router.stats();
+        assertThat(s.get("routes"), is((Object) 8));
+        assertThat(s.get("matched"), is((Object) 3L));
+        assertThat(s.get("notFound"), is((Object) 1L));
+        assertThat(s.get("methodNotAllowed"), is((Object) 1L));
+        Map<String, Object> byRoute = (Map<String, Object>) s.get("requests");
+        assertThat(byRoute.get("GET /api/posts/{postId}"), is((Object) 2L));
+        assertThat(byRoute.get("GET /api/posts/by-author"), is((Object) 1L));
+        assertThat(byRoute.get("POST /api/places"), is((Object) 0L));
+        assertThat(byRoute.get("DELETE /api/places"), is(nullValue()));
+    }
+
+    @Test
+    public void wrap_jednomPoRuti() {
+        // handler rute + 405 za svaki nov čvor, pa notFound
+        assertThat(wrapped.size(), is(8 + 7 + 1));
+        assertThat(wrapped.get(wrapped.size() - 1), is("*"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void dupliranaRuta_odbijaSePriCompile() {
+        new Router()
+                .route("GET", "/api/places/{id}", answer("a"))
+                .route("GET", "/api/places/{placeId}", answer("b"))
+                .compile((t, h) -> h);
+    }
+}
@@ -0,0 +1,262 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import db.Db;
+import model.Session;
+import http.SessionManager;
+import repo.SessionFileStore;
+import repo.SessionPersistence;
+import repo.SessionRepository;
+
+public class SessionManagerTest {
+
+    private static final long TTL = 1000;
+    private static final long TICK = 100;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    @Before @After
+    public void cleanupDb() throws Exception {
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("TRUNCATE user_sessions");
+        }
+    }
+
+    private SessionManager manager(int maxPerUser, SessionPersistence p) {
+        SessionManager m = new SessionManager(TTL, maxPerUser, 4, TICK, p, clock::get);
+        m.load();
+        return m;
+    }
+
+    @Test
+    public void klizniTtl_produzavaSePriSvakojProveri() {
+        SessionManager m = manager(10, null);
+        String token = m.createSession("u1");
+
+        clock.addAndGet(900);
+        assertThat(m.getUserId(token), is(Optional.of("u1")));
+        clock.addAndGet(900);   // 1800 od prijave, ali 900 od poslednje provere
+        assertThat(m.getUserId(token), is(Optional.of("u1")));
+
+        clock.addAndGet(1000);
+        assertThat(m.getUserId(token), is(Optional.<String>empty()));
+        assertThat(m.stats().get("expiredLazy"), is((Object) 1L));
+        assertThat(m.stats().get("sessions"), is((Object) 0));
+    }
+
+    @Test
+    public void maxPoKorisniku_izbacujeNajstariju() {
+        SessionManager m = manager(2, null);
+        String first = m.createSession("u1");
+        String second = m.createSession("u1");
+        String third = m.createSession("u1");
+        String other = m.createSession("u2");
+
+        assertThat(m.getUserId(first), is(Optional.<String>empty()));
+        assertThat(m.getUserId(second), is(Optional.of("u1")));
+        assertThat(m.getUserId(third), is(Optional.of("u1")));
+        assertThat(m.getUserId(other), is(Optional.of("u2")));
+        assertThat(m.stats().get("evictedPerUser"), is((Object) 1L));
+    }
+
+    @Test
+    public void tocak_uklanjaNekorisceneSesije() {
+        SessionManager m = manager(10, null);
+        String idle = m.createSession("u1");
+        String active = m.createSession("u2");
+
+        clock.addAndGet(900);
+        m.getUserId(active);
+        clock.addAndGet(200);
+        m.tick();
+        assertThat(m.stats().get("sessions"), is((Object) 1));
+        assertThat(m.stats().get("expiredWheel"), is((Object) 1L));
+
+        clock.addAndGet(1000);
+        m.tick();
+        assertThat(m.stats().get("sessions"), is((Object) 0));
+        assertThat(m.stats().get("users"), is((Object) 0));
+        assertThat(m.getUserId(idle), is(Optional.<String>empty()));
+        assertThat(m.getUserId(active), is(Optional.<String>empty()));
+    }
+
+    @Test
+    public void odjava_ponistavaToken() {
+        SessionManager m = manager(10, null);
+        String token = m.createSession("u1");
+        m.invalidate(token);
+        assertThat(m.getUserId(token), is(Optional.<String>empty()));
+        assertThat(m.stats().get("invalidated"), is((Object) 1L));
+    }
+
+    @Test
+    public void fajl_sesijePrezivljavajuRestart() throws Exception {
+        Path dir = Files.createTempDirectory("sessions");
+        Path file = dir.resolve("sessions.log");
+        try {
+            SessionFileStore store = new SessionFileStore(file);
+            SessionManager m = manager(10, store);
+            String kept = m.createSession("u1");
+            String loggedOut = m.createSession("u1");
+            m.invalidate(loggedOut);
+            store.close();
+
+            SessionFileStore store2 = new SessionFileStore(file);
+            SessionManager restarted = manager(10, store2);
+            assertThat(restarted.stats().get("loaded"), is((Object) 1L));
+            assertThat(restarted.getUserId(kept), is(Optional.of("u1")));
+            assertThat(restarted.getUserId(loggedOut), is(Optional.<String>empty()));
+            store2.close();
+
+            // token se ne upisuje, samo njegov hash
+            assertThat(new String(Files.readAllBytes(file), "UTF-8").contains(kept), is(false));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void fajl_sabijanjeNeGubiUpisTokomSnapshota() throws Exception {
+        Path dir = Files.createTempDirectory("sessions");
+        Path file = dir.resolve("sessions.log");
+        try {
+            long now = clock.get();
+            SessionFileStore store = new SessionFileStore(file);
+            store.loadLive(now);
+            Session kept = new Session("h-kept", "u1", now, now + 100_000);
+            Session loggedOut = new Session("h-out", "u1", now, now + 100_000);
+            Session loggedIn = new Session("h-in", "u2", now, now + 100_000);
+            store.created(kept);
+            store.created(loggedOut);
+            for (int i = 0; i < 1100; i++) store.extended(Collections.singletonMap("h-kept", now + 100_000 + i));
+
+            // odjava i prijava stižu dok skladište pravi snapshot za sabijanje
+            Thread concurrent = new Thread(() -> {
+                store.removed(Collections.singletonList("h-out"));
+                store.created(loggedIn);
+            });
+            store.maintain(now, () -> {
+                concurrent.start();
+                try { concurrent.join(300); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                return Arrays.asList(kept, loggedOut);
+            });
+            concurrent.join();
+            store.close();
+
+            SessionFileStore reopened = new SessionFileStore(file);
+            Set<String> live = new HashSet<>();
+            for (Session s : reopened.loadLive(now)) live.add(s.getTokenHash());
+            reopened.close();
+            assertThat(live, is((Set<String>) new HashSet<>(Arrays.asList("h-kept", "h-in"))));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /** Skladište koje baci izuzetak za sledećih failures nepraznih upisa. */
+    private static final class FlakyStore implements SessionPersistence {
+        int failures;
+        final List<String> removed = new ArrayList<>();
+        final Map<String, Long> extended = new HashMap<>();
+
+        @Override public List<Session> loadLive(long nowMs) { return new ArrayList<>(); }
+        @Override public void created(Session s) { }
+
+        @Override public void extended(Map<String, Long> expiresByHash) {
+            if (expiresByHash.isEmpty()) return;
+            fail();
+            extended.putAll(expiresByHash);
+        }
+
+        @Override public void removed(Collection<String> tokenHashes) {
+            if (tokenHashes.isEmpty()) return;
+            fail();
+            removed.addAll(tokenHashes);
+        }
+
+        private void fail() {
+            if (failures > 0) { failures--; throw new IllegalStateException("store down"); }
+        }
+    }
+
+    @Test
+    public void neuspeloBrisanje_ponavljaSeUSledecemKoraku() {
+        FlakyStore store = new FlakyStore();
+        SessionManager m = manager(10, store);
+        String token = m.createSession("u1");
+
+        clock.addAndGet(TTL + 2 * TICK);
+        store.failures = 1;
+        m.tick();
+        assertThat(m.getUserId(token), is(Optional.<String>empty()));
+        assertThat(store.removed.size(), is(0));
+        assertThat(m.stats().get("persistErrors"), is((Object) 1L));
+
+        m.tick();
+        assertThat(store.removed.size(), is(1));
+    }
+
+    @Test
+    public void neuspeloProduzenje_ponavljaSeUSledecemKoraku() {
+        FlakyStore store = new FlakyStore();
+        SessionManager m = manager(10, store);
+        String token = m.createSession("u1");
+
+        clock.addAndGet(500);
+        m.getUserId(token);                  // istek: sada + TTL
+        long extendedTo = clock.get() + TTL;
+        clock.addAndGet(500);                // točak stiže na sačuvani istek
+        store.failures = 1;
+        m.tick();
+        assertThat(store.extended.isEmpty(), is(true));
+        assertThat(m.stats().get("persistErrors"), is((Object) 1L));
+
+        // sesija je premeštena u slot novog isteka, ali upis se ne gubi do tada
+        m.tick();
+        assertThat(new ArrayList<>(store.extended.values()), is(Collections.singletonList(extendedTo)));
+    }
+
+    @Test
+    public void baza_produzenjeSeUpisujePreIsteka() {
+        String userId = UUID.randomUUID().toString();
+        SessionManager m = manager(10, new SessionRepository());
+        String token = m.createSession(userId);
+
+        clock.addAndGet(900);
+        m.getUserId(token);   // ističe tek za TTL od sada, u bazi je još stari istek
+        clock.addAndGet(100);
+        m.tick();             // točak stiže na stari istek -> upisuje novi
+
+        clock.addAndGet(500);
+        SessionManager restarted = manager(10, new SessionRepository());
+        assertThat(restarted.getUserId(token), is(Optional.of(userId)));
+
+        restarted.invalidate(token);
+        assertThat(manager(10, new SessionRepository()).stats().get("loaded"), is((Object) 0L));
+    }
+}
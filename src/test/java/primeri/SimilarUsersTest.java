@@ -0,0 +1,117 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import db.Db;
+import dto.CreatePostRequest;
+import dto.RegisterRequest;
+import dto.SimilarUser;
+import model.Post;
+import model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import repo.PostRepository;
+import repo.SimilarityRepository;
+import repo.UserRepository;
+import service.PostService;
+import service.RegistrationService;
+import service.SimilarUsers;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.*;
+
+public class SimilarUsersTest {
+
+    private final UserRepository userRepo = new UserRepository();
+    private final RegistrationService regService = new RegistrationService(userRepo);
+    private final PostService postService = new PostService(new PostRepository(), userRepo);
+
+    @Before @After
+    public void cleanupDb() throws Exception {
+        try (Connection c = Db.get(); Statement st = c.createStatement()) {
+            st.executeUpdate("TRUNCATE user_similarity");
+            st.executeUpdate("TRUNCATE post_likes CASCADE");
+            st.executeUpdate("TRUNCATE posts CASCADE");
+            st.executeUpdate("TRUNCATE users CASCADE");
+        }
+    }
+
+    private User newUser(String email) {
+        return regService.register(new RegisterRequest("I", "P", email, "lozinka", "NS"));
+    }
+
+    private Post newPost(String authorId) {
+        return postService.createPost(new CreatePostRequest(authorId, "objava #t", "#t"));
+    }
+
+    private static Map<String, Double> scores(List<SimilarUser> list) {
+        Map<String, Double> m = new HashMap<>();
+        for (SimilarUser su : list) m.put(su.getOtherUserId(), su.getScore());
+        return m;
+    }
+
+    @Test
+    public void noviLajk_odmahMenjaSusede() {
+        User u = newUser("u@ex.com");
+        User s = newUser("s@ex.com");
+        Post p1 = newPost(s.getId());
+        Post p2 = newPost(s.getId());
+        postService.likePost(u.getId(), p1.getId());
+        postService.likePost(u.getId(), p2.getId());
+        postService.likePost(s.getId(), p1.getId());
+
+        // 1/2 -> tačno na pragu
+        assertThat(scores(SimilarUsers.get().neighbors(u.getId())).get(s.getId()), is(0.5));
+
+        // lajk posle izračunavanja (kroz PostListener) označi oba korisnika za preračun
+        postService.likePost(s.getId(), p2.getId());
+        assertThat(scores(SimilarUsers.get().neighbors(u.getId())).get(s.getId()), is(1.0));
+        assertThat(scores(SimilarUsers.get().neighbors(s.getId())).get(u.getId()), is(1.0));
+    }
+
+    @Test
+    public void lajkObjaveKojuSusedNijeLajkovao_menjaISusedovSkor() {
+        User u = newUser("u4@ex.com");
+        User v = newUser("v4@ex.com");
+        Post p1 = newPost(v.getId());
+        Post p2 = newPost(v.getId());
+        postService.likePost(u.getId(), p1.getId());
+        postService.likePost(v.getId(), p1.getId());
+        assertThat(scores(SimilarUsers.get().neighbors(v.getId())).get(u.getId()), is(1.0));
+
+        // v nije lajkovao p2, ali u sada ima 2 lajka -> Jaccard(v, u) = 1/2
+        postService.likePost(u.getId(), p2.getId());
+        assertThat(scores(SimilarUsers.get().neighbors(v.getId())).get(u.getId()), is(0.5));
+    }
+
+    @Test
+    public void bezZajednickihLajkova_nemaSuseda() {
+        User u = newUser("u2@ex.com");
+        User s = newUser("s2@ex.com");
+        Post p1 = newPost(s.getId());
+        Post p2 = newPost(s.getId());
+        postService.likePost(u.getId(), p1.getId());
+        postService.likePost(s.getId(), p2.getId());
+
+        assertThat(SimilarUsers.get().neighbors(u.getId()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void tabela_zamenaSuseda() {
+        User u = newUser("u3@ex.com");
+        User a = newUser("a3@ex.com");
+        User b = newUser("b3@ex.com");
+        SimilarityRepository repo = new SimilarityRepository();
+
+        repo.replace(u.getId(), Arrays.asList(new SimilarUser(u.getId(), a.getId(), 0.9),
+                                              new SimilarUser(u.getId(), b.getId(), 0.6)));
+        assertThat(repo.findByUser(u.getId()).size(), is(2));
+        assertThat(repo.findByUser(u.getId()).get(0).getOtherUserId(), is(a.getId()));
+
+        repo.replace(u.getId(), Collections.singletonList(new SimilarUser(u.getId(), b.getId(), 0.7)));
+        assertThat(scores(repo.findByUser(u.getId())), is(Collections.singletonMap(b.getId(), 0.7)));
+    }
+}
@@ -0,0 +1,99 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import util.SingleFlight;
+
+public class SingleFlightTest {
+
+    private final AtomicInteger computed = new AtomicInteger();
+
+    @Test
+    public void istovremeniPozivi_deleJednoIzracunavanje() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>(0);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> flight.execute("u|20", () -> {
+                    computed.incrementAndGet();
+                    try { release.await(); } catch (InterruptedException e) { throw new IllegalStateException(e); }
+                    return new Object();
+                })));
+            }
+            // svi osim prvog moraju da se priključe pre nego što račun završi
+            for (int i = 0; i < 500 && (Long) flight.stats().get("joinedInFlight") < 7; i++) Thread.sleep(10);
+            release.countDown();
+
+            Object first = results.get(0).get();
+            for (Future<Object> f : results) assertThat(f.get(), is(sameInstance(first)));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(computed.get(), is(1));
+        assertThat(flight.stats().get("coalesced"), is((Object) 7L));
+        assertThat(flight.stats().get("keys"), is((Object) 0));
+    }
+
+    @Test
+    public void drugiKljuc_posebnoIzracunavanje() {
+        SingleFlight<String, Object> flight = new SingleFlight<>(60000);
+        Object a = flight.execute("u|20", this::compute);
+        Object b = flight.execute("u|10", this::compute);
+        assertThat(a == b, is(false));
+        assertThat(computed.get(), is(2));
+    }
+
+    @Test
+    public void prozor_deliZavrsenRezultat_doForget() {
+        SingleFlight<String, Object> flight = new SingleFlight<>(60000);
+        Object first = flight.execute("u|20", this::compute);
+        assertThat(flight.execute("u|20", this::compute), is(sameInstance(first)));
+        assertThat(flight.stats().get("joinedWindow"), is((Object) 1L));
+
+        flight.forget(k -> k.startsWith("u|"));
+        flight.execute("u|20", this::compute);
+        assertThat(computed.get(), is(2));
+    }
+
+    @Test
+    public void bezProzora_sledeciPozivRacunaPonovo() {
+        SingleFlight<String, Object> flight = new SingleFlight<>(0);
+        flight.execute("u|20", this::compute);
+        flight.execute("u|20", this::compute);
+        assertThat(computed.get(), is(2));
+    }
+
+    @Test
+    public void greska_seNePamti() {
+        SingleFlight<String, Object> flight = new SingleFlight<>(60000);
+        try {
+            flight.execute("u|20", () -> { throw new IllegalArgumentException("boom"); });
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertThat(expected.getMessage(), is("boom"));
+        }
+        flight.execute("u|20", this::compute);
+        assertThat(computed.get(), is(1));
+        assertThat(flight.stats().get("failures"), is((Object) 1L));
+    }
+
+    private Object compute() {
+        computed.incrementAndGet();
+        return new Object();
+    }
+}
@@ -0,0 +1,81 @@
+package primeri;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+/** HttpExchange bez mreže: zahtev se zada u konstruktoru, odgovor se skuplja u memoriji. */
+class StubExchange extends HttpExchange {
+
+    private final String method;
+    private final URI uri;
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    volatile int status = -1;
+    volatile long length;
+
+    StubExchange(String method, String path) {
+        this.method = method;
+        this.uri = URI.create(path);
+    }
+
+    StubExchange header(String name, String value) {
+        requestHeaders.add(name, value);
+        return this;
+    }
+
+    boolean awaitClose(long ms) throws InterruptedException {
+        return closed.await(ms, TimeUnit.MILLISECONDS);
+    }
+
+    boolean isClosed() {
+        return closed.getCount() == 0;
+    }
+
+    @Override public void sendResponseHeaders(int code, long len) {
+        if (status != -1) throw new IllegalStateException("headers already sent");
+        status = code;
+        length = len;
+    }
+
+    @Override public OutputStream getResponseBody() {
+        return new OutputStream() {
+            @Override public void write(int b) { body.write(b); }
+            @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); }
+            @Override public void close() { closed.countDown(); }
+        };
+    }
+
+    @Override public void close() { closed.countDown(); }
+
+    @Override public Headers getRequestHeaders() { return requestHeaders; }
+    @Override public Headers getResponseHeaders() { return responseHeaders; }
+    @Override public URI getRequestURI() { return uri; }
+    @Override public String getRequestMethod() { return method; }
+    @Override public HttpContext getHttpContext() { return null; }
+    @Override public InputStream getRequestBody() { return new ByteArrayInputStream(new byte[0]); }
+    @Override public int getResponseCode() { return status; }
+    @Override public InetSocketAddress getRemoteAddress() { return new InetSocketAddress("127.0.0.1", 40000); }
+    @Override public InetSocketAddress getLocalAddress() { return new InetSocketAddress("127.0.0.1", 8080); }
+    @Override public String getProtocol() { return "HTTP/1.1"; }
+    @Override public Object getAttribute(String name) { return attributes.get(name); }
+    @Override public void setAttribute(String name, Object value) { attributes.put(name, value); }
+    @Override public void setStreams(InputStream i, OutputStream o) { }
+    @Override public HttpPrincipal getPrincipal() { return null; }
+}
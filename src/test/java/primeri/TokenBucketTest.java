@@ -0,0 +1,74 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import http.TokenBucket;
+
+public class TokenBucketTest {
+
+    private static final long SEC = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void punBucket_propustaBurstPaOdbija() {
+        TokenBucket b = new TokenBucket(1, 5);
+        long now = 1_000 * SEC;
+        for (int i = 0; i < 5; i++) assertThat(b.tryAcquire(now), is(0L));
+
+        long wait = b.tryAcquire(now);
+        assertThat(wait, is(SEC));
+    }
+
+    @Test
+    public void posleCekanja_tokenSeVraca() {
+        TokenBucket b = new TokenBucket(2, 1);
+        long now = 5 * SEC;
+        assertThat(b.tryAcquire(now), is(0L));
+        long wait = b.tryAcquire(now);
+        assertThat(wait, is(SEC / 2));
+
+        assertThat(b.tryAcquire(now + wait), is(0L));
+        assertThat(b.isFull(now + wait), is(false));
+        assertThat(b.isFull(now + wait + SEC / 2), is(true));
+    }
+
+    @Test
+    public void vracenToken_mozeOpet() {
+        TokenBucket b = new TokenBucket(1, 2);
+        long now = 7 * SEC;
+        assertThat(b.tryAcquire(now), is(0L));
+        assertThat(b.tryAcquire(now), is(0L));
+        b.refund();
+        assertThat(b.tryAcquire(now), is(0L));
+        assertThat(b.tryAcquire(now), is(SEC));
+    }
+
+    @Test
+    public void paralelno_neDajeViseOdBursta() throws Exception {
+        TokenBucket b = new TokenBucket(1, 50);
+        long now = 42 * SEC;
+        AtomicInteger ok = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread th = new Thread(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                for (int i = 0; i < 100; i++) if (b.tryAcquire(now) == 0) ok.incrementAndGet();
+            });
+            th.start();
+            threads.add(th);
+        }
+        start.countDown();
+        for (Thread th : threads) th.join();
+
+        assertThat(ok.get(), is(50));
+    }
+}
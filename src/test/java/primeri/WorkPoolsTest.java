@@ -0,0 +1,138 @@
+package primeri;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import config.HttpConfig;
+import http.WorkPools;
+
+public class WorkPoolsTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void unblock() {
+        release.countDown();
+    }
+
+    private static WorkPools pools() {
+        Properties p = new Properties();
+        p.setProperty("http.executor", "platform");
+        p.setProperty("http.pool.acceptThreads", "1");
+        p.setProperty("http.pool.acceptQueue", "1");
+        p.setProperty("http.pool.light.threads", "2");
+        p.setProperty("http.pool.light.queue", "10");
+        p.setProperty("http.pool.heavy.threads", "1");
+        p.setProperty("http.pool.heavy.queue", "1");
+        p.setProperty("http.pool.heavyPaths", "/api/feed/");
+        p.setProperty("http.pool.retryAfterSec", "7");
+        return new WorkPools(HttpConfig.from(p), WorkPools.PLATFORM);
+    }
+
+    private static void ok(HttpExchange ex) throws IOException {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+        ex.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void punHeavy_503SaRetryAfter_lightRadi() throws Exception {
+        WorkPools pools = pools();
+        CountDownLatch started = new CountDownLatch(1);
+        HttpHandler heavy = pools.dispatch("/api/feed/recommended", ex -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ok(ex);
+        });
+        HttpHandler light = pools.dispatch("/api/health", WorkPoolsTest::ok);
+
+        StubExchange running = new StubExchange("GET", "/api/feed/recommended");
+        heavy.handle(running);
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+        StubExchange queued = new StubExchange("GET", "/api/feed/recommended");
+        heavy.handle(queued);
+
+        // jedina heavy nit radi, red (1) je pun: odbija se odmah, na niti pozivaoca
+        StubExchange busy = new StubExchange("GET", "/api/feed/recommended");
+        heavy.handle(busy);
+        assertThat(busy.status, is(503));
+        assertThat(busy.getResponseHeaders().getFirst("Retry-After"), is("7"));
+        assertThat(new String(busy.body.toByteArray(), StandardCharsets.UTF_8), is("{\"error\":\"server busy\"}"));
+        assertThat(busy.isClosed(), is(true));
+
+        StubExchange health = new StubExchange("GET", "/api/health");
+        light.handle(health);
+        assertThat(health.awaitClose(5000), is(true));
+        assertThat(health.status, is(200));
+
+        Map<String, Object> h = (Map<String, Object>) pools.stats().get("heavy");
+        assertThat(h.get("active"), is((Object) 1));
+        assertThat(h.get("queued"), is((Object) 1));
+        assertThat(h.get("queueCapacity"), is((Object) 1));
+        assertThat(h.get("rejected"), is((Object) 1L));
+        Map<String, Object> l = (Map<String, Object>) pools.stats().get("light");
+        assertThat(l.get("rejected"), is((Object) 0L));
+
+        release.countDown();
+        assertThat(running.awaitClose(5000), is(true));
+        assertThat(queued.awaitClose(5000), is(true));
+        assertThat(queued.status, is(200));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void punAccept_sheddingOdbija_obicanIzvrsavaNaPozivaocu() throws Exception {
+        WorkPools pools = pools();
+        CountDownLatch started = new CountDownLatch(1);
+        Executor accept = pools.acceptExecutor();
+        accept.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+        accept.execute(() -> { });   // popunjava red
+
+        try {
+            pools.sheddingAcceptExecutor().execute(() -> fail("must not run"));
+            fail("RejectedExecutionException expected");
+        } catch (RejectedExecutionException expected) {
+            // NioTransport odgovara 503
+        }
+
+        // HttpServer dispatcher: zadatak izvršava pozivalac
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        accept.execute(() -> ranOn.set(Thread.currentThread()));
+        assertThat(ranOn.get(), is(Thread.currentThread()));
+
+        Map<String, Object> a = (Map<String, Object>) pools.stats().get("accept");
+        assertThat(a.get("overflow"), is((Object) 2L));
+    }
+}